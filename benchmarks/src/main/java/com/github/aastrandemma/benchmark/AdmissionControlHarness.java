@@ -0,0 +1,100 @@
+package com.github.aastrandemma.benchmark;
+
+import com.github.aastrandemma.dao.TodoItemsDao;
+import com.github.aastrandemma.dao.db.AdmissionControlDataSource;
+import com.github.aastrandemma.dao.db.AimdConcurrencyLimiter;
+import com.github.aastrandemma.dao.db.CancellableDataSource;
+import com.github.aastrandemma.dao.db.ConnectionPool;
+import com.github.aastrandemma.dao.db.QueryTimeouts;
+import com.github.aastrandemma.dao.impl.TodoItemsDaoImpl;
+import com.github.aastrandemma.exception.AdmissionRejectedException;
+import com.github.aastrandemma.exception.QueryTimeoutException;
+
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Open-loop load against a stand-in database with injected latency. The service time rises tenfold for a few
+// seconds and then recovers. The run is repeated with the DAO used as is, and with per-method timeouts plus
+// admission control in front of the pool. Latency counts from each request's scheduled start, so queueing in the
+// client shows up as well. Not a JMH benchmark, run it with
+// java -cp benchmarks/target/benchmarks.jar com.github.aastrandemma.benchmark.AdmissionControlHarness
+public final class AdmissionControlHarness {
+    private static final int TODO_COUNT = 10_000;
+    private static final int REQUESTS_PER_SECOND = 1000;
+    private static final int DATABASE_WORKERS = 8;
+    private static final long NORMAL_SERVICE_MILLIS = 4;
+    private static final long BROWNOUT_SERVICE_MILLIS = 40;
+    private static final long[] PHASE_SECONDS = {2, 3, 3};
+    private static final int CLIENT_THREADS = 256;
+
+    private AdmissionControlHarness() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        EmbeddedDatabase.reset(1000, TODO_COUNT);
+        ConnectionPool pool = EmbeddedDatabase.getDataSource();
+        LatencyInjectingDataSource database = new LatencyInjectingDataSource(pool, DATABASE_WORKERS, NORMAL_SERVICE_MILLIS, TimeUnit.MILLISECONDS);
+
+        System.out.println(run("unguarded", new TodoItemsDaoImpl(database), database));
+
+        AimdConcurrencyLimiter limiter = new AimdConcurrencyLimiter(DATABASE_WORKERS, 2, pool.getConfig().getMaxSize(), 20, TimeUnit.MILLISECONDS);
+        TodoItemsDao guardedDao = new TodoItemsDaoImpl(new AdmissionControlDataSource(new CancellableDataSource(database), limiter));
+        TodoItemsDao guarded = new QueryTimeouts(100, TimeUnit.MILLISECONDS).wrap(TodoItemsDao.class, guardedDao);
+        System.out.println(run("guarded", guarded, database) + ", " + limiter);
+        System.exit(0);
+    }
+
+    private static String run(String name, TodoItemsDao todoItemsDao, LatencyInjectingDataSource database) throws InterruptedException {
+        long totalSeconds = Arrays.stream(PHASE_SECONDS).sum();
+        int requestCount = (int) (totalSeconds * REQUESTS_PER_SECOND);
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / REQUESTS_PER_SECOND;
+        long[] latencies = new long[requestCount];
+        AtomicInteger succeeded = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        AtomicInteger timedOut = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        ExecutorService clients = Executors.newFixedThreadPool(CLIENT_THREADS);
+        long start = System.nanoTime();
+        for (int i = 0; i < requestCount; i++) {
+            long scheduled = start + i * intervalNanos;
+            long phaseSecond = TimeUnit.NANOSECONDS.toSeconds(scheduled - start);
+            boolean brownout = phaseSecond >= PHASE_SECONDS[0] && phaseSecond < PHASE_SECONDS[0] + PHASE_SECONDS[1];
+            database.setServiceTime(brownout ? BROWNOUT_SERVICE_MILLIS : NORMAL_SERVICE_MILLIS, TimeUnit.MILLISECONDS);
+            long wait = scheduled - System.nanoTime();
+            if (wait > 0) {
+                TimeUnit.NANOSECONDS.sleep(wait);
+            }
+            int request = i;
+            clients.execute(() -> {
+                try {
+                    todoItemsDao.findById(1 + ThreadLocalRandom.current().nextInt(TODO_COUNT));
+                    succeeded.incrementAndGet();
+                } catch (AdmissionRejectedException e) {
+                    rejected.incrementAndGet();
+                } catch (QueryTimeoutException e) {
+                    timedOut.incrementAndGet();
+                } catch (RuntimeException e) {
+                    failed.incrementAndGet();
+                }
+                latencies[request] = System.nanoTime() - scheduled;
+            });
+        }
+        clients.shutdown();
+        clients.awaitTermination(10, TimeUnit.MINUTES);
+        database.setServiceTime(NORMAL_SERVICE_MILLIS, TimeUnit.MILLISECONDS);
+        Arrays.sort(latencies);
+        return name + ": " + requestCount + " requests, succeeded: " + succeeded + ", rejected: " + rejected
+                + ", timed out: " + timedOut + ", failed: " + failed + ", latency ms p50: " + millis(latencies, 0.5)
+                + ", p99: " + millis(latencies, 0.99) + ", p99.9: " + millis(latencies, 0.999)
+                + ", max: " + millis(latencies, 1.0);
+    }
+
+    private static String millis(long[] sortedLatencies, double quantile) {
+        int index = (int) Math.min(sortedLatencies.length - 1, Math.ceil(quantile * sortedLatencies.length) - 1);
+        return String.format("%.1f", sortedLatencies[Math.max(0, index)] / 1_000_000.0);
+    }
+}
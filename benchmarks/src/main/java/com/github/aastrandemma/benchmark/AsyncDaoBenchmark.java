@@ -0,0 +1,107 @@
+package com.github.aastrandemma.benchmark;
+
+import com.github.aastrandemma.dao.AsyncTodoItemsDao;
+import com.github.aastrandemma.dao.TodoItemsDao;
+import com.github.aastrandemma.dao.async.AsyncDaoExecutor;
+import com.github.aastrandemma.dao.async.AsyncTodoItemsDaoImpl;
+import com.github.aastrandemma.dao.impl.TodoItemsDaoImpl;
+import com.github.aastrandemma.model.Todo;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// 10k callers each needing one findById at the same moment. The blocking API needs a handler thread per caller
+// that's in flight, the async API serves all of them from one issuing thread plus a worker per pooled connection
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AsyncDaoBenchmark {
+    private static final int PEOPLE_COUNT = 1000;
+    private static final int TODO_COUNT = 100_000;
+    private static final int CALLERS = 10_000;
+
+    // Request handler threads for the blocking API, a typical server pool and one thread per caller
+    @Param({"200", "10000"})
+    public int handlerThreads;
+
+    private TodoItemsDao todoItemsDao;
+    private AsyncTodoItemsDao asyncTodoItemsDao;
+    private AsyncDaoExecutor asyncDaoExecutor;
+    private ExecutorService handlers;
+
+    @Setup(Level.Trial)
+    public void seed() {
+        EmbeddedDatabase.reset(PEOPLE_COUNT, TODO_COUNT);
+        todoItemsDao = TodoItemsDaoImpl.getInstance(EmbeddedDatabase.getDataSource());
+        asyncDaoExecutor = new AsyncDaoExecutor(EmbeddedDatabase.getDataSource().getConfig().getMaxSize());
+        asyncTodoItemsDao = new AsyncTodoItemsDaoImpl(todoItemsDao, asyncDaoExecutor);
+        handlers = Executors.newFixedThreadPool(handlerThreads);
+        // Start every handler thread up front so the blocking runs don't pay for thread creation
+        CountDownLatch started = new CountDownLatch(handlerThreads);
+        for (int i = 0; i < handlerThreads; i++) {
+            handlers.execute(started::countDown);
+        }
+        try {
+            started.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void shutdown() {
+        handlers.shutdownNow();
+        asyncDaoExecutor.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CALLERS)
+    public void blocking() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(CALLERS);
+        for (int i = 0; i < CALLERS; i++) {
+            handlers.execute(() -> {
+                try {
+                    todoItemsDao.findById(randomTodoId());
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        done.await();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CALLERS)
+    public void async() {
+        CompletableFuture<?>[] calls = new CompletableFuture<?>[CALLERS];
+        for (int i = 0; i < CALLERS; i++) {
+            calls[i] = asyncTodoItemsDao.findById(randomTodoId());
+        }
+        CompletableFuture.allOf(calls).join();
+    }
+
+    private static int randomTodoId() {
+        return 1 + ThreadLocalRandom.current().nextInt(TODO_COUNT);
+    }
+}
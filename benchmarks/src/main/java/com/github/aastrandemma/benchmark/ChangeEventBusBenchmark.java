@@ -0,0 +1,75 @@
+package com.github.aastrandemma.benchmark;
+
+import com.github.aastrandemma.dao.events.ChangeEventBus;
+import com.github.aastrandemma.dao.events.ChangeSubscription;
+import com.github.aastrandemma.dao.events.ChangeType;
+import com.github.aastrandemma.dao.events.EntityType;
+import com.github.aastrandemma.model.Todo;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Publish throughput of the in-process change feed, with subscribers that only count. Publishers block when the
+// ring is full, so the score is bounded by the slowest subscriber, not by how fast events can be dropped
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ChangeEventBusBenchmark {
+    private static final Todo BEFORE = new Todo(1, "Before", "Description", null, false);
+    private static final Todo AFTER = new Todo(1, "After", "Description", null, true);
+
+    @Param({"1024", "65536"})
+    public int capacity;
+
+    @Param({"1", "4"})
+    public int subscriberCount;
+
+    private ChangeEventBus bus;
+    private final List<ChangeSubscription> subscriptions = new ArrayList<>();
+    private final long[] handled = new long[8];
+
+    @Setup(Level.Trial)
+    public void start() {
+        bus = new ChangeEventBus(capacity);
+        for (int i = 0; i < subscriberCount; i++) {
+            int subscriber = i;
+            subscriptions.add(bus.subscribe("benchmark-" + i, (event, endOfBatch) -> handled[subscriber]++));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        bus.close();
+        subscriptions.clear();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void publishSingleProducer() {
+        bus.publish(EntityType.TODO, ChangeType.UPDATED, 1, BEFORE, AFTER);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void publishFourProducers() {
+        bus.publish(EntityType.TODO, ChangeType.UPDATED, 1, BEFORE, AFTER);
+    }
+}
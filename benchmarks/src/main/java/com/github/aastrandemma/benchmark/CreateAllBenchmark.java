@@ -0,0 +1,79 @@
+package com.github.aastrandemma.benchmark;
+
+import com.github.aastrandemma.dao.TodoItemsDao;
+import com.github.aastrandemma.dao.impl.TodoItemsDaoImpl;
+import com.github.aastrandemma.model.Todo;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.sql.DataSource;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Rows per second inserted by createAll for the same number of rows split into batches of batchSize. The
+// embedded database answers in microseconds, roundTripMicros adds the network round trip a MySQL server would cost
+// per executed statement or batch
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CreateAllBenchmark {
+    private static final int PEOPLE_COUNT = 1000;
+    private static final int ROWS_PER_INVOCATION = 10_000;
+
+    @Param({"1", "10", "100", "1000", "10000"})
+    public int batchSize;
+
+    @Param({"0", "200"})
+    public int roundTripMicros;
+
+    private TodoItemsDao todoItemsDao;
+    private List<Todo> todos;
+
+    @Setup(Level.Trial)
+    public void createDao() {
+        DataSource dataSource = EmbeddedDatabase.getDataSource();
+        if (roundTripMicros > 0) {
+            dataSource = new LatencyInjectingDataSource(dataSource, 1, roundTripMicros, TimeUnit.MICROSECONDS);
+        }
+        todoItemsDao = new TodoItemsDaoImpl(dataSource);
+    }
+
+    // Start every iteration from an empty todo_item table so index growth doesn't skew later iterations
+    @Setup(Level.Iteration)
+    public void seed() {
+        EmbeddedDatabase.reset(PEOPLE_COUNT, 0);
+    }
+
+    // createAll assigns ids to the todos it inserts, so every invocation needs new instances
+    @Setup(Level.Invocation)
+    public void buildTodos() {
+        LocalDate deadline = LocalDate.of(2026, 1, 1);
+        todos = new ArrayList<>(ROWS_PER_INVOCATION);
+        for (int i = 0; i < ROWS_PER_INVOCATION; i++) {
+            todos.add(new Todo("Todo " + i, "Created by CreateAllBenchmark", deadline.plusDays(i % 365), null));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS_PER_INVOCATION)
+    public Collection<Todo> createAll() {
+        return todoItemsDao.createAll(todos, batchSize);
+    }
+}
@@ -0,0 +1,110 @@
+package com.github.aastrandemma.benchmark;
+
+import com.github.aastrandemma.dao.PeopleDao;
+import com.github.aastrandemma.dao.TodoItemsDao;
+import com.github.aastrandemma.dao.impl.PeopleDaoImpl;
+import com.github.aastrandemma.dao.impl.TodoItemsDaoImpl;
+import com.github.aastrandemma.model.Todo;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Throughput plus SampleTime for latency percentiles, add -prof gc for allocation rates
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public abstract class DaoBenchmark {
+    private static final int PEOPLE_COUNT = 1000;
+
+    @Param({"1000", "100000", "1000000"})
+    public int todoCount;
+
+    protected TodoItemsDao todoItemsDao;
+    protected PeopleDao peopleDao;
+
+    // Shared with ThreadState, which can't inject the abstract benchmark class
+    private static volatile int seededTodoCount;
+
+    @Setup(Level.Trial)
+    public void seed() {
+        EmbeddedDatabase.reset(PEOPLE_COUNT, todoCount);
+        seededTodoCount = todoCount;
+        todoItemsDao = TodoItemsDaoImpl.getInstance(EmbeddedDatabase.getDataSource());
+        peopleDao = PeopleDaoImpl.getInstance(EmbeddedDatabase.getDataSource());
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadState {
+        private final TodoItemsDao todoItemsDao = TodoItemsDaoImpl.getInstance(EmbeddedDatabase.getDataSource());
+        Todo loaded;
+        int createdId;
+
+        @Setup(Level.Iteration)
+        public void load() {
+            loaded = todoItemsDao.findById(1 + ThreadLocalRandom.current().nextInt(seededTodoCount));
+        }
+
+        @Setup(Level.Invocation)
+        public void createDeletable() {
+            createdId = todoItemsDao.create(new Todo("Deletable", LocalDate.now(), null)).getId();
+        }
+    }
+
+    @Benchmark
+    public Todo create() {
+        return todoItemsDao.create(new Todo("Benchmark todo", "Created by the benchmark", LocalDate.now(), null));
+    }
+
+    @Benchmark
+    public Todo findById() {
+        return todoItemsDao.findById(randomTodoId());
+    }
+
+    @Benchmark
+    public Collection<Todo> findAll() {
+        return todoItemsDao.findAll();
+    }
+
+    @Benchmark
+    public Collection<Todo> findByAssignee() {
+        return todoItemsDao.findByAssignee(1 + ThreadLocalRandom.current().nextInt(PEOPLE_COUNT));
+    }
+
+    @Benchmark
+    public Collection<Todo> findByDoneStatus() {
+        return todoItemsDao.findByDoneStatus(ThreadLocalRandom.current().nextBoolean());
+    }
+
+    // Flips done every call so the dirty-field tracking always issues a statement
+    @Benchmark
+    public Todo update(ThreadState state) {
+        state.loaded.setDone(!state.loaded.isDone());
+        return todoItemsDao.update(state.loaded);
+    }
+
+    @Benchmark
+    public boolean deleteById(ThreadState state) {
+        return todoItemsDao.deleteById(state.createdId);
+    }
+
+    private int randomTodoId() {
+        return 1 + ThreadLocalRandom.current().nextInt(todoCount);
+    }
+}
@@ -0,0 +1,117 @@
+package com.github.aastrandemma.benchmark;
+
+import com.github.aastrandemma.dao.db.ConnectionPool;
+import com.github.aastrandemma.dao.db.ConnectionPoolConfig;
+import com.github.aastrandemma.dao.db.DBConnectionManager;
+import com.github.aastrandemma.exception.DBConnectionException;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+
+// In-memory H2 databases in MySQL mode with the todo_it schema. The default database is todo_it, further named
+// ones can stand in for replicas
+public final class EmbeddedDatabase {
+    private static final String DEFAULT_DATABASE = "todo_it";
+    private static final String JDBC_URL_FORMAT = "jdbc:h2:mem:%s;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+    // Mirrors scripts/todo_it_db.sql except for the FULLTEXT index, H2 has no MATCH ... AGAINST so
+    // TodoItemsDao.search() falls back to its in-process index here
+    private static final String[] SCHEMA = {
+            "DROP ALL OBJECTS",
+            "CREATE TABLE person ("
+                    + "person_id INT NOT NULL AUTO_INCREMENT, "
+                    + "first_name VARCHAR(255) NULL, "
+                    + "last_name VARCHAR(255) NULL, "
+                    + "PRIMARY KEY (person_id))",
+            "CREATE TABLE todo_item ("
+                    + "todo_id INT NOT NULL AUTO_INCREMENT, "
+                    + "title VARCHAR(50) NULL, "
+                    + "description VARCHAR(1000) NULL, "
+                    + "deadline DATE NULL, "
+                    + "done TINYINT NULL DEFAULT 0, "
+                    + "assignee_id INT NULL, "
+                    + "PRIMARY KEY (todo_id), "
+                    + "CONSTRAINT fk_todo_item_person FOREIGN KEY (assignee_id) REFERENCES person (person_id))",
+            "CREATE INDEX fk_todo_item_person_idx ON todo_item (assignee_id, todo_id)",
+            "CREATE INDEX idx_todo_item_done_todo_id ON todo_item (done, todo_id)",
+            "CREATE INDEX idx_todo_item_assignee_done_deadline ON todo_item (assignee_id, done, deadline)",
+            "CREATE INDEX idx_todo_item_done_deadline ON todo_item (done, deadline)"
+    };
+    private static final int SEED_BATCH_SIZE = 5000;
+    private static final Map<String, ConnectionPool> CONNECTION_POOLS = new HashMap<>();
+
+    private EmbeddedDatabase() {
+    }
+
+    public static ConnectionPool getDataSource() {
+        return getDataSource(DEFAULT_DATABASE);
+    }
+
+    public static synchronized ConnectionPool getDataSource(String databaseName) {
+        return CONNECTION_POOLS.computeIfAbsent(databaseName, name -> DBConnectionManager.createConnectionPool(poolConfig(name)));
+    }
+
+    // Pool config for a named database, for building data sources such as a ReplicaRoutingDataSource around it
+    public static ConnectionPoolConfig poolConfig(String databaseName) {
+        ConnectionPoolConfig config = new ConnectionPoolConfig(String.format(JDBC_URL_FORMAT, databaseName), "sa", "");
+        config.setMaxSize(Math.max(16, Runtime.getRuntime().availableProcessors() * 2));
+        return config;
+    }
+
+    public static void reset(int peopleCount, int todoCount) {
+        reset(DEFAULT_DATABASE, peopleCount, todoCount);
+    }
+
+    // Recreates the schema and seeds peopleCount people and todoCount todo items, every third one unassigned
+    public static void reset(String databaseName, int peopleCount, int todoCount) {
+        try (Connection connection = getDataSource(databaseName).getConnection()) {
+            try (Statement statement = connection.createStatement()) {
+                for (String ddl : SCHEMA) {
+                    statement.execute(ddl);
+                }
+            }
+            connection.setAutoCommit(false);
+            try (PreparedStatement preparedStatement = connection.prepareStatement(
+                    "INSERT INTO person (first_name, last_name) VALUES (?, ?)")) {
+                for (int i = 1; i <= peopleCount; i++) {
+                    preparedStatement.setString(1, "First" + i);
+                    preparedStatement.setString(2, "Last" + i);
+                    preparedStatement.addBatch();
+                    if (i % SEED_BATCH_SIZE == 0) {
+                        preparedStatement.executeBatch();
+                    }
+                }
+                preparedStatement.executeBatch();
+            }
+            LocalDate today = LocalDate.now();
+            try (PreparedStatement preparedStatement = connection.prepareStatement(
+                    "INSERT INTO todo_item (title, description, deadline, done, assignee_id) VALUES (?, ?, ?, ?, ?)")) {
+                for (int i = 1; i <= todoCount; i++) {
+                    preparedStatement.setString(1, "Todo " + i);
+                    preparedStatement.setString(2, "Description of todo item number " + i);
+                    preparedStatement.setDate(3, Date.valueOf(today.plusDays(i % 60 - 30)));
+                    preparedStatement.setBoolean(4, i % 2 == 0);
+                    if (i % 3 == 0 || peopleCount == 0) {
+                        preparedStatement.setNull(5, Types.INTEGER);
+                    } else {
+                        preparedStatement.setInt(5, 1 + i % peopleCount);
+                    }
+                    preparedStatement.addBatch();
+                    if (i % SEED_BATCH_SIZE == 0) {
+                        preparedStatement.executeBatch();
+                    }
+                }
+                preparedStatement.executeBatch();
+            }
+            connection.commit();
+        } catch (SQLException e) {
+            throw new DBConnectionException("Failed to seed embedded database, ", e);
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.github.aastrandemma.benchmark;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+// Makes the embedded database behave like a server with a fixed number of workers: every statement waits for a
+// worker and holds it for the service time before it runs. Raising the service time at runtime simulates a
+// brownout. Statement.cancel() ends the wait like a server-side KILL QUERY would
+public class LatencyInjectingDataSource implements DataSource {
+    private final DataSource target;
+    private final Semaphore workers;
+    private volatile long serviceNanos;
+
+    public LatencyInjectingDataSource(DataSource target, int workerCount, long serviceTime, TimeUnit unit) {
+        this.target = target;
+        this.workers = new Semaphore(workerCount, true);
+        this.serviceNanos = unit.toNanos(serviceTime);
+    }
+
+    public void setServiceTime(long serviceTime, TimeUnit unit) {
+        this.serviceNanos = unit.toNanos(serviceTime);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        Connection connection = target.getConnection();
+        return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    Object result = invoke(connection, method, args);
+                    return result instanceof Statement ? wrapStatement((Statement) result) : result;
+                });
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException("Credentials are fixed by the target data source.");
+    }
+
+    private Statement wrapStatement(Statement statement) {
+        Class<?> statementInterface = statement instanceof CallableStatement ? CallableStatement.class
+                : statement instanceof PreparedStatement ? PreparedStatement.class : Statement.class;
+        CountDownLatch cancelled = new CountDownLatch(1);
+        return (Statement) Proxy.newProxyInstance(
+                Statement.class.getClassLoader(),
+                new Class<?>[]{statementInterface},
+                (proxy, method, args) -> {
+                    String name = method.getName();
+                    if (name.equals("cancel")) {
+                        cancelled.countDown();
+                    } else if (name.startsWith("execute")) {
+                        serve(cancelled);
+                    }
+                    return invoke(statement, method, args);
+                });
+    }
+
+    private void serve(CountDownLatch cancelled) throws SQLException {
+        try {
+            while (!workers.tryAcquire(1, TimeUnit.MILLISECONDS)) {
+                if (cancelled.getCount() == 0) {
+                    throw new SQLTimeoutException("Statement cancelled while queued.");
+                }
+            }
+            try {
+                if (cancelled.await(serviceNanos, TimeUnit.NANOSECONDS)) {
+                    throw new SQLTimeoutException("Statement cancelled while running.");
+                }
+            } finally {
+                workers.release();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for the database.", e);
+        }
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    @Override
+    public PrintWriter getLogWriter() throws SQLException {
+        return target.getLogWriter();
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) throws SQLException {
+        target.setLogWriter(out);
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) throws SQLException {
+        target.setLoginTimeout(seconds);
+    }
+
+    @Override
+    public int getLoginTimeout() throws SQLException {
+        return target.getLoginTimeout();
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        throw new SQLFeatureNotSupportedException("Parent logger is not supported.");
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return iface.cast(this);
+        }
+        return target.unwrap(iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        return iface.isInstance(this) || target.isWrapperFor(iface);
+    }
+}
@@ -0,0 +1,7 @@
+package com.github.aastrandemma.benchmark;
+
+import org.openjdk.jmh.annotations.Threads;
+
+@Threads(8)
+public class MultiThreadDaoBenchmark extends DaoBenchmark {
+}
@@ -0,0 +1,7 @@
+package com.github.aastrandemma.benchmark;
+
+import org.openjdk.jmh.annotations.Threads;
+
+@Threads(1)
+public class SingleThreadDaoBenchmark extends DaoBenchmark {
+}
@@ -0,0 +1,92 @@
+package com.github.aastrandemma.benchmark;
+
+import com.github.aastrandemma.dao.PeopleDao;
+import com.github.aastrandemma.dao.TodoItemsDao;
+import com.github.aastrandemma.dao.batch.BatchLoader;
+import com.github.aastrandemma.dao.impl.PeopleDaoImpl;
+import com.github.aastrandemma.dao.impl.TodoItemsDaoImpl;
+import com.github.aastrandemma.model.Person;
+import com.github.aastrandemma.model.PersonWithTodos;
+import com.github.aastrandemma.model.Todo;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+// Building a team view person by person (1 + 2n queries) against the two-query graph fetch and the batch loaders
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TeamLoadBenchmark {
+    private static final int PEOPLE_COUNT = 1000;
+    private static final int TODO_COUNT = 100_000;
+
+    @Param({"10", "100", "1000"})
+    public int teamSize;
+
+    private PeopleDao peopleDao;
+    private TodoItemsDao todoItemsDao;
+    private List<Integer> team;
+
+    @Setup(Level.Trial)
+    public void seed() {
+        EmbeddedDatabase.reset(PEOPLE_COUNT, TODO_COUNT);
+        peopleDao = PeopleDaoImpl.getInstance(EmbeddedDatabase.getDataSource());
+        todoItemsDao = TodoItemsDaoImpl.getInstance(EmbeddedDatabase.getDataSource());
+        team = new ArrayList<>(teamSize);
+        for (int i = 0; i < teamSize; i++) {
+            team.add(1 + i * (PEOPLE_COUNT / teamSize));
+        }
+    }
+
+    @Benchmark
+    public List<PersonWithTodos> perPerson() {
+        List<PersonWithTodos> result = new ArrayList<>(team.size());
+        for (Integer personId : team) {
+            Person person = peopleDao.findById(personId);
+            Collection<Todo> todoItems = todoItemsDao.findByAssignee(person);
+            result.add(new PersonWithTodos(person, new ArrayList<>(todoItems)));
+        }
+        return result;
+    }
+
+    @Benchmark
+    public List<PersonWithTodos> graphFetch() {
+        return peopleDao.findWithTodos(team);
+    }
+
+    // Every person is looked up independently, the loaders merge the lookups into one query per side
+    @Benchmark
+    public List<PersonWithTodos> batchLoaders() {
+        BatchLoader<Integer, Person> people = BatchLoader.people(peopleDao);
+        BatchLoader<Integer, List<Todo>> todoItems = BatchLoader.todoItemsByAssignee(todoItemsDao);
+        List<CompletableFuture<PersonWithTodos>> futures = new ArrayList<>(team.size());
+        for (Integer personId : team) {
+            futures.add(people.load(personId).thenCombine(todoItems.load(personId), PersonWithTodos::new));
+        }
+        people.dispatch();
+        todoItems.dispatch();
+        List<PersonWithTodos> result = new ArrayList<>(futures.size());
+        for (CompletableFuture<PersonWithTodos> future : futures) {
+            result.add(future.join());
+        }
+        return result;
+    }
+}
@@ -34,7 +34,11 @@ CREATE TABLE IF NOT EXISTS `todo_it`.`todo_item` (
   `done` TINYINT NULL DEFAULT 0,
   `assignee_id` INT NULL,
   PRIMARY KEY (`todo_id`),
-  INDEX `fk_todo_item_person_idx` (`assignee_id` ASC) VISIBLE,
+  INDEX `fk_todo_item_person_idx` (`assignee_id` ASC, `todo_id` ASC) VISIBLE,
+  INDEX `idx_todo_item_done_todo_id` (`done` ASC, `todo_id` ASC) VISIBLE,
+  INDEX `idx_todo_item_assignee_done_deadline` (`assignee_id` ASC, `done` ASC, `deadline` ASC) VISIBLE,
+  INDEX `idx_todo_item_done_deadline` (`done` ASC, `deadline` ASC) VISIBLE,
+  FULLTEXT INDEX `ft_todo_item_title_description` (`title`, `description`) VISIBLE,
   CONSTRAINT `fk_todo_item_person`
     FOREIGN KEY (`assignee_id`)
     REFERENCES `todo_it`.`person` (`person_id`)
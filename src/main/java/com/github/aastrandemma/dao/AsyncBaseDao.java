@@ -0,0 +1,28 @@
+package com.github.aastrandemma.dao;
+
+import com.github.aastrandemma.model.SaveResult;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+// Non-blocking counterparts of the BaseDao methods. Cancelling a returned future cancels the statement it is running
+public interface AsyncBaseDao<T> {
+    CompletableFuture<T> create(T t);
+    CompletableFuture<Collection<T>> createAll(Collection<T> items, int batchSize);
+    CompletableFuture<Collection<T>> findAll();
+    CompletableFuture<T> findById(int id);
+    CompletableFuture<Map<Integer, T>> findByIds(Collection<Integer> ids);
+    CompletableFuture<T> update(T t);
+    CompletableFuture<Boolean> deleteById(int id);
+    CompletableFuture<SaveResult<T>> save(T t);
+    CompletableFuture<SaveResult<T>> saveAll(Collection<T> items, int batchSize);
+
+    default CompletableFuture<Collection<T>> createAll(Collection<T> items) {
+        return createAll(items, BaseDao.DEFAULT_BATCH_SIZE);
+    }
+
+    default CompletableFuture<SaveResult<T>> saveAll(Collection<T> items) {
+        return saveAll(items, BaseDao.DEFAULT_BATCH_SIZE);
+    }
+}
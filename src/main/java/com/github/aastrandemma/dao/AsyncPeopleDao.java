@@ -0,0 +1,17 @@
+package com.github.aastrandemma.dao;
+
+import com.github.aastrandemma.model.Page;
+import com.github.aastrandemma.model.Person;
+import com.github.aastrandemma.model.PersonWithTodos;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+public interface AsyncPeopleDao extends AsyncBaseDao<Person> {
+    CompletableFuture<Collection<Person>> findByName(String name);
+    CompletableFuture<List<PersonWithTodos>> findWithTodos(Collection<Integer> personIds);
+    CompletableFuture<Collection<Person>> search(String query, int limit);
+    CompletableFuture<Page<Person>> findPage(int afterPersonId, int limit);
+    CompletableFuture<Boolean> deletePerson(int personId, ReassignPolicy policy);
+}
@@ -0,0 +1,41 @@
+package com.github.aastrandemma.dao;
+
+import com.github.aastrandemma.model.Page;
+import com.github.aastrandemma.model.Todo;
+import com.github.aastrandemma.model.TodoSummary;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+// Streams have no async variant, they hold a connection for as long as the caller reads
+public interface AsyncTodoItemsDao extends AsyncBaseDao<Todo> {
+    CompletableFuture<Collection<Todo>> findByDoneStatus(boolean doneStatus);
+    CompletableFuture<Collection<Todo>> findByAssignee(int personId);
+    CompletableFuture<Collection<Todo>> findByUnassignedTodoItems();
+    CompletableFuture<Map<Integer, List<Todo>>> findByAssignees(Collection<Integer> personIds);
+
+    CompletableFuture<Collection<Todo>> findOverdue();
+    CompletableFuture<Collection<Todo>> findByDeadlineBetween(LocalDate from, LocalDate to);
+    CompletableFuture<Collection<Todo>> findDueWithin(int days);
+
+    CompletableFuture<Integer> deleteByIds(Collection<Integer> todoIds);
+    CompletableFuture<Integer> deleteByAssignee(int personId);
+    CompletableFuture<Integer> reassignAll(int fromPersonId, int toPersonId);
+    CompletableFuture<Integer> unassignAll(int personId);
+
+    CompletableFuture<Collection<TodoSummary>> findAllSummaries();
+    CompletableFuture<Collection<TodoSummary>> findSummariesByDoneStatus(boolean doneStatus);
+    CompletableFuture<Collection<TodoSummary>> findSummariesByAssignee(int personId);
+
+    CompletableFuture<Void> markDone(int todoId, boolean done);
+    CompletableFuture<Void> flush();
+
+    CompletableFuture<Page<Todo>> findPage(int afterTodoId, int limit);
+    CompletableFuture<Page<Todo>> findPageByDoneStatus(boolean doneStatus, int afterTodoId, int limit);
+    CompletableFuture<Page<Todo>> findPageByAssignee(int personId, int afterTodoId, int limit);
+
+    CompletableFuture<Collection<Todo>> search(String query, Boolean doneStatus, Integer assigneeId, int limit);
+}
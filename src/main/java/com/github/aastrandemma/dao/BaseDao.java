@@ -1,11 +1,32 @@
 package com.github.aastrandemma.dao;
 
+import com.github.aastrandemma.model.SaveResult;
+
 import java.util.Collection;
+import java.util.Map;
 
 public interface BaseDao<T> {
+    int DEFAULT_BATCH_SIZE = 1000;
+
     T create(T t);
+    Collection<T> createAll(Collection<T> items, int batchSize);
     Collection<T> findAll();
     T findById(int id);
+    // Keyed by id in requested order, ids without a row are left out. Long id lists are sent in chunked IN lists
+    Map<Integer, T> findByIds(Collection<Integer> ids);
     T update(T t);
     boolean deleteById(int id);
+
+    // Upserts, items without an id are inserted and get their generated id, the rest are inserted or overwritten by
+    // id. One transaction, each batch is a single statement
+    SaveResult<T> save(T t);
+    SaveResult<T> saveAll(Collection<T> items, int batchSize);
+
+    default Collection<T> createAll(Collection<T> items) {
+        return createAll(items, DEFAULT_BATCH_SIZE);
+    }
+
+    default SaveResult<T> saveAll(Collection<T> items) {
+        return saveAll(items, DEFAULT_BATCH_SIZE);
+    }
 }
\ No newline at end of file
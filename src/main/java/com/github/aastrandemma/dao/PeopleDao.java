@@ -1,9 +1,28 @@
 package com.github.aastrandemma.dao;
 
+import com.github.aastrandemma.model.Page;
 import com.github.aastrandemma.model.Person;
+import com.github.aastrandemma.model.PersonWithTodos;
 
 import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
 
 public interface PeopleDao extends BaseDao<Person> {
     Collection<Person> findByName(String name);
+
+    // People with their todo items in requested order, one person query and one todo query per 1000 ids
+    List<PersonWithTodos> findWithTodos(Collection<Integer> personIds);
+
+    // Ranked prefix and typo-tolerant search over first and last names
+    Collection<Person> search(String query, int limit);
+
+    // Keyset pagination ordered by person_id, pass 0 as afterPersonId for the first page
+    Page<Person> findPage(int afterPersonId, int limit);
+
+    // Lazily read from an open cursor ordered by person_id, holds a connection until closed
+    Stream<Person> streamAll();
+
+    // Hands off or deletes the person's todo items and deletes the person in one transaction
+    boolean deletePerson(int personId, ReassignPolicy policy);
 }
\ No newline at end of file
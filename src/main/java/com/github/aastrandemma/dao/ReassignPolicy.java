@@ -0,0 +1,47 @@
+package com.github.aastrandemma.dao;
+
+// What PeopleDao.deletePerson() does with the todo items assigned to the person being deleted
+public final class ReassignPolicy {
+    public enum Action {
+        UNASSIGN,
+        REASSIGN,
+        DELETE_TODOS
+    }
+
+    private static final ReassignPolicy UNASSIGN = new ReassignPolicy(Action.UNASSIGN, null);
+    private static final ReassignPolicy DELETE_TODOS = new ReassignPolicy(Action.DELETE_TODOS, null);
+
+    private final Action action;
+    private final Integer targetPersonId;
+
+    private ReassignPolicy(Action action, Integer targetPersonId) {
+        this.action = action;
+        this.targetPersonId = targetPersonId;
+    }
+
+    public static ReassignPolicy unassign() {
+        return UNASSIGN;
+    }
+
+    public static ReassignPolicy reassignTo(int personId) {
+        return new ReassignPolicy(Action.REASSIGN, personId);
+    }
+
+    public static ReassignPolicy deleteTodos() {
+        return DELETE_TODOS;
+    }
+
+    public Action getAction() {
+        return action;
+    }
+
+    // Only set for REASSIGN
+    public Integer getTargetPersonId() {
+        return targetPersonId;
+    }
+
+    @Override
+    public String toString() {
+        return "ReassignPolicy {action: " + action + ", targetPersonId: " + targetPersonId + "}";
+    }
+}
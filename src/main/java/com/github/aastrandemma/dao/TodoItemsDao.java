@@ -1,13 +1,56 @@
 package com.github.aastrandemma.dao;
 
+import com.github.aastrandemma.model.Page;
 import com.github.aastrandemma.model.Person;
 import com.github.aastrandemma.model.Todo;
+import com.github.aastrandemma.model.TodoSummary;
 
+import java.time.LocalDate;
 import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
 
 public interface TodoItemsDao extends BaseDao<Todo> {
     Collection<Todo> findByDoneStatus(boolean doneStatus);
     Collection<Todo> findByAssignee(int personId);
     Collection<Todo> findByAssignee(Person person);
     Collection<Todo> findByUnassignedTodoItems();
+    // Every requested person id is a key, with an empty list when nothing is assigned to them
+    Map<Integer, List<Todo>> findByAssignees(Collection<Integer> personIds);
+
+    // Ordered by deadline. Overdue and due-within only return open todos, the range is inclusive and
+    // ignores done status
+    Collection<Todo> findOverdue();
+    Collection<Todo> findByDeadlineBetween(LocalDate from, LocalDate to);
+    Collection<Todo> findDueWithin(int days);
+
+    // Set-based writes, each one transaction with a fixed number of statements. They return the affected row count
+    int deleteByIds(Collection<Integer> todoIds);
+    int deleteByAssignee(int personId);
+    int reassignAll(int fromPersonId, int toPersonId);
+    int unassignAll(int personId);
+
+    // Lightweight list views that never transfer the description column
+    Collection<TodoSummary> findAllSummaries();
+    Collection<TodoSummary> findSummariesByDoneStatus(boolean doneStatus);
+    Collection<TodoSummary> findSummariesByAssignee(int personId);
+
+    // May be buffered and coalesced per id, flush() forces buffered changes to the database
+    void markDone(int todoId, boolean done);
+    void flush();
+
+    // Keyset pagination ordered by todo_id, pass 0 as afterTodoId for the first page
+    Page<Todo> findPage(int afterTodoId, int limit);
+    Page<Todo> findPageByDoneStatus(boolean doneStatus, int afterTodoId, int limit);
+    Page<Todo> findPageByAssignee(int personId, int afterTodoId, int limit);
+
+    // Streams are lazily read from an open cursor and hold a connection until closed, use try-with-resources
+    Stream<Todo> streamAll();
+    Stream<Todo> streamByDoneStatus(boolean doneStatus);
+    Stream<Todo> streamByUnassignedTodoItems();
+
+    // Full-text search over title and description, best match first. Null filters match every todo
+    Collection<Todo> search(String query, int limit);
+    Collection<Todo> search(String query, Boolean doneStatus, Integer assigneeId, int limit);
 }
\ No newline at end of file
@@ -0,0 +1,7 @@
+package com.github.aastrandemma.dao;
+
+import com.github.aastrandemma.model.TodoStatistics;
+
+public interface TodoStatisticsDao {
+    TodoStatistics getStatistics(int dueWithinDays);
+}
@@ -0,0 +1,68 @@
+package com.github.aastrandemma.dao.async;
+
+import com.github.aastrandemma.dao.AsyncBaseDao;
+import com.github.aastrandemma.dao.BaseDao;
+import com.github.aastrandemma.model.SaveResult;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+
+// Adapts a blocking DAO, every call runs on the shared AsyncDaoExecutor
+public abstract class AsyncBaseDaoImpl<T, D extends BaseDao<T>> implements AsyncBaseDao<T> {
+    protected final D delegate;
+    protected final AsyncDaoExecutor executor;
+
+    protected AsyncBaseDaoImpl(D delegate, AsyncDaoExecutor executor) {
+        Objects.requireNonNull(delegate, "Delegate DAO can't be null.");
+        Objects.requireNonNull(executor, "Executor can't be null.");
+        this.delegate = delegate;
+        this.executor = executor;
+    }
+
+    @Override
+    public CompletableFuture<T> create(T t) {
+        return executor.submit(() -> delegate.create(t));
+    }
+
+    @Override
+    public CompletableFuture<Collection<T>> createAll(Collection<T> items, int batchSize) {
+        return executor.submit(() -> delegate.createAll(items, batchSize));
+    }
+
+    @Override
+    public CompletableFuture<Collection<T>> findAll() {
+        return executor.submit(delegate::findAll);
+    }
+
+    @Override
+    public CompletableFuture<T> findById(int id) {
+        return executor.submit(() -> delegate.findById(id));
+    }
+
+    @Override
+    public CompletableFuture<Map<Integer, T>> findByIds(Collection<Integer> ids) {
+        return executor.submit(() -> delegate.findByIds(ids));
+    }
+
+    @Override
+    public CompletableFuture<T> update(T t) {
+        return executor.submit(() -> delegate.update(t));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> deleteById(int id) {
+        return executor.submit(() -> delegate.deleteById(id));
+    }
+
+    @Override
+    public CompletableFuture<SaveResult<T>> save(T t) {
+        return executor.submit(() -> delegate.save(t));
+    }
+
+    @Override
+    public CompletableFuture<SaveResult<T>> saveAll(Collection<T> items, int batchSize) {
+        return executor.submit(() -> delegate.saveAll(items, batchSize));
+    }
+}
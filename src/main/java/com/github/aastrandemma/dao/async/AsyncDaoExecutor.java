@@ -0,0 +1,126 @@
+package com.github.aastrandemma.dao.async;
+
+import com.github.aastrandemma.dao.db.CancellationToken;
+import com.github.aastrandemma.dao.db.ConsistencyToken;
+
+import java.util.Objects;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+// Runs blocking DAO calls on at most maxConcurrency worker threads, so callers get a future right away and only
+// as many threads block on JDBC as there are connections to use. Size maxConcurrency to the connection pool,
+// more workers would only wait on the pool. Calls beyond that queue up to maxQueuedCalls, further calls fail
+// with RejectedExecutionException. For cancel() to stop a running query, the DAOs have to be built on a
+// CancellableDataSource, otherwise only calls that haven't started yet are cancelled. A call runs under the
+// ConsistencyToken of the thread that submitted it, so a read after a write in the same session stays on the primary
+public class AsyncDaoExecutor implements AutoCloseable {
+    private static final long WORKER_KEEP_ALIVE_SECONDS = 60;
+    private static final AtomicInteger EXECUTOR_COUNT = new AtomicInteger();
+
+    private final ThreadPoolExecutor executor;
+    private final int maxConcurrency;
+
+    public AsyncDaoExecutor(int maxConcurrency) {
+        this(maxConcurrency, Integer.MAX_VALUE);
+    }
+
+    public AsyncDaoExecutor(int maxConcurrency, int maxQueuedCalls) {
+        if (maxConcurrency < 1 || maxQueuedCalls < 1) {
+            throw new IllegalArgumentException("Max concurrency and max queued calls must be at least 1.");
+        }
+        this.maxConcurrency = maxConcurrency;
+        int executorNumber = EXECUTOR_COUNT.incrementAndGet();
+        AtomicInteger threadCount = new AtomicInteger();
+        BlockingQueue<Runnable> queue = new LinkedBlockingQueue<>(maxQueuedCalls);
+        this.executor = new ThreadPoolExecutor(maxConcurrency, maxConcurrency, WORKER_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, queue, runnable -> {
+            Thread thread = new Thread(runnable, "async-dao-" + executorNumber + "-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    public <T> CompletableFuture<T> submit(Supplier<T> call) {
+        Objects.requireNonNull(call, "Call can't be null.");
+        DaoCall<T> daoCall = new DaoCall<>(call);
+        try {
+            executor.execute(daoCall);
+        } catch (RejectedExecutionException e) {
+            daoCall.completeExceptionally(e);
+        }
+        return daoCall;
+    }
+
+    public CompletableFuture<Void> run(Runnable call) {
+        Objects.requireNonNull(call, "Call can't be null.");
+        return submit(() -> {
+            call.run();
+            return null;
+        });
+    }
+
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    public int getActiveCount() {
+        return executor.getActiveCount();
+    }
+
+    public int getQueuedCount() {
+        return executor.getQueue().size();
+    }
+
+    // Stops taking calls and waits for queued and running ones to finish
+    @Override
+    public void close() {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // The future is the queued task itself, so cancelling it can drop it from the queue or cancel its statements
+    private final class DaoCall<T> extends CompletableFuture<T> implements Runnable {
+        private final Supplier<T> call;
+        private final CancellationToken cancellationToken = new CancellationToken();
+        // null when the submitting thread had none
+        private final ConsistencyToken consistencyToken = ConsistencyToken.current();
+
+        private DaoCall(Supplier<T> call) {
+            this.call = call;
+        }
+
+        @Override
+        public void run() {
+            if (isDone()) {
+                return;
+            }
+            try {
+                complete(consistencyToken == null ? cancellationToken.run(call)
+                        : consistencyToken.run(() -> cancellationToken.run(call)));
+            } catch (RuntimeException | Error e) {
+                // Already cancelled futures ignore this, the failure is the cancelled statement
+                completeExceptionally(e);
+            }
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            boolean cancelled = super.cancel(mayInterruptIfRunning);
+            if (cancelled) {
+                cancellationToken.cancel();
+                executor.remove(this);
+            }
+            return cancelled;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.github.aastrandemma.dao.async;
+
+import com.github.aastrandemma.dao.AsyncPeopleDao;
+import com.github.aastrandemma.dao.PeopleDao;
+import com.github.aastrandemma.dao.ReassignPolicy;
+import com.github.aastrandemma.model.Page;
+import com.github.aastrandemma.model.Person;
+import com.github.aastrandemma.model.PersonWithTodos;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+public class AsyncPeopleDaoImpl extends AsyncBaseDaoImpl<Person, PeopleDao> implements AsyncPeopleDao {
+    public AsyncPeopleDaoImpl(PeopleDao delegate, AsyncDaoExecutor executor) {
+        super(delegate, executor);
+    }
+
+    @Override
+    public CompletableFuture<Collection<Person>> findByName(String name) {
+        return executor.submit(() -> delegate.findByName(name));
+    }
+
+    @Override
+    public CompletableFuture<List<PersonWithTodos>> findWithTodos(Collection<Integer> personIds) {
+        return executor.submit(() -> delegate.findWithTodos(personIds));
+    }
+
+    @Override
+    public CompletableFuture<Collection<Person>> search(String query, int limit) {
+        return executor.submit(() -> delegate.search(query, limit));
+    }
+
+    @Override
+    public CompletableFuture<Page<Person>> findPage(int afterPersonId, int limit) {
+        return executor.submit(() -> delegate.findPage(afterPersonId, limit));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> deletePerson(int personId, ReassignPolicy policy) {
+        return executor.submit(() -> delegate.deletePerson(personId, policy));
+    }
+}
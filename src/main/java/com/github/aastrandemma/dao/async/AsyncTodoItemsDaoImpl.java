@@ -0,0 +1,119 @@
+package com.github.aastrandemma.dao.async;
+
+import com.github.aastrandemma.dao.AsyncTodoItemsDao;
+import com.github.aastrandemma.dao.TodoItemsDao;
+import com.github.aastrandemma.model.Page;
+import com.github.aastrandemma.model.Todo;
+import com.github.aastrandemma.model.TodoSummary;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+public class AsyncTodoItemsDaoImpl extends AsyncBaseDaoImpl<Todo, TodoItemsDao> implements AsyncTodoItemsDao {
+    public AsyncTodoItemsDaoImpl(TodoItemsDao delegate, AsyncDaoExecutor executor) {
+        super(delegate, executor);
+    }
+
+    @Override
+    public CompletableFuture<Collection<Todo>> findByDoneStatus(boolean doneStatus) {
+        return executor.submit(() -> delegate.findByDoneStatus(doneStatus));
+    }
+
+    @Override
+    public CompletableFuture<Collection<Todo>> findByAssignee(int personId) {
+        return executor.submit(() -> delegate.findByAssignee(personId));
+    }
+
+    @Override
+    public CompletableFuture<Collection<Todo>> findByUnassignedTodoItems() {
+        return executor.submit(delegate::findByUnassignedTodoItems);
+    }
+
+    @Override
+    public CompletableFuture<Map<Integer, List<Todo>>> findByAssignees(Collection<Integer> personIds) {
+        return executor.submit(() -> delegate.findByAssignees(personIds));
+    }
+
+    @Override
+    public CompletableFuture<Collection<Todo>> findOverdue() {
+        return executor.submit(delegate::findOverdue);
+    }
+
+    @Override
+    public CompletableFuture<Collection<Todo>> findByDeadlineBetween(LocalDate from, LocalDate to) {
+        return executor.submit(() -> delegate.findByDeadlineBetween(from, to));
+    }
+
+    @Override
+    public CompletableFuture<Collection<Todo>> findDueWithin(int days) {
+        return executor.submit(() -> delegate.findDueWithin(days));
+    }
+
+    @Override
+    public CompletableFuture<Integer> deleteByIds(Collection<Integer> todoIds) {
+        return executor.submit(() -> delegate.deleteByIds(todoIds));
+    }
+
+    @Override
+    public CompletableFuture<Integer> deleteByAssignee(int personId) {
+        return executor.submit(() -> delegate.deleteByAssignee(personId));
+    }
+
+    @Override
+    public CompletableFuture<Integer> reassignAll(int fromPersonId, int toPersonId) {
+        return executor.submit(() -> delegate.reassignAll(fromPersonId, toPersonId));
+    }
+
+    @Override
+    public CompletableFuture<Integer> unassignAll(int personId) {
+        return executor.submit(() -> delegate.unassignAll(personId));
+    }
+
+    @Override
+    public CompletableFuture<Collection<TodoSummary>> findAllSummaries() {
+        return executor.submit(delegate::findAllSummaries);
+    }
+
+    @Override
+    public CompletableFuture<Collection<TodoSummary>> findSummariesByDoneStatus(boolean doneStatus) {
+        return executor.submit(() -> delegate.findSummariesByDoneStatus(doneStatus));
+    }
+
+    @Override
+    public CompletableFuture<Collection<TodoSummary>> findSummariesByAssignee(int personId) {
+        return executor.submit(() -> delegate.findSummariesByAssignee(personId));
+    }
+
+    @Override
+    public CompletableFuture<Void> markDone(int todoId, boolean done) {
+        return executor.run(() -> delegate.markDone(todoId, done));
+    }
+
+    @Override
+    public CompletableFuture<Void> flush() {
+        return executor.run(delegate::flush);
+    }
+
+    @Override
+    public CompletableFuture<Page<Todo>> findPage(int afterTodoId, int limit) {
+        return executor.submit(() -> delegate.findPage(afterTodoId, limit));
+    }
+
+    @Override
+    public CompletableFuture<Page<Todo>> findPageByDoneStatus(boolean doneStatus, int afterTodoId, int limit) {
+        return executor.submit(() -> delegate.findPageByDoneStatus(doneStatus, afterTodoId, limit));
+    }
+
+    @Override
+    public CompletableFuture<Page<Todo>> findPageByAssignee(int personId, int afterTodoId, int limit) {
+        return executor.submit(() -> delegate.findPageByAssignee(personId, afterTodoId, limit));
+    }
+
+    @Override
+    public CompletableFuture<Collection<Todo>> search(String query, Boolean doneStatus, Integer assigneeId, int limit) {
+        return executor.submit(() -> delegate.search(query, doneStatus, assigneeId, limit));
+    }
+}
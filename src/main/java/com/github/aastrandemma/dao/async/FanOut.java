@@ -0,0 +1,54 @@
+package com.github.aastrandemma.dao.async;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiFunction;
+
+// Combines independent async DAO calls that were all issued up front, so they run at the same time. When one
+// fails the others are cancelled, and cancelling the combined future cancels every call
+public final class FanOut {
+    private FanOut() {
+    }
+
+    public static <A, B, R> CompletableFuture<R> both(CompletableFuture<A> first, CompletableFuture<B> second,
+                                                      BiFunction<? super A, ? super B, ? extends R> combiner) {
+        List<CompletableFuture<?>> calls = new ArrayList<>(2);
+        calls.add(first);
+        calls.add(second);
+        CompletableFuture<R> combined = first.thenCombine(second, combiner);
+        propagateCancellation(combined, calls);
+        return combined;
+    }
+
+    // Results are in the order of the calls
+    public static <T> CompletableFuture<List<T>> all(List<? extends CompletableFuture<? extends T>> calls) {
+        CompletableFuture<Void> allDone = CompletableFuture.allOf(calls.toArray(new CompletableFuture<?>[0]));
+        CompletableFuture<List<T>> combined = allDone.thenApply(ignored -> {
+            List<T> results = new ArrayList<>(calls.size());
+            for (CompletableFuture<? extends T> call : calls) {
+                results.add(call.join());
+            }
+            return results;
+        });
+        propagateCancellation(combined, calls);
+        return combined;
+    }
+
+    private static void propagateCancellation(CompletableFuture<?> combined, List<? extends CompletableFuture<?>> calls) {
+        for (CompletableFuture<?> call : calls) {
+            call.whenComplete((result, failure) -> {
+                if (failure != null) {
+                    combined.completeExceptionally(failure);
+                }
+            });
+        }
+        combined.whenComplete((result, failure) -> {
+            if (failure != null) {
+                for (CompletableFuture<?> call : calls) {
+                    call.cancel(true);
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,113 @@
+package com.github.aastrandemma.dao.batch;
+
+import com.github.aastrandemma.dao.PeopleDao;
+import com.github.aastrandemma.dao.TodoItemsDao;
+import com.github.aastrandemma.model.Person;
+import com.github.aastrandemma.model.Todo;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+// Request-scoped batching: load() only queues the key and hands back a future, dispatch() resolves everything queued
+// since the last dispatch with one call to the batch function. Keys are deduplicated and their values kept for the
+// loader's lifetime, so create one loader per request rather than sharing it
+public class BatchLoader<K, V> {
+    private final Function<Collection<K>, Map<K, V>> batchFunction;
+    private final Map<K, CompletableFuture<V>> loaded = new HashMap<>();
+    private Map<K, CompletableFuture<V>> pending = new LinkedHashMap<>();
+    private int batchCount;
+
+    // Keys missing from the batch function's result complete with null
+    public BatchLoader(Function<Collection<K>, Map<K, V>> batchFunction) {
+        Objects.requireNonNull(batchFunction, "Batch function can't be null.");
+        this.batchFunction = batchFunction;
+    }
+
+    public static BatchLoader<Integer, Person> people(PeopleDao peopleDao) {
+        return new BatchLoader<>(peopleDao::findByIds);
+    }
+
+    public static BatchLoader<Integer, List<Todo>> todoItemsByAssignee(TodoItemsDao todoItemsDao) {
+        return new BatchLoader<>(todoItemsDao::findByAssignees);
+    }
+
+    public synchronized CompletableFuture<V> load(K key) {
+        Objects.requireNonNull(key, "Key can't be null.");
+        CompletableFuture<V> future = loaded.get(key);
+        if (future == null) {
+            future = new CompletableFuture<>();
+            loaded.put(key, future);
+            pending.put(key, future);
+        }
+        return future;
+    }
+
+    public List<CompletableFuture<V>> loadAll(Collection<K> keys) {
+        List<CompletableFuture<V>> futures = new ArrayList<>(keys.size());
+        for (K key : keys) {
+            futures.add(load(key));
+        }
+        return futures;
+    }
+
+    // Callbacks on the completed futures run on this thread. Keys they load are picked up by a further batch before
+    // dispatch() returns
+    public void dispatch() {
+        Map<K, CompletableFuture<V>> batch;
+        while ((batch = takePending()) != null) {
+            Map<K, V> values;
+            try {
+                values = batchFunction.apply(batch.keySet());
+            } catch (RuntimeException e) {
+                // A failed batch isn't kept, loading the same keys again retries them
+                forget(batch.keySet());
+                for (CompletableFuture<V> future : batch.values()) {
+                    future.completeExceptionally(e);
+                }
+                continue;
+            }
+            for (Map.Entry<K, CompletableFuture<V>> entry : batch.entrySet()) {
+                entry.getValue().complete(values.get(entry.getKey()));
+            }
+        }
+    }
+
+    // Drops a kept value so the next load() reads it again, e.g. after the request changed it
+    public synchronized void clear(K key) {
+        CompletableFuture<V> future = loaded.get(key);
+        if (future != null && future.isDone()) {
+            loaded.remove(key);
+        }
+    }
+
+    public synchronized void clearAll() {
+        loaded.values().removeIf(CompletableFuture::isDone);
+    }
+
+    public synchronized int getBatchCount() {
+        return batchCount;
+    }
+
+    private synchronized Map<K, CompletableFuture<V>> takePending() {
+        if (pending.isEmpty()) {
+            return null;
+        }
+        Map<K, CompletableFuture<V>> batch = pending;
+        pending = new LinkedHashMap<>();
+        batchCount++;
+        return batch;
+    }
+
+    private synchronized void forget(Collection<K> keys) {
+        for (K key : keys) {
+            loaded.remove(key);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.github.aastrandemma.dao.cache;
+
+public class CacheStats {
+    private final long hits;
+    private final long misses;
+    private final long evictions;
+    private final long size;
+
+    public CacheStats(long hits, long misses, long evictions, long size) {
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+        this.size = size;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    public long getEvictions() {
+        return evictions;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public double getHitRate() {
+        long requests = hits + misses;
+        return requests == 0 ? 0.0 : (double) hits / requests;
+    }
+
+    @Override
+    public String toString() {
+        return "CacheStats {hits: " + getHits() + ", misses: " + getMisses() + ", evictions: " + getEvictions()
+                + ", size: " + getSize() + ", hitRate: " + getHitRate() + "}";
+    }
+}
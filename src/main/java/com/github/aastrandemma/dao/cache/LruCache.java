@@ -0,0 +1,137 @@
+package com.github.aastrandemma.dao.cache;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Bounded LRU cache with a TTL, split into independently locked segments so readers don't contend on one lock
+public class LruCache<K, V> {
+    private static final int MAX_SEGMENTS = 64;
+
+    private final Segment<K, V>[] segments;
+    private final long ttlNanos;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    @SuppressWarnings("unchecked")
+    public LruCache(int maxSize, long ttl, TimeUnit ttlUnit) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("Cache max size must be at least 1.");
+        }
+        if (ttl <= 0) {
+            throw new IllegalArgumentException("Cache TTL must be positive.");
+        }
+        Objects.requireNonNull(ttlUnit, "TTL unit can't be null.");
+        this.ttlNanos = ttlUnit.toNanos(ttl);
+
+        int segmentCount = 1;
+        int wanted = Math.min(Math.min(MAX_SEGMENTS, Runtime.getRuntime().availableProcessors() * 2), maxSize);
+        while (segmentCount < wanted) {
+            segmentCount <<= 1;
+        }
+        if (segmentCount > maxSize) {
+            segmentCount >>= 1;
+        }
+        int segmentCapacity = (maxSize + segmentCount - 1) / segmentCount;
+        @SuppressWarnings("unchecked")
+        Segment<K, V>[] newSegments = (Segment<K, V>[]) new Segment<?, ?>[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            newSegments[i] = new Segment<>(segmentCapacity, evictions);
+        }
+        this.segments = newSegments;
+    }
+
+    public V get(K key) {
+        Segment<K, V> segment = segmentFor(key);
+        long now = System.nanoTime();
+        synchronized (segment) {
+            Entry<V> entry = segment.get(key);
+            if (entry != null) {
+                if (now - entry.writtenAt < ttlNanos) {
+                    hits.increment();
+                    return entry.value;
+                }
+                segment.remove(key);
+            }
+        }
+        misses.increment();
+        return null;
+    }
+
+    public void put(K key, V value) {
+        Objects.requireNonNull(value, "Cached value can't be null.");
+        Segment<K, V> segment = segmentFor(key);
+        Entry<V> entry = new Entry<>(value, System.nanoTime());
+        synchronized (segment) {
+            segment.put(key, entry);
+        }
+    }
+
+    public void invalidate(K key) {
+        Segment<K, V> segment = segmentFor(key);
+        synchronized (segment) {
+            segment.remove(key);
+        }
+    }
+
+    public void invalidateAll() {
+        for (Segment<K, V> segment : segments) {
+            synchronized (segment) {
+                segment.clear();
+            }
+        }
+    }
+
+    public long size() {
+        long size = 0;
+        for (Segment<K, V> segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    public CacheStats getStats() {
+        return new CacheStats(hits.sum(), misses.sum(), evictions.sum(), size());
+    }
+
+    private Segment<K, V> segmentFor(K key) {
+        int hash = key.hashCode();
+        hash ^= (hash >>> 16);
+        return segments[hash & (segments.length - 1)];
+    }
+
+    private static final class Entry<V> {
+        private final V value;
+        private final long writtenAt;
+
+        private Entry(V value, long writtenAt) {
+            this.value = value;
+            this.writtenAt = writtenAt;
+        }
+    }
+
+    private static final class Segment<K, V> extends LinkedHashMap<K, Entry<V>> {
+        private final int capacity;
+        private final LongAdder evictions;
+
+        private Segment(int capacity, LongAdder evictions) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+            this.evictions = evictions;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+            if (size() > capacity) {
+                evictions.increment();
+                return true;
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,418 @@
+package com.github.aastrandemma.dao.columnar;
+
+import com.github.aastrandemma.model.TodoSummary;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Column-per-field copy of todo_item for filters the SQL finders can't express. Rows live in primitive arrays,
+// done status and row liveness in bitsets, deadlines as epoch days, so a filter is one pass over a few int
+// arrays. Deleted rows are only marked dead until a quarter of the rows are, then the arrays are compacted.
+// Results are ordered by todo id. Descriptions aren't kept, queries return TodoSummary
+public class TodoColumnStore {
+    private static final int INITIAL_CAPACITY = 1024;
+    // Stores smaller than this are scanned on the calling thread, forking costs more than it saves
+    private static final int PARALLEL_THRESHOLD = 1 << 17;
+    private static final int SCAN_SLICE = 1 << 15;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private int[] ids = new int[INITIAL_CAPACITY];
+    private int[] assigneeIds = new int[INITIAL_CAPACITY];
+    private int[] deadlines = new int[INITIAL_CAPACITY];
+    private String[] titles = new String[INITIAL_CAPACITY];
+    private long[] doneBits = new long[INITIAL_CAPACITY >>> 6];
+    private long[] liveBits = new long[INITIAL_CAPACITY >>> 6];
+    // Row + 1 by todo id, 0 for ids not in the store. Ids are auto-increment so this stays dense
+    private int[] rowsById = new int[INITIAL_CAPACITY];
+    private int rowCount;
+    private int deadRows;
+    private boolean sortedById = true;
+    // Only while loading: titles are deduplicated, and ids deleted by concurrent writes aren't loaded again
+    private Map<String, String> loadTitles;
+    private Set<Integer> removedWhileLoading;
+
+    public TodoColumnStore() {
+        loadTitles = new HashMap<>();
+        removedWhileLoading = new HashSet<>();
+    }
+
+    public List<TodoSummary> find(TodoFilter filter) {
+        return find(filter, Integer.MAX_VALUE);
+    }
+
+    public List<TodoSummary> find(TodoFilter filter, int limit) {
+        lock.readLock().lock();
+        try {
+            int[] rows = matchingRows(filter, limit);
+            List<TodoSummary> summaries = new ArrayList<>(rows.length);
+            for (int row : rows) {
+                summaries.add(summaryAt(row));
+            }
+            return summaries;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int[] findIds(TodoFilter filter) {
+        lock.readLock().lock();
+        try {
+            int[] rows = matchingRows(filter, Integer.MAX_VALUE);
+            for (int i = 0; i < rows.length; i++) {
+                rows[i] = ids[rows[i]];
+            }
+            return rows;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int count(TodoFilter filter) {
+        lock.readLock().lock();
+        try {
+            if (rowCount < PARALLEL_THRESHOLD) {
+                return countRange(filter, 0, rowCount);
+            }
+            return ForkJoinPool.commonPool().invoke(new CountSlice(filter, 0, rowCount));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return rowCount - deadRows;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Used by the initial scan, rows written since the store was created win over what the scan read
+    public void load(int id, String title, LocalDate deadline, boolean done, Integer assigneeId) {
+        lock.writeLock().lock();
+        try {
+            if (rowOf(id) >= 0 || removedWhileLoading.contains(id)) {
+                return;
+            }
+            String interned = loadTitles.putIfAbsent(title, title);
+            append(id, interned == null ? title : interned, deadline, done, assigneeId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void finishLoad() {
+        lock.writeLock().lock();
+        try {
+            loadTitles = null;
+            removedWhileLoading = null;
+            if (!sortedById || deadRows > 0) {
+                compact();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void put(int id, String title, LocalDate deadline, boolean done, Integer assigneeId) {
+        lock.writeLock().lock();
+        try {
+            int row = rowOf(id);
+            if (row < 0) {
+                append(id, title, deadline, done, assigneeId);
+                return;
+            }
+            titles[row] = title;
+            deadlines[row] = toEpochDay(deadline);
+            assigneeIds[row] = assigneeId == null ? TodoFilter.NO_ASSIGNEE : assigneeId;
+            setBit(doneBits, row, done);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void setDone(int id, boolean done) {
+        lock.writeLock().lock();
+        try {
+            int row = rowOf(id);
+            if (row >= 0) {
+                setBit(doneBits, row, done);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // A null toPersonId unassigns
+    public void reassign(int fromPersonId, Integer toPersonId) {
+        int to = toPersonId == null ? TodoFilter.NO_ASSIGNEE : toPersonId;
+        lock.writeLock().lock();
+        try {
+            for (int row = 0; row < rowCount; row++) {
+                if (assigneeIds[row] == fromPersonId) {
+                    assigneeIds[row] = to;
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(int id) {
+        lock.writeLock().lock();
+        try {
+            if (removedWhileLoading != null) {
+                removedWhileLoading.add(id);
+            }
+            int row = rowOf(id);
+            if (row < 0) {
+                return;
+            }
+            rowsById[id] = 0;
+            setBit(liveBits, row, false);
+            titles[row] = null;
+            deadRows++;
+            if (loadTitles == null && deadRows > INITIAL_CAPACITY && deadRows * 4 > rowCount) {
+                compact();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // A small limit is cheaper served by a sequential scan that stops early than by scanning everything in parallel
+    private int[] matchingRows(TodoFilter filter, int limit) {
+        int[] rows;
+        if (rowCount < PARALLEL_THRESHOLD || limit < rowCount / 8) {
+            // Out of id order the first matches aren't the lowest ids, so the limit is applied after sorting
+            rows = matchRange(filter, 0, rowCount, sortedById ? limit : Integer.MAX_VALUE);
+        } else {
+            rows = ForkJoinPool.commonPool().invoke(new MatchSlice(filter, 0, rowCount));
+        }
+        rows = sortRowsById(rows);
+        return rows.length > limit ? Arrays.copyOf(rows, limit) : rows;
+    }
+
+    // Tight loop over the columns, conditions that can't reject anything are skipped up front
+    private int[] matchRange(TodoFilter filter, int from, int to, int limit) {
+        int doneStatus = filter.getDoneStatus();
+        int minDeadline = filter.getMinDeadline();
+        int maxDeadline = filter.getMaxDeadline();
+        boolean anyAssignee = filter.matchesAnyAssignee();
+        int[] matches = new int[Math.min(to - from, 256)];
+        int matchCount = 0;
+        for (int row = from; row < to && matchCount < limit; row++) {
+            if ((liveBits[row >>> 6] & 1L << row) == 0) {
+                continue;
+            }
+            if (doneStatus != TodoFilter.ANY_DONE_STATUS && ((doneBits[row >>> 6] & 1L << row) != 0 ? 1 : 0) != doneStatus) {
+                continue;
+            }
+            int deadline = deadlines[row];
+            if (deadline < minDeadline || deadline > maxDeadline) {
+                continue;
+            }
+            if (!anyAssignee && !filter.matchesAssignee(assigneeIds[row])) {
+                continue;
+            }
+            if (matchCount == matches.length) {
+                matches = Arrays.copyOf(matches, matches.length * 2);
+            }
+            matches[matchCount++] = row;
+        }
+        return Arrays.copyOf(matches, matchCount);
+    }
+
+    private int countRange(TodoFilter filter, int from, int to) {
+        int doneStatus = filter.getDoneStatus();
+        int minDeadline = filter.getMinDeadline();
+        int maxDeadline = filter.getMaxDeadline();
+        boolean anyAssignee = filter.matchesAnyAssignee();
+        int count = 0;
+        for (int row = from; row < to; row++) {
+            if ((liveBits[row >>> 6] & 1L << row) == 0) {
+                continue;
+            }
+            if (doneStatus != TodoFilter.ANY_DONE_STATUS && ((doneBits[row >>> 6] & 1L << row) != 0 ? 1 : 0) != doneStatus) {
+                continue;
+            }
+            int deadline = deadlines[row];
+            if (deadline < minDeadline || deadline > maxDeadline) {
+                continue;
+            }
+            if (anyAssignee || filter.matchesAssignee(assigneeIds[row])) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private int[] sortRowsById(int[] rows) {
+        if (sortedById) {
+            return rows;
+        }
+        long[] keyed = new long[rows.length];
+        for (int i = 0; i < rows.length; i++) {
+            keyed[i] = (long) ids[rows[i]] << 32 | rows[i];
+        }
+        Arrays.sort(keyed);
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = (int) keyed[i];
+        }
+        return rows;
+    }
+
+    private TodoSummary summaryAt(int row) {
+        int deadline = deadlines[row];
+        int assigneeId = assigneeIds[row];
+        return new TodoSummary(ids[row], titles[row],
+                deadline == TodoFilter.NO_DEADLINE ? null : LocalDate.ofEpochDay(deadline),
+                (doneBits[row >>> 6] & 1L << row) != 0,
+                assigneeId == TodoFilter.NO_ASSIGNEE ? null : assigneeId);
+    }
+
+    private void append(int id, String title, LocalDate deadline, boolean done, Integer assigneeId) {
+        if (rowCount == ids.length) {
+            growRows(ids.length * 2);
+        }
+        int row = rowCount++;
+        if (row > 0 && id < ids[row - 1]) {
+            sortedById = false;
+        }
+        ids[row] = id;
+        titles[row] = title;
+        deadlines[row] = toEpochDay(deadline);
+        assigneeIds[row] = assigneeId == null ? TodoFilter.NO_ASSIGNEE : assigneeId;
+        setBit(doneBits, row, done);
+        setBit(liveBits, row, true);
+        if (id >= rowsById.length) {
+            rowsById = Arrays.copyOf(rowsById, Math.max(id + 1, rowsById.length * 2));
+        }
+        rowsById[id] = row + 1;
+    }
+
+    // Drops dead rows and restores id order
+    private void compact() {
+        int[] liveRows = new int[rowCount - deadRows];
+        int liveCount = 0;
+        for (int row = 0; row < rowCount; row++) {
+            if ((liveBits[row >>> 6] & 1L << row) != 0) {
+                liveRows[liveCount++] = row;
+            }
+        }
+        liveRows = sortRowsById(liveRows);
+        int capacity = Math.max(INITIAL_CAPACITY, Integer.highestOneBit(Math.max(1, liveCount)) * 2);
+        int[] newIds = new int[capacity];
+        int[] newAssigneeIds = new int[capacity];
+        int[] newDeadlines = new int[capacity];
+        String[] newTitles = new String[capacity];
+        long[] newDoneBits = new long[capacity >>> 6];
+        long[] newLiveBits = new long[capacity >>> 6];
+        for (int newRow = 0; newRow < liveCount; newRow++) {
+            int row = liveRows[newRow];
+            newIds[newRow] = ids[row];
+            newAssigneeIds[newRow] = assigneeIds[row];
+            newDeadlines[newRow] = deadlines[row];
+            newTitles[newRow] = titles[row];
+            setBit(newDoneBits, newRow, (doneBits[row >>> 6] & 1L << row) != 0);
+            setBit(newLiveBits, newRow, true);
+            rowsById[ids[row]] = newRow + 1;
+        }
+        ids = newIds;
+        assigneeIds = newAssigneeIds;
+        deadlines = newDeadlines;
+        titles = newTitles;
+        doneBits = newDoneBits;
+        liveBits = newLiveBits;
+        rowCount = liveCount;
+        deadRows = 0;
+        sortedById = true;
+    }
+
+    private void growRows(int capacity) {
+        ids = Arrays.copyOf(ids, capacity);
+        assigneeIds = Arrays.copyOf(assigneeIds, capacity);
+        deadlines = Arrays.copyOf(deadlines, capacity);
+        titles = Arrays.copyOf(titles, capacity);
+        doneBits = Arrays.copyOf(doneBits, capacity >>> 6);
+        liveBits = Arrays.copyOf(liveBits, capacity >>> 6);
+    }
+
+    private int rowOf(int id) {
+        return id >= 0 && id < rowsById.length ? rowsById[id] - 1 : -1;
+    }
+
+    private static int toEpochDay(LocalDate deadline) {
+        return deadline == null ? TodoFilter.NO_DEADLINE : Math.toIntExact(deadline.toEpochDay());
+    }
+
+    private static void setBit(long[] bits, int index, boolean value) {
+        if (value) {
+            bits[index >>> 6] |= 1L << index;
+        } else {
+            bits[index >>> 6] &= ~(1L << index);
+        }
+    }
+
+    // Forked scans only run while the caller holds the read lock, so the columns can't change underneath them
+    private final class MatchSlice extends RecursiveTask<int[]> {
+        private final TodoFilter filter;
+        private final int from;
+        private final int to;
+
+        private MatchSlice(TodoFilter filter, int from, int to) {
+            this.filter = filter;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected int[] compute() {
+            if (to - from <= SCAN_SLICE) {
+                return matchRange(filter, from, to, Integer.MAX_VALUE);
+            }
+            int middle = (from + to) >>> 1;
+            MatchSlice right = new MatchSlice(filter, middle, to);
+            right.fork();
+            int[] leftRows = new MatchSlice(filter, from, middle).compute();
+            int[] rightRows = right.join();
+            int[] rows = Arrays.copyOf(leftRows, leftRows.length + rightRows.length);
+            System.arraycopy(rightRows, 0, rows, leftRows.length, rightRows.length);
+            return rows;
+        }
+    }
+
+    private final class CountSlice extends RecursiveTask<Integer> {
+        private final TodoFilter filter;
+        private final int from;
+        private final int to;
+
+        private CountSlice(TodoFilter filter, int from, int to) {
+            this.filter = filter;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Integer compute() {
+            if (to - from <= SCAN_SLICE) {
+                return countRange(filter, from, to);
+            }
+            int middle = (from + to) >>> 1;
+            CountSlice right = new CountSlice(filter, middle, to);
+            right.fork();
+            return new CountSlice(filter, from, middle).compute() + right.join();
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.github.aastrandemma.dao.columnar;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+
+// Conditions are combined with AND, except that assignedTo and unassigned match either. Deadline conditions
+// narrow one inclusive range of epoch days, todos without a deadline only match withoutDeadline()
+public class TodoFilter {
+    static final int NO_DEADLINE = Integer.MIN_VALUE;
+    static final int NO_ASSIGNEE = 0;
+    static final int ANY_DONE_STATUS = -1;
+
+    private int doneStatus = ANY_DONE_STATUS;
+    private int minDeadline = Integer.MIN_VALUE;
+    private int maxDeadline = Integer.MAX_VALUE;
+    // Sorted, null when any assignee matches
+    private int[] assigneeIds;
+    private boolean includeUnassigned;
+
+    public static TodoFilter all() {
+        return new TodoFilter();
+    }
+
+    public TodoFilter done(boolean done) {
+        doneStatus = done ? 1 : 0;
+        return this;
+    }
+
+    public TodoFilter assignedTo(int... personIds) {
+        int[] sorted = personIds.clone();
+        Arrays.sort(sorted);
+        assigneeIds = assigneeIds == null ? sorted : union(assigneeIds, sorted);
+        return this;
+    }
+
+    public TodoFilter unassigned() {
+        if (assigneeIds == null) {
+            assigneeIds = new int[0];
+        }
+        includeUnassigned = true;
+        return this;
+    }
+
+    public TodoFilter deadlineBetween(LocalDate from, LocalDate to) {
+        return narrowDeadline(Math.toIntExact(from.toEpochDay()), Math.toIntExact(to.toEpochDay()));
+    }
+
+    public TodoFilter deadlineBefore(LocalDate date) {
+        return narrowDeadline(NO_DEADLINE + 1, Math.toIntExact(date.toEpochDay()) - 1);
+    }
+
+    public TodoFilter deadlineAfter(LocalDate date) {
+        return narrowDeadline(Math.toIntExact(date.toEpochDay()) + 1, Integer.MAX_VALUE);
+    }
+
+    public TodoFilter withoutDeadline() {
+        return narrowDeadline(NO_DEADLINE, NO_DEADLINE);
+    }
+
+    // Open todos with a deadline before today
+    public TodoFilter overdue(LocalDate today) {
+        return done(false).deadlineBefore(today);
+    }
+
+    int getDoneStatus() {
+        return doneStatus;
+    }
+
+    int getMinDeadline() {
+        return minDeadline;
+    }
+
+    int getMaxDeadline() {
+        return maxDeadline;
+    }
+
+    boolean matchesAnyAssignee() {
+        return assigneeIds == null;
+    }
+
+    boolean matchesAssignee(int assigneeId) {
+        if (assigneeId == NO_ASSIGNEE) {
+            return includeUnassigned;
+        }
+        int[] ids = assigneeIds;
+        if (ids.length <= 8) {
+            for (int id : ids) {
+                if (id == assigneeId) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        return Arrays.binarySearch(ids, assigneeId) >= 0;
+    }
+
+    private TodoFilter narrowDeadline(int min, int max) {
+        minDeadline = Math.max(minDeadline, min);
+        maxDeadline = Math.min(maxDeadline, max);
+        return this;
+    }
+
+    private static int[] union(int[] first, int[] second) {
+        int[] merged = Arrays.copyOf(first, first.length + second.length);
+        System.arraycopy(second, 0, merged, first.length, second.length);
+        Arrays.sort(merged);
+        return merged;
+    }
+
+    @Override
+    public String toString() {
+        return "TodoFilter {doneStatus: " + doneStatus +
+                ", minDeadline: " + minDeadline +
+                ", maxDeadline: " + maxDeadline +
+                ", assigneeIds: " + Arrays.toString(assigneeIds) +
+                ", includeUnassigned: " + includeUnassigned + "}";
+    }
+}
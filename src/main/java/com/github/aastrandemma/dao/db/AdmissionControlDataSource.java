@@ -0,0 +1,74 @@
+package com.github.aastrandemma.dao.db;
+
+import com.github.aastrandemma.exception.AdmissionRejectedException;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Hands out a connection only while the limiter has room and throws AdmissionRejectedException right away
+// otherwise, so a slow database sheds the excess calls instead of queueing them on the pool. How long the
+// connection is held is the limiter's latency sample, inside a transaction that's the whole transaction. Keep the
+// limiter's maximum at or below the pool size, or admitted calls still wait for a connection
+public class AdmissionControlDataSource extends AbstractDataSource implements ReadRoutingDataSource {
+    private final DataSource target;
+    private final AimdConcurrencyLimiter limiter;
+
+    public AdmissionControlDataSource(DataSource target, AimdConcurrencyLimiter limiter) {
+        Objects.requireNonNull(target, "Target DataSource can't be null.");
+        Objects.requireNonNull(limiter, "Limiter can't be null.");
+        this.target = target;
+        this.limiter = limiter;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return admit(false);
+    }
+
+    public DataSource getTarget() {
+        return target;
+    }
+
+    public AimdConcurrencyLimiter getLimiter() {
+        return limiter;
+    }
+
+    // Keeps the target's read routing
+    @Override
+    public Connection getReadConnection() throws SQLException {
+        return admit(true);
+    }
+
+    private Connection admit(boolean read) throws SQLException {
+        if (!limiter.tryAcquire()) {
+            throw new AdmissionRejectedException("Database call rejected by admission control, limit: " + limiter.getLimit() + ".");
+        }
+        long start = System.nanoTime();
+        Connection connection;
+        try {
+            connection = read ? ConnectionHolder.getReadConnection(target) : target.getConnection();
+        } catch (SQLException | RuntimeException e) {
+            limiter.release(System.nanoTime() - start, true);
+            throw e;
+        }
+        AtomicBoolean released = new AtomicBoolean();
+        return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("close") && released.compareAndSet(false, true)) {
+                        limiter.release(System.nanoTime() - start, QueryDeadline.isCurrentExpired());
+                    }
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+}
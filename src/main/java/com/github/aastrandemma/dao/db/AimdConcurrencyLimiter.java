@@ -0,0 +1,82 @@
+package com.github.aastrandemma.dao.db;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+// Additive-increase/multiplicative-decrease limit on concurrent database work. A call slower than the latency
+// target, or one that missed its deadline, shrinks the limit by BACKOFF_RATIO. Calls within the target grow it by
+// one per limit's worth of completions, but only while at least half of the limit is in use. Past the limit
+// tryAcquire() fails at once, it never waits
+public class AimdConcurrencyLimiter {
+    private static final double BACKOFF_RATIO = 0.9;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final long latencyTargetNanos;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final LongAdder rejectedCount = new LongAdder();
+    private volatile double limit;
+    // Slow calls overlapping in time are one congestion signal, so the limit shrinks at most once per target
+    private long lastDecreaseNanos;
+
+    public AimdConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, long latencyTarget, TimeUnit unit) {
+        if (minLimit < 1 || minLimit > initialLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException("Limits must satisfy 1 <= minLimit <= initialLimit <= maxLimit.");
+        }
+        if (latencyTarget <= 0) {
+            throw new IllegalArgumentException("Latency target must be positive.");
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.latencyTargetNanos = unit.toNanos(latencyTarget);
+        this.limit = initialLimit;
+        this.lastDecreaseNanos = System.nanoTime() - latencyTargetNanos;
+    }
+
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= (int) limit) {
+                rejectedCount.increment();
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    // dropped is for calls that timed out or were cancelled, their latency says nothing about the database
+    public void release(long latencyNanos, boolean dropped) {
+        int inFlightBefore = inFlight.getAndDecrement();
+        synchronized (this) {
+            if (dropped || latencyNanos > latencyTargetNanos) {
+                long now = System.nanoTime();
+                if (now - lastDecreaseNanos >= latencyTargetNanos) {
+                    limit = Math.max(minLimit, limit * BACKOFF_RATIO);
+                    lastDecreaseNanos = now;
+                }
+            } else if (inFlightBefore * 2 >= limit) {
+                limit = Math.min(maxLimit, limit + 1 / limit);
+            }
+        }
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public long getRejectedCount() {
+        return rejectedCount.sum();
+    }
+
+    @Override
+    public String toString() {
+        return "AimdConcurrencyLimiter {limit: " + getLimit() + ", inFlight: " + getInFlight() + ", rejected: " + getRejectedCount() + "}";
+    }
+}
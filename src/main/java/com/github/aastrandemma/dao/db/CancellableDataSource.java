@@ -0,0 +1,61 @@
+package com.github.aastrandemma.dao.db;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Objects;
+
+// Registers statements with the CancellationToken running on the creating thread, so async callers can cancel
+// a query that is already executing, and gives them the remaining QueryDeadline time as query timeout. Statements
+// created outside a token are returned as they are
+public class CancellableDataSource extends AbstractDataSource implements ReadRoutingDataSource {
+    private final DataSource target;
+
+    public CancellableDataSource(DataSource target) {
+        Objects.requireNonNull(target, "Target DataSource can't be null.");
+        this.target = target;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return wrapConnection(target.getConnection());
+    }
+
+    public DataSource getTarget() {
+        return target;
+    }
+
+    // Keeps the target's read routing
+    @Override
+    public Connection getReadConnection() throws SQLException {
+        return wrapConnection(ConnectionHolder.getReadConnection(target));
+    }
+
+    private static Connection wrapConnection(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    Object result;
+                    try {
+                        result = method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                    if (result instanceof Statement) {
+                        CancellationToken token = CancellationToken.current();
+                        if (token != null) {
+                            token.register((Statement) result);
+                        }
+                        QueryDeadline deadline = QueryDeadline.current();
+                        if (deadline != null) {
+                            deadline.applyTo((Statement) result);
+                        }
+                    }
+                    return result;
+                });
+    }
+}
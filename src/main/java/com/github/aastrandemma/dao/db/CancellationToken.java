@@ -0,0 +1,91 @@
+package com.github.aastrandemma.dao.db;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+// Cancels the statements a unit of work is running from another thread. While run() executes, statements
+// created through a CancellableDataSource on that thread are registered here
+public final class CancellationToken {
+    // SQLSTATE for a statement cancelled on request
+    static final String QUERY_CANCELLED_STATE = "57014";
+    private static final ThreadLocal<CancellationToken> CURRENT = new ThreadLocal<>();
+
+    private final List<Statement> statements = new ArrayList<>();
+    private final List<CancellationToken> children = new ArrayList<>();
+    private boolean cancelled;
+
+    public <T> T run(Supplier<T> work) {
+        CancellationToken previous = CURRENT.get();
+        CURRENT.set(this);
+        try {
+            return work.get();
+        } finally {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+
+    // Cancels the open statements and fails every statement the work creates from now on. cancel() only stops a
+    // statement that is still executing, rows already fetched would still be read, so statements are closed too
+    // and the worker's next ResultSet.next() fails
+    public void cancel() {
+        List<Statement> running;
+        List<CancellationToken> nested;
+        synchronized (this) {
+            if (cancelled) {
+                return;
+            }
+            cancelled = true;
+            running = new ArrayList<>(statements);
+            statements.clear();
+            nested = new ArrayList<>(children);
+            children.clear();
+        }
+        for (CancellationToken child : nested) {
+            child.cancel();
+        }
+        for (Statement statement : running) {
+            try {
+                if (!statement.isClosed()) {
+                    statement.cancel();
+                    statement.close();
+                }
+            } catch (SQLException e) {
+                // Best effort, the statement may have finished and been closed in the meantime
+            }
+        }
+    }
+
+    public synchronized boolean isCancelled() {
+        return cancelled;
+    }
+
+    static CancellationToken current() {
+        return CURRENT.get();
+    }
+
+    // Cancelling this token cancels the child too, for a token started inside this one's work
+    void propagateTo(CancellationToken child) {
+        synchronized (this) {
+            if (!cancelled) {
+                children.add(child);
+                return;
+            }
+        }
+        child.cancel();
+    }
+
+    synchronized void register(Statement statement) throws SQLException {
+        if (cancelled) {
+            statement.close();
+            throw new SQLException("Statement was cancelled.", QUERY_CANCELLED_STATE);
+        }
+        statements.add(statement);
+    }
+}
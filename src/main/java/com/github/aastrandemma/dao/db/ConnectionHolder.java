@@ -0,0 +1,111 @@
+package com.github.aastrandemma.dao.db;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// Tracks the connection of the transaction running on the current thread, per data source
+public final class ConnectionHolder {
+    private static final Logger LOGGER = Logger.getLogger(ConnectionHolder.class.getName());
+    private static final ThreadLocal<Map<DataSource, SingleConnectionDataSource>> BOUND_CONNECTIONS =
+            ThreadLocal.withInitial(HashMap::new);
+    private static final ThreadLocal<Map<DataSource, List<Runnable>>> AFTER_COMMIT_ACTIONS =
+            ThreadLocal.withInitial(HashMap::new);
+    private static final ThreadLocal<Map<DataSource, List<Runnable>>> AFTER_ROLLBACK_ACTIONS =
+            ThreadLocal.withInitial(HashMap::new);
+
+    private ConnectionHolder() {
+    }
+
+    // Callers always close the returned connection, closing a transaction's bound connection is a no-op
+    public static Connection getConnection(DataSource dataSource) throws SQLException {
+        SingleConnectionDataSource bound = BOUND_CONNECTIONS.get().get(dataSource);
+        if (bound != null) {
+            return bound.getConnection();
+        }
+        return dataSource.getConnection();
+    }
+
+    // For read-only work. Outside a transaction a ReplicaRoutingDataSource may hand out a replica connection
+    public static Connection getReadConnection(DataSource dataSource) throws SQLException {
+        SingleConnectionDataSource bound = BOUND_CONNECTIONS.get().get(dataSource);
+        if (bound != null) {
+            return bound.getConnection();
+        }
+        if (dataSource instanceof ReadRoutingDataSource) {
+            return ((ReadRoutingDataSource) dataSource).getReadConnection();
+        }
+        return dataSource.getConnection();
+    }
+
+    // Runs the action once the current transaction on the data source commits, and drops it on rollback.
+    // Outside a transaction the work has already been committed, so it runs right away. Either way a failing
+    // action is logged, the caller's write succeeded and the other actions still run
+    public static void runAfterCommit(DataSource dataSource, Runnable action) {
+        List<Runnable> actions = AFTER_COMMIT_ACTIONS.get().get(dataSource);
+        if (actions == null) {
+            runCommitted(action);
+        } else {
+            actions.add(action);
+        }
+    }
+
+    // Runs the action if the current transaction on the data source rolls back. Outside a transaction there is
+    // nothing left to roll back, a failed statement is reported to its caller instead
+    public static void runAfterRollback(DataSource dataSource, Runnable action) {
+        List<Runnable> actions = AFTER_ROLLBACK_ACTIONS.get().get(dataSource);
+        if (actions != null) {
+            actions.add(action);
+        }
+    }
+
+    static void runCommitted(Runnable action) {
+        try {
+            action.run();
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.WARNING, "After-commit action failed, the write itself was committed", e);
+        }
+    }
+
+    public static boolean isBound(DataSource dataSource) {
+        return BOUND_CONNECTIONS.get().containsKey(dataSource);
+    }
+
+    static Connection getBoundConnection(DataSource dataSource) {
+        SingleConnectionDataSource bound = BOUND_CONNECTIONS.get().get(dataSource);
+        return bound == null ? null : bound.getConnection();
+    }
+
+    static void bind(DataSource dataSource, Connection connection) {
+        BOUND_CONNECTIONS.get().put(dataSource, new SingleConnectionDataSource(connection));
+        AFTER_COMMIT_ACTIONS.get().put(dataSource, new ArrayList<>());
+        AFTER_ROLLBACK_ACTIONS.get().put(dataSource, new ArrayList<>());
+    }
+
+    // Returns the after-commit or after-rollback actions registered while the connection was bound
+    static List<Runnable> unbind(DataSource dataSource, boolean committed) {
+        Map<DataSource, SingleConnectionDataSource> bound = BOUND_CONNECTIONS.get();
+        bound.remove(dataSource);
+        if (bound.isEmpty()) {
+            BOUND_CONNECTIONS.remove();
+        }
+        List<Runnable> afterCommitActions = removeActions(AFTER_COMMIT_ACTIONS, dataSource);
+        List<Runnable> afterRollbackActions = removeActions(AFTER_ROLLBACK_ACTIONS, dataSource);
+        return committed ? afterCommitActions : afterRollbackActions;
+    }
+
+    private static List<Runnable> removeActions(ThreadLocal<Map<DataSource, List<Runnable>>> registered, DataSource dataSource) {
+        Map<DataSource, List<Runnable>> actionsByDataSource = registered.get();
+        List<Runnable> actions = actionsByDataSource.remove(dataSource);
+        if (actionsByDataSource.isEmpty()) {
+            registered.remove();
+        }
+        return actions;
+    }
+}
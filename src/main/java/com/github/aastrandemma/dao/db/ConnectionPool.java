@@ -0,0 +1,403 @@
+package com.github.aastrandemma.dao.db;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static com.github.aastrandemma.dao.db.PoolStats.WAIT_BUCKET_BOUNDS_MILLIS;
+
+public class ConnectionPool extends AbstractDataSource implements AutoCloseable {
+    private static final Logger LOGGER = Logger.getLogger(ConnectionPool.class.getName());
+
+    private final ConnectionPoolConfig config;
+    // One permit per connection that may be borrowed at the same time, fair so waiters are served in order
+    private final Semaphore permits;
+    private final Deque<PooledConnection> idle = new ConcurrentLinkedDeque<>();
+    private final Set<PooledConnection> borrowed = ConcurrentHashMap.newKeySet();
+    // Physical connections open or being opened, a slot is reserved before opening so there are never more than max size
+    private final AtomicInteger openConnections = new AtomicInteger();
+    private final AtomicInteger waiters = new AtomicInteger();
+    private final AtomicLong totalBorrows = new AtomicLong();
+    private final AtomicLong borrowTimeouts = new AtomicLong();
+    private final AtomicLongArray waitTimeHistogram = new AtomicLongArray(WAIT_BUCKET_BOUNDS_MILLIS.length + 1);
+    private final ScheduledExecutorService housekeeper;
+    private volatile boolean closed;
+
+    public ConnectionPool(ConnectionPoolConfig config) {
+        Objects.requireNonNull(config, "Pool config can't be null.");
+        if (config.getMinIdle() > config.getMaxSize()) {
+            throw new IllegalArgumentException("Min idle can't be larger than max size.");
+        }
+        this.config = config;
+        this.permits = new Semaphore(config.getMaxSize(), true);
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "connection-pool-housekeeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        fillMinIdle();
+        long interval = config.getHousekeepingIntervalMillis();
+        housekeeper.scheduleWithFixedDelay(this::housekeep, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return getConnection(config.getBorrowTimeoutMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    // Waits at most the given time instead of the configured borrow timeout, 0 only takes a free connection
+    public Connection getConnection(long borrowTimeout, TimeUnit unit) throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool is closed.");
+        }
+        long start = System.nanoTime();
+        boolean acquired;
+        waiters.incrementAndGet();
+        try {
+            acquired = permits.tryAcquire(borrowTimeout, unit);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a pooled connection.", e);
+        } finally {
+            waiters.decrementAndGet();
+        }
+        recordWaitTime(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        if (!acquired) {
+            borrowTimeouts.incrementAndGet();
+            throw new SQLTransientConnectionException("Timed out after " + unit.toMillis(borrowTimeout)
+                    + " ms waiting for a pooled connection, " + getStats());
+        }
+
+        try {
+            PooledConnection pooled = takeIdleOrCreate();
+            pooled.borrowedAt = System.currentTimeMillis();
+            pooled.leakReported = false;
+            if (config.getLeakDetectionThresholdMillis() > 0) {
+                pooled.borrowTrace = new Throwable("Connection borrowed here");
+            }
+            borrowed.add(pooled);
+            totalBorrows.incrementAndGet();
+            return pooled.newHandle();
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    public PoolStats getStats() {
+        long[] histogram = new long[waitTimeHistogram.length()];
+        for (int i = 0; i < histogram.length; i++) {
+            histogram[i] = waitTimeHistogram.get(i);
+        }
+        return new PoolStats(borrowed.size(), idle.size(), waiters.get(), totalBorrows.get(), borrowTimeouts.get(), histogram);
+    }
+
+    public ConnectionPoolConfig getConfig() {
+        return config;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        housekeeper.shutdownNow();
+        PooledConnection pooled;
+        while ((pooled = idle.pollFirst()) != null) {
+            pooled.closePhysical();
+        }
+    }
+
+    private PooledConnection takeIdleOrCreate() throws SQLException {
+        while (true) {
+            PooledConnection pooled;
+            // LIFO, the most recently returned connection is the least likely to have been dropped by the server
+            while ((pooled = idle.pollFirst()) != null) {
+                if (!config.isValidateOnBorrow() || pooled.isValid()) {
+                    return pooled;
+                }
+                pooled.closePhysical();
+            }
+            if (reserveSlot()) {
+                return openPhysical();
+            }
+            // Every slot is taken while this thread holds a permit, so another connection is on its way back to idle
+            Thread.yield();
+        }
+    }
+
+    private boolean reserveSlot() {
+        int open;
+        do {
+            open = openConnections.get();
+            if (open >= config.getMaxSize()) {
+                return false;
+            }
+        } while (!openConnections.compareAndSet(open, open + 1));
+        return true;
+    }
+
+    // Callers reserve a slot first, it is given back if opening fails
+    private PooledConnection openPhysical() throws SQLException {
+        try {
+            return new PooledConnection(DriverManager.getConnection(config.getJdbcUrl(), config.getUser(), config.getPassword()));
+        } catch (SQLException | RuntimeException e) {
+            openConnections.decrementAndGet();
+            throw e;
+        }
+    }
+
+    private void release(PooledConnection pooled) {
+        borrowed.remove(pooled);
+        pooled.borrowTrace = null;
+        try {
+            if (!closed && pooled.reset()) {
+                pooled.lastUsed = System.currentTimeMillis();
+                idle.offerFirst(pooled);
+            } else {
+                pooled.closePhysical();
+            }
+        } finally {
+            permits.release();
+        }
+    }
+
+    private void recordWaitTime(long waitMillis) {
+        int bucket = 0;
+        while (bucket < WAIT_BUCKET_BOUNDS_MILLIS.length && waitMillis > WAIT_BUCKET_BOUNDS_MILLIS[bucket]) {
+            bucket++;
+        }
+        waitTimeHistogram.incrementAndGet(bucket);
+    }
+
+    private void housekeep() {
+        try {
+            evictIdle();
+            detectLeaks();
+            fillMinIdle();
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Connection pool housekeeping failed", e);
+        }
+    }
+
+    private void evictIdle() {
+        long idleTimeout = config.getIdleTimeoutMillis();
+        if (idleTimeout <= 0) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        for (PooledConnection pooled : idle) {
+            if (idle.size() <= config.getMinIdle()) {
+                return;
+            }
+            if (now - pooled.lastUsed > idleTimeout && idle.remove(pooled)) {
+                pooled.closePhysical();
+            }
+        }
+    }
+
+    private void detectLeaks() {
+        long threshold = config.getLeakDetectionThresholdMillis();
+        if (threshold <= 0) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        for (PooledConnection pooled : borrowed) {
+            Throwable trace = pooled.borrowTrace;
+            if (!pooled.leakReported && trace != null && now - pooled.borrowedAt > threshold) {
+                pooled.leakReported = true;
+                LOGGER.log(Level.WARNING, "Possible connection leak, connection held for "
+                        + (now - pooled.borrowedAt) + " ms", trace);
+            }
+        }
+    }
+
+    private void fillMinIdle() {
+        // Reserves its slot like a borrower does, so filling and borrowing at the same time can't overshoot max size
+        while (!closed && idle.size() < config.getMinIdle() && reserveSlot()) {
+            try {
+                PooledConnection pooled = openPhysical();
+                pooled.lastUsed = System.currentTimeMillis();
+                idle.offerLast(pooled);
+            } catch (SQLException e) {
+                LOGGER.log(Level.WARNING, "Failed to open idle connection for pool", e);
+                return;
+            }
+        }
+    }
+
+    private static boolean isClosed(Statement statement) {
+        try {
+            return statement.isClosed();
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private final class PooledConnection {
+        private final Connection physical;
+        // Session state as the driver opened it, restored before the connection is handed out again
+        private final int initialIsolation;
+        private final int initialHoldability;
+        private final String initialCatalog;
+        // Statements created through the current handle, closed when it is returned
+        private final List<Statement> openStatements = new ArrayList<>();
+        private volatile long borrowedAt;
+        private volatile long lastUsed;
+        private volatile Throwable borrowTrace;
+        private volatile boolean leakReported;
+
+        private PooledConnection(Connection physical) throws SQLException {
+            this.physical = physical;
+            try {
+                this.initialIsolation = physical.getTransactionIsolation();
+                this.initialHoldability = physical.getHoldability();
+                this.initialCatalog = physical.getCatalog();
+            } catch (SQLException e) {
+                try {
+                    physical.close();
+                } catch (SQLException closeFailure) {
+                    e.addSuppressed(closeFailure);
+                }
+                throw e;
+            }
+        }
+
+        private synchronized void track(Statement statement) {
+            // Keeps a long-held connection that prepares statement after statement from piling up closed ones
+            if (openStatements.size() >= 64) {
+                openStatements.removeIf(ConnectionPool::isClosed);
+            }
+            openStatements.add(statement);
+        }
+
+        private synchronized void closeStatements() {
+            for (Statement statement : openStatements) {
+                try {
+                    statement.close();
+                } catch (SQLException e) {
+                    LOGGER.log(Level.FINE, "Failed to close statement left open by borrower", e);
+                }
+            }
+            openStatements.clear();
+        }
+
+        private Connection newHandle() {
+            return (Connection) Proxy.newProxyInstance(
+                    Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class},
+                    new ConnectionHandle(this));
+        }
+
+        private boolean isValid() {
+            try {
+                return physical.isValid(config.getValidationTimeoutSeconds());
+            } catch (SQLException e) {
+                return false;
+            }
+        }
+
+        // Undo anything the borrower left behind so the next borrower gets a clean connection
+        private boolean reset() {
+            try {
+                closeStatements();
+                if (physical.isClosed()) {
+                    return false;
+                }
+                if (!physical.getAutoCommit()) {
+                    physical.rollback();
+                    physical.setAutoCommit(true);
+                }
+                if (physical.isReadOnly()) {
+                    physical.setReadOnly(false);
+                }
+                if (physical.getTransactionIsolation() != initialIsolation) {
+                    physical.setTransactionIsolation(initialIsolation);
+                }
+                if (physical.getHoldability() != initialHoldability) {
+                    physical.setHoldability(initialHoldability);
+                }
+                if (initialCatalog != null && !initialCatalog.equals(physical.getCatalog())) {
+                    physical.setCatalog(initialCatalog);
+                }
+                physical.clearWarnings();
+                return true;
+            } catch (SQLException e) {
+                return false;
+            }
+        }
+
+        private void closePhysical() {
+            try {
+                physical.close();
+            } catch (SQLException e) {
+                LOGGER.log(Level.FINE, "Failed to close pooled connection", e);
+            } finally {
+                openConnections.decrementAndGet();
+            }
+        }
+    }
+
+    private final class ConnectionHandle implements InvocationHandler {
+        private final PooledConnection pooled;
+        private boolean handleClosed;
+
+        private ConnectionHandle(PooledConnection pooled) {
+            this.pooled = pooled;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!handleClosed) {
+                        handleClosed = true;
+                        release(pooled);
+                    }
+                    return null;
+                case "isClosed":
+                    return handleClosed || pooled.physical.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PooledConnectionHandle {closed: " + handleClosed + "}";
+                default:
+                    if (handleClosed) {
+                        throw new SQLException("Connection has already been returned to the pool.");
+                    }
+                    Object result;
+                    try {
+                        result = method.invoke(pooled.physical, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                    if (result instanceof Statement) {
+                        pooled.track((Statement) result);
+                    }
+                    return result;
+            }
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.github.aastrandemma.dao.db;
+
+import java.util.Objects;
+
+public class ConnectionPoolConfig {
+    private String jdbcUrl;
+    private String user;
+    private String password;
+    private int minIdle = 2;
+    private int maxSize = 10;
+    private long borrowTimeoutMillis = 30_000;
+    private long idleTimeoutMillis = 600_000;
+    private int validationTimeoutSeconds = 2;
+    private boolean validateOnBorrow = true;
+    // 0 disables leak detection
+    private long leakDetectionThresholdMillis = 0;
+    private long housekeepingIntervalMillis = 30_000;
+
+    public ConnectionPoolConfig(String jdbcUrl, String user, String password) {
+        setJdbcUrl(jdbcUrl);
+        setUser(user);
+        setPassword(password);
+    }
+
+    public void setJdbcUrl(String jdbcUrl) {
+        Objects.requireNonNull(jdbcUrl, "JDBC url can't be null.");
+        this.jdbcUrl = jdbcUrl;
+    }
+
+    public void setUser(String user) {
+        this.user = user;
+    }
+
+    public void setPassword(String password) {
+        this.password = password;
+    }
+
+    public void setMinIdle(int minIdle) {
+        if (minIdle < 0) {
+            throw new IllegalArgumentException("Min idle can't be negative.");
+        }
+        this.minIdle = minIdle;
+    }
+
+    public void setMaxSize(int maxSize) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("Max size must be at least 1.");
+        }
+        this.maxSize = maxSize;
+    }
+
+    public void setBorrowTimeoutMillis(long borrowTimeoutMillis) {
+        this.borrowTimeoutMillis = borrowTimeoutMillis;
+    }
+
+    public void setIdleTimeoutMillis(long idleTimeoutMillis) {
+        this.idleTimeoutMillis = idleTimeoutMillis;
+    }
+
+    public void setValidationTimeoutSeconds(int validationTimeoutSeconds) {
+        this.validationTimeoutSeconds = validationTimeoutSeconds;
+    }
+
+    public void setValidateOnBorrow(boolean validateOnBorrow) {
+        this.validateOnBorrow = validateOnBorrow;
+    }
+
+    public void setLeakDetectionThresholdMillis(long leakDetectionThresholdMillis) {
+        this.leakDetectionThresholdMillis = leakDetectionThresholdMillis;
+    }
+
+    public void setHousekeepingIntervalMillis(long housekeepingIntervalMillis) {
+        if (housekeepingIntervalMillis <= 0) {
+            throw new IllegalArgumentException("Housekeeping interval must be positive.");
+        }
+        this.housekeepingIntervalMillis = housekeepingIntervalMillis;
+    }
+
+    public String getJdbcUrl() {
+        return jdbcUrl;
+    }
+
+    public String getUser() {
+        return user;
+    }
+
+    public String getPassword() {
+        return password;
+    }
+
+    public int getMinIdle() {
+        return minIdle;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public long getBorrowTimeoutMillis() {
+        return borrowTimeoutMillis;
+    }
+
+    public long getIdleTimeoutMillis() {
+        return idleTimeoutMillis;
+    }
+
+    public int getValidationTimeoutSeconds() {
+        return validationTimeoutSeconds;
+    }
+
+    public boolean isValidateOnBorrow() {
+        return validateOnBorrow;
+    }
+
+    public long getLeakDetectionThresholdMillis() {
+        return leakDetectionThresholdMillis;
+    }
+
+    public long getHousekeepingIntervalMillis() {
+        return housekeepingIntervalMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "ConnectionPoolConfig {url: " + getJdbcUrl() + ", user: " + getUser() + ", minIdle: " + getMinIdle()
+                + ", maxSize: " + getMaxSize() + ", borrowTimeoutMillis: " + getBorrowTimeoutMillis() + "}";
+    }
+}
@@ -0,0 +1,56 @@
+package com.github.aastrandemma.dao.db;
+
+import java.util.function.Supplier;
+
+// Read-your-writes for a session that spans threads. While run() executes, writes through a ReplicaRoutingDataSource
+// on that thread are recorded here, and reads under the same token stay on the primary within the window, on
+// whichever thread they run. Hand the token to the threads doing the session's work, AsyncDaoExecutor carries the
+// submitting thread's token to its workers
+public final class ConsistencyToken {
+    private static final ThreadLocal<ConsistencyToken> CURRENT = new ThreadLocal<>();
+
+    // System.nanoTime() when a primary connection used under this token was last returned
+    private volatile long lastWriteNanos;
+    private volatile boolean written;
+
+    public <T> T run(Supplier<T> work) {
+        ConsistencyToken previous = CURRENT.get();
+        CURRENT.set(this);
+        try {
+            return work.get();
+        } finally {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+
+    public void run(Runnable work) {
+        run(() -> {
+            work.run();
+            return null;
+        });
+    }
+
+    public static ConsistencyToken current() {
+        return CURRENT.get();
+    }
+
+    synchronized void recordWrite(long nanos) {
+        if (!written || nanos - lastWriteNanos > 0) {
+            lastWriteNanos = nanos;
+        }
+        written = true;
+    }
+
+    boolean wroteWithin(long windowNanos) {
+        return written && System.nanoTime() - lastWriteNanos < windowNanos;
+    }
+
+    @Override
+    public String toString() {
+        return "ConsistencyToken {written: " + written + "}";
+    }
+}
@@ -2,21 +2,103 @@ package com.github.aastrandemma.dao.db;
 
 import com.github.aastrandemma.exception.DBConnectionException;
 
+import javax.sql.DataSource;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 public class DBConnectionManager {
     private static final String DB_NAME = "todo_it";
-    private static final String JDBC_URL = "jdbc:mysql://localhost:3306/" + DB_NAME;
+    private static final String JDBC_URL = "jdbc:mysql://localhost:3306/" + DB_NAME + "?rewriteBatchedStatements=true";
     private static final String JDBC_USER = "root";
     private static final String JDBC_PWD = "1234";
+    // Endpoints can be overridden with system properties, replica urls are comma separated
+    private static final String JDBC_URL_PROPERTY = "todo_it.jdbc.url";
+    private static final String REPLICA_URLS_PROPERTY = "todo_it.jdbc.replicaUrls";
+    private static final String REPLICA_STRATEGY_PROPERTY = "todo_it.jdbc.replicaStrategy";
+    private static final String READ_YOUR_WRITES_MILLIS_PROPERTY = "todo_it.jdbc.readYourWritesMillis";
+    private static final long DEFAULT_READ_YOUR_WRITES_MILLIS = 2000;
+    private static DataSource dataSource;
 
     public static Connection getConnection() {
         try {
-            return DriverManager.getConnection(JDBC_URL, JDBC_USER, JDBC_PWD);
+            return DriverManager.getConnection(primaryUrl(), JDBC_USER, JDBC_PWD);
         } catch (SQLException e) {
             throw new DBConnectionException("Failed to connect to DB(" + DB_NAME + "), ", e);
         }
     }
-}
\ No newline at end of file
+
+    public static ConnectionPoolConfig defaultPoolConfig() {
+        return new ConnectionPoolConfig(primaryUrl(), JDBC_USER, JDBC_PWD);
+    }
+
+    public static List<ConnectionPoolConfig> replicaPoolConfigs() {
+        List<ConnectionPoolConfig> configs = new ArrayList<>();
+        String replicaUrls = System.getProperty(REPLICA_URLS_PROPERTY, "");
+        for (String url : replicaUrls.split(",")) {
+            if (!url.trim().isEmpty()) {
+                configs.add(new ConnectionPoolConfig(url.trim(), JDBC_USER, JDBC_PWD));
+            }
+        }
+        return configs;
+    }
+
+    // A plain pool for the primary, or a replica routing data source when replica urls are configured
+    public static synchronized DataSource getDataSource() {
+        if (dataSource == null) {
+            List<ConnectionPoolConfig> replicaConfigs = replicaPoolConfigs();
+            if (replicaConfigs.isEmpty()) {
+                dataSource = createConnectionPool(defaultPoolConfig());
+            } else {
+                ReplicaSelectionStrategy strategy = ReplicaSelectionStrategy.valueOf(
+                        System.getProperty(REPLICA_STRATEGY_PROPERTY, ReplicaSelectionStrategy.ROUND_ROBIN.name()));
+                long readYourWritesMillis = Long.getLong(READ_YOUR_WRITES_MILLIS_PROPERTY, DEFAULT_READ_YOUR_WRITES_MILLIS);
+                dataSource = createReplicaRoutingDataSource(defaultPoolConfig(), replicaConfigs, strategy,
+                        readYourWritesMillis, TimeUnit.MILLISECONDS);
+            }
+        }
+        return dataSource;
+    }
+
+    public static ConnectionPool createConnectionPool(ConnectionPoolConfig config) {
+        try {
+            return new ConnectionPool(config);
+        } catch (RuntimeException e) {
+            throw new DBConnectionException("Failed to create connection pool for DB(" + DB_NAME + "), ", e);
+        }
+    }
+
+    public static ReplicaRoutingDataSource createReplicaRoutingDataSource(ConnectionPoolConfig primaryConfig,
+                                                                          List<ConnectionPoolConfig> replicaConfigs,
+                                                                          ReplicaSelectionStrategy strategy,
+                                                                          long readYourWritesWindow, TimeUnit unit) {
+        List<ConnectionPool> replicas = new ArrayList<>();
+        ConnectionPool primary = createConnectionPool(primaryConfig);
+        try {
+            for (ConnectionPoolConfig replicaConfig : replicaConfigs) {
+                replicas.add(createConnectionPool(replicaConfig));
+            }
+            return new ReplicaRoutingDataSource(primary, replicas, strategy, readYourWritesWindow, unit);
+        } catch (RuntimeException e) {
+            primary.close();
+            replicas.forEach(ConnectionPool::close);
+            throw e;
+        }
+    }
+
+    public static synchronized void closeDataSource() {
+        if (dataSource instanceof ReplicaRoutingDataSource) {
+            ((ReplicaRoutingDataSource) dataSource).close();
+        } else if (dataSource instanceof ConnectionPool) {
+            ((ConnectionPool) dataSource).close();
+        }
+        dataSource = null;
+    }
+
+    private static String primaryUrl() {
+        return System.getProperty(JDBC_URL_PROPERTY, JDBC_URL);
+    }
+}
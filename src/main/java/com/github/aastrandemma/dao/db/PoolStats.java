@@ -0,0 +1,59 @@
+package com.github.aastrandemma.dao.db;
+
+import java.util.Arrays;
+
+public class PoolStats {
+    // Upper bounds (inclusive, in millis) of the wait-time histogram buckets, last bucket is open ended
+    public static final long[] WAIT_BUCKET_BOUNDS_MILLIS = {1, 5, 10, 50, 100, 500, 1000};
+
+    private final int active;
+    private final int idle;
+    private final int waiters;
+    private final long totalBorrows;
+    private final long borrowTimeouts;
+    private final long[] waitTimeHistogram;
+
+    public PoolStats(int active, int idle, int waiters, long totalBorrows, long borrowTimeouts, long[] waitTimeHistogram) {
+        this.active = active;
+        this.idle = idle;
+        this.waiters = waiters;
+        this.totalBorrows = totalBorrows;
+        this.borrowTimeouts = borrowTimeouts;
+        this.waitTimeHistogram = waitTimeHistogram.clone();
+    }
+
+    public int getActive() {
+        return active;
+    }
+
+    public int getIdle() {
+        return idle;
+    }
+
+    public int getTotal() {
+        return active + idle;
+    }
+
+    public int getWaiters() {
+        return waiters;
+    }
+
+    public long getTotalBorrows() {
+        return totalBorrows;
+    }
+
+    public long getBorrowTimeouts() {
+        return borrowTimeouts;
+    }
+
+    public long[] getWaitTimeHistogram() {
+        return waitTimeHistogram.clone();
+    }
+
+    @Override
+    public String toString() {
+        return "PoolStats {active: " + getActive() + ", idle: " + getIdle() + ", waiters: " + getWaiters()
+                + ", borrows: " + getTotalBorrows() + ", timeouts: " + getBorrowTimeouts()
+                + ", waitTimeHistogram: " + Arrays.toString(waitTimeHistogram) + "}";
+    }
+}
@@ -0,0 +1,101 @@
+package com.github.aastrandemma.dao.db;
+
+import com.github.aastrandemma.exception.QueryTimeoutException;
+
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+// Client-side time limit for the DAO calls a unit of work makes. While call() runs, statements created through a
+// CancellableDataSource on this thread get the remaining time as their query timeout, and a timer cancels whatever
+// is still running once the deadline passes. The server-side timeout only has whole seconds and may not cover
+// fetching, the timer is what keeps the limit. A nested deadline can only shorten the outer one
+public final class QueryDeadline {
+    private static final ThreadLocal<QueryDeadline> CURRENT = new ThreadLocal<>();
+    private static final ScheduledThreadPoolExecutor TIMER = createTimer();
+
+    private final long deadlineNanos;
+    private final CancellationToken token = new CancellationToken();
+
+    private QueryDeadline(long deadlineNanos) {
+        this.deadlineNanos = deadlineNanos;
+    }
+
+    // Anything the work throws once the deadline has passed, typically the cancelled statement's failure, is
+    // rethrown as a QueryTimeoutException
+    public static <T> T call(long timeout, TimeUnit unit, Supplier<T> work) {
+        if (timeout <= 0) {
+            throw new IllegalArgumentException("Timeout must be positive.");
+        }
+        long timeoutNanos = unit.toNanos(timeout);
+        QueryDeadline outer = CURRENT.get();
+        if (outer != null && outer.remainingNanos() <= timeoutNanos) {
+            return work.get();
+        }
+        QueryDeadline deadline = new QueryDeadline(System.nanoTime() + timeoutNanos);
+        // An async caller cancelling its own token has to reach the statements registered with this one
+        CancellationToken callerToken = CancellationToken.current();
+        if (callerToken != null) {
+            callerToken.propagateTo(deadline.token);
+        }
+        CURRENT.set(deadline);
+        ScheduledFuture<?> expiry = TIMER.schedule(deadline.token::cancel, timeoutNanos, TimeUnit.NANOSECONDS);
+        try {
+            return deadline.token.run(work);
+        } catch (RuntimeException e) {
+            if (deadline.isExpired()) {
+                throw new QueryTimeoutException("Query deadline of " + TimeUnit.NANOSECONDS.toMillis(timeoutNanos) + " ms exceeded, ", e);
+            }
+            throw e;
+        } finally {
+            expiry.cancel(false);
+            if (outer == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(outer);
+            }
+        }
+    }
+
+    // True while the calling thread runs under a deadline that has passed
+    public static boolean isCurrentExpired() {
+        QueryDeadline deadline = CURRENT.get();
+        return deadline != null && deadline.isExpired();
+    }
+
+    static QueryDeadline current() {
+        return CURRENT.get();
+    }
+
+    long remainingNanos() {
+        return deadlineNanos - System.nanoTime();
+    }
+
+    boolean isExpired() {
+        return remainingNanos() <= 0;
+    }
+
+    void applyTo(Statement statement) throws SQLException {
+        long remaining = remainingNanos();
+        if (remaining <= 0) {
+            statement.close();
+            throw new SQLTimeoutException("Query deadline passed before the statement was created.", CancellationToken.QUERY_CANCELLED_STATE);
+        }
+        statement.setQueryTimeout((int) Math.max(1, TimeUnit.NANOSECONDS.toSeconds(remaining + TimeUnit.SECONDS.toNanos(1) - 1)));
+    }
+
+    private static ScheduledThreadPoolExecutor createTimer() {
+        ScheduledThreadPoolExecutor timer = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "query-deadline-timer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Most deadlines are met, finished calls shouldn't leave their expiry tasks in the queue
+        timer.setRemoveOnCancelPolicy(true);
+        return timer;
+    }
+}
@@ -0,0 +1,72 @@
+package com.github.aastrandemma.dao.db;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+// Per-method time limits for a DAO. wrap() returns a proxy of the DAO interface that runs every call under a
+// QueryDeadline: the method's own limit if one was set, otherwise the default. Overloads share their name's limit.
+// Stream methods aren't limited, since their cursor outlives the call. The DAO's data source needs a
+// CancellableDataSource for statement timeouts and cancellation, otherwise only the exception type changes
+public class QueryTimeouts {
+    private final long defaultTimeoutNanos;
+    private final Map<String, Long> methodTimeoutNanos = new ConcurrentHashMap<>();
+
+    public QueryTimeouts(long defaultTimeout, TimeUnit unit) {
+        if (defaultTimeout <= 0) {
+            throw new IllegalArgumentException("Timeout must be positive.");
+        }
+        this.defaultTimeoutNanos = unit.toNanos(defaultTimeout);
+    }
+
+    public QueryTimeouts set(String methodName, long timeout, TimeUnit unit) {
+        if (timeout <= 0) {
+            throw new IllegalArgumentException("Timeout must be positive.");
+        }
+        methodTimeoutNanos.put(methodName, unit.toNanos(timeout));
+        return this;
+    }
+
+    public long getTimeoutNanos(String methodName) {
+        Long timeoutNanos = methodTimeoutNanos.get(methodName);
+        return timeoutNanos == null ? defaultTimeoutNanos : timeoutNanos;
+    }
+
+    public <D> D wrap(Class<D> daoInterface, D dao) {
+        return daoInterface.cast(Proxy.newProxyInstance(
+                daoInterface.getClassLoader(),
+                new Class<?>[]{daoInterface},
+                (proxy, method, args) -> {
+                    if (method.getDeclaringClass() == Object.class) {
+                        return method.getName().equals("equals") ? proxy == args[0] : invoke(dao, method, args);
+                    }
+                    if (Stream.class.isAssignableFrom(method.getReturnType())) {
+                        return invoke(dao, method, args);
+                    }
+                    return QueryDeadline.call(getTimeoutNanos(method.getName()), TimeUnit.NANOSECONDS, () -> invoke(dao, method, args));
+                }));
+    }
+
+    // DAO methods only throw unchecked exceptions
+    private static Object invoke(Object dao, Method method, Object[] args) {
+        try {
+            return method.invoke(dao, args);
+        } catch (InvocationTargetException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new UndeclaredThrowableException(cause);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("DAO method " + method.getName() + " isn't accessible.", e);
+        }
+    }
+}
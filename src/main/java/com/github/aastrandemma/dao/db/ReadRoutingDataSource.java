@@ -0,0 +1,12 @@
+package com.github.aastrandemma.dao.db;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+// A data source that may serve read-only work from somewhere other than getConnection(), dispatched on by
+// ConnectionHolder.getReadConnection(). Decorators implement it and pass reads on through
+// ConnectionHolder.getReadConnection(target), so a router further down the chain still sees them
+public interface ReadRoutingDataSource extends DataSource {
+    Connection getReadConnection() throws SQLException;
+}
@@ -0,0 +1,198 @@
+package com.github.aastrandemma.dao.db;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// getConnection() always goes to the primary, ConnectionHolder.getReadConnection() goes to a replica unless the
+// current thread, or the ConsistencyToken it runs under, returned a primary connection within the read-your-writes
+// window. Transactions bind a primary connection, so reads inside them stay on the primary as well. A replica pool
+// that has no free connection is skipped without waiting, see setReplicaBorrowTimeout(). Owns and closes its
+// data sources
+public class ReplicaRoutingDataSource extends AbstractDataSource implements ReadRoutingDataSource, AutoCloseable {
+    private static final Logger LOGGER = Logger.getLogger(ReplicaRoutingDataSource.class.getName());
+
+    private final DataSource primary;
+    private final List<DataSource> replicas;
+    private final ReplicaSelectionStrategy strategy;
+    private final long readYourWritesNanos;
+    private final AtomicInteger[] outstanding;
+    private final AtomicInteger nextReplica = new AtomicInteger();
+    // When the current thread last returned a primary connection, null if it never did
+    private final ThreadLocal<Long> lastWriteNanos = new ThreadLocal<>();
+    private final LongAdder primaryReads = new LongAdder();
+    private final LongAdder replicaReads = new LongAdder();
+    // How long a read waits for a connection from a replica pool before trying the next one or the primary
+    private volatile long replicaBorrowTimeoutNanos;
+
+    public ReplicaRoutingDataSource(DataSource primary, List<? extends DataSource> replicas, ReplicaSelectionStrategy strategy,
+                                    long readYourWritesWindow, TimeUnit unit) {
+        Objects.requireNonNull(primary, "Primary DataSource can't be null.");
+        Objects.requireNonNull(replicas, "Replica list can't be null.");
+        Objects.requireNonNull(strategy, "Replica selection strategy can't be null.");
+        if (readYourWritesWindow < 0) {
+            throw new IllegalArgumentException("Read-your-writes window can't be negative.");
+        }
+        this.primary = primary;
+        this.replicas = Collections.unmodifiableList(new ArrayList<>(replicas));
+        this.strategy = strategy;
+        this.readYourWritesNanos = unit.toNanos(readYourWritesWindow);
+        this.outstanding = new AtomicInteger[replicas.size()];
+        for (int i = 0; i < outstanding.length; i++) {
+            outstanding[i] = new AtomicInteger();
+        }
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        ConsistencyToken token = ConsistencyToken.current();
+        return onClose(primary.getConnection(), () -> {
+            long now = System.nanoTime();
+            lastWriteNanos.set(now);
+            if (token != null) {
+                token.recordWrite(now);
+            }
+        });
+    }
+
+    // Only applies to ConnectionPool replicas, other data sources are asked for a connection as they are
+    public void setReplicaBorrowTimeout(long timeout, TimeUnit unit) {
+        if (timeout < 0) {
+            throw new IllegalArgumentException("Replica borrow timeout can't be negative.");
+        }
+        this.replicaBorrowTimeoutNanos = unit.toNanos(timeout);
+    }
+
+    // Falls back to the next replica when one can't hand out a connection, and to the primary when none can
+    @Override
+    public Connection getReadConnection() throws SQLException {
+        if (!replicas.isEmpty() && !withinReadYourWritesWindow()) {
+            int first = selectReplica();
+            for (int attempt = 0; attempt < replicas.size(); attempt++) {
+                int index = (first + attempt) % replicas.size();
+                try {
+                    Connection connection = borrowFromReplica(replicas.get(index));
+                    AtomicInteger replicaOutstanding = outstanding[index];
+                    replicaOutstanding.incrementAndGet();
+                    replicaReads.increment();
+                    return onClose(connection, replicaOutstanding::decrementAndGet);
+                } catch (SQLTransientConnectionException e) {
+                    LOGGER.log(Level.FINE, "Replica " + index + " has no free connection, routing the read elsewhere", e);
+                } catch (SQLException e) {
+                    LOGGER.log(Level.WARNING, "Replica " + index + " unavailable, routing the read elsewhere", e);
+                }
+            }
+        }
+        primaryReads.increment();
+        return primary.getConnection();
+    }
+
+    public DataSource getPrimary() {
+        return primary;
+    }
+
+    public List<DataSource> getReplicas() {
+        return replicas;
+    }
+
+    public long getPrimaryReadCount() {
+        return primaryReads.sum();
+    }
+
+    public long getReplicaReadCount() {
+        return replicaReads.sum();
+    }
+
+    @Override
+    public void close() {
+        closeQuietly(primary);
+        for (DataSource replica : replicas) {
+            closeQuietly(replica);
+        }
+    }
+
+    private boolean withinReadYourWritesWindow() {
+        ConsistencyToken token = ConsistencyToken.current();
+        if (token != null && token.wroteWithin(readYourWritesNanos)) {
+            return true;
+        }
+        Long lastWrite = lastWriteNanos.get();
+        return lastWrite != null && System.nanoTime() - lastWrite < readYourWritesNanos;
+    }
+
+    private Connection borrowFromReplica(DataSource replica) throws SQLException {
+        if (replica instanceof ConnectionPool) {
+            return ((ConnectionPool) replica).getConnection(replicaBorrowTimeoutNanos, TimeUnit.NANOSECONDS);
+        }
+        return replica.getConnection();
+    }
+
+    private int selectReplica() {
+        int start = Math.floorMod(nextReplica.getAndIncrement(), replicas.size());
+        if (strategy == ReplicaSelectionStrategy.ROUND_ROBIN) {
+            return start;
+        }
+        int best = start;
+        for (int attempt = 1; attempt < replicas.size(); attempt++) {
+            int index = (start + attempt) % replicas.size();
+            if (outstanding[index].get() < outstanding[best].get()) {
+                best = index;
+            }
+        }
+        return best;
+    }
+
+    // Runs onClosed once, when the handed out connection is closed the first time
+    private static Connection onClose(Connection connection, Runnable onClosed) {
+        boolean[] closed = new boolean[1];
+        return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "close":
+                            if (!closed[0]) {
+                                closed[0] = true;
+                                try {
+                                    connection.close();
+                                } finally {
+                                    onClosed.run();
+                                }
+                            }
+                            return null;
+                        case "equals":
+                            return proxy == args[0];
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        default:
+                            try {
+                                return method.invoke(connection, args);
+                            } catch (InvocationTargetException e) {
+                                throw e.getCause();
+                            }
+                    }
+                });
+    }
+
+    private static void closeQuietly(DataSource dataSource) {
+        if (dataSource instanceof AutoCloseable) {
+            try {
+                ((AutoCloseable) dataSource).close();
+            } catch (Exception e) {
+                LOGGER.log(Level.WARNING, "Failed to close data source", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package com.github.aastrandemma.dao.db;
+
+public enum ReplicaSelectionStrategy {
+    ROUND_ROBIN,
+    // Picks the replica with the fewest connections currently handed out, ties go round-robin
+    LEAST_OUTSTANDING
+}
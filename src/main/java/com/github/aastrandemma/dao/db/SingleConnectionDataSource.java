@@ -0,0 +1,58 @@
+package com.github.aastrandemma.dao.db;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.util.Objects;
+
+// Hands out the same connection on every call, close() on the handed out connection is ignored
+public class SingleConnectionDataSource extends AbstractDataSource {
+    private final Connection connection;
+    private final Connection suppressCloseProxy;
+
+    public SingleConnectionDataSource(Connection connection) {
+        Objects.requireNonNull(connection, "Connection can't be null.");
+        this.connection = connection;
+        this.suppressCloseProxy = (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "close":
+                            return null;
+                        case "equals":
+                            return proxy == args[0];
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        default:
+                            try {
+                                return method.invoke(connection, args);
+                            } catch (InvocationTargetException e) {
+                                throw e.getCause();
+                            }
+                    }
+                });
+    }
+
+    @Override
+    public Connection getConnection() {
+        return suppressCloseProxy;
+    }
+
+    public Connection getTargetConnection() {
+        return connection;
+    }
+
+    // Two of these over the same connection are the same data source, so DAOs built from getInstance(Connection)
+    // find each other's transactions in ConnectionHolder
+    @Override
+    public boolean equals(Object obj) {
+        if (!(obj instanceof SingleConnectionDataSource)) return false;
+        return connection == ((SingleConnectionDataSource) obj).connection;
+    }
+
+    @Override
+    public int hashCode() {
+        return System.identityHashCode(connection);
+    }
+}
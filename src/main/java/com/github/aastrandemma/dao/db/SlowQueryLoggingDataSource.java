@@ -0,0 +1,108 @@
+package com.github.aastrandemma.dao.db;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// Logs every statement slower than the threshold with its SQL and bind parameters. Statements are
+// wrapped in proxies, so this adds a few allocations per statement and is meant to be switched on when needed
+public class SlowQueryLoggingDataSource extends AbstractDataSource implements ReadRoutingDataSource {
+    private static final Logger LOGGER = Logger.getLogger(SlowQueryLoggingDataSource.class.getName());
+
+    private final DataSource target;
+    private final long thresholdNanos;
+
+    public SlowQueryLoggingDataSource(DataSource target, long threshold, TimeUnit unit) {
+        Objects.requireNonNull(target, "Target DataSource can't be null.");
+        this.target = target;
+        this.thresholdNanos = unit.toNanos(threshold);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return wrapConnection(target.getConnection());
+    }
+
+    // Keeps the target's read routing
+    @Override
+    public Connection getReadConnection() throws SQLException {
+        return wrapConnection(ConnectionHolder.getReadConnection(target));
+    }
+
+    private Connection wrapConnection(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    Object result = invoke(connection, method, args);
+                    if (result instanceof Statement && method.getName().startsWith("prepare")) {
+                        return wrapStatement((Statement) result, (String) args[0]);
+                    }
+                    if (result instanceof Statement) {
+                        return wrapStatement((Statement) result, null);
+                    }
+                    return result;
+                });
+    }
+
+    public DataSource getTarget() {
+        return target;
+    }
+
+    private Statement wrapStatement(Statement statement, String preparedSql) {
+        Class<?> statementInterface = statement instanceof CallableStatement ? CallableStatement.class
+                : statement instanceof PreparedStatement ? PreparedStatement.class : Statement.class;
+        List<Object> parameters = new ArrayList<>();
+        return (Statement) Proxy.newProxyInstance(
+                Statement.class.getClassLoader(),
+                new Class<?>[]{statementInterface},
+                (proxy, method, args) -> {
+                    String name = method.getName();
+                    if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer) {
+                        recordParameter(parameters, (Integer) args[0], name.equals("setNull") ? null : args[1]);
+                    } else if (name.equals("clearParameters")) {
+                        parameters.clear();
+                    } else if (name.startsWith("execute")) {
+                        String sql = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : preparedSql;
+                        long start = System.nanoTime();
+                        try {
+                            return invoke(statement, method, args);
+                        } finally {
+                            long elapsed = System.nanoTime() - start;
+                            if (elapsed >= thresholdNanos) {
+                                LOGGER.log(Level.WARNING, "Slow query ({0} ms): {1} parameters: {2}",
+                                        new Object[]{TimeUnit.NANOSECONDS.toMillis(elapsed), sql, parameters});
+                            }
+                        }
+                    }
+                    return invoke(statement, method, args);
+                });
+    }
+
+    private static void recordParameter(List<Object> parameters, int index, Object value) {
+        while (parameters.size() < index) {
+            parameters.add(null);
+        }
+        parameters.set(index - 1, value);
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
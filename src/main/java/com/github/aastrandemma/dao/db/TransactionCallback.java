@@ -0,0 +1,9 @@
+package com.github.aastrandemma.dao.db;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+@FunctionalInterface
+public interface TransactionCallback<T> {
+    T doInTransaction(Connection connection) throws SQLException;
+}
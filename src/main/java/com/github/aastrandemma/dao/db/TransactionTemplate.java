@@ -0,0 +1,113 @@
+package com.github.aastrandemma.dao.db;
+
+import com.github.aastrandemma.exception.MySQLException;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// Runs a unit of work on one connection in one transaction, DAOs sharing the DataSource join it,
+// nested execute() calls join the outer transaction
+public class TransactionTemplate {
+    private static final Logger LOGGER = Logger.getLogger(TransactionTemplate.class.getName());
+    private final DataSource dataSource;
+
+    public TransactionTemplate(DataSource dataSource) {
+        Objects.requireNonNull(dataSource, "DataSource can't be null.");
+        this.dataSource = dataSource;
+    }
+
+    public <T> T execute(TransactionCallback<T> callback) {
+        Connection bound = ConnectionHolder.getBoundConnection(dataSource);
+        if (bound != null) {
+            try {
+                return callback.doInTransaction(bound);
+            } catch (SQLException e) {
+                throw new MySQLException("Error occurred in nested transaction, ", e);
+            }
+        }
+
+        T result = null;
+        List<Runnable> afterCommitActions = Collections.emptyList();
+        boolean committed = false;
+        try (Connection connection = dataSource.getConnection()) {
+            boolean previousAutoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            ConnectionHolder.bind(dataSource, connection);
+            Throwable failure = null;
+            try {
+                result = callback.doInTransaction(ConnectionHolder.getBoundConnection(dataSource));
+                connection.commit();
+                committed = true;
+            } catch (SQLException | RuntimeException | Error e) {
+                rollback(connection, e);
+                failure = e instanceof SQLException ? new MySQLException("Transaction failed and was rolled back, ", e) : e;
+                if (failure instanceof Error) {
+                    throw (Error) failure;
+                }
+                throw (RuntimeException) failure;
+            } finally {
+                List<Runnable> actions = ConnectionHolder.unbind(dataSource, committed);
+                if (committed) {
+                    afterCommitActions = actions;
+                } else {
+                    runAfterRollback(actions, failure);
+                }
+                restoreAutoCommit(connection, previousAutoCommit, failure);
+            }
+        } catch (SQLException e) {
+            if (!committed) {
+                throw new MySQLException("Failed to begin or commit transaction, ", e);
+            }
+            // The work is committed, reporting it as failed would invite a retry of a write that already happened
+            LOGGER.log(Level.WARNING, "Failed to restore autoCommit or close the connection after commit", e);
+        }
+        // Outside the transaction and after the connection went back, so actions may use the DataSource again
+        for (Runnable action : afterCommitActions) {
+            ConnectionHolder.runCommitted(action);
+        }
+        return result;
+    }
+
+    public void executeWithoutResult(TransactionCallback<?> callback) {
+        execute(callback);
+    }
+
+    // Rollback actions only undo in-memory state, one failing doesn't stop the others or hide the rollback cause
+    private static void runAfterRollback(List<Runnable> actions, Throwable failure) {
+        for (Runnable action : actions) {
+            try {
+                action.run();
+            } catch (RuntimeException e) {
+                if (failure != null) {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+    }
+
+    // A failing restore must not replace the exception that rolled the transaction back, it is attached to it instead
+    private static void restoreAutoCommit(Connection connection, boolean autoCommit, Throwable failure) throws SQLException {
+        try {
+            connection.setAutoCommit(autoCommit);
+        } catch (SQLException e) {
+            if (failure == null) {
+                throw e;
+            }
+            failure.addSuppressed(e);
+        }
+    }
+
+    private static void rollback(Connection connection, Throwable cause) {
+        try {
+            connection.rollback();
+        } catch (SQLException e) {
+            cause.addSuppressed(e);
+        }
+    }
+}
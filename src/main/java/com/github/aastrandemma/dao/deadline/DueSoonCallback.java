@@ -0,0 +1,8 @@
+package com.github.aastrandemma.dao.deadline;
+
+import java.time.LocalDate;
+
+@FunctionalInterface
+public interface DueSoonCallback {
+    void dueSoon(int todoId, LocalDate deadline);
+}
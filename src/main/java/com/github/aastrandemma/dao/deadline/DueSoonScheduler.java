@@ -0,0 +1,183 @@
+package com.github.aastrandemma.dao.deadline;
+
+import com.github.aastrandemma.dao.impl.TodoItemsDaoImpl;
+import com.github.aastrandemma.model.Todo;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// Calls back once for every open todo when its deadline is leadTime away. Only deadlines within
+// horizonDays are held in memory, the horizon is extended a day at a time as the date rolls over, and
+// writes through TodoItemsDaoImpl reschedule or cancel the affected todo
+public class DueSoonScheduler implements TodoDeadlineListener, AutoCloseable {
+    private static final Logger LOGGER = Logger.getLogger(DueSoonScheduler.class.getName());
+    private static final long TICK_MILLIS = 1000;
+    // 512 one second slots, a timer further out waits one extra revolution per 8.5 minutes
+    private static final int WHEEL_SLOTS = 512;
+
+    private final TodoItemsDaoImpl todoItemsDao;
+    private final DueSoonCallback callback;
+    private final long leadTimeMillis;
+    private final int horizonDays;
+    private final Clock clock;
+    private final HashedTimingWheel<Integer, LocalDate> wheel;
+    private final ScheduledExecutorService ticker;
+    // Deadlines up to and including this date have been loaded, null before start()
+    private LocalDate loadedThrough;
+
+    public DueSoonScheduler(TodoItemsDaoImpl todoItemsDao, DueSoonCallback callback, long leadTime, TimeUnit unit, int horizonDays) {
+        this(todoItemsDao, callback, leadTime, unit, horizonDays, Clock.systemDefaultZone());
+    }
+
+    public DueSoonScheduler(TodoItemsDaoImpl todoItemsDao, DueSoonCallback callback, long leadTime, TimeUnit unit,
+                            int horizonDays, Clock clock) {
+        Objects.requireNonNull(todoItemsDao, "TodoItemsDao can't be null.");
+        Objects.requireNonNull(callback, "Callback can't be null.");
+        if (leadTime < 0) {
+            throw new IllegalArgumentException("Lead time can't be negative.");
+        }
+        if (horizonDays < 0) {
+            throw new IllegalArgumentException("Horizon can't be negative.");
+        }
+        this.todoItemsDao = todoItemsDao;
+        this.callback = callback;
+        this.leadTimeMillis = unit.toMillis(leadTime);
+        // The horizon has to cover the lead time, or a deadline could be loaded after it should have fired
+        this.horizonDays = (int) Math.max(horizonDays, TimeUnit.MILLISECONDS.toDays(leadTimeMillis) + 1);
+        this.clock = clock;
+        this.wheel = new HashedTimingWheel<>(TICK_MILLIS, WHEEL_SLOTS, clock.millis());
+        this.ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "due-soon-scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // Registers with the DAO before the first load so no write falls between the two
+    public void start() {
+        todoItemsDao.addDeadlineListener(this);
+        ticker.execute(this::extendHorizon);
+        ticker.scheduleAtFixedRate(this::tick, TICK_MILLIS, TICK_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized int pendingCount() {
+        return wheel.size();
+    }
+
+    @Override
+    public void todoSaved(Todo todo) {
+        synchronized (this) {
+            wheel.cancel(todo.getId());
+            if (!todo.isDone()) {
+                scheduleIfLoaded(todo.getId(), todo.getDeadline());
+            }
+        }
+    }
+
+    @Override
+    public void todoDeleted(int todoId) {
+        synchronized (this) {
+            wheel.cancel(todoId);
+        }
+    }
+
+    @Override
+    public void doneStatusChanged(int todoId, boolean done) {
+        if (done) {
+            todoDeleted(todoId);
+        } else {
+            // Reopened, the deadline isn't known here so it is looked up off the writing thread
+            ticker.execute(() -> {
+                try {
+                    Todo todo = todoItemsDao.findById(todoId);
+                    if (todo != null) {
+                        todoSaved(todo);
+                    }
+                } catch (RuntimeException e) {
+                    LOGGER.log(Level.WARNING, "Failed to reschedule reopened todo " + todoId, e);
+                }
+            });
+        }
+    }
+
+    @Override
+    public void close() {
+        todoItemsDao.removeDeadlineListener(this);
+        ticker.shutdownNow();
+    }
+
+    private void tick() {
+        try {
+            if (!LocalDate.now(clock).plusDays(horizonDays).equals(loadedThrough)) {
+                extendHorizon();
+            }
+            List<Integer> dueTodoIds = new ArrayList<>();
+            List<LocalDate> dueDeadlines = new ArrayList<>();
+            synchronized (this) {
+                wheel.advance(clock.millis(), (todoId, deadline) -> {
+                    dueTodoIds.add(todoId);
+                    dueDeadlines.add(deadline);
+                });
+            }
+            // Callbacks run outside the lock so a slow callback doesn't block DAO writes
+            for (int i = 0; i < dueTodoIds.size(); i++) {
+                fire(dueTodoIds.get(i), dueDeadlines.get(i));
+            }
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Due soon scheduler tick failed", e);
+        }
+    }
+
+    // Loads only the days that entered the horizon since the last load
+    private void extendHorizon() {
+        LocalDate today = LocalDate.now(clock);
+        LocalDate horizon = today.plusDays(horizonDays);
+        LocalDate from;
+        synchronized (this) {
+            from = loadedThrough == null ? today : loadedThrough.plusDays(1);
+        }
+        if (from.isAfter(horizon)) {
+            return;
+        }
+        List<Todo> openTodoItems = new ArrayList<>();
+        for (Todo todo : todoItemsDao.findByDeadlineBetween(from, horizon)) {
+            if (!todo.isDone()) {
+                openTodoItems.add(todo);
+            }
+        }
+        synchronized (this) {
+            loadedThrough = horizon;
+            for (Todo todo : openTodoItems) {
+                wheel.schedule(todo.getId(), todo.getDeadline(), fireAtMillis(todo.getDeadline()));
+            }
+        }
+    }
+
+    private void scheduleIfLoaded(int todoId, LocalDate deadline) {
+        // Deadlines past the horizon are picked up when the horizon reaches them, overdue ones never fire
+        if (deadline == null || loadedThrough == null || deadline.isAfter(loadedThrough) || deadline.isBefore(LocalDate.now(clock))) {
+            return;
+        }
+        wheel.schedule(todoId, deadline, fireAtMillis(deadline));
+    }
+
+    private long fireAtMillis(LocalDate deadline) {
+        return deadline.atStartOfDay(clock.getZone()).toInstant().toEpochMilli() - leadTimeMillis;
+    }
+
+    private void fire(int todoId, LocalDate deadline) {
+        try {
+            callback.dueSoon(todoId, deadline);
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Due soon callback failed for todo " + todoId, e);
+        }
+    }
+}
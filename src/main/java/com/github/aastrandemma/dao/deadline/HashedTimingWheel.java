@@ -0,0 +1,107 @@
+package com.github.aastrandemma.dao.deadline;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+// Hashed timing wheel: timers hash into slots by their tick, timers further away than one revolution
+// wait out the extra revolutions in their slot. Scheduling and cancelling are O(1), advancing one tick
+// only touches one slot. Not thread safe
+final class HashedTimingWheel<K, V> {
+    private final long tickMillis;
+    private final Timer<K, V>[] slots;
+    private final int mask;
+    private final Map<K, Timer<K, V>> timersByKey = new HashMap<>();
+    private final long startMillis;
+    // Next tick to process, counted from startMillis
+    private long nextTick;
+
+    @SuppressWarnings("unchecked")
+    HashedTimingWheel(long tickMillis, int slotCount, long startMillis) {
+        if (tickMillis < 1) {
+            throw new IllegalArgumentException("Tick must be at least 1 ms.");
+        }
+        if (slotCount < 1 || Integer.bitCount(slotCount) != 1) {
+            throw new IllegalArgumentException("Slot count must be a positive power of two.");
+        }
+        this.tickMillis = tickMillis;
+        this.slots = (Timer<K, V>[]) new Timer<?, ?>[slotCount];
+        this.mask = slotCount - 1;
+        this.startMillis = startMillis;
+    }
+
+    // Replaces any timer already scheduled for the key, timers in the past fire on the next advance
+    void schedule(K key, V value, long fireAtMillis) {
+        cancel(key);
+        long tick = Math.max(nextTick, (fireAtMillis - startMillis) / tickMillis);
+        Timer<K, V> timer = new Timer<>(key, value, (tick - nextTick) / slots.length);
+        int slot = (int) (tick & mask);
+        timer.next = slots[slot];
+        if (timer.next != null) {
+            timer.next.previous = timer;
+        }
+        slots[slot] = timer;
+        timer.slot = slot;
+        timersByKey.put(key, timer);
+    }
+
+    boolean cancel(K key) {
+        Timer<K, V> timer = timersByKey.remove(key);
+        if (timer == null) {
+            return false;
+        }
+        unlink(timer);
+        return true;
+    }
+
+    int size() {
+        return timersByKey.size();
+    }
+
+    // Processes every tick up to nowMillis and hands the key and value of expired timers to the consumer
+    void advance(long nowMillis, BiConsumer<K, V> expired) {
+        long lastTick = (nowMillis - startMillis) / tickMillis;
+        for (; nextTick <= lastTick; nextTick++) {
+            Timer<K, V> timer = slots[(int) (nextTick & mask)];
+            while (timer != null) {
+                Timer<K, V> next = timer.next;
+                if (timer.remainingRounds <= 0) {
+                    unlink(timer);
+                    timersByKey.remove(timer.key);
+                    expired.accept(timer.key, timer.value);
+                } else {
+                    timer.remainingRounds--;
+                }
+                timer = next;
+            }
+        }
+    }
+
+    private void unlink(Timer<K, V> timer) {
+        if (timer.previous == null) {
+            slots[timer.slot] = timer.next;
+        } else {
+            timer.previous.next = timer.next;
+        }
+        if (timer.next != null) {
+            timer.next.previous = timer.previous;
+        }
+        timer.previous = null;
+        timer.next = null;
+    }
+
+    private static final class Timer<K, V> {
+        private final K key;
+        private final V value;
+        private long remainingRounds;
+        private int slot;
+        private Timer<K, V> previous;
+        private Timer<K, V> next;
+
+        private Timer(K key, V value, long remainingRounds) {
+            this.key = key;
+            this.value = value;
+            this.remainingRounds = remainingRounds;
+        }
+    }
+}
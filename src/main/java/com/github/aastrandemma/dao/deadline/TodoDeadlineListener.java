@@ -0,0 +1,11 @@
+package com.github.aastrandemma.dao.deadline;
+
+import com.github.aastrandemma.model.Todo;
+
+// Told about writes that can move a todo's deadline or open status. Called on the writing thread once the write
+// commits, so implementations have to be quick and must not throw
+public interface TodoDeadlineListener {
+    void todoSaved(Todo todo);
+    void todoDeleted(int todoId);
+    void doneStatusChanged(int todoId, boolean done);
+}
@@ -0,0 +1,58 @@
+package com.github.aastrandemma.dao.events;
+
+// One slot of the ChangeEventBus ring, reused for a later event once every subscriber has moved past it.
+// Handlers must not keep the event itself, the before and after snapshots are private copies and can be kept
+public final class ChangeEvent {
+    private long sequence;
+    private EntityType entityType;
+    private ChangeType changeType;
+    private int entityId;
+    private Object before;
+    private Object after;
+
+    ChangeEvent() {
+    }
+
+    void set(long sequence, EntityType entityType, ChangeType changeType, int entityId, Object before, Object after) {
+        this.sequence = sequence;
+        this.entityType = entityType;
+        this.changeType = changeType;
+        this.entityId = entityId;
+        this.before = before;
+        this.after = after;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public EntityType getEntityType() {
+        return entityType;
+    }
+
+    public ChangeType getChangeType() {
+        return changeType;
+    }
+
+    public int getEntityId() {
+        return entityId;
+    }
+
+    // State before the change, null for CREATED. A Todo or Person depending on getEntityType()
+    @SuppressWarnings("unchecked")
+    public <T> T getBefore() {
+        return (T) before;
+    }
+
+    // State after the change, null for DELETED
+    @SuppressWarnings("unchecked")
+    public <T> T getAfter() {
+        return (T) after;
+    }
+
+    @Override
+    public String toString() {
+        return "ChangeEvent {sequence: " + sequence + ", entityType: " + entityType + ", changeType: " + changeType
+                + ", entityId: " + entityId + "}";
+    }
+}
@@ -0,0 +1,187 @@
+package com.github.aastrandemma.dao.events;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// Bounded multi-producer ring buffer with preallocated event slots, every subscriber reads the whole stream on its
+// own thread. publish() waits when it would overwrite an event the slowest subscriber hasn't handled yet, so a
+// slow subscriber slows the publisher down instead of losing events or growing a queue. The DAOs publish after
+// their writes have committed and use tryPublish(), which drops and counts the event instead of waiting
+public class ChangeEventBus implements AutoCloseable {
+    private static final Logger LOGGER = Logger.getLogger(ChangeEventBus.class.getName());
+    private static final int SPIN_TRIES = 100;
+    private static final int YIELD_TRIES = 100;
+    private static final long PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    private final ChangeEvent[] slots;
+    private final int mask;
+    private final int indexShift;
+    // Per slot, which lap of the ring the published event belongs to. Lets subscribers tell a published slot
+    // from one that's claimed but still being written
+    private final AtomicIntegerArray publishedLaps;
+    private final AtomicLong claimed = new AtomicLong(-1);
+    private final LongAdder droppedEvents = new LongAdder();
+    private final List<ChangeSubscription> subscriptions = new CopyOnWriteArrayList<>();
+    // Slowest subscriber position last seen by a publisher, only refreshed when the ring looks full
+    private volatile long gatingSequenceCache = -1;
+    private volatile boolean closed;
+
+    public ChangeEventBus(int capacity) {
+        if (capacity < 2 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a power of two and at least 2.");
+        }
+        this.slots = new ChangeEvent[capacity];
+        for (int i = 0; i < capacity; i++) {
+            slots[i] = new ChangeEvent();
+        }
+        this.mask = capacity - 1;
+        this.indexShift = Integer.numberOfTrailingZeros(capacity);
+        this.publishedLaps = new AtomicIntegerArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            publishedLaps.set(i, -1);
+        }
+    }
+
+    // Blocks while the ring is full. Without subscribers nothing is retained and publishing never blocks
+    public void publish(EntityType entityType, ChangeType changeType, int entityId, Object before, Object after) {
+        if (closed) {
+            throw new IllegalStateException("Change event bus is closed.");
+        }
+        long sequence = claim();
+        int index = (int) sequence & mask;
+        slots[index].set(sequence, entityType, changeType, entityId, before, after);
+        publishedLaps.lazySet(index, (int) (sequence >>> indexShift));
+    }
+
+    // Never blocks or throws. When the ring is full or the bus is closed the event is dropped and counted instead
+    public boolean tryPublish(EntityType entityType, ChangeType changeType, int entityId, Object before, Object after) {
+        long sequence = closed ? -1 : tryClaim();
+        if (sequence < 0) {
+            droppedEvents.increment();
+            return false;
+        }
+        int index = (int) sequence & mask;
+        slots[index].set(sequence, entityType, changeType, entityId, before, after);
+        publishedLaps.lazySet(index, (int) (sequence >>> indexShift));
+        return true;
+    }
+
+    // Starts a daemon thread delivering every event published from now on to the handler
+    public ChangeSubscription subscribe(String name, ChangeEventHandler handler) {
+        Objects.requireNonNull(handler, "Handler can't be null.");
+        if (closed) {
+            throw new IllegalStateException("Change event bus is closed.");
+        }
+        ChangeSubscription subscription = new ChangeSubscription(this, name, handler, claimed.get());
+        subscriptions.add(subscription);
+        // A publisher's cached gating position may be ahead of the new subscriber, make the next claim recheck
+        gatingSequenceCache = Math.min(gatingSequenceCache, subscription.getSequence());
+        subscription.start();
+        return subscription;
+    }
+
+    public int getCapacity() {
+        return slots.length;
+    }
+
+    public long getPublishedCount() {
+        return claimed.get() + 1;
+    }
+
+    // Events tryPublish() dropped because the ring was full or the bus closed
+    public long getDroppedCount() {
+        return droppedEvents.sum();
+    }
+
+    public List<ChangeSubscription> getSubscriptions() {
+        return subscriptions;
+    }
+
+    // Lets every subscriber drain what was already published, then stops them
+    @Override
+    public void close() {
+        closed = true;
+        for (ChangeSubscription subscription : subscriptions) {
+            subscription.close();
+        }
+    }
+
+    void unsubscribe(ChangeSubscription subscription) {
+        subscriptions.remove(subscription);
+    }
+
+    long getClaimedSequence() {
+        return claimed.get();
+    }
+
+    boolean isPublished(long sequence) {
+        return publishedLaps.get((int) sequence & mask) == (int) (sequence >>> indexShift);
+    }
+
+    ChangeEvent slot(long sequence) {
+        return slots[(int) sequence & mask];
+    }
+
+    private long claim() {
+        int idle = 0;
+        while (true) {
+            long sequence = tryClaim();
+            if (sequence >= 0) {
+                return sequence;
+            }
+            idle = backOff(idle);
+        }
+    }
+
+    // Returns -1 when the next slot still holds an event the slowest subscriber hasn't handled
+    private long tryClaim() {
+        while (true) {
+            long current = claimed.get();
+            long next = current + 1;
+            long wrapPoint = next - slots.length;
+            if (wrapPoint > gatingSequenceCache) {
+                long slowest = slowestSubscriberSequence(current);
+                if (wrapPoint > slowest) {
+                    return -1;
+                }
+                gatingSequenceCache = slowest;
+            }
+            if (claimed.compareAndSet(current, next)) {
+                return next;
+            }
+        }
+    }
+
+    private long slowestSubscriberSequence(long fallback) {
+        long slowest = fallback;
+        for (ChangeSubscription subscription : subscriptions) {
+            slowest = Math.min(slowest, subscription.getSequence());
+        }
+        return slowest;
+    }
+
+    // Busy spin, then yield, then park briefly, shared by blocked publishers and idle subscribers
+    static int backOff(int idle) {
+        if (idle < SPIN_TRIES) {
+            return idle + 1;
+        }
+        if (idle < SPIN_TRIES + YIELD_TRIES) {
+            Thread.yield();
+            return idle + 1;
+        }
+        LockSupport.parkNanos(PARK_NANOS);
+        return idle;
+    }
+
+    static void logHandlerFailure(String subscriptionName, ChangeEvent event, RuntimeException e) {
+        LOGGER.log(Level.WARNING, "Change event handler " + subscriptionName + " failed for " + event, e);
+    }
+}
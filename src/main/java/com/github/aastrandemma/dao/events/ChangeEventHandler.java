@@ -0,0 +1,7 @@
+package com.github.aastrandemma.dao.events;
+
+@FunctionalInterface
+public interface ChangeEventHandler {
+    // endOfBatch is true for the last event currently available, a good point to flush batched work
+    void onEvent(ChangeEvent event, boolean endOfBatch);
+}
@@ -0,0 +1,89 @@
+package com.github.aastrandemma.dao.events;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class ChangeSubscription implements AutoCloseable {
+    private static final long CLOSE_DRAIN_TIMEOUT_MILLIS = TimeUnit.SECONDS.toMillis(30);
+
+    private final ChangeEventBus bus;
+    private final String name;
+    private final ChangeEventHandler handler;
+    // Last sequence handled, publishers read it to know which slots they may reuse
+    private final AtomicLong sequence;
+    private final Thread thread;
+    private volatile boolean running = true;
+
+    ChangeSubscription(ChangeEventBus bus, String name, ChangeEventHandler handler, long startAfterSequence) {
+        this.bus = bus;
+        this.name = name;
+        this.handler = handler;
+        this.sequence = new AtomicLong(startAfterSequence);
+        this.thread = new Thread(this::run, "change-event-subscriber-" + name);
+        thread.setDaemon(true);
+    }
+
+    void start() {
+        thread.start();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getSequence() {
+        return sequence.get();
+    }
+
+    // Events published but not handled yet
+    public long getLag() {
+        return Math.max(0, bus.getClaimedSequence() - sequence.get());
+    }
+
+    // Handles what was published before the call, then stops the subscriber thread
+    @Override
+    public void close() {
+        long drainUntil = System.currentTimeMillis() + CLOSE_DRAIN_TIMEOUT_MILLIS;
+        long target = bus.getClaimedSequence();
+        while (thread.isAlive() && sequence.get() < target && System.currentTimeMillis() < drainUntil) {
+            ChangeEventBus.backOff(Integer.MAX_VALUE);
+        }
+        running = false;
+        bus.unsubscribe(this);
+        if (Thread.currentThread() != thread) {
+            try {
+                thread.join(CLOSE_DRAIN_TIMEOUT_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void run() {
+        long next = sequence.get() + 1;
+        int idle = 0;
+        while (running) {
+            long available = next - 1;
+            long claimed = bus.getClaimedSequence();
+            while (available < claimed && bus.isPublished(available + 1)) {
+                available++;
+            }
+            if (available < next) {
+                idle = ChangeEventBus.backOff(idle);
+                continue;
+            }
+            idle = 0;
+            for (long current = next; current <= available; current++) {
+                ChangeEvent event = bus.slot(current);
+                try {
+                    handler.onEvent(event, current == available);
+                } catch (RuntimeException e) {
+                    ChangeEventBus.logHandlerFailure(name, event, e);
+                }
+            }
+            // One release per batch rather than per event, publishers only need it when the ring is full
+            sequence.lazySet(available);
+            next = available + 1;
+        }
+    }
+}
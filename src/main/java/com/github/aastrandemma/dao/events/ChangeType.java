@@ -0,0 +1,7 @@
+package com.github.aastrandemma.dao.events;
+
+public enum ChangeType {
+    CREATED,
+    UPDATED,
+    DELETED
+}
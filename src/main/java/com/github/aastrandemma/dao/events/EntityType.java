@@ -0,0 +1,19 @@
+package com.github.aastrandemma.dao.events;
+
+import com.github.aastrandemma.model.Person;
+import com.github.aastrandemma.model.Todo;
+
+public enum EntityType {
+    TODO(Todo.class),
+    PERSON(Person.class);
+
+    private final Class<?> entityClass;
+
+    EntityType(Class<?> entityClass) {
+        this.entityClass = entityClass;
+    }
+
+    public Class<?> getEntityClass() {
+        return entityClass;
+    }
+}
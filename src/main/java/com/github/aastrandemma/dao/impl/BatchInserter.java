@@ -0,0 +1,92 @@
+package com.github.aastrandemma.dao.impl;
+
+import com.github.aastrandemma.dao.db.TransactionTemplate;
+import com.github.aastrandemma.exception.BatchInsertException;
+import com.github.aastrandemma.exception.MySQLException;
+
+import javax.sql.DataSource;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.ObjIntConsumer;
+
+// Inserts a collection with JDBC batching, one transaction for the whole collection
+final class BatchInserter<T> {
+    private final DataSource dataSource;
+    private final String tableName;
+    private final String insertQuery;
+    private final StatementBinder<T> binder;
+    private final ObjIntConsumer<T> idSetter;
+
+    BatchInserter(DataSource dataSource, String tableName, String insertQuery, StatementBinder<T> binder, ObjIntConsumer<T> idSetter) {
+        this.dataSource = dataSource;
+        this.tableName = tableName;
+        this.insertQuery = insertQuery;
+        this.binder = binder;
+        this.idSetter = idSetter;
+    }
+
+    Collection<T> insertAll(Collection<T> items, int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be at least 1.");
+        }
+        if (items.isEmpty()) {
+            return items;
+        }
+        try {
+            return new TransactionTemplate(dataSource).execute(connection -> {
+                try (PreparedStatement preparedStatement = connection.prepareStatement(insertQuery, Statement.RETURN_GENERATED_KEYS)) {
+                    List<T> chunk = new ArrayList<>(Math.min(batchSize, items.size()));
+                    int chunkIndex = 0;
+                    int firstItemIndex = 0;
+                    for (T item : items) {
+                        chunk.add(item);
+                        if (chunk.size() == batchSize) {
+                            executeChunk(preparedStatement, chunk, chunkIndex++, firstItemIndex);
+                            firstItemIndex += chunk.size();
+                            chunk.clear();
+                        }
+                    }
+                    if (!chunk.isEmpty()) {
+                        executeChunk(preparedStatement, chunk, chunkIndex, firstItemIndex);
+                    }
+                }
+                return items;
+            });
+        } catch (RuntimeException e) {
+            // The whole transaction was rolled back, so ids written back by earlier chunks are void
+            for (T item : items) {
+                idSetter.accept(item, 0);
+            }
+            throw e;
+        }
+    }
+
+    private void executeChunk(PreparedStatement preparedStatement, List<T> chunk, int chunkIndex, int firstItemIndex) {
+        try {
+            for (T item : chunk) {
+                binder.bind(preparedStatement, item);
+                preparedStatement.addBatch();
+            }
+            preparedStatement.executeBatch();
+
+            try (ResultSet generatedKeys = preparedStatement.getGeneratedKeys()) {
+                for (T item : chunk) {
+                    if (!generatedKeys.next()) {
+                        String errorMessage = "Failed to generate keys for batch insert operation " + tableName + " table, chunk: " + chunkIndex + ".";
+                        throw new MySQLException(errorMessage);
+                    }
+                    idSetter.accept(item, generatedKeys.getInt(1));
+                }
+            }
+        } catch (SQLException | MySQLException e) {
+            String errorMessage = "Batch insert operation for " + tableName + " table failed in chunk " + chunkIndex
+                    + " (items " + firstItemIndex + " to " + (firstItemIndex + chunk.size() - 1) + "), ";
+            throw new BatchInsertException(errorMessage, chunkIndex, firstItemIndex, chunk.size(), e);
+        }
+    }
+}
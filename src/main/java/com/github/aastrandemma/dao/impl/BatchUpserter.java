@@ -0,0 +1,164 @@
+package com.github.aastrandemma.dao.impl;
+
+import com.github.aastrandemma.dao.db.ConnectionHolder;
+import com.github.aastrandemma.dao.db.TransactionTemplate;
+import com.github.aastrandemma.exception.BatchInsertException;
+import com.github.aastrandemma.model.SaveResult;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// Saves a collection in one transaction. Items with an id are upserted by it in JDBC batches, so a row that doesn't
+// exist yet is inserted with that id. Items without one go through the BatchInserter and get their generated id
+final class BatchUpserter<T> {
+    private static final Logger LOGGER = Logger.getLogger(BatchUpserter.class.getName());
+    private static final int MAX_ATTEMPTS = 3;
+    private static final String DEADLOCK_SQL_STATE = "40001";
+    private static final int MYSQL_DEADLOCK = 1213;
+    private final DataSource dataSource;
+    private final String tableName;
+    private final String idColumn;
+    private final String[] columns;
+    private final StatementBinder<T> binder;
+    private final ToIntFunction<T> idGetter;
+    private final BatchInserter<T> batchInserter;
+    // Built from the first connection's dialect, null until then
+    private volatile String upsertQuery;
+
+    BatchUpserter(DataSource dataSource, String tableName, String idColumn, String[] columns, StatementBinder<T> binder,
+                  ToIntFunction<T> idGetter, BatchInserter<T> batchInserter) {
+        this.dataSource = dataSource;
+        this.tableName = tableName;
+        this.idColumn = idColumn;
+        this.columns = columns;
+        this.binder = binder;
+        this.idGetter = idGetter;
+        this.batchInserter = batchInserter;
+    }
+
+    Saved<T> saveAll(Collection<T> items, int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be at least 1.");
+        }
+        Saved<T> saved = new Saved<>();
+        if (items.isEmpty()) {
+            return saved;
+        }
+        List<T> withId = new ArrayList<>();
+        List<T> withoutId = new ArrayList<>();
+        for (T item : items) {
+            (idGetter.applyAsInt(item) > 0 ? withId : withoutId).add(item);
+        }
+        new TransactionTemplate(dataSource).executeWithoutResult(connection -> {
+            if (!withId.isEmpty()) {
+                upsert(connection, withId, batchSize, saved);
+            }
+            // Explicit ids go first, so the generated ones start above them
+            if (!withoutId.isEmpty()) {
+                batchInserter.insertAll(withoutId, batchSize);
+                saved.inserted.addAll(withoutId);
+            }
+            return null;
+        });
+        return saved;
+    }
+
+    // Runs a whole saveAll() again when MySQL picked its transaction as a deadlock victim, concurrent upserts of
+    // neighbouring ids can deadlock on InnoDB's insert intention locks. Inside a caller's transaction the rollback
+    // also undid the caller's work, so only the caller can retry and the failure is passed on
+    static <R> R retryingDeadlocks(DataSource dataSource, Supplier<R> saveAll) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return saveAll.get();
+            } catch (RuntimeException e) {
+                if (attempt == MAX_ATTEMPTS || ConnectionHolder.isBound(dataSource) || !isDeadlock(e)) {
+                    throw e;
+                }
+                LOGGER.log(Level.FINE, "Retrying " + attempt + ". deadlocked batch upsert", e);
+            }
+        }
+    }
+
+    private static boolean isDeadlock(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException) {
+                SQLException sqlException = (SQLException) cause;
+                if (DEADLOCK_SQL_STATE.equals(sqlException.getSQLState()) || sqlException.getErrorCode() == MYSQL_DEADLOCK) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private void upsert(Connection connection, List<T> items, int batchSize, Saved<T> saved) throws SQLException {
+        // A plain read of the existing ids tells inserts from updates. It takes no locks, unlike SELECT ... FOR UPDATE,
+        // which gap-locks the ids that don't exist yet and deadlocks concurrent upserts. The affected-row counts can't
+        // replace it: rewritten batches report SUCCESS_NO_INFO, H2's MERGE reports 1 either way and Connector/J's
+        // found-rows default reports an unchanged row as 1 like an insert. The trade-off is that a row another
+        // transaction inserts between this read and the upsert is reported as inserted although it was updated
+        List<Integer> ids = new ArrayList<>(items.size());
+        for (T item : items) {
+            ids.add(idGetter.applyAsInt(item));
+        }
+        Set<Integer> existingIds = new HashSet<>(ids.size() * 2);
+        SqlLists.queryInChunks(connection, "SELECT " + idColumn + " FROM " + tableName + " WHERE " + idColumn,
+                "", ids, resultSet -> resultSet.getInt(1), existingIds::add);
+
+        try (PreparedStatement preparedStatement = connection.prepareStatement(upsertQuery(connection))) {
+            for (int firstItemIndex = 0; firstItemIndex < items.size(); firstItemIndex += batchSize) {
+                List<T> chunk = items.subList(firstItemIndex, Math.min(firstItemIndex + batchSize, items.size()));
+                try {
+                    for (T item : chunk) {
+                        binder.bind(preparedStatement, item);
+                        preparedStatement.setInt(columns.length + 1, idGetter.applyAsInt(item));
+                        preparedStatement.addBatch();
+                    }
+                    preparedStatement.executeBatch();
+                } catch (SQLException e) {
+                    int chunkIndex = firstItemIndex / batchSize;
+                    String errorMessage = "Batch upsert operation for " + tableName + " table failed in chunk " + chunkIndex
+                            + " (items " + firstItemIndex + " to " + (firstItemIndex + chunk.size() - 1) + "), ";
+                    throw new BatchInsertException(errorMessage, chunkIndex, firstItemIndex, chunk.size(), e);
+                }
+                for (T item : chunk) {
+                    // A repeated id is an insert the first time and an update after that
+                    if (existingIds.add(idGetter.applyAsInt(item))) {
+                        saved.inserted.add(item);
+                    } else {
+                        saved.updated.add(item);
+                    }
+                }
+            }
+        }
+    }
+
+    private String upsertQuery(Connection connection) throws SQLException {
+        String query = upsertQuery;
+        if (query == null) {
+            query = SqlDialect.of(connection).upsert(tableName, idColumn, columns);
+            upsertQuery = query;
+        }
+        return query;
+    }
+
+    static final class Saved<T> {
+        final List<T> inserted = new ArrayList<>();
+        final List<T> updated = new ArrayList<>();
+
+        SaveResult<T> toResult(Collection<T> items) {
+            return new SaveResult<>(new ArrayList<>(items), inserted.size(), updated.size());
+        }
+    }
+}
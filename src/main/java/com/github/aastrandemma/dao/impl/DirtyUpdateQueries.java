@@ -0,0 +1,26 @@
+package com.github.aastrandemma.dao.impl;
+
+final class DirtyUpdateQueries {
+    private DirtyUpdateQueries() {
+    }
+
+    // Index i holds the UPDATE for dirty-field mask i, bit n of the mask maps to columns[n]
+    static String[] build(String table, String idColumn, String... columns) {
+        String[] queries = new String[1 << columns.length];
+        for (int mask = 1; mask < queries.length; mask++) {
+            StringBuilder builder = new StringBuilder("UPDATE ").append(table).append(" SET ");
+            boolean first = true;
+            for (int bit = 0; bit < columns.length; bit++) {
+                if ((mask & (1 << bit)) != 0) {
+                    if (!first) {
+                        builder.append(", ");
+                    }
+                    builder.append(columns[bit]).append(" = ?");
+                    first = false;
+                }
+            }
+            queries[mask] = builder.append(" WHERE ").append(idColumn).append(" = ?").toString();
+        }
+        return queries;
+    }
+}
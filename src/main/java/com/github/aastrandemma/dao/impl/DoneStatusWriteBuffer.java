@@ -0,0 +1,149 @@
+package com.github.aastrandemma.dao.impl;
+
+import com.github.aastrandemma.dao.db.TransactionTemplate;
+import com.github.aastrandemma.exception.MySQLException;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// Buffers done-status changes per todo id, repeated writes to an id collapse into the latest value
+final class DoneStatusWriteBuffer implements AutoCloseable {
+    private static final Logger LOGGER = Logger.getLogger(DoneStatusWriteBuffer.class.getName());
+
+    private final DataSource dataSource;
+    private final FlushListener flushListener;
+    private final int maxPending;
+    private final Map<Integer, Boolean> pending = new ConcurrentHashMap<>();
+    private final Object flushLock = new Object();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private final ScheduledExecutorService flusher;
+
+    DoneStatusWriteBuffer(DataSource dataSource, FlushListener flushListener, int maxPending, long flushInterval, TimeUnit unit) {
+        if (maxPending < 1) {
+            throw new IllegalArgumentException("Max pending must be at least 1.");
+        }
+        if (flushInterval <= 0) {
+            throw new IllegalArgumentException("Flush interval must be positive.");
+        }
+        this.dataSource = dataSource;
+        this.flushListener = flushListener;
+        this.maxPending = maxPending;
+        this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "done-status-write-buffer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flushQuietly, flushInterval, flushInterval, unit);
+    }
+
+    void markDone(int todoId, boolean done) {
+        pending.put(todoId, done);
+        if (pending.size() >= maxPending && flushRequested.compareAndSet(false, true)) {
+            flusher.execute(() -> {
+                flushRequested.set(false);
+                flushQuietly();
+            });
+        }
+    }
+
+    // Returns the buffered status for read-your-writes, null when nothing is pending for the id
+    Boolean pendingDone(int todoId) {
+        return pending.get(todoId);
+    }
+
+    boolean isEmpty() {
+        return pending.isEmpty();
+    }
+
+    // Called before a full row write or delete so a later flush can't overwrite it with an older status.
+    // Returns the removed status, null when nothing was pending for the id
+    Boolean discard(int todoId) {
+        synchronized (flushLock) {
+            return pending.remove(todoId);
+        }
+    }
+
+    // Puts back a status discarded for a write that failed or rolled back, unless a newer one arrived since
+    void restore(int todoId, boolean done) {
+        pending.putIfAbsent(todoId, done);
+    }
+
+    void flush() {
+        synchronized (flushLock) {
+            if (pending.isEmpty()) {
+                return;
+            }
+            Map<Integer, Boolean> snapshot = new HashMap<>(pending);
+            List<Integer> doneIds = new ArrayList<>();
+            List<Integer> undoneIds = new ArrayList<>();
+            for (Map.Entry<Integer, Boolean> entry : snapshot.entrySet()) {
+                (entry.getValue() ? doneIds : undoneIds).add(entry.getKey());
+            }
+
+            new TransactionTemplate(dataSource).execute(connection -> {
+                flushListener.beforeFlush(connection, snapshot);
+                updateDoneStatus(connection, true, doneIds);
+                updateDoneStatus(connection, false, undoneIds);
+                return null;
+            });
+
+            // Only drop entries that weren't overwritten while the flush was running
+            for (Map.Entry<Integer, Boolean> entry : snapshot.entrySet()) {
+                pending.remove(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+    }
+
+    // Called inside the flush transaction before the statuses are written. Work it registers with
+    // ConnectionHolder.runAfterCommit() runs only once the flush has committed
+    @FunctionalInterface
+    interface FlushListener {
+        void beforeFlush(Connection connection, Map<Integer, Boolean> statuses) throws SQLException;
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (MySQLException e) {
+            LOGGER.log(Level.WARNING, "Failed to flush " + pending.size() + " buffered done-status changes, will retry", e);
+        }
+    }
+
+    private static void updateDoneStatus(Connection connection, boolean done, List<Integer> todoIds) throws SQLException {
+        for (List<Integer> chunk : SqlLists.chunk(todoIds, SqlLists.IN_LIST_CHUNK_SIZE)) {
+            String updateQuery = "UPDATE todo_item SET done = ? WHERE todo_id IN (" + SqlLists.placeholders(chunk.size()) + ")";
+            try (PreparedStatement preparedStatement = connection.prepareStatement(updateQuery)) {
+                preparedStatement.setBoolean(1, done);
+                int index = 2;
+                for (Integer todoId : chunk) {
+                    preparedStatement.setInt(index++, todoId);
+                }
+                preparedStatement.executeUpdate();
+            }
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.github.aastrandemma.dao.impl;
+
+import com.github.aastrandemma.model.Page;
+
+import java.util.List;
+import java.util.function.ToIntFunction;
+
+final class Pages {
+    private Pages() {
+    }
+
+    static void checkLimit(int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Page limit must be at least 1.");
+        }
+    }
+
+    // rows holds up to limit + 1 entries, the extra row only signals that another page exists
+    static <T> Page<T> of(List<T> rows, int limit, ToIntFunction<T> idExtractor) {
+        if (rows.size() <= limit) {
+            return new Page<>(rows, null);
+        }
+        List<T> items = rows.subList(0, limit);
+        return new Page<>(items, idExtractor.applyAsInt(items.get(limit - 1)));
+    }
+}
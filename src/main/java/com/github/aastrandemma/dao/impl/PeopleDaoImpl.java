@@ -1,34 +1,143 @@
 package com.github.aastrandemma.dao.impl;
 
 import com.github.aastrandemma.dao.PeopleDao;
+import com.github.aastrandemma.dao.ReassignPolicy;
+import com.github.aastrandemma.dao.TodoItemsDao;
+import com.github.aastrandemma.dao.cache.CacheStats;
+import com.github.aastrandemma.dao.cache.LruCache;
+import com.github.aastrandemma.dao.db.ConnectionHolder;
+import com.github.aastrandemma.dao.db.DBConnectionManager;
+import com.github.aastrandemma.dao.db.SingleConnectionDataSource;
+import com.github.aastrandemma.dao.db.TransactionTemplate;
+import com.github.aastrandemma.dao.events.ChangeEventBus;
+import com.github.aastrandemma.dao.events.ChangeType;
+import com.github.aastrandemma.dao.events.EntityType;
+import com.github.aastrandemma.dao.search.PersonSearchIndex;
 import com.github.aastrandemma.exception.MySQLException;
+import com.github.aastrandemma.model.Page;
 import com.github.aastrandemma.model.Person;
+import com.github.aastrandemma.model.PersonWithTodos;
+import com.github.aastrandemma.model.SaveResult;
+import com.github.aastrandemma.model.Todo;
 
+import javax.sql.DataSource;
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
 
 public class PeopleDaoImpl implements PeopleDao {
+    private static final Logger LOGGER = Logger.getLogger(PeopleDaoImpl.class.getName());
+    private static final String SELECT_PERSON = "SELECT person_id, first_name, last_name FROM person";
+    private static final String INSERT_PERSON = "INSERT INTO person (first_name, last_name) VALUES (?, ?)";
+    private static final String[] PERSON_COLUMNS = {"first_name", "last_name"};
+    private static final String[] UPDATE_PERSON_BY_DIRTY_FIELDS = DirtyUpdateQueries.build(
+            "person", "person_id", "first_name", "last_name");
     private static PeopleDaoImpl instance;
-    private final Connection connection;
+    private final DataSource dataSource;
+    // Joins this DAO's transactions in deletePerson() and findWithTodos(), so it has to be built over the same DataSource
+    private final TodoItemsDao todoItemsDao;
+    private final BatchInserter<Person> batchInserter;
+    private final BatchUpserter<Person> batchUpserter;
+    // Optional findById cache, null when disabled
+    private volatile LruCache<Integer, Person> personCache;
+    // Bumped by every committed write, a read that loaded from the database while it moved may hold the old row
+    private final AtomicLong personCacheGeneration = new AtomicLong();
+    // Optional in-memory name index for search(), null when disabled
+    private volatile PersonSearchIndex searchIndex;
+    // Optional change feed, null when disabled. While set, updates and deletes read the previous row first
+    private volatile ChangeEventBus changeEventBus;
 
-    private PeopleDaoImpl(Connection connection) {
-        this.connection = connection;
+    public PeopleDaoImpl(DataSource dataSource) {
+        this(dataSource, new TodoItemsDaoImpl(dataSource));
+    }
+
+    // For a todo DAO wrapped in decorators, it must still write through the given DataSource
+    public PeopleDaoImpl(DataSource dataSource, TodoItemsDao todoItemsDao) {
+        Objects.requireNonNull(dataSource, "DataSource can't be null.");
+        Objects.requireNonNull(todoItemsDao, "Todo items DAO can't be null.");
+        if (todoItemsDao instanceof TodoItemsDaoImpl && !((TodoItemsDaoImpl) todoItemsDao).getDataSource().equals(dataSource)) {
+            throw new IllegalStateException("Todo items DAO was built over a different DataSource, "
+                    + "its writes wouldn't join this DAO's transactions.");
+        }
+        this.dataSource = dataSource;
+        this.todoItemsDao = todoItemsDao;
+        this.batchInserter = new BatchInserter<>(dataSource, "person", INSERT_PERSON, PeopleDaoImpl::bindPerson, Person::setId);
+        this.batchUpserter = new BatchUpserter<>(dataSource, "person", "person_id", PERSON_COLUMNS, PeopleDaoImpl::bindPerson,
+                Person::getId, batchInserter);
+    }
+
+    // The shared instance over the default pool, construct a DAO for any other DataSource
+    public static PeopleDaoImpl getInstance() {
+        return getInstance(DBConnectionManager.getDataSource());
     }
 
     public static PeopleDaoImpl getInstance(Connection connection) {
+        return getInstance(new SingleConnectionDataSource(connection));
+    }
+
+    public static synchronized PeopleDaoImpl getInstance(DataSource dataSource) {
+        return getInstance(dataSource, TodoItemsDaoImpl.getInstance(dataSource));
+    }
+
+    // Fails instead of handing out the shared instance when it was bound to a different DataSource or todo DAO
+    public static synchronized PeopleDaoImpl getInstance(DataSource dataSource, TodoItemsDao todoItemsDao) {
         if (instance == null) {
-            instance = new PeopleDaoImpl(connection);
+            instance = new PeopleDaoImpl(dataSource, todoItemsDao);
+        } else if (!instance.dataSource.equals(dataSource) || instance.todoItemsDao != todoItemsDao) {
+            throw new IllegalStateException("The shared PeopleDaoImpl is bound to another DataSource or todo DAO, "
+                    + "construct one for these instead.");
         }
         return instance;
     }
 
+    public void enablePersonCache(int maxSize, long ttl, TimeUnit ttlUnit) {
+        personCache = new LruCache<>(maxSize, ttl, ttlUnit);
+    }
+
+    public void disablePersonCache() {
+        personCache = null;
+    }
+
+    public CacheStats getPersonCacheStats() {
+        LruCache<Integer, Person> cache = personCache;
+        return cache == null ? new CacheStats(0, 0, 0, 0) : cache.getStats();
+    }
+
+    public void setChangeEventBus(ChangeEventBus changeEventBus) {
+        this.changeEventBus = changeEventBus;
+    }
+
+    // Loads every person into the index, afterwards create/update/deleteById keep it current
+    public synchronized void enableSearchIndex() {
+        PersonSearchIndex index = new PersonSearchIndex();
+        searchIndex = index;
+        index.addAll(findAll());
+    }
+
+    public synchronized void disableSearchIndex() {
+        searchIndex = null;
+    }
+
     @Override
     public Person create(Person person) {
-        String insertQuery = "INSERT INTO person (first_name, last_name) VALUES (?, ?)";
-        try (PreparedStatement preparedStatement = connection.prepareStatement(insertQuery, Statement.RETURN_GENERATED_KEYS)) {
-            preparedStatement.setString(1, person.getFirstName());
-            preparedStatement.setString(2, person.getLastName());
+        try (
+                Connection connection = ConnectionHolder.getConnection(dataSource);
+                PreparedStatement preparedStatement = connection.prepareStatement(INSERT_PERSON, Statement.RETURN_GENERATED_KEYS)
+        ) {
+            bindPerson(preparedStatement, person);
 
             int affectedRows = preparedStatement.executeUpdate();
 
@@ -40,7 +149,9 @@ public class PeopleDaoImpl implements PeopleDao {
             try (ResultSet generatedKeys = preparedStatement.getGeneratedKeys()) {
                 if (generatedKeys.next()) {
                     person.setId(generatedKeys.getInt(1));
-                    return person;
+                    person.clearDirtyFields();
+                    invalidateCachedPerson(person.getId());
+                    indexPerson(person);
                 } else {
                     String errorMessage = "Failed to generate key for insert operation person table.";
                     throw new MySQLException(errorMessage);
@@ -50,13 +161,27 @@ public class PeopleDaoImpl implements PeopleDao {
             String errorMessage = "Error occurred during insert operation person table: ";
             throw new MySQLException(errorMessage, e);
         }
+        publishChange(ChangeType.CREATED, person.getId(), null, person);
+        return person;
+    }
+
+    @Override
+    public Collection<Person> createAll(Collection<Person> people, int batchSize) {
+        batchInserter.insertAll(people, batchSize);
+        for (Person person : people) {
+            person.clearDirtyFields();
+            indexPerson(person);
+            publishChange(ChangeType.CREATED, person.getId(), null, person);
+        }
+        return people;
     }
 
     @Override
     public Collection<Person> findAll() {
-        String selectQuery = "SELECT * FROM person";
+        String selectQuery = SELECT_PERSON;
         Collection<Person> people = new ArrayList<>();
         try (
+                Connection connection = ConnectionHolder.getReadConnection(dataSource);
                 Statement statement = connection.createStatement();
                 ResultSet resultSet = statement.executeQuery(selectQuery)
         ) {
@@ -72,8 +197,101 @@ public class PeopleDaoImpl implements PeopleDao {
 
     @Override
     public Person findById(int id) {
-        String selectQuery = "SELECT * FROM person WHERE person_id = ?";
-        try (PreparedStatement preparedStatement = connection.prepareStatement(selectQuery)) {
+        // Inside a transaction the connection may see uncommitted rows, so the cache is bypassed there
+        LruCache<Integer, Person> cache = ConnectionHolder.isBound(dataSource) ? null : personCache;
+        if (cache == null) {
+            return loadById(id);
+        }
+        Person cached = cache.get(id);
+        if (cached != null) {
+            return copyOf(cached);
+        }
+        long generation = personCacheGeneration.get();
+        Person person = loadById(id);
+        if (person != null) {
+            cachePerson(cache, generation, person);
+        }
+        return person;
+    }
+
+    @Override
+    public Map<Integer, Person> findByIds(Collection<Integer> ids) {
+        List<Integer> distinctIds = new ArrayList<>(new LinkedHashSet<>(ids));
+        Map<Integer, Person> found = new HashMap<>(distinctIds.size() * 2);
+        LruCache<Integer, Person> cache = ConnectionHolder.isBound(dataSource) ? null : personCache;
+        List<Integer> missingIds = distinctIds;
+        if (cache != null) {
+            missingIds = new ArrayList<>();
+            for (Integer id : distinctIds) {
+                Person cached = cache.get(id);
+                if (cached != null) {
+                    found.put(id, copyOf(cached));
+                } else {
+                    missingIds.add(id);
+                }
+            }
+        }
+        if (!missingIds.isEmpty()) {
+            long generation = personCacheGeneration.get();
+            for (Person person : loadByIds(missingIds)) {
+                found.put(person.getId(), person);
+                if (cache != null) {
+                    cachePerson(cache, generation, person);
+                }
+            }
+        }
+        // Requested order, ids without a row are left out
+        Map<Integer, Person> people = new LinkedHashMap<>(found.size() * 2);
+        for (Integer id : distinctIds) {
+            Person person = found.get(id);
+            if (person != null) {
+                people.put(id, person);
+            }
+        }
+        return people;
+    }
+
+    private List<Person> loadByIds(List<Integer> ids) {
+        try (
+                Connection connection = ConnectionHolder.getReadConnection(dataSource)
+        ) {
+            return loadByIds(connection, ids);
+        } catch (SQLException e) {
+            String errorMessage = "Failed to fetch data from person table, for findByIds() with " + ids.size() + " ids, ";
+            throw new MySQLException(errorMessage, e);
+        }
+    }
+
+    private List<Person> loadByIds(Connection connection, List<Integer> ids) throws SQLException {
+        List<Person> people = new ArrayList<>(ids.size());
+        SqlLists.queryInChunks(connection, SELECT_PERSON + " WHERE person_id", "", ids, this::extractPersonFromResultSet, people::add);
+        return people;
+    }
+
+    @Override
+    public List<PersonWithTodos> findWithTodos(Collection<Integer> personIds) {
+        Map<Integer, Person> people = findByIds(personIds);
+        if (people.isEmpty()) {
+            return new ArrayList<>();
+        }
+        // Seeding the assignees with the people just read makes every todo point at the same Person instance,
+        // a decorated todo DAO only offers the plain lookup
+        Map<Integer, List<Todo>> todoItems = todoItemsDao instanceof TodoItemsDaoImpl
+                ? ((TodoItemsDaoImpl) todoItemsDao).findByAssignees(people.keySet(), new HashMap<>(people))
+                : todoItemsDao.findByAssignees(people.keySet());
+        List<PersonWithTodos> team = new ArrayList<>(people.size());
+        for (Person person : people.values()) {
+            team.add(new PersonWithTodos(person, todoItems.get(person.getId())));
+        }
+        return team;
+    }
+
+    private Person loadById(int id) {
+        String selectQuery = SELECT_PERSON + " WHERE person_id = ?";
+        try (
+                Connection connection = ConnectionHolder.getReadConnection(dataSource);
+                PreparedStatement preparedStatement = connection.prepareStatement(selectQuery)
+        ) {
             preparedStatement.setInt(1, id);
 
             try (ResultSet resultSet = preparedStatement.executeQuery()) {
@@ -90,56 +308,147 @@ public class PeopleDaoImpl implements PeopleDao {
 
     @Override
     public Person update(Person person) {
-        String updateQuery = "UPDATE person SET first_name = ?, last_name = ? WHERE person_id = ?";
-        try (PreparedStatement preparedStatement = connection.prepareStatement(updateQuery)) {
-            connection.setAutoCommit(false);
-            preparedStatement.setString(1, person.getFirstName());
-            preparedStatement.setString(2, person.getLastName());
-            preparedStatement.setInt(3, person.getId());
-
-            int rowsAffected = preparedStatement.executeUpdate();
+        int dirtyFields = person.getDirtyFields();
+        if (dirtyFields == 0) {
+            return person;
+        }
+        String updateQuery = UPDATE_PERSON_BY_DIRTY_FIELDS[dirtyFields];
+        Person before = null;
+        int updatedRows;
+        try (
+                Connection connection = ConnectionHolder.getConnection(dataSource);
+                PreparedStatement preparedStatement = connection.prepareStatement(updateQuery)
+        ) {
+            int index = 1;
+            if ((dirtyFields & Person.FIELD_FIRST_NAME) != 0) {
+                preparedStatement.setString(index++, person.getFirstName());
+            }
+            if ((dirtyFields & Person.FIELD_LAST_NAME) != 0) {
+                preparedStatement.setString(index++, person.getLastName());
+            }
+            preparedStatement.setInt(index, person.getId());
 
-            if (rowsAffected > 0) {
-                connection.setAutoCommit(true);
-                return person;
-            } else {
-                connection.rollback();
+            if (changeEventBus != null) {
+                before = loadPersonForChange(connection, person.getId());
+            }
+            updatedRows = preparedStatement.executeUpdate();
+            clearDirtyFieldsUntilRollback(person);
+            invalidateCachedPerson(person.getId());
+            if (updatedRows > 0) {
+                indexPerson(person);
             }
         } catch (SQLException e) {
             String errorMessage = "Failed update() for person table with id: " + person.getId() + ", ";
             throw new MySQLException(errorMessage, e);
         }
+        if (updatedRows > 0) {
+            publishChange(ChangeType.UPDATED, person.getId(), before, person);
+        }
         return person;
     }
 
+    @Override
+    public SaveResult<Person> save(Person person) {
+        return saveAll(Collections.singletonList(person), 1);
+    }
+
+    @Override
+    public SaveResult<Person> saveAll(Collection<Person> people, int batchSize) {
+        return BatchUpserter.retryingDeadlocks(dataSource, () -> saveAllOnce(people, batchSize));
+    }
+
+    private SaveResult<Person> saveAllOnce(Collection<Person> people, int batchSize) {
+        List<Integer> existingIds = new ArrayList<>();
+        for (Person person : people) {
+            if (person.getId() > 0) {
+                existingIds.add(person.getId());
+            }
+        }
+        Map<Integer, Person> before = new HashMap<>();
+        BatchUpserter.Saved<Person> saved = new TransactionTemplate(dataSource).execute(connection -> {
+            if (changeEventBus != null && !existingIds.isEmpty()) {
+                for (Person person : loadByIds(connection, existingIds)) {
+                    before.put(person.getId(), person);
+                }
+            }
+            return batchUpserter.saveAll(people, batchSize);
+        });
+        for (Person person : saved.inserted) {
+            person.clearDirtyFields();
+            invalidateCachedPerson(person.getId());
+            indexPerson(person);
+            publishChange(ChangeType.CREATED, person.getId(), null, person);
+        }
+        for (Person person : saved.updated) {
+            clearDirtyFieldsUntilRollback(person);
+            invalidateCachedPerson(person.getId());
+            indexPerson(person);
+            publishChange(ChangeType.UPDATED, person.getId(), before.get(person.getId()), person);
+        }
+        return saved.toResult(people);
+    }
+
     @Override
     public boolean deleteById(int id) {
-        int rowsDeleted = -1;
         String deletePersonQuery = "DELETE FROM person WHERE person_id = ?";
-        try (PreparedStatement preparedStatement = connection.prepareStatement(deletePersonQuery)) {
-            connection.setAutoCommit(false);
+        Person before = null;
+        boolean deleted;
+        try (
+                Connection connection = ConnectionHolder.getConnection(dataSource);
+                PreparedStatement preparedStatement = connection.prepareStatement(deletePersonQuery)
+        ) {
             preparedStatement.setInt(1, id);
 
-            rowsDeleted = preparedStatement.executeUpdate();
-
-            if (rowsDeleted > 0) {
-                connection.setAutoCommit(true);
-                return true;
-            } else {
-                connection.rollback();
+            if (changeEventBus != null) {
+                before = loadPersonForChange(connection, id);
+            }
+            deleted = preparedStatement.executeUpdate() > 0;
+            invalidateCachedPerson(id);
+            PersonSearchIndex index = searchIndex;
+            if (deleted && index != null) {
+                ConnectionHolder.runAfterCommit(dataSource, () -> index.remove(id));
             }
         } catch (SQLException e) {
             String errorMessage = "Failed to delete data in person table, for deleteById() with id: " + id + ", ";
             throw new MySQLException(errorMessage, e);
         }
-        return false;
+        if (deleted) {
+            publishChange(ChangeType.DELETED, id, before, null);
+        }
+        return deleted;
+    }
+
+    @Override
+    public boolean deletePerson(int personId, ReassignPolicy policy) {
+        Objects.requireNonNull(policy, "Reassign policy can't be null.");
+        if (policy.getAction() == ReassignPolicy.Action.REASSIGN && policy.getTargetPersonId() == personId) {
+            throw new IllegalArgumentException("Can't reassign todo items to the person being deleted.");
+        }
+        // The todo DAO joins this transaction through the shared DataSource, and keeps its own indexes current
+        return new TransactionTemplate(dataSource).execute(connection -> {
+            switch (policy.getAction()) {
+                case REASSIGN:
+                    todoItemsDao.reassignAll(personId, policy.getTargetPersonId());
+                    break;
+                case DELETE_TODOS:
+                    todoItemsDao.deleteByAssignee(personId);
+                    break;
+                default:
+                    todoItemsDao.unassignAll(personId);
+                    break;
+            }
+            return deleteById(personId);
+        });
     }
 
     @Override
     public Collection<Person> findByName(String name) {
         Collection<Person> people = new ArrayList<>();
-        String selectQuery = "SELECT * FROM person WHERE first_name = ?";
-        try (PreparedStatement preparedStatement = connection.prepareStatement(selectQuery)) {
+        String selectQuery = SELECT_PERSON + " WHERE first_name = ?";
+        try (
+                Connection connection = ConnectionHolder.getReadConnection(dataSource);
+                PreparedStatement preparedStatement = connection.prepareStatement(selectQuery)
+        ) {
             preparedStatement.setString(1, name);
 
             try (ResultSet resultSet = preparedStatement.executeQuery()) {
@@ -154,11 +463,177 @@ public class PeopleDaoImpl implements PeopleDao {
         return people;
     }
 
+    @Override
+    public Collection<Person> search(String query, int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Search limit must be at least 1.");
+        }
+        PersonSearchIndex index = searchIndex;
+        if (index != null) {
+            return index.search(query, limit);
+        }
+        // Without the index only case-insensitive prefix matches on either name are supported
+        Collection<Person> people = new ArrayList<>();
+        String selectQuery = SELECT_PERSON + " WHERE LOWER(first_name) LIKE ? OR LOWER(last_name) LIKE ? LIMIT ?";
+        String pattern = query.trim().toLowerCase(Locale.ROOT).replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+        try (
+                Connection connection = ConnectionHolder.getReadConnection(dataSource);
+                PreparedStatement preparedStatement = connection.prepareStatement(selectQuery)
+        ) {
+            preparedStatement.setString(1, pattern);
+            preparedStatement.setString(2, pattern);
+            preparedStatement.setInt(3, limit);
+
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                while (resultSet.next()) {
+                    people.add(extractPersonFromResultSet(resultSet));
+                }
+            }
+        } catch (SQLException e) {
+            String errorMessage = "Failed to fetch data from person table, for search() with query: " + query + ", ";
+            throw new MySQLException(errorMessage, e);
+        }
+        return people;
+    }
+
+    @Override
+    public Page<Person> findPage(int afterPersonId, int limit) {
+        Pages.checkLimit(limit);
+        List<Person> people = new ArrayList<>(limit + 1);
+        String selectQuery = SELECT_PERSON + " WHERE person_id > ? ORDER BY person_id LIMIT ?";
+        try (
+                Connection connection = ConnectionHolder.getReadConnection(dataSource);
+                PreparedStatement preparedStatement = connection.prepareStatement(selectQuery)
+        ) {
+            preparedStatement.setInt(1, afterPersonId);
+            preparedStatement.setInt(2, limit + 1);
+
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                while (resultSet.next()) {
+                    people.add(extractPersonFromResultSet(resultSet));
+                }
+            }
+        } catch (SQLException e) {
+            String errorMessage = "Failed to fetch data from person table, for findPage() after id: " + afterPersonId + ", ";
+            throw new MySQLException(errorMessage, e);
+        }
+        return Pages.of(people, limit, Person::getId);
+    }
+
+    @Override
+    public Stream<Person> streamAll() {
+        String selectQuery = SELECT_PERSON + " ORDER BY person_id";
+        String errorContext = "streamAll()";
+        Connection connection = null;
+        PreparedStatement preparedStatement = null;
+        try {
+            connection = ConnectionHolder.getReadConnection(dataSource);
+            preparedStatement = connection.prepareStatement(selectQuery, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            preparedStatement.setFetchSize(ResultSetStreams.streamingFetchSize(connection));
+            ResultSet resultSet = preparedStatement.executeQuery();
+            return ResultSetStreams.stream(connection, preparedStatement, resultSet, this::extractPersonFromResultSet, errorContext);
+        } catch (SQLException e) {
+            String errorMessage = "Failed to fetch data from person table, for " + errorContext + ", ";
+            MySQLException exception = new MySQLException(errorMessage, e);
+            try {
+                ResultSetStreams.closeAll(errorContext, preparedStatement, connection);
+            } catch (MySQLException closeFailure) {
+                exception.addSuppressed(closeFailure);
+            }
+            throw exception;
+        }
+    }
+
+    // If the surrounding transaction rolls back the fields are marked dirty again, so saving the person once more
+    // rewrites them instead of skipping a change that never reached the database
+    private void clearDirtyFieldsUntilRollback(Person person) {
+        int dirtyFields = person.getDirtyFields();
+        person.clearDirtyFields();
+        if (dirtyFields != 0) {
+            ConnectionHolder.runAfterRollback(dataSource, () -> person.markDirtyFields(dirtyFields));
+        }
+    }
+
+    // before has to be a private snapshot, after is copied because it's usually the caller's instance. Called once
+    // the writing connection is closed, and a full or closed bus drops the event rather than hold up the write
+    private void publishChange(ChangeType changeType, int personId, Person before, Person after) {
+        ChangeEventBus bus = changeEventBus;
+        if (bus != null) {
+            Person afterSnapshot = after == null ? null : copyOf(after);
+            ConnectionHolder.runAfterCommit(dataSource, () -> {
+                if (!bus.tryPublish(EntityType.PERSON, changeType, personId, before, afterSnapshot)) {
+                    LOGGER.log(Level.WARNING, "Dropped " + changeType + " event for person " + personId
+                            + ", the change event bus is full or closed, " + bus.getDroppedCount() + " dropped so far");
+                }
+            });
+        }
+    }
+
+    // Read on the writing connection, so the previous state comes from the same transaction and not a replica
+    private Person loadPersonForChange(Connection connection, int id) throws SQLException {
+        try (PreparedStatement preparedStatement = connection.prepareStatement(SELECT_PERSON + " WHERE person_id = ?")) {
+            preparedStatement.setInt(1, id);
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                return resultSet.next() ? extractPersonFromResultSet(resultSet) : null;
+            }
+        }
+    }
+
+    // Applied once the surrounding transaction commits, right away outside one. The copy is taken now, the caller
+    // may change its Person before the commit
+    private void indexPerson(Person person) {
+        PersonSearchIndex index = searchIndex;
+        if (index != null) {
+            Person snapshot = copyOf(person);
+            ConnectionHolder.runAfterCommit(dataSource, () -> index.put(snapshot));
+        }
+    }
+
+    // Writes invalidate rather than repopulate, once the transaction commits. Until then other threads still read
+    // the old committed row, which is what the database returns them as well
+    private void invalidateCachedPerson(int id) {
+        if (personCache != null) {
+            ConnectionHolder.runAfterCommit(dataSource, () -> evictCachedPerson(id));
+        }
+    }
+
+    private void evictCachedPerson(int id) {
+        LruCache<Integer, Person> cache = personCache;
+        if (cache != null) {
+            personCacheGeneration.incrementAndGet();
+            cache.invalidate(id);
+        }
+    }
+
+    // A row loaded before a write committed may be put after that write's eviction. The generation moved in that
+    // case, so the entry is dropped again instead of staying stale until the TTL
+    private void cachePerson(LruCache<Integer, Person> cache, long generation, Person person) {
+        cache.put(person.getId(), copyOf(person));
+        if (personCacheGeneration.get() != generation) {
+            cache.invalidate(person.getId());
+        }
+    }
+
+    // Callers get their own copy so mutating a returned Person can't corrupt the cache
+    private static Person copyOf(Person person) {
+        Person copy = new Person(person.getId(), person.getFirstName(), person.getLastName());
+        copy.clearDirtyFields();
+        return copy;
+    }
+
+    private static void bindPerson(PreparedStatement preparedStatement, Person person) throws SQLException {
+        preparedStatement.setString(1, person.getFirstName());
+        preparedStatement.setString(2, person.getLastName());
+    }
+
+    // Positional mapping, expects the SELECT_PERSON column order
     private Person extractPersonFromResultSet(ResultSet resultSet) throws SQLException {
-        return new Person(
-                resultSet.getInt("person_id"),
-                resultSet.getString("first_name"),
-                resultSet.getString("last_name")
+        Person person = new Person(
+                resultSet.getInt(1),
+                resultSet.getString(2),
+                resultSet.getString(3)
         );
+        person.clearDirtyFields();
+        return person;
     }
 }
\ No newline at end of file
@@ -0,0 +1,67 @@
+package com.github.aastrandemma.dao.impl;
+
+import com.github.aastrandemma.exception.MySQLException;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+final class ResultSetStreams {
+    private static final int DEFAULT_FETCH_SIZE = 1000;
+
+    private ResultSetStreams() {
+    }
+
+    // MySQL Connector/J only streams row by row with Integer.MIN_VALUE, any other fetch size buffers the whole result
+    static int streamingFetchSize(Connection connection) throws SQLException {
+        String productName = connection.getMetaData().getDatabaseProductName();
+        return "MySQL".equalsIgnoreCase(productName) ? Integer.MIN_VALUE : DEFAULT_FETCH_SIZE;
+    }
+
+    // The returned stream owns the connection, statement and result set and closes them when it is closed
+    static <T> Stream<T> stream(Connection connection, Statement statement, ResultSet resultSet, RowMapper<T> rowMapper, String errorContext) {
+        Spliterator<T> spliterator = new Spliterators.AbstractSpliterator<T>(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+            @Override
+            public boolean tryAdvance(Consumer<? super T> action) {
+                try {
+                    if (!resultSet.next()) {
+                        return false;
+                    }
+                    action.accept(rowMapper.mapRow(resultSet));
+                    return true;
+                } catch (SQLException e) {
+                    throw new MySQLException("Failed to read next row, for " + errorContext + ", ", e);
+                }
+            }
+        };
+        return StreamSupport.stream(spliterator, false)
+                .onClose(() -> closeAll(errorContext, resultSet, statement, connection));
+    }
+
+    static void closeAll(String errorContext, AutoCloseable... resources) {
+        MySQLException failure = null;
+        for (AutoCloseable resource : resources) {
+            if (resource == null) {
+                continue;
+            }
+            try {
+                resource.close();
+            } catch (Exception e) {
+                if (failure == null) {
+                    failure = new MySQLException("Failed to release resources, for " + errorContext + ", ", e);
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+}
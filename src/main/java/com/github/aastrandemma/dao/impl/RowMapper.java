@@ -0,0 +1,9 @@
+package com.github.aastrandemma.dao.impl;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+@FunctionalInterface
+interface RowMapper<T> {
+    T mapRow(ResultSet resultSet) throws SQLException;
+}
@@ -0,0 +1,42 @@
+package com.github.aastrandemma.dao.impl;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+// The few statements that differ between MySQL and the embedded H2 database used by the benchmarks
+enum SqlDialect {
+    MYSQL {
+        // The row alias replaces VALUES(col), which MySQL 8.0.20 deprecated
+        @Override
+        String upsert(String tableName, String idColumn, String... columns) {
+            StringBuilder builder = new StringBuilder("INSERT INTO ").append(tableName).append(columnList(idColumn, columns))
+                    .append(" VALUES (").append(SqlLists.placeholders(columns.length + 1)).append(") AS new ON DUPLICATE KEY UPDATE ");
+            for (int i = 0; i < columns.length; i++) {
+                if (i > 0) {
+                    builder.append(", ");
+                }
+                builder.append(columns[i]).append(" = new.").append(columns[i]);
+            }
+            return builder.toString();
+        }
+    },
+    H2 {
+        @Override
+        String upsert(String tableName, String idColumn, String... columns) {
+            return "MERGE INTO " + tableName + columnList(idColumn, columns) + " KEY (" + idColumn + ") VALUES ("
+                    + SqlLists.placeholders(columns.length + 1) + ")";
+        }
+    };
+
+    // Parameters are the columns in order followed by the id, so the insert binders can be reused
+    abstract String upsert(String tableName, String idColumn, String... columns);
+
+    static SqlDialect of(Connection connection) throws SQLException {
+        String productName = connection.getMetaData().getDatabaseProductName();
+        return "H2".equalsIgnoreCase(productName) ? H2 : MYSQL;
+    }
+
+    private static String columnList(String idColumn, String[] columns) {
+        return " (" + String.join(", ", columns) + ", " + idColumn + ")";
+    }
+}
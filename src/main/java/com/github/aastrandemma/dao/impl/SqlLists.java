@@ -0,0 +1,116 @@
+package com.github.aastrandemma.dao.impl;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+
+final class SqlLists {
+    // Keeps IN (...) statements well below max_allowed_packet and the driver's placeholder limit
+    static final int IN_LIST_CHUNK_SIZE = 1000;
+
+    private SqlLists() {
+    }
+
+    static String placeholders(int count) {
+        StringBuilder builder = new StringBuilder(count * 2);
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                builder.append(',');
+            }
+            builder.append('?');
+        }
+        return builder.toString();
+    }
+
+    static <T> List<List<T>> chunk(Collection<T> items, int chunkSize) {
+        List<List<T>> chunks = new ArrayList<>();
+        List<T> current = new ArrayList<>(Math.min(chunkSize, items.size()));
+        for (T item : items) {
+            current.add(item);
+            if (current.size() == chunkSize) {
+                chunks.add(current);
+                current = new ArrayList<>(chunkSize);
+            }
+        }
+        if (!current.isEmpty()) {
+            chunks.add(current);
+        }
+        return chunks;
+    }
+
+    // Runs statementPrefix + " IN (?, ...)" over every chunk of ids. Full chunks share one prepared statement
+    // sent as a single JDBC batch and the remainder gets a second one, so it's two statements at most
+    static int executeInChunks(Connection connection, String statementPrefix, List<Integer> ids) throws SQLException {
+        int affectedRows = 0;
+        int fullChunks = ids.size() / IN_LIST_CHUNK_SIZE;
+        if (fullChunks > 0) {
+            try (PreparedStatement preparedStatement = connection.prepareStatement(
+                    statementPrefix + " IN (" + placeholders(IN_LIST_CHUNK_SIZE) + ")")) {
+                for (int chunk = 0; chunk < fullChunks; chunk++) {
+                    int offset = chunk * IN_LIST_CHUNK_SIZE;
+                    for (int i = 0; i < IN_LIST_CHUNK_SIZE; i++) {
+                        preparedStatement.setInt(i + 1, ids.get(offset + i));
+                    }
+                    preparedStatement.addBatch();
+                }
+                for (int count : preparedStatement.executeBatch()) {
+                    if (count != Statement.SUCCESS_NO_INFO) {
+                        affectedRows += count;
+                    }
+                }
+            }
+        }
+        int remainder = ids.size() - fullChunks * IN_LIST_CHUNK_SIZE;
+        if (remainder > 0) {
+            try (PreparedStatement preparedStatement = connection.prepareStatement(
+                    statementPrefix + " IN (" + placeholders(remainder) + ")")) {
+                int offset = fullChunks * IN_LIST_CHUNK_SIZE;
+                for (int i = 0; i < remainder; i++) {
+                    preparedStatement.setInt(i + 1, ids.get(offset + i));
+                }
+                affectedRows += preparedStatement.executeUpdate();
+            }
+        }
+        return affectedRows;
+    }
+
+    // Runs selectPrefix + " IN (?, ...)" + selectSuffix over every chunk of ids and hands each mapped row to the
+    // consumer. Full chunks reuse one prepared statement, so the suffix only orders rows within a chunk
+    static <T> void queryInChunks(Connection connection, String selectPrefix, String selectSuffix, List<Integer> ids,
+                                  RowMapper<T> rowMapper, Consumer<T> consumer) throws SQLException {
+        int fullChunks = ids.size() / IN_LIST_CHUNK_SIZE;
+        if (fullChunks > 0) {
+            try (PreparedStatement preparedStatement = connection.prepareStatement(
+                    selectPrefix + " IN (" + placeholders(IN_LIST_CHUNK_SIZE) + ")" + selectSuffix)) {
+                for (int chunk = 0; chunk < fullChunks; chunk++) {
+                    readChunk(preparedStatement, ids, chunk * IN_LIST_CHUNK_SIZE, IN_LIST_CHUNK_SIZE, rowMapper, consumer);
+                }
+            }
+        }
+        int remainder = ids.size() - fullChunks * IN_LIST_CHUNK_SIZE;
+        if (remainder > 0) {
+            try (PreparedStatement preparedStatement = connection.prepareStatement(
+                    selectPrefix + " IN (" + placeholders(remainder) + ")" + selectSuffix)) {
+                readChunk(preparedStatement, ids, fullChunks * IN_LIST_CHUNK_SIZE, remainder, rowMapper, consumer);
+            }
+        }
+    }
+
+    private static <T> void readChunk(PreparedStatement preparedStatement, List<Integer> ids, int offset, int count,
+                                      RowMapper<T> rowMapper, Consumer<T> consumer) throws SQLException {
+        for (int i = 0; i < count; i++) {
+            preparedStatement.setInt(i + 1, ids.get(offset + i));
+        }
+        try (ResultSet resultSet = preparedStatement.executeQuery()) {
+            while (resultSet.next()) {
+                consumer.accept(rowMapper.mapRow(resultSet));
+            }
+        }
+    }
+}
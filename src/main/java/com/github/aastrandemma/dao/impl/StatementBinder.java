@@ -0,0 +1,9 @@
+package com.github.aastrandemma.dao.impl;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+@FunctionalInterface
+interface StatementBinder<T> {
+    void bind(PreparedStatement preparedStatement, T t) throws SQLException;
+}
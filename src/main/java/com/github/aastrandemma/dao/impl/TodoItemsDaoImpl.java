@@ -1,49 +1,205 @@
 package com.github.aastrandemma.dao.impl;
 
 import com.github.aastrandemma.dao.TodoItemsDao;
+import com.github.aastrandemma.dao.columnar.TodoColumnStore;
+import com.github.aastrandemma.dao.db.ConnectionHolder;
+import com.github.aastrandemma.dao.db.DBConnectionManager;
+import com.github.aastrandemma.dao.db.SingleConnectionDataSource;
+import com.github.aastrandemma.dao.db.TransactionTemplate;
+import com.github.aastrandemma.dao.deadline.TodoDeadlineListener;
+import com.github.aastrandemma.dao.events.ChangeEventBus;
+import com.github.aastrandemma.dao.events.ChangeType;
+import com.github.aastrandemma.dao.events.EntityType;
+import com.github.aastrandemma.dao.search.InvertedTodoTextIndex;
+import com.github.aastrandemma.dao.search.TodoTextIndex;
 import com.github.aastrandemma.exception.MySQLException;
+import com.github.aastrandemma.model.Page;
 import com.github.aastrandemma.model.Person;
+import com.github.aastrandemma.model.SaveResult;
 import com.github.aastrandemma.model.Todo;
+import com.github.aastrandemma.model.TodoSummary;
 
+import javax.sql.DataSource;
 import java.sql.*;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
 
 import static java.sql.Types.*;
 
 public class TodoItemsDaoImpl implements TodoItemsDao {
+    private static final Logger LOGGER = Logger.getLogger(TodoItemsDaoImpl.class.getName());
+    // Assignees are joined in so a finder is a single round trip regardless of how many rows it returns
+    private static final String SELECT_TODO_WITH_ASSIGNEE = "SELECT t.todo_id, t.title, t.description, t.deadline, t.done, "
+            + "t.assignee_id, p.first_name, p.last_name FROM todo_item t LEFT JOIN person p ON p.person_id = t.assignee_id";
+    // Never transfers description, for list views
+    private static final String SELECT_TODO_SUMMARY = "SELECT todo_id, title, deadline, done, assignee_id FROM todo_item";
+    private static final String INSERT_TODO = "INSERT INTO todo_item (title, description, deadline, done, assignee_id) VALUES (?, ?, ?, ?, ?)";
+    // Column list has to match the ft_todo_item_title_description FULLTEXT index exactly
+    private static final String FULL_TEXT_MATCH = "MATCH (t.title, t.description) AGAINST (? IN NATURAL LANGUAGE MODE)";
+    // MySQL's "Can't find FULLTEXT index matching the column list"
+    private static final int ER_FT_MATCHING_KEY_NOT_FOUND = 1191;
+    // H2's FUNCTION_NOT_FOUND, it has no MATCH ... AGAINST
+    private static final int H2_FUNCTION_NOT_FOUND = 90022;
+    // done is nullable and a NULL counts as open, like COALESCE(done, 0) in the statistics
+    private static final String OPEN_TODO = "(t.done = 0 OR t.done IS NULL)";
+    private static final Runnable NO_ACTION = () -> {
+    };
+    private static final String[] TODO_COLUMNS = {"title", "description", "deadline", "done", "assignee_id"};
+    private static final String[] UPDATE_TODO_BY_DIRTY_FIELDS = DirtyUpdateQueries.build(
+            "todo_item", "todo_id", "title", "description", "deadline", "done", "assignee_id");
     private static TodoItemsDaoImpl instance;
-    private final Connection connection;
+    private final DataSource dataSource;
+    private final BatchInserter<Todo> batchInserter;
+    private final BatchUpserter<Todo> batchUpserter;
+    // Optional write-behind buffer for markDone(), null when disabled
+    private volatile DoneStatusWriteBuffer doneStatusBuffer;
+    // In-process index serving search(), null while search() goes to the FULLTEXT index
+    private volatile TodoTextIndex textIndex;
+    // Whether MATCH ... AGAINST works on this database, null until the first search() finds out
+    private volatile Boolean fullTextSupported;
+    private final List<TodoDeadlineListener> deadlineListeners = new CopyOnWriteArrayList<>();
+    // Optional change feed, null when disabled. While set, updates and deletes read the previous row first
+    private volatile ChangeEventBus changeEventBus;
+    // Optional columnar copy for in-process filtering, null when disabled
+    private volatile TodoColumnStore readModel;
 
-    private TodoItemsDaoImpl(Connection connection) {
-        this.connection = connection;
+    public TodoItemsDaoImpl(DataSource dataSource) {
+        Objects.requireNonNull(dataSource, "DataSource can't be null.");
+        this.dataSource = dataSource;
+        this.batchInserter = new BatchInserter<>(dataSource, "todo_item", INSERT_TODO, TodoItemsDaoImpl::bindTodo, Todo::setId);
+        this.batchUpserter = new BatchUpserter<>(dataSource, "todo_item", "todo_id", TODO_COLUMNS, TodoItemsDaoImpl::bindTodo,
+                Todo::getId, batchInserter);
+    }
+
+    // The shared instance over the default pool, construct a DAO for any other DataSource
+    public static TodoItemsDaoImpl getInstance() {
+        return getInstance(DBConnectionManager.getDataSource());
     }
 
     public static TodoItemsDaoImpl getInstance(Connection connection) {
+        return getInstance(new SingleConnectionDataSource(connection));
+    }
+
+    // Fails instead of handing out the shared instance when it was bound to a different DataSource
+    public static synchronized TodoItemsDaoImpl getInstance(DataSource dataSource) {
         if (instance == null) {
-            instance = new TodoItemsDaoImpl(connection);
+            instance = new TodoItemsDaoImpl(dataSource);
+        } else if (!instance.dataSource.equals(dataSource)) {
+            throw new IllegalStateException("The shared TodoItemsDaoImpl is bound to another DataSource, "
+                    + "construct one for this DataSource instead.");
         }
         return instance;
     }
 
+    DataSource getDataSource() {
+        return dataSource;
+    }
+
+    public synchronized void enableDoneStatusBuffer(int maxPending, long flushInterval, TimeUnit unit) {
+        disableDoneStatusBuffer();
+        doneStatusBuffer = new DoneStatusWriteBuffer(dataSource, this::publishFlushedDoneStatus, maxPending, flushInterval, unit);
+    }
+
+    // Drains anything still buffered before returning
+    public synchronized void disableDoneStatusBuffer() {
+        DoneStatusWriteBuffer buffer = doneStatusBuffer;
+        if (buffer != null) {
+            doneStatusBuffer = null;
+            buffer.close();
+        }
+    }
+
+    // Serves search() from the given index instead of the database, every todo is loaded into it and
+    // create/createAll/update/deleteById keep it current afterwards
+    public synchronized void enableTextIndex(TodoTextIndex index) {
+        index.clear();
+        textIndex = index;
+        try (Stream<Todo> todoItems = streamAll()) {
+            todoItems.forEach(todo -> index.put(todo.getId(), todo.getTitle(), todo.getDescription()));
+        }
+    }
+
+    public synchronized void disableTextIndex() {
+        textIndex = null;
+    }
+
+    // Null while search() goes to the FULLTEXT index
+    TodoTextIndex getTextIndex() {
+        return textIndex;
+    }
+
+    public void setChangeEventBus(ChangeEventBus changeEventBus) {
+        this.changeEventBus = changeEventBus;
+    }
+
+    // Loads every todo into a columnar store with one streaming scan, writes through this DAO keep it current
+    // afterwards. The store is published before the scan so writes racing the load aren't lost
+    public synchronized TodoColumnStore enableReadModel() {
+        flushBufferedDoneStatus();
+        TodoColumnStore store = new TodoColumnStore();
+        readModel = store;
+        String selectQuery = SELECT_TODO_SUMMARY + " ORDER BY todo_id";
+        try (
+                Connection connection = ConnectionHolder.getConnection(dataSource);
+                PreparedStatement preparedStatement = connection.prepareStatement(selectQuery, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)
+        ) {
+            preparedStatement.setFetchSize(ResultSetStreams.streamingFetchSize(connection));
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                while (resultSet.next()) {
+                    Date deadline = resultSet.getDate(3);
+                    int assigneeId = resultSet.getInt(5);
+                    store.load(resultSet.getInt(1), resultSet.getString(2), deadline == null ? null : deadline.toLocalDate(),
+                            resultSet.getBoolean(4), resultSet.wasNull() ? null : assigneeId);
+                }
+            }
+        } catch (SQLException e) {
+            readModel = null;
+            String errorMessage = "Failed to fetch data from todo_item table, for enableReadModel(), ";
+            throw new MySQLException(errorMessage, e);
+        }
+        store.finishLoad();
+        return store;
+    }
+
+    public synchronized void disableReadModel() {
+        readModel = null;
+    }
+
+    // null when disabled
+    public TodoColumnStore getReadModel() {
+        return readModel;
+    }
+
+    public void addDeadlineListener(TodoDeadlineListener listener) {
+        deadlineListeners.add(listener);
+    }
+
+    public void removeDeadlineListener(TodoDeadlineListener listener) {
+        deadlineListeners.remove(listener);
+    }
+
     @Override
     public Todo create(Todo todo) {
-        String insertQuery = "INSERT INTO todo_item (title, description, deadline, done, assignee_id) VALUES (?, ?, ?, ?, ?)";
-        try (PreparedStatement preparedStatement = connection.prepareStatement(insertQuery, Statement.RETURN_GENERATED_KEYS)) {
-            preparedStatement.setString(1, todo.getTitle());
-            preparedStatement.setString(2, todo.getDescription());
-            if (todo.getDeadline() == null) {
-                preparedStatement.setNull(3, DATE);
-            } else {
-                preparedStatement.setDate(3, Date.valueOf(todo.getDeadline()));
-            }
-            preparedStatement.setBoolean(4, todo.isDone());
-            if (todo.getAssignee() == null) {
-                preparedStatement.setNull(5, INTEGER);
-            } else {
-                preparedStatement.setInt(5, todo.getAssignee().getId());
-            }
+        try (
+                Connection connection = ConnectionHolder.getConnection(dataSource);
+                PreparedStatement preparedStatement = connection.prepareStatement(INSERT_TODO, Statement.RETURN_GENERATED_KEYS)
+        ) {
+            bindTodo(preparedStatement, todo);
 
             int affectedRows = preparedStatement.executeUpdate();
 
@@ -55,7 +211,10 @@ public class TodoItemsDaoImpl implements TodoItemsDao {
             try (ResultSet generatedKeys = preparedStatement.getGeneratedKeys()) {
                 if (generatedKeys.next()) {
                     todo.setId(generatedKeys.getInt(1));
-                    return todo;
+                    todo.clearDirtyFields();
+                    indexTodoText(todo);
+                    putInReadModel(todo);
+                    notifyTodoSaved(todo);
                 } else {
                     String errorMessage = "Failed to generate key for insert operation todo_item table.";
                     throw new MySQLException(errorMessage);
@@ -65,18 +224,35 @@ public class TodoItemsDaoImpl implements TodoItemsDao {
             String errorMessage = "Error occurred during insert operation todo_item table: ";
             throw new MySQLException(errorMessage, e);
         }
+        publishChange(ChangeType.CREATED, todo.getId(), null, todo);
+        return todo;
+    }
+
+    @Override
+    public Collection<Todo> createAll(Collection<Todo> todoItems, int batchSize) {
+        batchInserter.insertAll(todoItems, batchSize);
+        for (Todo todo : todoItems) {
+            todo.clearDirtyFields();
+            indexTodoText(todo);
+            putInReadModel(todo);
+            notifyTodoSaved(todo);
+            publishChange(ChangeType.CREATED, todo.getId(), null, todo);
+        }
+        return todoItems;
     }
 
     @Override
     public Collection<Todo> findAll() {
-        String selectQuery = "SELECT * FROM todo_item";
+        String selectQuery = SELECT_TODO_WITH_ASSIGNEE;
         Collection<Todo> todoItems = new ArrayList<>();
+        Map<Integer, Person> assignees = new HashMap<>();
         try (
+                Connection connection = ConnectionHolder.getReadConnection(dataSource);
                 Statement statement = connection.createStatement();
                 ResultSet resultSet = statement.executeQuery(selectQuery)
         ) {
             while (resultSet.next()) {
-                todoItems.add(extractTodoFromResultSet(resultSet));
+                todoItems.add(extractTodoFromResultSet(resultSet, assignees));
             }
         } catch (SQLException e) {
             String errorMessage = "Failed to fetch data from todo_item table, for findAll(), ";
@@ -87,13 +263,16 @@ public class TodoItemsDaoImpl implements TodoItemsDao {
 
     @Override
     public Todo findById(int id) {
-        String selectQuery = "SELECT * FROM todo_item WHERE todo_id = ?";
-        try (PreparedStatement preparedStatement = connection.prepareStatement(selectQuery)) {
+        String selectQuery = SELECT_TODO_WITH_ASSIGNEE + " WHERE t.todo_id = ?";
+        try (
+                Connection connection = ConnectionHolder.getReadConnection(dataSource);
+                PreparedStatement preparedStatement = connection.prepareStatement(selectQuery)
+        ) {
             preparedStatement.setInt(1, id);
 
             try (ResultSet resultSet = preparedStatement.executeQuery()) {
                 if (resultSet.next()) {
-                    return extractTodoFromResultSet(resultSet);
+                    return extractTodoFromResultSet(resultSet, new HashMap<>());
                 }
             }
         } catch (SQLException e) {
@@ -105,64 +284,290 @@ public class TodoItemsDaoImpl implements TodoItemsDao {
 
     @Override
     public Todo update(Todo todo) {
-        String updateQuery = "UPDATE todo_item SET title = ?, description = ?, deadline = ?, done = ?, assignee_id = ? WHERE todo_id = ?";
-        try (PreparedStatement preparedStatement = connection.prepareStatement(updateQuery)) {
-            connection.setAutoCommit(false);
-            preparedStatement.setString(1, todo.getTitle());
-            preparedStatement.setString(2, todo.getDescription());
-            preparedStatement.setDate(3, Date.valueOf(todo.getDeadline()));
-            preparedStatement.setBoolean(4, todo.isDone());
-            preparedStatement.setInt(5, todo.getAssignee().getId());
-            preparedStatement.setInt(6, todo.getId());
-
-            int rowsAffected = preparedStatement.executeUpdate();
+        int dirtyFields = todo.getDirtyFields();
+        if (dirtyFields == 0) {
+            return todo;
+        }
+        Runnable restoreBufferedDone = (dirtyFields & Todo.FIELD_DONE) != 0
+                ? takeBufferedDoneStatus(Collections.singletonList(todo.getId())) : NO_ACTION;
+        boolean written = false;
+        Todo before = null;
+        int updatedRows;
+        String updateQuery = UPDATE_TODO_BY_DIRTY_FIELDS[dirtyFields];
+        try (
+                Connection connection = ConnectionHolder.getConnection(dataSource);
+                PreparedStatement preparedStatement = connection.prepareStatement(updateQuery)
+        ) {
+            int index = 1;
+            if ((dirtyFields & Todo.FIELD_TITLE) != 0) {
+                preparedStatement.setString(index++, todo.getTitle());
+            }
+            if ((dirtyFields & Todo.FIELD_DESCRIPTION) != 0) {
+                preparedStatement.setString(index++, todo.getDescription());
+            }
+            if ((dirtyFields & Todo.FIELD_DEADLINE) != 0) {
+                setDeadline(preparedStatement, index++, todo.getDeadline());
+            }
+            if ((dirtyFields & Todo.FIELD_DONE) != 0) {
+                preparedStatement.setBoolean(index++, todo.isDone());
+            }
+            if ((dirtyFields & Todo.FIELD_ASSIGNEE) != 0) {
+                setAssigneeId(preparedStatement, index++, todo.getAssignee());
+            }
+            preparedStatement.setInt(index, todo.getId());
 
-            if (rowsAffected > 0) {
-                connection.setAutoCommit(true);
-                return todo;
-            } else {
-                connection.rollback();
+            if (changeEventBus != null) {
+                before = loadTodoForChange(connection, todo.getId());
+            }
+            updatedRows = preparedStatement.executeUpdate();
+            written = true;
+            ConnectionHolder.runAfterRollback(dataSource, restoreBufferedDone);
+            clearDirtyFieldsUntilRollback(todo);
+            if (updatedRows > 0) {
+                if ((dirtyFields & (Todo.FIELD_TITLE | Todo.FIELD_DESCRIPTION)) != 0) {
+                    indexTodoText(todo);
+                }
+                if ((dirtyFields & (Todo.FIELD_DEADLINE | Todo.FIELD_DONE)) != 0) {
+                    notifyTodoSaved(todo);
+                }
+                putInReadModel(todo);
             }
         } catch (SQLException e) {
             String errorMessage = "Failed update() for todo_item table with id: " + todo.getId() + ", ";
             throw new MySQLException(errorMessage, e);
+        } finally {
+            if (!written) {
+                restoreBufferedDone.run();
+            }
+        }
+        if (updatedRows > 0) {
+            publishChange(ChangeType.UPDATED, todo.getId(), before, todo);
         }
         return todo;
     }
 
+    @Override
+    public SaveResult<Todo> save(Todo todo) {
+        return saveAll(Collections.singletonList(todo), 1);
+    }
+
+    @Override
+    public SaveResult<Todo> saveAll(Collection<Todo> todoItems, int batchSize) {
+        return BatchUpserter.retryingDeadlocks(dataSource, () -> saveAllOnce(todoItems, batchSize));
+    }
+
+    private SaveResult<Todo> saveAllOnce(Collection<Todo> todoItems, int batchSize) {
+        List<Integer> existingIds = new ArrayList<>();
+        for (Todo todo : todoItems) {
+            if (todo.getId() > 0) {
+                existingIds.add(todo.getId());
+            }
+        }
+        Runnable restoreBufferedDone = takeBufferedDoneStatus(existingIds);
+        Map<Integer, Todo> before = new HashMap<>();
+        BatchUpserter.Saved<Todo> saved;
+        try {
+            saved = new TransactionTemplate(dataSource).execute(connection -> {
+                ConnectionHolder.runAfterRollback(dataSource, restoreBufferedDone);
+                if (changeEventBus != null && !existingIds.isEmpty()) {
+                    for (Todo todo : loadTodoItemsByIds(connection, existingIds)) {
+                        before.put(todo.getId(), todo);
+                    }
+                }
+                return batchUpserter.saveAll(todoItems, batchSize);
+            });
+        } catch (RuntimeException e) {
+            restoreBufferedDone.run();
+            throw e;
+        }
+        for (Todo todo : saved.inserted) {
+            todo.clearDirtyFields();
+            indexTodoText(todo);
+            putInReadModel(todo);
+            notifyTodoSaved(todo);
+            publishChange(ChangeType.CREATED, todo.getId(), null, todo);
+        }
+        for (Todo todo : saved.updated) {
+            clearDirtyFieldsUntilRollback(todo);
+            indexTodoText(todo);
+            putInReadModel(todo);
+            notifyTodoSaved(todo);
+            publishChange(ChangeType.UPDATED, todo.getId(), before.get(todo.getId()), todo);
+        }
+        return saved.toResult(todoItems);
+    }
+
     @Override
     public boolean deleteById(int id) {
-        int rowsDeleted = -1;
+        discardBufferedDoneStatus(id);
         String deleteQuery = "DELETE FROM todo_item WHERE todo_id = ?";
-        try (PreparedStatement preparedStatement = connection.prepareStatement(deleteQuery)) {
-            connection.setAutoCommit(false);
+        Todo before = null;
+        boolean deleted;
+        try (
+                Connection connection = ConnectionHolder.getConnection(dataSource);
+                PreparedStatement preparedStatement = connection.prepareStatement(deleteQuery)
+        ) {
             preparedStatement.setInt(1, id);
 
-            rowsDeleted = preparedStatement.executeUpdate();
-
-            if (rowsDeleted > 0) {
-                connection.setAutoCommit(true);
-                return true;
-            } else {
-                connection.rollback();
+            if (changeEventBus != null) {
+                before = loadTodoForChange(connection, id);
+            }
+            deleted = preparedStatement.executeUpdate() > 0;
+            if (deleted) {
+                forgetDeletedTodoItems(Collections.singletonList(id));
             }
         } catch (SQLException e) {
             String errorMessage = "Failed to delete data in todo_item table, for deleteById() with id: " + id + ", ";
             throw new MySQLException(errorMessage, e);
         }
-        return false;
+        if (deleted) {
+            publishChange(ChangeType.DELETED, id, before, null);
+        }
+        return deleted;
+    }
+
+    @Override
+    public int deleteByIds(Collection<Integer> todoIds) {
+        if (todoIds.isEmpty()) {
+            return 0;
+        }
+        List<Integer> distinctIds = new ArrayList<>(new LinkedHashSet<>(todoIds));
+        distinctIds.forEach(this::discardBufferedDoneStatus);
+        int deleted = new TransactionTemplate(dataSource).execute(connection -> {
+            if (changeEventBus != null) {
+                for (Todo before : loadTodoItemsByIds(connection, distinctIds)) {
+                    publishChange(ChangeType.DELETED, before.getId(), before, null);
+                }
+            }
+            return SqlLists.executeInChunks(connection, "DELETE FROM todo_item WHERE todo_id", distinctIds);
+        });
+        forgetDeletedTodoItems(distinctIds);
+        return deleted;
+    }
+
+    @Override
+    public int deleteByAssignee(int personId) {
+        // The ids are read first so the in-memory index, buffer and listeners can drop them too
+        List<Integer> todoIds = new ArrayList<>();
+        int deleted = new TransactionTemplate(dataSource).execute(connection -> {
+            try (PreparedStatement preparedStatement = connection.prepareStatement(
+                    "SELECT todo_id FROM todo_item WHERE assignee_id = ? FOR UPDATE")) {
+                preparedStatement.setInt(1, personId);
+                try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                    while (resultSet.next()) {
+                        todoIds.add(resultSet.getInt(1));
+                    }
+                }
+            }
+            if (changeEventBus != null) {
+                for (Todo before : loadTodoItemsByIds(connection, todoIds)) {
+                    publishChange(ChangeType.DELETED, before.getId(), before, null);
+                }
+            }
+            try (PreparedStatement preparedStatement = connection.prepareStatement("DELETE FROM todo_item WHERE assignee_id = ?")) {
+                preparedStatement.setInt(1, personId);
+                return preparedStatement.executeUpdate();
+            }
+        });
+        todoIds.forEach(this::discardBufferedDoneStatus);
+        forgetDeletedTodoItems(todoIds);
+        return deleted;
+    }
+
+    @Override
+    public int reassignAll(int fromPersonId, int toPersonId) {
+        if (fromPersonId == toPersonId) {
+            return 0;
+        }
+        return reassignTodoItems(fromPersonId, toPersonId, "reassignAll() from assignee_id: " + fromPersonId
+                + " to assignee_id: " + toPersonId);
+    }
+
+    @Override
+    public int unassignAll(int personId) {
+        return reassignTodoItems(personId, null, "unassignAll() with assignee_id: " + personId);
+    }
+
+    private int reassignTodoItems(int fromPersonId, Integer toPersonId, String errorContext) {
+        String updateQuery = "UPDATE todo_item SET assignee_id = ? WHERE assignee_id = ?";
+        if (changeEventBus == null) {
+            try (
+                    Connection connection = ConnectionHolder.getConnection(dataSource);
+                    PreparedStatement preparedStatement = connection.prepareStatement(updateQuery)
+            ) {
+                setAssigneeId(preparedStatement, 1, toPersonId);
+                preparedStatement.setInt(2, fromPersonId);
+
+                int updatedRows = preparedStatement.executeUpdate();
+                applyToReadModel(store -> store.reassign(fromPersonId, toPersonId));
+                return updatedRows;
+            } catch (SQLException e) {
+                String errorMessage = "Failed " + errorContext + " for todo_item table, ";
+                throw new MySQLException(errorMessage, e);
+            }
+        }
+        // With a change feed the affected rows are locked and read first, for their before and after state
+        return new TransactionTemplate(dataSource).execute(connection -> {
+            List<Integer> todoIds = new ArrayList<>();
+            try (PreparedStatement preparedStatement = connection.prepareStatement(
+                    "SELECT todo_id FROM todo_item WHERE assignee_id = ? FOR UPDATE")) {
+                preparedStatement.setInt(1, fromPersonId);
+                try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                    while (resultSet.next()) {
+                        todoIds.add(resultSet.getInt(1));
+                    }
+                }
+            }
+            List<Todo> beforeItems = loadTodoItemsByIds(connection, todoIds);
+            Person newAssignee = toPersonId == null ? null : loadPerson(connection, toPersonId);
+            int updatedRows;
+            try (PreparedStatement preparedStatement = connection.prepareStatement(updateQuery)) {
+                setAssigneeId(preparedStatement, 1, toPersonId);
+                preparedStatement.setInt(2, fromPersonId);
+                updatedRows = preparedStatement.executeUpdate();
+            }
+            applyToReadModel(store -> store.reassign(fromPersonId, toPersonId));
+            for (Todo before : beforeItems) {
+                Todo after = copyOf(before);
+                after.setAssignee(newAssignee);
+                after.clearDirtyFields();
+                publishChange(ChangeType.UPDATED, before.getId(), before, after);
+            }
+            return updatedRows;
+        });
+    }
+
+    // After commit, a rolled back delete leaves the indexes and listeners as they were
+    private void forgetDeletedTodoItems(Collection<Integer> todoIds) {
+        applyToReadModel(store -> todoIds.forEach(store::remove));
+        TodoTextIndex index = textIndex;
+        ConnectionHolder.runAfterCommit(dataSource, () -> {
+            for (Integer todoId : todoIds) {
+                if (index != null) {
+                    index.remove(todoId);
+                }
+                for (TodoDeadlineListener listener : deadlineListeners) {
+                    listener.todoDeleted(todoId);
+                }
+            }
+        });
     }
 
     @Override
     public Collection<Todo> findByDoneStatus(boolean doneStatus) {
+        flushBufferedDoneStatus();
         Collection<Todo> todoItems = new ArrayList<>();
-        String selectQuery = "SELECT * FROM todo_item WHERE done = ?";
-        try (PreparedStatement preparedStatement = connection.prepareStatement(selectQuery)) {
+        Map<Integer, Person> assignees = new HashMap<>();
+        String selectQuery = SELECT_TODO_WITH_ASSIGNEE + " WHERE t.done = ?";
+        try (
+                Connection connection = ConnectionHolder.getReadConnection(dataSource);
+                PreparedStatement preparedStatement = connection.prepareStatement(selectQuery)
+        ) {
             preparedStatement.setBoolean(1, doneStatus);
 
             try (ResultSet resultSet = preparedStatement.executeQuery()) {
                 while (resultSet.next()) {
-                    todoItems.add(extractTodoFromResultSet(resultSet));
+                    todoItems.add(extractTodoFromResultSet(resultSet, assignees));
                 }
             }
         } catch (SQLException e) {
@@ -175,13 +580,17 @@ public class TodoItemsDaoImpl implements TodoItemsDao {
     @Override
     public Collection<Todo> findByAssignee(int personId) {
         Collection<Todo> todoItems = new ArrayList<>();
-        String selectQuery = "SELECT * FROM todo_item WHERE assignee_id = ?";
-        try (PreparedStatement preparedStatement = connection.prepareStatement(selectQuery)) {
+        Map<Integer, Person> assignees = new HashMap<>();
+        String selectQuery = SELECT_TODO_WITH_ASSIGNEE + " WHERE t.assignee_id = ?";
+        try (
+                Connection connection = ConnectionHolder.getReadConnection(dataSource);
+                PreparedStatement preparedStatement = connection.prepareStatement(selectQuery)
+        ) {
             preparedStatement.setInt(1, personId);
 
             try (ResultSet resultSet = preparedStatement.executeQuery()) {
                 while (resultSet.next()) {
-                    todoItems.add(extractTodoFromResultSet(resultSet));
+                    todoItems.add(extractTodoFromResultSet(resultSet, assignees));
                 }
             }
         } catch (SQLException e) {
@@ -196,16 +605,74 @@ public class TodoItemsDaoImpl implements TodoItemsDao {
         return findByAssignee(person.getId());
     }
 
+    @Override
+    public Map<Integer, Todo> findByIds(Collection<Integer> ids) {
+        if (ids.isEmpty()) {
+            return new LinkedHashMap<>();
+        }
+        List<Integer> distinctIds = new ArrayList<>(new LinkedHashSet<>(ids));
+        Map<Integer, Todo> found = new HashMap<>(distinctIds.size() * 2);
+        try (
+                Connection connection = ConnectionHolder.getReadConnection(dataSource)
+        ) {
+            for (Todo todo : loadTodoItemsByIds(connection, distinctIds)) {
+                found.put(todo.getId(), todo);
+            }
+        } catch (SQLException e) {
+            String errorMessage = "Failed to fetch data from todo_item table, for findByIds() with " + distinctIds.size() + " ids, ";
+            throw new MySQLException(errorMessage, e);
+        }
+        // Requested order, ids without a row are left out
+        Map<Integer, Todo> todoItems = new LinkedHashMap<>(found.size() * 2);
+        for (Integer id : distinctIds) {
+            Todo todo = found.get(id);
+            if (todo != null) {
+                todoItems.put(id, todo);
+            }
+        }
+        return todoItems;
+    }
+
+    @Override
+    public Map<Integer, List<Todo>> findByAssignees(Collection<Integer> personIds) {
+        return findByAssignees(personIds, new HashMap<>());
+    }
+
+    // Todo items reference the Person instances in assignees where present, so a graph loader can share its people
+    Map<Integer, List<Todo>> findByAssignees(Collection<Integer> personIds, Map<Integer, Person> assignees) {
+        List<Integer> distinctIds = new ArrayList<>(new LinkedHashSet<>(personIds));
+        Map<Integer, List<Todo>> todoItems = new LinkedHashMap<>(distinctIds.size() * 2);
+        for (Integer personId : distinctIds) {
+            todoItems.put(personId, new ArrayList<>());
+        }
+        if (distinctIds.isEmpty()) {
+            return todoItems;
+        }
+        try (
+                Connection connection = ConnectionHolder.getReadConnection(dataSource)
+        ) {
+            SqlLists.queryInChunks(connection, SELECT_TODO_WITH_ASSIGNEE + " WHERE t.assignee_id", " ORDER BY t.todo_id", distinctIds,
+                    resultSet -> extractTodoFromResultSet(resultSet, assignees),
+                    todo -> todoItems.get(todo.getAssignee().getId()).add(todo));
+        } catch (SQLException e) {
+            String errorMessage = "Failed to fetch data from todo_item table, for findByAssignees() with " + distinctIds.size() + " assignee ids, ";
+            throw new MySQLException(errorMessage, e);
+        }
+        return todoItems;
+    }
+
     @Override
     public Collection<Todo> findByUnassignedTodoItems() {
         Collection<Todo> todoItems = new ArrayList<>();
-        String selectQuery = "SELECT * FROM todo_item WHERE assignee_id IS NULL";
+        Map<Integer, Person> assignees = new HashMap<>();
+        String selectQuery = SELECT_TODO_WITH_ASSIGNEE + " WHERE t.assignee_id IS NULL";
         try (
+                Connection connection = ConnectionHolder.getReadConnection(dataSource);
                 Statement statement = connection.createStatement();
                 ResultSet resultSet = statement.executeQuery(selectQuery)
         ) {
             while (resultSet.next()) {
-                todoItems.add(extractTodoFromResultSet(resultSet));
+                todoItems.add(extractTodoFromResultSet(resultSet, assignees));
             }
         } catch (SQLException e) {
             String errorMessage = "Failed to fetch data from todo_item table, for findByUnassignedTodoItems(), ";
@@ -214,27 +681,630 @@ public class TodoItemsDaoImpl implements TodoItemsDao {
         return todoItems;
     }
 
-    private Todo extractTodoFromResultSet(ResultSet resultSet) throws SQLException {
-        int todoId = resultSet.getInt("todo_id");
-        String title = resultSet.getString("title");
-        String description = resultSet.getString("description");
+    @Override
+    public Collection<Todo> findOverdue() {
+        flushBufferedDoneStatus();
+        return findTodoItems(SELECT_TODO_WITH_ASSIGNEE + " WHERE " + OPEN_TODO + " AND t.deadline < ? ORDER BY t.deadline, t.todo_id",
+                "findOverdue()", Date.valueOf(LocalDate.now()));
+    }
+
+    @Override
+    public Collection<Todo> findByDeadlineBetween(LocalDate from, LocalDate to) {
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("Deadline range start can't be after its end.");
+        }
+        // Listing every done value, NULL included, lets the (done, deadline) index serve the range as three seeks
+        return findTodoItems(SELECT_TODO_WITH_ASSIGNEE + " WHERE (t.done IN (0, 1) OR t.done IS NULL) AND t.deadline BETWEEN ? AND ? ORDER BY t.deadline, t.todo_id",
+                "findByDeadlineBetween() with range: " + from + " - " + to, Date.valueOf(from), Date.valueOf(to));
+    }
+
+    @Override
+    public Collection<Todo> findDueWithin(int days) {
+        if (days < 0) {
+            throw new IllegalArgumentException("Days can't be negative.");
+        }
+        flushBufferedDoneStatus();
+        LocalDate today = LocalDate.now();
+        return findTodoItems(SELECT_TODO_WITH_ASSIGNEE + " WHERE " + OPEN_TODO + " AND t.deadline BETWEEN ? AND ? ORDER BY t.deadline, t.todo_id",
+                "findDueWithin() with days: " + days, Date.valueOf(today), Date.valueOf(today.plusDays(days)));
+    }
+
+    private Collection<Todo> findTodoItems(String selectQuery, String errorContext, Object... parameters) {
+        Collection<Todo> todoItems = new ArrayList<>();
+        Map<Integer, Person> assignees = new HashMap<>();
+        try (
+                Connection connection = ConnectionHolder.getReadConnection(dataSource);
+                PreparedStatement preparedStatement = connection.prepareStatement(selectQuery)
+        ) {
+            for (int i = 0; i < parameters.length; i++) {
+                preparedStatement.setObject(i + 1, parameters[i]);
+            }
+
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                while (resultSet.next()) {
+                    todoItems.add(extractTodoFromResultSet(resultSet, assignees));
+                }
+            }
+        } catch (SQLException e) {
+            String errorMessage = "Failed to fetch data from todo_item table, for " + errorContext + ", ";
+            throw new MySQLException(errorMessage, e);
+        }
+        return todoItems;
+    }
+
+    @Override
+    public Collection<TodoSummary> findAllSummaries() {
+        return findTodoSummaries(SELECT_TODO_SUMMARY, "findAllSummaries()");
+    }
+
+    @Override
+    public Collection<TodoSummary> findSummariesByDoneStatus(boolean doneStatus) {
+        flushBufferedDoneStatus();
+        return findTodoSummaries(SELECT_TODO_SUMMARY + " WHERE done = ?", "findSummariesByDoneStatus() with status: " + doneStatus, doneStatus);
+    }
+
+    @Override
+    public Collection<TodoSummary> findSummariesByAssignee(int personId) {
+        return findTodoSummaries(SELECT_TODO_SUMMARY + " WHERE assignee_id = ?", "findSummariesByAssignee() with assignee_id: " + personId, personId);
+    }
+
+    private Collection<TodoSummary> findTodoSummaries(String selectQuery, String errorContext, Object... parameters) {
+        Collection<TodoSummary> summaries = new ArrayList<>();
+        try (
+                Connection connection = ConnectionHolder.getReadConnection(dataSource);
+                PreparedStatement preparedStatement = connection.prepareStatement(selectQuery)
+        ) {
+            for (int i = 0; i < parameters.length; i++) {
+                preparedStatement.setObject(i + 1, parameters[i]);
+            }
+
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                while (resultSet.next()) {
+                    summaries.add(extractTodoSummaryFromResultSet(resultSet));
+                }
+            }
+        } catch (SQLException e) {
+            String errorMessage = "Failed to fetch data from todo_item table, for " + errorContext + ", ";
+            throw new MySQLException(errorMessage, e);
+        }
+        return summaries;
+    }
+
+    @Override
+    public void markDone(int todoId, boolean done) {
+        DoneStatusWriteBuffer buffer = doneStatusBuffer;
+        if (buffer != null) {
+            // The change event is published by the flush that writes it, see publishFlushedDoneStatus()
+            buffer.markDone(todoId, done);
+            applyToReadModel(store -> store.setDone(todoId, done));
+            notifyDoneStatusChanged(todoId, done);
+            return;
+        }
+        String updateQuery = "UPDATE todo_item SET done = ? WHERE todo_id = ?";
+        Todo before = null;
+        try (
+                Connection connection = ConnectionHolder.getConnection(dataSource);
+                PreparedStatement preparedStatement = connection.prepareStatement(updateQuery)
+        ) {
+            if (changeEventBus != null) {
+                before = loadTodoForChange(connection, todoId);
+            }
+            preparedStatement.setBoolean(1, done);
+            preparedStatement.setInt(2, todoId);
+
+            preparedStatement.executeUpdate();
+            applyToReadModel(store -> store.setDone(todoId, done));
+            notifyDoneStatusChanged(todoId, done);
+        } catch (SQLException e) {
+            String errorMessage = "Failed markDone() for todo_item table with id: " + todoId + ", ";
+            throw new MySQLException(errorMessage, e);
+        }
+        publishDoneStatusChange(before, done);
+    }
+
+    @Override
+    public void flush() {
+        DoneStatusWriteBuffer buffer = doneStatusBuffer;
+        if (buffer != null) {
+            buffer.flush();
+        }
+    }
+
+    // Filtering on done in SQL must see buffered changes, so they are written out first
+    private void flushBufferedDoneStatus() {
+        DoneStatusWriteBuffer buffer = doneStatusBuffer;
+        if (buffer != null && !buffer.isEmpty()) {
+            buffer.flush();
+        }
+    }
+
+    private void discardBufferedDoneStatus(int todoId) {
+        DoneStatusWriteBuffer buffer = doneStatusBuffer;
+        if (buffer != null) {
+            buffer.discard(todoId);
+        }
+    }
+
+    // Takes buffered marks out before a write that sets done, so a flush can't overwrite it with an older status.
+    // The returned action puts them back and is run if the write fails or its transaction rolls back, at most once
+    private Runnable takeBufferedDoneStatus(Collection<Integer> todoIds) {
+        DoneStatusWriteBuffer buffer = doneStatusBuffer;
+        if (buffer == null) {
+            return NO_ACTION;
+        }
+        Map<Integer, Boolean> taken = new HashMap<>();
+        for (Integer todoId : todoIds) {
+            Boolean done = buffer.discard(todoId);
+            if (done != null) {
+                taken.put(todoId, done);
+            }
+        }
+        if (taken.isEmpty()) {
+            return NO_ACTION;
+        }
+        AtomicBoolean restored = new AtomicBoolean();
+        return () -> {
+            if (restored.compareAndSet(false, true)) {
+                taken.forEach(buffer::restore);
+            }
+        };
+    }
+
+    @Override
+    public Page<Todo> findPage(int afterTodoId, int limit) {
+        return findTodoPage("", afterTodoId, limit, "findPage()");
+    }
+
+    @Override
+    public Page<Todo> findPageByDoneStatus(boolean doneStatus, int afterTodoId, int limit) {
+        flushBufferedDoneStatus();
+        return findTodoPage("t.done = ? AND ", afterTodoId, limit, "findPageByDoneStatus() with status: " + doneStatus, doneStatus);
+    }
+
+    @Override
+    public Page<Todo> findPageByAssignee(int personId, int afterTodoId, int limit) {
+        return findTodoPage("t.assignee_id = ? AND ", afterTodoId, limit, "findPageByAssignee() with assignee_id: " + personId, personId);
+    }
+
+    // Seeks past afterTodoId on an index instead of using OFFSET, so every page costs the same
+    private Page<Todo> findTodoPage(String filter, int afterTodoId, int limit, String errorContext, Object... parameters) {
+        Pages.checkLimit(limit);
+        String selectQuery = SELECT_TODO_WITH_ASSIGNEE + " WHERE " + filter + "t.todo_id > ? ORDER BY t.todo_id LIMIT ?";
+        List<Todo> todoItems = new ArrayList<>(limit + 1);
+        Map<Integer, Person> assignees = new HashMap<>();
+        try (
+                Connection connection = ConnectionHolder.getReadConnection(dataSource);
+                PreparedStatement preparedStatement = connection.prepareStatement(selectQuery)
+        ) {
+            int index = 1;
+            for (Object parameter : parameters) {
+                preparedStatement.setObject(index++, parameter);
+            }
+            preparedStatement.setInt(index++, afterTodoId);
+            preparedStatement.setInt(index, limit + 1);
+
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                while (resultSet.next()) {
+                    todoItems.add(extractTodoFromResultSet(resultSet, assignees));
+                }
+            }
+        } catch (SQLException e) {
+            String errorMessage = "Failed to fetch data from todo_item table, for " + errorContext + " after id: " + afterTodoId + ", ";
+            throw new MySQLException(errorMessage, e);
+        }
+        return Pages.of(todoItems, limit, Todo::getId);
+    }
+
+    @Override
+    public Stream<Todo> streamAll() {
+        return streamTodoItems(SELECT_TODO_WITH_ASSIGNEE, "streamAll()");
+    }
+
+    @Override
+    public Stream<Todo> streamByDoneStatus(boolean doneStatus) {
+        flushBufferedDoneStatus();
+        return streamTodoItems(SELECT_TODO_WITH_ASSIGNEE + " WHERE t.done = ?", "streamByDoneStatus() with status: " + doneStatus, doneStatus);
+    }
+
+    @Override
+    public Stream<Todo> streamByUnassignedTodoItems() {
+        return streamTodoItems(SELECT_TODO_WITH_ASSIGNEE + " WHERE t.assignee_id IS NULL", "streamByUnassignedTodoItems()");
+    }
+
+    private Stream<Todo> streamTodoItems(String selectQuery, String errorContext, Object... parameters) {
+        Connection connection = null;
+        PreparedStatement preparedStatement = null;
+        try {
+            connection = ConnectionHolder.getReadConnection(dataSource);
+            preparedStatement = connection.prepareStatement(selectQuery, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            preparedStatement.setFetchSize(ResultSetStreams.streamingFetchSize(connection));
+            for (int i = 0; i < parameters.length; i++) {
+                preparedStatement.setObject(i + 1, parameters[i]);
+            }
+            ResultSet resultSet = preparedStatement.executeQuery();
+            Map<Integer, Person> assignees = new HashMap<>();
+            return ResultSetStreams.stream(connection, preparedStatement, resultSet,
+                    rs -> extractTodoFromResultSet(rs, assignees), errorContext);
+        } catch (SQLException e) {
+            String errorMessage = "Failed to fetch data from todo_item table, for " + errorContext + ", ";
+            MySQLException exception = new MySQLException(errorMessage, e);
+            try {
+                ResultSetStreams.closeAll(errorContext, preparedStatement, connection);
+            } catch (MySQLException closeFailure) {
+                exception.addSuppressed(closeFailure);
+            }
+            throw exception;
+        }
+    }
+
+    @Override
+    public Collection<Todo> search(String query, int limit) {
+        return search(query, null, null, limit);
+    }
+
+    @Override
+    public Collection<Todo> search(String query, Boolean doneStatus, Integer assigneeId, int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Search limit must be at least 1.");
+        }
+        if (doneStatus != null) {
+            flushBufferedDoneStatus();
+        }
+        StringBuilder filter = new StringBuilder();
+        List<Object> parameters = new ArrayList<>();
+        if (doneStatus != null) {
+            filter.append(" AND t.done = ?");
+            parameters.add(doneStatus);
+        }
+        if (assigneeId != null) {
+            filter.append(" AND t.assignee_id = ?");
+            parameters.add(assigneeId);
+        }
+        String errorContext = "search() with query: " + query;
+
+        TodoTextIndex index = textIndex;
+        if (index == null && !Boolean.FALSE.equals(fullTextSupported)) {
+            List<Todo> todoItems = searchFullText(query, filter.toString(), parameters, limit, errorContext);
+            if (todoItems != null) {
+                return todoItems;
+            }
+            index = enableDefaultTextIndex();
+        }
+        return searchTextIndex(index, query, filter.toString(), parameters, limit, errorContext);
+    }
+
+    // Null when the database can't run MATCH ... AGAINST on these columns
+    private List<Todo> searchFullText(String query, String filter, List<Object> parameters, int limit, String errorContext) {
+        String selectQuery = SELECT_TODO_WITH_ASSIGNEE + " WHERE " + FULL_TEXT_MATCH + filter
+                + " ORDER BY " + FULL_TEXT_MATCH + " DESC, t.todo_id LIMIT ?";
+        List<Todo> todoItems = new ArrayList<>();
+        Map<Integer, Person> assignees = new HashMap<>();
+        try (
+                Connection connection = ConnectionHolder.getReadConnection(dataSource);
+                PreparedStatement preparedStatement = connection.prepareStatement(selectQuery)
+        ) {
+            int index = 1;
+            preparedStatement.setString(index++, query);
+            for (Object parameter : parameters) {
+                preparedStatement.setObject(index++, parameter);
+            }
+            preparedStatement.setString(index++, query);
+            preparedStatement.setInt(index, limit);
+
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                while (resultSet.next()) {
+                    todoItems.add(extractTodoFromResultSet(resultSet, assignees));
+                }
+            }
+        } catch (SQLException e) {
+            if (isFullTextUnavailable(e)) {
+                LOGGER.log(Level.INFO, "FULLTEXT search is not available on todo_item, falling back to an in-process index: {0}",
+                        e.getMessage());
+                fullTextSupported = false;
+                return null;
+            }
+            String errorMessage = "Failed to fetch data from todo_item table, for " + errorContext + ", ";
+            throw new MySQLException(errorMessage, e);
+        }
+        fullTextSupported = true;
+        return todoItems;
+    }
+
+    // Missing FULLTEXT index on MySQL, or H2 without MATCH ... AGAINST. Both last, so the fallback sticks.
+    // Anything else, access denied or a broken statement included, is reported and the next search tries again
+    private static boolean isFullTextUnavailable(SQLException e) {
+        return e.getErrorCode() == ER_FT_MATCHING_KEY_NOT_FOUND || e.getErrorCode() == H2_FUNCTION_NOT_FOUND;
+    }
+
+    private synchronized TodoTextIndex enableDefaultTextIndex() {
+        if (textIndex == null) {
+            enableTextIndex(new InvertedTodoTextIndex());
+        }
+        return textIndex;
+    }
+
+    // Rows are loaded in rank order, in chunks that grow because the filters may reject any number of them
+    private List<Todo> searchTextIndex(TodoTextIndex index, String query, String filter, List<Object> parameters,
+                                       int limit, String errorContext) {
+        List<Integer> rankedIds = index.search(query);
+        List<Todo> todoItems = new ArrayList<>(Math.min(limit, rankedIds.size()));
+        Map<Integer, Person> assignees = new HashMap<>();
+        int from = 0;
+        int chunkSize = Math.min(limit, SqlLists.IN_LIST_CHUNK_SIZE);
+        while (todoItems.size() < limit && from < rankedIds.size()) {
+            List<Integer> chunk = rankedIds.subList(from, Math.min(rankedIds.size(), from + chunkSize));
+            Map<Integer, Todo> loaded = new HashMap<>();
+            String selectQuery = SELECT_TODO_WITH_ASSIGNEE + " WHERE t.todo_id IN (" + SqlLists.placeholders(chunk.size()) + ")" + filter;
+            try (
+                    Connection connection = ConnectionHolder.getReadConnection(dataSource);
+                    PreparedStatement preparedStatement = connection.prepareStatement(selectQuery)
+            ) {
+                int parameterIndex = 1;
+                for (Integer todoId : chunk) {
+                    preparedStatement.setInt(parameterIndex++, todoId);
+                }
+                for (Object parameter : parameters) {
+                    preparedStatement.setObject(parameterIndex++, parameter);
+                }
 
-        LocalDate deadline = null;
-        if (resultSet.getObject("deadline") != null) {
-            deadline = resultSet.getDate("deadline").toLocalDate();
+                try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                    while (resultSet.next()) {
+                        Todo todo = extractTodoFromResultSet(resultSet, assignees);
+                        loaded.put(todo.getId(), todo);
+                    }
+                }
+            } catch (SQLException e) {
+                String errorMessage = "Failed to fetch data from todo_item table, for " + errorContext + ", ";
+                throw new MySQLException(errorMessage, e);
+            }
+            for (Integer todoId : chunk) {
+                Todo todo = loaded.get(todoId);
+                if (todo != null && todoItems.size() < limit) {
+                    todoItems.add(todo);
+                }
+            }
+            from += chunk.size();
+            chunkSize = Math.min(chunkSize * 2, SqlLists.IN_LIST_CHUNK_SIZE);
         }
+        return todoItems;
+    }
 
-        boolean doneStatus = resultSet.getBoolean("done");
+    private void publishDoneStatusChange(Todo before, boolean done) {
+        if (before != null && before.isDone() != done) {
+            Todo after = copyOf(before);
+            after.setDone(done);
+            after.clearDirtyFields();
+            publishChange(ChangeType.UPDATED, before.getId(), before, after);
+        }
+    }
+
+    // If the surrounding transaction rolls back the fields are marked dirty again, so saving the todo once more
+    // rewrites them instead of skipping a change that never reached the database
+    private void clearDirtyFieldsUntilRollback(Todo todo) {
+        int dirtyFields = todo.getDirtyFields();
+        todo.clearDirtyFields();
+        if (dirtyFields != 0) {
+            ConnectionHolder.runAfterRollback(dataSource, () -> todo.markDirtyFields(dirtyFields));
+        }
+    }
+
+    // Runs in the buffer's flush transaction, the previous rows are read on its connection and the events for them
+    // go out after the flush commits
+    private void publishFlushedDoneStatus(Connection connection, Map<Integer, Boolean> statuses) throws SQLException {
+        if (changeEventBus == null) {
+            return;
+        }
+        List<Todo> stored = new ArrayList<>(statuses.size());
+        Map<Integer, Person> assignees = new HashMap<>();
+        SqlLists.queryInChunks(connection, SELECT_TODO_WITH_ASSIGNEE + " WHERE t.todo_id", "", new ArrayList<>(statuses.keySet()),
+                resultSet -> extractTodoFromResultSet(resultSet, assignees, false), stored::add);
+        for (Todo before : stored) {
+            publishDoneStatusChange(before, statuses.get(before.getId()));
+        }
+    }
+
+    // before has to be a private snapshot, after is copied because it's usually the caller's instance. Called once
+    // the writing connection is closed, and a full or closed bus drops the event rather than hold up the write
+    private void publishChange(ChangeType changeType, int todoId, Todo before, Todo after) {
+        ChangeEventBus bus = changeEventBus;
+        if (bus != null) {
+            Todo afterSnapshot = after == null ? null : copyOf(after);
+            ConnectionHolder.runAfterCommit(dataSource, () -> {
+                if (!bus.tryPublish(EntityType.TODO, changeType, todoId, before, afterSnapshot)) {
+                    LOGGER.log(Level.WARNING, "Dropped " + changeType + " event for todo " + todoId
+                            + ", the change event bus is full or closed, " + bus.getDroppedCount() + " dropped so far");
+                }
+            });
+        }
+    }
+
+    // Read on the writing connection, so the previous state comes from the same transaction and not a replica
+    private Todo loadTodoForChange(Connection connection, int todoId) throws SQLException {
+        List<Todo> todoItems = loadTodoItemsByIds(connection, Collections.singletonList(todoId));
+        return todoItems.isEmpty() ? null : todoItems.get(0);
+    }
+
+    private List<Todo> loadTodoItemsByIds(Connection connection, List<Integer> todoIds) throws SQLException {
+        List<Todo> todoItems = new ArrayList<>(todoIds.size());
+        Map<Integer, Person> assignees = new HashMap<>();
+        SqlLists.queryInChunks(connection, SELECT_TODO_WITH_ASSIGNEE + " WHERE t.todo_id", "", todoIds,
+                resultSet -> extractTodoFromResultSet(resultSet, assignees), todoItems::add);
+        return todoItems;
+    }
+
+    private static Person loadPerson(Connection connection, int personId) throws SQLException {
+        try (PreparedStatement preparedStatement = connection.prepareStatement(
+                "SELECT person_id, first_name, last_name FROM person WHERE person_id = ?")) {
+            preparedStatement.setInt(1, personId);
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                if (!resultSet.next()) {
+                    return null;
+                }
+                Person person = new Person(resultSet.getInt(1), resultSet.getString(2), resultSet.getString(3));
+                person.clearDirtyFields();
+                return person;
+            }
+        }
+    }
+
+    private static Todo copyOf(Todo todo) {
+        Person assignee = todo.getAssignee();
+        Todo copy;
+        if (assignee == null) {
+            copy = new Todo(todo.getId(), todo.getTitle(), todo.getDescription(), todo.getDeadline(), todo.isDone());
+        } else {
+            Person assigneeCopy = new Person(assignee.getId(), assignee.getFirstName(), assignee.getLastName());
+            assigneeCopy.clearDirtyFields();
+            copy = new Todo(todo.getId(), todo.getTitle(), todo.getDescription(), todo.getDeadline(), todo.isDone(), assigneeCopy);
+        }
+        copy.clearDirtyFields();
+        return copy;
+    }
+
+    // Listeners hear about a change once it commits, and get a copy the caller can't change in the meantime
+    private void notifyTodoSaved(Todo todo) {
+        if (deadlineListeners.isEmpty()) {
+            return;
+        }
+        Todo snapshot = copyOf(todo);
+        ConnectionHolder.runAfterCommit(dataSource, () -> {
+            for (TodoDeadlineListener listener : deadlineListeners) {
+                listener.todoSaved(snapshot);
+            }
+        });
+    }
+
+    private void notifyDoneStatusChanged(int todoId, boolean done) {
+        if (deadlineListeners.isEmpty()) {
+            return;
+        }
+        ConnectionHolder.runAfterCommit(dataSource, () -> {
+            for (TodoDeadlineListener listener : deadlineListeners) {
+                listener.doneStatusChanged(todoId, done);
+            }
+        });
+    }
+
+    // Values are read now, the caller may change its Todo before a surrounding transaction commits
+    private void putInReadModel(Todo todo) {
+        if (readModel == null) {
+            return;
+        }
+        int todoId = todo.getId();
+        String title = todo.getTitle();
+        LocalDate deadline = todo.getDeadline();
+        boolean done = todo.isDone();
+        Integer assigneeId = todo.getAssignee() == null ? null : todo.getAssignee().getId();
+        applyToReadModel(store -> store.put(todoId, title, deadline, done, assigneeId));
+    }
+
+    // Applied once the surrounding transaction commits, right away outside one
+    private void applyToReadModel(Consumer<TodoColumnStore> change) {
+        TodoColumnStore store = readModel;
+        if (store != null) {
+            ConnectionHolder.runAfterCommit(dataSource, () -> change.accept(store));
+        }
+    }
+
+    // Applied once the surrounding transaction commits, right away outside one
+    private void indexTodoText(Todo todo) {
+        TodoTextIndex index = textIndex;
+        if (index != null) {
+            int todoId = todo.getId();
+            String title = todo.getTitle();
+            String description = todo.getDescription();
+            ConnectionHolder.runAfterCommit(dataSource, () -> index.put(todoId, title, description));
+        }
+    }
+
+    private static void bindTodo(PreparedStatement preparedStatement, Todo todo) throws SQLException {
+        preparedStatement.setString(1, todo.getTitle());
+        preparedStatement.setString(2, todo.getDescription());
+        setDeadline(preparedStatement, 3, todo.getDeadline());
+        preparedStatement.setBoolean(4, todo.isDone());
+        setAssigneeId(preparedStatement, 5, todo.getAssignee());
+    }
+
+    private static void setDeadline(PreparedStatement preparedStatement, int index, LocalDate deadline) throws SQLException {
+        if (deadline == null) {
+            preparedStatement.setNull(index, DATE);
+        } else {
+            preparedStatement.setDate(index, Date.valueOf(deadline));
+        }
+    }
+
+    private static void setAssigneeId(PreparedStatement preparedStatement, int index, Person assignee) throws SQLException {
+        setAssigneeId(preparedStatement, index, assignee == null ? null : (Integer) assignee.getId());
+    }
+
+    private static void setAssigneeId(PreparedStatement preparedStatement, int index, Integer assigneeId) throws SQLException {
+        if (assigneeId == null) {
+            preparedStatement.setNull(index, INTEGER);
+        } else {
+            preparedStatement.setInt(index, assigneeId);
+        }
+    }
+
+    // Positional mapping, expects the SELECT_TODO_SUMMARY column order
+    private TodoSummary extractTodoSummaryFromResultSet(ResultSet resultSet) throws SQLException {
+        int todoId = resultSet.getInt(1);
+        String title = resultSet.getString(2);
+        LocalDate deadline = toLocalDate(resultSet.getDate(3));
+        boolean doneStatus = withBufferedDoneStatus(todoId, resultSet.getBoolean(4));
+        int assigneeId = resultSet.getInt(5);
+        return new TodoSummary(todoId, title, deadline, doneStatus, resultSet.wasNull() ? null : assigneeId);
+    }
+
+    private boolean withBufferedDoneStatus(int todoId, boolean doneStatus) {
+        DoneStatusWriteBuffer buffer = doneStatusBuffer;
+        if (buffer != null) {
+            Boolean bufferedDone = buffer.pendingDone(todoId);
+            if (bufferedDone != null) {
+                return bufferedDone;
+            }
+        }
+        return doneStatus;
+    }
+
+    private static LocalDate toLocalDate(Date date) {
+        return date == null ? null : date.toLocalDate();
+    }
+
+    // Positional mapping that expects the SELECT_TODO_WITH_ASSIGNEE column order. Rows sharing an assignee
+    // share one Person instance, assignees is scoped to a single result set
+    private Todo extractTodoFromResultSet(ResultSet resultSet, Map<Integer, Person> assignees) throws SQLException {
+        return extractTodoFromResultSet(resultSet, assignees, true);
+    }
+
+    // Without bufferedDoneStatus, done is the stored value even while a buffered change for the row is pending
+    private Todo extractTodoFromResultSet(ResultSet resultSet, Map<Integer, Person> assignees, boolean bufferedDoneStatus) throws SQLException {
+        int todoId = resultSet.getInt(1);
+        String title = resultSet.getString(2);
+        String description = resultSet.getString(3);
+        LocalDate deadline = toLocalDate(resultSet.getDate(4));
+        boolean doneStatus = resultSet.getBoolean(5);
+        if (bufferedDoneStatus) {
+            doneStatus = withBufferedDoneStatus(todoId, doneStatus);
+        }
 
         Person person = null;
-        if (resultSet.getObject("assignee_id") != null) {
-            person = PeopleDaoImpl.getInstance(connection).findById(resultSet.getInt("assignee_id"));
+        int assigneeId = resultSet.getInt(6);
+        if (!resultSet.wasNull()) {
+            person = assignees.get(assigneeId);
+            if (person == null) {
+                person = new Person(assigneeId, resultSet.getString(7), resultSet.getString(8));
+                person.clearDirtyFields();
+                assignees.put(assigneeId, person);
+            }
         }
 
+        Todo todo;
         if (person == null) {
-            return new Todo(todoId, title, description, deadline, doneStatus);
+            todo = new Todo(todoId, title, description, deadline, doneStatus);
         } else {
-            return new Todo(todoId, title, description, deadline, doneStatus, person);
+            todo = new Todo(todoId, title, description, deadline, doneStatus, person);
         }
+        todo.clearDirtyFields();
+        return todo;
     }
 }
\ No newline at end of file
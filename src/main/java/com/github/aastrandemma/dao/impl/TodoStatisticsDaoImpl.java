@@ -0,0 +1,148 @@
+package com.github.aastrandemma.dao.impl;
+
+import com.github.aastrandemma.dao.TodoStatisticsDao;
+import com.github.aastrandemma.dao.db.ConnectionHolder;
+import com.github.aastrandemma.dao.db.DBConnectionManager;
+import com.github.aastrandemma.dao.db.SingleConnectionDataSource;
+import com.github.aastrandemma.exception.MySQLException;
+import com.github.aastrandemma.model.TodoStatistics;
+
+import javax.sql.DataSource;
+import java.sql.*;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+public class TodoStatisticsDaoImpl implements TodoStatisticsDao {
+    // One pass over the (assignee_id, done, deadline) index, one row per assignee plus one for unassigned
+    private static final String STATISTICS_QUERY = "SELECT assignee_id, "
+            + "SUM(CASE WHEN COALESCE(done, 0) = 1 THEN 1 ELSE 0 END), "
+            + "SUM(CASE WHEN COALESCE(done, 0) = 1 THEN 0 ELSE 1 END), "
+            + "SUM(CASE WHEN COALESCE(done, 0) <> 1 AND deadline < ? THEN 1 ELSE 0 END), "
+            + "SUM(CASE WHEN COALESCE(done, 0) <> 1 AND deadline >= ? AND deadline <= ? THEN 1 ELSE 0 END) "
+            + "FROM todo_item GROUP BY assignee_id";
+    private static TodoStatisticsDaoImpl instance;
+    private final DataSource dataSource;
+    private volatile long snapshotTtlNanos;
+    private volatile CachedSnapshot snapshot;
+
+    public TodoStatisticsDaoImpl(DataSource dataSource) {
+        Objects.requireNonNull(dataSource, "DataSource can't be null.");
+        this.dataSource = dataSource;
+    }
+
+    // The shared instance over the default pool, construct a DAO for any other DataSource
+    public static TodoStatisticsDaoImpl getInstance() {
+        return getInstance(DBConnectionManager.getDataSource());
+    }
+
+    public static TodoStatisticsDaoImpl getInstance(Connection connection) {
+        return getInstance(new SingleConnectionDataSource(connection));
+    }
+
+    // Fails instead of handing out the shared instance when it was bound to a different DataSource
+    public static synchronized TodoStatisticsDaoImpl getInstance(DataSource dataSource) {
+        if (instance == null) {
+            instance = new TodoStatisticsDaoImpl(dataSource);
+        } else if (!instance.dataSource.equals(dataSource)) {
+            throw new IllegalStateException("The shared TodoStatisticsDaoImpl is bound to another DataSource, "
+                    + "construct one for this DataSource instead.");
+        }
+        return instance;
+    }
+
+    // Serves a cached snapshot for up to ttl, concurrent callers wait for one refresh query
+    public void enableSnapshotCache(long ttl, TimeUnit unit) {
+        if (ttl <= 0) {
+            throw new IllegalArgumentException("Snapshot TTL must be positive.");
+        }
+        snapshotTtlNanos = unit.toNanos(ttl);
+    }
+
+    public void disableSnapshotCache() {
+        snapshotTtlNanos = 0;
+        snapshot = null;
+    }
+
+    @Override
+    public TodoStatistics getStatistics(int dueWithinDays) {
+        if (dueWithinDays < 0) {
+            throw new IllegalArgumentException("Due within days can't be negative.");
+        }
+        long ttlNanos = snapshotTtlNanos;
+        if (ttlNanos == 0) {
+            return queryStatistics(dueWithinDays);
+        }
+        CachedSnapshot cached = snapshot;
+        if (cached != null && cached.isFreshFor(dueWithinDays)) {
+            return cached.statistics;
+        }
+        synchronized (this) {
+            cached = snapshot;
+            if (cached != null && cached.isFreshFor(dueWithinDays)) {
+                return cached.statistics;
+            }
+            TodoStatistics statistics = queryStatistics(dueWithinDays);
+            snapshot = new CachedSnapshot(statistics, System.nanoTime() + ttlNanos);
+            return statistics;
+        }
+    }
+
+    private TodoStatistics queryStatistics(int dueWithinDays) {
+        LocalDate today = LocalDate.now();
+        long doneCount = 0;
+        long undoneCount = 0;
+        long unassignedCount = 0;
+        long overdueCount = 0;
+        long dueWithinDaysCount = 0;
+        Map<Integer, Long> openCountByAssignee = new HashMap<>();
+        try (
+                Connection connection = ConnectionHolder.getReadConnection(dataSource);
+                PreparedStatement preparedStatement = connection.prepareStatement(STATISTICS_QUERY)
+        ) {
+            preparedStatement.setDate(1, Date.valueOf(today));
+            preparedStatement.setDate(2, Date.valueOf(today));
+            preparedStatement.setDate(3, Date.valueOf(today.plusDays(dueWithinDays)));
+
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                while (resultSet.next()) {
+                    int assigneeId = resultSet.getInt(1);
+                    boolean unassigned = resultSet.wasNull();
+                    long done = resultSet.getLong(2);
+                    long open = resultSet.getLong(3);
+                    doneCount += done;
+                    undoneCount += open;
+                    overdueCount += resultSet.getLong(4);
+                    dueWithinDaysCount += resultSet.getLong(5);
+                    if (unassigned) {
+                        unassignedCount = done + open;
+                    } else if (open > 0) {
+                        openCountByAssignee.put(assigneeId, open);
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            String errorMessage = "Failed to fetch statistics from todo_item table, for getStatistics() with dueWithinDays: " + dueWithinDays + ", ";
+            throw new MySQLException(errorMessage, e);
+        }
+        return new TodoStatistics(today, doneCount, undoneCount, unassignedCount, overdueCount,
+                dueWithinDays, dueWithinDaysCount, openCountByAssignee);
+    }
+
+    private static final class CachedSnapshot {
+        private final TodoStatistics statistics;
+        private final long expiresAtNanos;
+
+        private CachedSnapshot(TodoStatistics statistics, long expiresAtNanos) {
+            this.statistics = statistics;
+            this.expiresAtNanos = expiresAtNanos;
+        }
+
+        private boolean isFreshFor(int dueWithinDays) {
+            return statistics.getDueWithinDays() == dueWithinDays && System.nanoTime() - expiresAtNanos < 0
+                    && statistics.getAsOf().equals(LocalDate.now());
+        }
+    }
+}
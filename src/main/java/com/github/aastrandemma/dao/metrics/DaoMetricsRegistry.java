@@ -0,0 +1,45 @@
+package com.github.aastrandemma.dao.metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+public class DaoMetricsRegistry {
+    private final Map<String, MethodMetrics> metrics = new ConcurrentSkipListMap<>();
+
+    // Looked up once when a DAO is instrumented, never on the call path
+    public MethodMetrics methodMetrics(String name) {
+        return metrics.computeIfAbsent(name, MethodMetrics::new);
+    }
+
+    public List<MethodMetricsSnapshot> snapshot() {
+        List<MethodMetricsSnapshot> snapshots = new ArrayList<>(metrics.size());
+        for (MethodMetrics methodMetrics : metrics.values()) {
+            snapshots.add(methodMetrics.snapshot());
+        }
+        return snapshots;
+    }
+
+    // Prometheus text exposition format, latencies in seconds
+    public String exportText() {
+        StringBuilder builder = new StringBuilder();
+        for (MethodMetricsSnapshot snapshot : snapshot()) {
+            String label = "{method=\"" + snapshot.getName() + "\"}";
+            builder.append("dao_calls_total").append(label).append(' ').append(snapshot.getCalls()).append('\n');
+            builder.append("dao_errors_total").append(label).append(' ').append(snapshot.getErrors()).append('\n');
+            builder.append("dao_rows_total").append(label).append(' ').append(snapshot.getRows()).append('\n');
+            appendQuantile(builder, snapshot.getName(), "0.5", snapshot.getP50Nanos());
+            appendQuantile(builder, snapshot.getName(), "0.9", snapshot.getP90Nanos());
+            appendQuantile(builder, snapshot.getName(), "0.99", snapshot.getP99Nanos());
+            appendQuantile(builder, snapshot.getName(), "0.999", snapshot.getP999Nanos());
+            appendQuantile(builder, snapshot.getName(), "1", snapshot.getMaxNanos());
+        }
+        return builder.toString();
+    }
+
+    private static void appendQuantile(StringBuilder builder, String name, String quantile, long nanos) {
+        builder.append("dao_latency_seconds{method=\"").append(name).append("\",quantile=\"").append(quantile)
+                .append("\"} ").append(nanos / 1_000_000_000.0).append('\n');
+    }
+}
@@ -0,0 +1,154 @@
+package com.github.aastrandemma.dao.metrics;
+
+import com.github.aastrandemma.dao.BaseDao;
+import com.github.aastrandemma.model.SaveResult;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Objects;
+
+// Decorator recording call counts, errors, rows and latency per method, metric handles are resolved up front
+// so the call path only touches LongAdders and the histogram
+public abstract class InstrumentedBaseDao<T, D extends BaseDao<T>> implements BaseDao<T> {
+    protected final D delegate;
+    private final MethodMetrics create;
+    private final MethodMetrics createAll;
+    private final MethodMetrics findAll;
+    private final MethodMetrics findById;
+    private final MethodMetrics findByIds;
+    private final MethodMetrics update;
+    private final MethodMetrics deleteById;
+    private final MethodMetrics save;
+    private final MethodMetrics saveAll;
+
+    protected InstrumentedBaseDao(D delegate, DaoMetricsRegistry registry, String daoName) {
+        Objects.requireNonNull(delegate, "Delegate DAO can't be null.");
+        this.delegate = delegate;
+        this.create = registry.methodMetrics(daoName + ".create");
+        this.createAll = registry.methodMetrics(daoName + ".createAll");
+        this.findAll = registry.methodMetrics(daoName + ".findAll");
+        this.findById = registry.methodMetrics(daoName + ".findById");
+        this.findByIds = registry.methodMetrics(daoName + ".findByIds");
+        this.update = registry.methodMetrics(daoName + ".update");
+        this.deleteById = registry.methodMetrics(daoName + ".deleteById");
+        this.save = registry.methodMetrics(daoName + ".save");
+        this.saveAll = registry.methodMetrics(daoName + ".saveAll");
+    }
+
+    @Override
+    public T create(T t) {
+        long start = System.nanoTime();
+        try {
+            T result = delegate.create(t);
+            create.recordSuccess(start, result == null ? 0 : 1);
+            return result;
+        } catch (RuntimeException e) {
+            create.recordError(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public Collection<T> createAll(Collection<T> items, int batchSize) {
+        long start = System.nanoTime();
+        try {
+            Collection<T> result = delegate.createAll(items, batchSize);
+            createAll.recordSuccess(start, result.size());
+            return result;
+        } catch (RuntimeException e) {
+            createAll.recordError(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public Collection<T> findAll() {
+        long start = System.nanoTime();
+        try {
+            Collection<T> result = delegate.findAll();
+            findAll.recordSuccess(start, result.size());
+            return result;
+        } catch (RuntimeException e) {
+            findAll.recordError(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public T findById(int id) {
+        long start = System.nanoTime();
+        try {
+            T result = delegate.findById(id);
+            findById.recordSuccess(start, result == null ? 0 : 1);
+            return result;
+        } catch (RuntimeException e) {
+            findById.recordError(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public Map<Integer, T> findByIds(Collection<Integer> ids) {
+        long start = System.nanoTime();
+        try {
+            Map<Integer, T> result = delegate.findByIds(ids);
+            findByIds.recordSuccess(start, result.size());
+            return result;
+        } catch (RuntimeException e) {
+            findByIds.recordError(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public T update(T t) {
+        long start = System.nanoTime();
+        try {
+            T result = delegate.update(t);
+            update.recordSuccess(start, result == null ? 0 : 1);
+            return result;
+        } catch (RuntimeException e) {
+            update.recordError(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean deleteById(int id) {
+        long start = System.nanoTime();
+        try {
+            boolean result = delegate.deleteById(id);
+            deleteById.recordSuccess(start, result ? 1 : 0);
+            return result;
+        } catch (RuntimeException e) {
+            deleteById.recordError(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public SaveResult<T> save(T t) {
+        long start = System.nanoTime();
+        try {
+            SaveResult<T> result = delegate.save(t);
+            save.recordSuccess(start, result.getItems().size());
+            return result;
+        } catch (RuntimeException e) {
+            save.recordError(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public SaveResult<T> saveAll(Collection<T> items, int batchSize) {
+        long start = System.nanoTime();
+        try {
+            SaveResult<T> result = delegate.saveAll(items, batchSize);
+            saveAll.recordSuccess(start, result.getItems().size());
+            return result;
+        } catch (RuntimeException e) {
+            saveAll.recordError(start);
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.github.aastrandemma.dao.metrics;
+
+import com.github.aastrandemma.dao.PeopleDao;
+import com.github.aastrandemma.dao.ReassignPolicy;
+import com.github.aastrandemma.model.Page;
+import com.github.aastrandemma.model.Person;
+import com.github.aastrandemma.model.PersonWithTodos;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+public class InstrumentedPeopleDao extends InstrumentedBaseDao<Person, PeopleDao> implements PeopleDao {
+    private final MethodMetrics findByName;
+    private final MethodMetrics search;
+    private final MethodMetrics findPage;
+    private final MethodMetrics deletePerson;
+    private final MethodMetrics streamAll;
+    private final MethodMetrics findWithTodos;
+
+    public InstrumentedPeopleDao(PeopleDao delegate, DaoMetricsRegistry registry) {
+        super(delegate, registry, "PeopleDao");
+        this.findByName = registry.methodMetrics("PeopleDao.findByName");
+        this.search = registry.methodMetrics("PeopleDao.search");
+        this.findPage = registry.methodMetrics("PeopleDao.findPage");
+        this.deletePerson = registry.methodMetrics("PeopleDao.deletePerson");
+        this.streamAll = registry.methodMetrics("PeopleDao.streamAll");
+        this.findWithTodos = registry.methodMetrics("PeopleDao.findWithTodos");
+    }
+
+    @Override
+    public Collection<Person> findByName(String name) {
+        long start = System.nanoTime();
+        try {
+            Collection<Person> result = delegate.findByName(name);
+            findByName.recordSuccess(start, result.size());
+            return result;
+        } catch (RuntimeException e) {
+            findByName.recordError(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public Collection<Person> search(String query, int limit) {
+        long start = System.nanoTime();
+        try {
+            Collection<Person> result = delegate.search(query, limit);
+            search.recordSuccess(start, result.size());
+            return result;
+        } catch (RuntimeException e) {
+            search.recordError(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public Page<Person> findPage(int afterPersonId, int limit) {
+        long start = System.nanoTime();
+        try {
+            Page<Person> result = delegate.findPage(afterPersonId, limit);
+            findPage.recordSuccess(start, result.getItems().size());
+            return result;
+        } catch (RuntimeException e) {
+            findPage.recordError(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean deletePerson(int personId, ReassignPolicy policy) {
+        long start = System.nanoTime();
+        try {
+            boolean result = delegate.deletePerson(personId, policy);
+            deletePerson.recordSuccess(start, result ? 1 : 0);
+            return result;
+        } catch (RuntimeException e) {
+            deletePerson.recordError(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public Stream<Person> streamAll() {
+        long start = System.nanoTime();
+        try {
+            Stream<Person> result = delegate.streamAll();
+            streamAll.recordSuccess(start, 0);
+            return result;
+        } catch (RuntimeException e) {
+            streamAll.recordError(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public List<PersonWithTodos> findWithTodos(Collection<Integer> personIds) {
+        long start = System.nanoTime();
+        try {
+            List<PersonWithTodos> result = delegate.findWithTodos(personIds);
+            findWithTodos.recordSuccess(start, result.size());
+            return result;
+        } catch (RuntimeException e) {
+            findWithTodos.recordError(start);
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,398 @@
+package com.github.aastrandemma.dao.metrics;
+
+import com.github.aastrandemma.dao.TodoItemsDao;
+import com.github.aastrandemma.model.Page;
+import com.github.aastrandemma.model.Person;
+import com.github.aastrandemma.model.Todo;
+import com.github.aastrandemma.model.TodoSummary;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+// Stream finders only time opening the cursor, rows read from the stream aren't counted
+public class InstrumentedTodoItemsDao extends InstrumentedBaseDao<Todo, TodoItemsDao> implements TodoItemsDao {
+    private final MethodMetrics findByDoneStatus;
+    private final MethodMetrics findByAssignee;
+    private final MethodMetrics findByUnassignedTodoItems;
+    private final MethodMetrics findAllSummaries;
+    private final MethodMetrics findSummariesByDoneStatus;
+    private final MethodMetrics findSummariesByAssignee;
+    private final MethodMetrics markDone;
+    private final MethodMetrics flush;
+    private final MethodMetrics findPage;
+    private final MethodMetrics findPageByDoneStatus;
+    private final MethodMetrics findPageByAssignee;
+    private final MethodMetrics streamAll;
+    private final MethodMetrics streamByDoneStatus;
+    private final MethodMetrics streamByUnassignedTodoItems;
+    private final MethodMetrics search;
+    private final MethodMetrics findOverdue;
+    private final MethodMetrics findByDeadlineBetween;
+    private final MethodMetrics findDueWithin;
+    private final MethodMetrics deleteByIds;
+    private final MethodMetrics deleteByAssignee;
+    private final MethodMetrics reassignAll;
+    private final MethodMetrics unassignAll;
+    private final MethodMetrics findByAssignees;
+
+    public InstrumentedTodoItemsDao(TodoItemsDao delegate, DaoMetricsRegistry registry) {
+        super(delegate, registry, "TodoItemsDao");
+        this.findByDoneStatus = registry.methodMetrics("TodoItemsDao.findByDoneStatus");
+        this.findByAssignee = registry.methodMetrics("TodoItemsDao.findByAssignee");
+        this.findByUnassignedTodoItems = registry.methodMetrics("TodoItemsDao.findByUnassignedTodoItems");
+        this.findAllSummaries = registry.methodMetrics("TodoItemsDao.findAllSummaries");
+        this.findSummariesByDoneStatus = registry.methodMetrics("TodoItemsDao.findSummariesByDoneStatus");
+        this.findSummariesByAssignee = registry.methodMetrics("TodoItemsDao.findSummariesByAssignee");
+        this.markDone = registry.methodMetrics("TodoItemsDao.markDone");
+        this.flush = registry.methodMetrics("TodoItemsDao.flush");
+        this.findPage = registry.methodMetrics("TodoItemsDao.findPage");
+        this.findPageByDoneStatus = registry.methodMetrics("TodoItemsDao.findPageByDoneStatus");
+        this.findPageByAssignee = registry.methodMetrics("TodoItemsDao.findPageByAssignee");
+        this.streamAll = registry.methodMetrics("TodoItemsDao.streamAll");
+        this.streamByDoneStatus = registry.methodMetrics("TodoItemsDao.streamByDoneStatus");
+        this.streamByUnassignedTodoItems = registry.methodMetrics("TodoItemsDao.streamByUnassignedTodoItems");
+        this.search = registry.methodMetrics("TodoItemsDao.search");
+        this.findOverdue = registry.methodMetrics("TodoItemsDao.findOverdue");
+        this.findByDeadlineBetween = registry.methodMetrics("TodoItemsDao.findByDeadlineBetween");
+        this.findDueWithin = registry.methodMetrics("TodoItemsDao.findDueWithin");
+        this.deleteByIds = registry.methodMetrics("TodoItemsDao.deleteByIds");
+        this.deleteByAssignee = registry.methodMetrics("TodoItemsDao.deleteByAssignee");
+        this.reassignAll = registry.methodMetrics("TodoItemsDao.reassignAll");
+        this.unassignAll = registry.methodMetrics("TodoItemsDao.unassignAll");
+        this.findByAssignees = registry.methodMetrics("TodoItemsDao.findByAssignees");
+    }
+
+    @Override
+    public Collection<Todo> findByDoneStatus(boolean doneStatus) {
+        long start = System.nanoTime();
+        try {
+            Collection<Todo> result = delegate.findByDoneStatus(doneStatus);
+            findByDoneStatus.recordSuccess(start, result.size());
+            return result;
+        } catch (RuntimeException e) {
+            findByDoneStatus.recordError(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public Collection<Todo> findByAssignee(int personId) {
+        long start = System.nanoTime();
+        try {
+            Collection<Todo> result = delegate.findByAssignee(personId);
+            findByAssignee.recordSuccess(start, result.size());
+            return result;
+        } catch (RuntimeException e) {
+            findByAssignee.recordError(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public Collection<Todo> findByAssignee(Person person) {
+        long start = System.nanoTime();
+        try {
+            Collection<Todo> result = delegate.findByAssignee(person);
+            findByAssignee.recordSuccess(start, result.size());
+            return result;
+        } catch (RuntimeException e) {
+            findByAssignee.recordError(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public Collection<Todo> findByUnassignedTodoItems() {
+        long start = System.nanoTime();
+        try {
+            Collection<Todo> result = delegate.findByUnassignedTodoItems();
+            findByUnassignedTodoItems.recordSuccess(start, result.size());
+            return result;
+        } catch (RuntimeException e) {
+            findByUnassignedTodoItems.recordError(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public Collection<TodoSummary> findAllSummaries() {
+        long start = System.nanoTime();
+        try {
+            Collection<TodoSummary> result = delegate.findAllSummaries();
+            findAllSummaries.recordSuccess(start, result.size());
+            return result;
+        } catch (RuntimeException e) {
+            findAllSummaries.recordError(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public Collection<TodoSummary> findSummariesByDoneStatus(boolean doneStatus) {
+        long start = System.nanoTime();
+        try {
+            Collection<TodoSummary> result = delegate.findSummariesByDoneStatus(doneStatus);
+            findSummariesByDoneStatus.recordSuccess(start, result.size());
+            return result;
+        } catch (RuntimeException e) {
+            findSummariesByDoneStatus.recordError(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public Collection<TodoSummary> findSummariesByAssignee(int personId) {
+        long start = System.nanoTime();
+        try {
+            Collection<TodoSummary> result = delegate.findSummariesByAssignee(personId);
+            findSummariesByAssignee.recordSuccess(start, result.size());
+            return result;
+        } catch (RuntimeException e) {
+            findSummariesByAssignee.recordError(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public void markDone(int todoId, boolean done) {
+        long start = System.nanoTime();
+        try {
+            delegate.markDone(todoId, done);
+            markDone.recordSuccess(start, 0);
+        } catch (RuntimeException e) {
+            markDone.recordError(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public void flush() {
+        long start = System.nanoTime();
+        try {
+            delegate.flush();
+            flush.recordSuccess(start, 0);
+        } catch (RuntimeException e) {
+            flush.recordError(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public Page<Todo> findPage(int afterTodoId, int limit) {
+        long start = System.nanoTime();
+        try {
+            Page<Todo> result = delegate.findPage(afterTodoId, limit);
+            findPage.recordSuccess(start, result.getItems().size());
+            return result;
+        } catch (RuntimeException e) {
+            findPage.recordError(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public Page<Todo> findPageByDoneStatus(boolean doneStatus, int afterTodoId, int limit) {
+        long start = System.nanoTime();
+        try {
+            Page<Todo> result = delegate.findPageByDoneStatus(doneStatus, afterTodoId, limit);
+            findPageByDoneStatus.recordSuccess(start, result.getItems().size());
+            return result;
+        } catch (RuntimeException e) {
+            findPageByDoneStatus.recordError(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public Page<Todo> findPageByAssignee(int personId, int afterTodoId, int limit) {
+        long start = System.nanoTime();
+        try {
+            Page<Todo> result = delegate.findPageByAssignee(personId, afterTodoId, limit);
+            findPageByAssignee.recordSuccess(start, result.getItems().size());
+            return result;
+        } catch (RuntimeException e) {
+            findPageByAssignee.recordError(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public Stream<Todo> streamAll() {
+        long start = System.nanoTime();
+        try {
+            Stream<Todo> result = delegate.streamAll();
+            streamAll.recordSuccess(start, 0);
+            return result;
+        } catch (RuntimeException e) {
+            streamAll.recordError(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public Stream<Todo> streamByDoneStatus(boolean doneStatus) {
+        long start = System.nanoTime();
+        try {
+            Stream<Todo> result = delegate.streamByDoneStatus(doneStatus);
+            streamByDoneStatus.recordSuccess(start, 0);
+            return result;
+        } catch (RuntimeException e) {
+            streamByDoneStatus.recordError(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public Stream<Todo> streamByUnassignedTodoItems() {
+        long start = System.nanoTime();
+        try {
+            Stream<Todo> result = delegate.streamByUnassignedTodoItems();
+            streamByUnassignedTodoItems.recordSuccess(start, 0);
+            return result;
+        } catch (RuntimeException e) {
+            streamByUnassignedTodoItems.recordError(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public Collection<Todo> search(String query, int limit) {
+        long start = System.nanoTime();
+        try {
+            Collection<Todo> result = delegate.search(query, limit);
+            search.recordSuccess(start, result.size());
+            return result;
+        } catch (RuntimeException e) {
+            search.recordError(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public Collection<Todo> search(String query, Boolean doneStatus, Integer assigneeId, int limit) {
+        long start = System.nanoTime();
+        try {
+            Collection<Todo> result = delegate.search(query, doneStatus, assigneeId, limit);
+            search.recordSuccess(start, result.size());
+            return result;
+        } catch (RuntimeException e) {
+            search.recordError(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public Collection<Todo> findOverdue() {
+        long start = System.nanoTime();
+        try {
+            Collection<Todo> result = delegate.findOverdue();
+            findOverdue.recordSuccess(start, result.size());
+            return result;
+        } catch (RuntimeException e) {
+            findOverdue.recordError(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public Collection<Todo> findByDeadlineBetween(LocalDate from, LocalDate to) {
+        long start = System.nanoTime();
+        try {
+            Collection<Todo> result = delegate.findByDeadlineBetween(from, to);
+            findByDeadlineBetween.recordSuccess(start, result.size());
+            return result;
+        } catch (RuntimeException e) {
+            findByDeadlineBetween.recordError(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public Collection<Todo> findDueWithin(int days) {
+        long start = System.nanoTime();
+        try {
+            Collection<Todo> result = delegate.findDueWithin(days);
+            findDueWithin.recordSuccess(start, result.size());
+            return result;
+        } catch (RuntimeException e) {
+            findDueWithin.recordError(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public int deleteByIds(Collection<Integer> todoIds) {
+        long start = System.nanoTime();
+        try {
+            int result = delegate.deleteByIds(todoIds);
+            deleteByIds.recordSuccess(start, result);
+            return result;
+        } catch (RuntimeException e) {
+            deleteByIds.recordError(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public int deleteByAssignee(int personId) {
+        long start = System.nanoTime();
+        try {
+            int result = delegate.deleteByAssignee(personId);
+            deleteByAssignee.recordSuccess(start, result);
+            return result;
+        } catch (RuntimeException e) {
+            deleteByAssignee.recordError(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public int reassignAll(int fromPersonId, int toPersonId) {
+        long start = System.nanoTime();
+        try {
+            int result = delegate.reassignAll(fromPersonId, toPersonId);
+            reassignAll.recordSuccess(start, result);
+            return result;
+        } catch (RuntimeException e) {
+            reassignAll.recordError(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public int unassignAll(int personId) {
+        long start = System.nanoTime();
+        try {
+            int result = delegate.unassignAll(personId);
+            unassignAll.recordSuccess(start, result);
+            return result;
+        } catch (RuntimeException e) {
+            unassignAll.recordError(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public Map<Integer, List<Todo>> findByAssignees(Collection<Integer> personIds) {
+        long start = System.nanoTime();
+        try {
+            Map<Integer, List<Todo>> result = delegate.findByAssignees(personIds);
+            findByAssignees.recordSuccess(start, countTodoItems(result));
+            return result;
+        } catch (RuntimeException e) {
+            findByAssignees.recordError(start);
+            throw e;
+        }
+    }
+
+    private static int countTodoItems(Map<Integer, List<Todo>> todoItemsByAssignee) {
+        int count = 0;
+        for (List<Todo> todoItems : todoItemsByAssignee.values()) {
+            count += todoItems.size();
+        }
+        return count;
+    }
+}
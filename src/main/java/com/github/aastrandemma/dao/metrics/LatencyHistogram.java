@@ -0,0 +1,82 @@
+package com.github.aastrandemma.dao.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+// Lock-free log-linear histogram in the spirit of HdrHistogram, each power of two is split into
+// 8 linear sub-buckets so recorded values are kept within 12.5% precision
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    // Bucket 41 starts at 2^43 ns (about 2.4 hours), anything larger is clamped into the last slot
+    private static final int BUCKETS = 42;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS * SUB_BUCKETS);
+    private final LongAdder totalCount = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        counts.incrementAndGet(indexFor(value));
+        totalCount.increment();
+        totalNanos.add(value);
+        maxNanos.accumulate(value);
+    }
+
+    public long getCount() {
+        return totalCount.sum();
+    }
+
+    public long getMaxNanos() {
+        return maxNanos.get();
+    }
+
+    public double getMeanNanos() {
+        long count = totalCount.sum();
+        return count == 0 ? 0.0 : (double) totalNanos.sum() / count;
+    }
+
+    // Upper bound of the bucket holding the given percentile (0-100), 0 when nothing was recorded
+    public long getValueAtPercentile(double percentile) {
+        long[] snapshot = new long[counts.length()];
+        long count = 0;
+        for (int i = 0; i < snapshot.length; i++) {
+            snapshot[i] = counts.get(i);
+            count += snapshot[i];
+        }
+        if (count == 0) {
+            return 0;
+        }
+        long target = Math.max(1, (long) Math.ceil(count * Math.min(100.0, percentile) / 100.0));
+        long seen = 0;
+        for (int i = 0; i < snapshot.length; i++) {
+            seen += snapshot[i];
+            if (seen >= target) {
+                return Math.min(highestValueIn(i), getMaxNanos());
+            }
+        }
+        return getMaxNanos();
+    }
+
+    static int indexFor(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        int subBucket = (int) (value >>> shift) & (SUB_BUCKETS - 1);
+        int index = (shift + 1) * SUB_BUCKETS + subBucket;
+        return Math.min(index, BUCKETS * SUB_BUCKETS - 1);
+    }
+
+    static long highestValueIn(int index) {
+        int bucket = index / SUB_BUCKETS;
+        int subBucket = index % SUB_BUCKETS;
+        if (bucket == 0) {
+            return subBucket;
+        }
+        int shift = bucket - 1;
+        return ((long) (SUB_BUCKETS + subBucket + 1) << shift) - 1;
+    }
+}
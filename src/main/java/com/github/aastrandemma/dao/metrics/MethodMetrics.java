@@ -0,0 +1,40 @@
+package com.github.aastrandemma.dao.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+// Counters for one DAO method, recording never locks or allocates
+public class MethodMetrics {
+    private final String name;
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder rows = new LongAdder();
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    MethodMetrics(String name) {
+        this.name = name;
+    }
+
+    public void recordSuccess(long startNanos, long rowCount) {
+        latency.record(System.nanoTime() - startNanos);
+        calls.increment();
+        if (rowCount > 0) {
+            rows.add(rowCount);
+        }
+    }
+
+    public void recordError(long startNanos) {
+        latency.record(System.nanoTime() - startNanos);
+        calls.increment();
+        errors.increment();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public MethodMetricsSnapshot snapshot() {
+        return new MethodMetricsSnapshot(name, calls.sum(), errors.sum(), rows.sum(),
+                latency.getMeanNanos(), latency.getValueAtPercentile(50), latency.getValueAtPercentile(90),
+                latency.getValueAtPercentile(99), latency.getValueAtPercentile(99.9), latency.getMaxNanos());
+    }
+}
@@ -0,0 +1,75 @@
+package com.github.aastrandemma.dao.metrics;
+
+public class MethodMetricsSnapshot {
+    private final String name;
+    private final long calls;
+    private final long errors;
+    private final long rows;
+    private final double meanNanos;
+    private final long p50Nanos;
+    private final long p90Nanos;
+    private final long p99Nanos;
+    private final long p999Nanos;
+    private final long maxNanos;
+
+    public MethodMetricsSnapshot(String name, long calls, long errors, long rows, double meanNanos,
+                                 long p50Nanos, long p90Nanos, long p99Nanos, long p999Nanos, long maxNanos) {
+        this.name = name;
+        this.calls = calls;
+        this.errors = errors;
+        this.rows = rows;
+        this.meanNanos = meanNanos;
+        this.p50Nanos = p50Nanos;
+        this.p90Nanos = p90Nanos;
+        this.p99Nanos = p99Nanos;
+        this.p999Nanos = p999Nanos;
+        this.maxNanos = maxNanos;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getCalls() {
+        return calls;
+    }
+
+    public long getErrors() {
+        return errors;
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    public double getMeanNanos() {
+        return meanNanos;
+    }
+
+    public long getP50Nanos() {
+        return p50Nanos;
+    }
+
+    public long getP90Nanos() {
+        return p90Nanos;
+    }
+
+    public long getP99Nanos() {
+        return p99Nanos;
+    }
+
+    public long getP999Nanos() {
+        return p999Nanos;
+    }
+
+    public long getMaxNanos() {
+        return maxNanos;
+    }
+
+    @Override
+    public String toString() {
+        return "MethodMetrics {name: " + getName() + ", calls: " + getCalls() + ", errors: " + getErrors()
+                + ", rows: " + getRows() + ", p50: " + getP50Nanos() + "ns, p99: " + getP99Nanos()
+                + "ns, max: " + getMaxNanos() + "ns}";
+    }
+}
@@ -0,0 +1,38 @@
+package com.github.aastrandemma.dao.search;
+
+import java.util.Arrays;
+
+// Compact growable list of ids, avoids boxing an Integer per posting
+final class IdList {
+    private int[] ids = new int[2];
+    private int size;
+
+    void add(int id) {
+        if (size == ids.length) {
+            ids = Arrays.copyOf(ids, size * 2);
+        }
+        ids[size++] = id;
+    }
+
+    boolean remove(int id) {
+        for (int i = 0; i < size; i++) {
+            if (ids[i] == id) {
+                ids[i] = ids[--size];
+                return true;
+            }
+        }
+        return false;
+    }
+
+    int size() {
+        return size;
+    }
+
+    int get(int index) {
+        return ids[index];
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+}
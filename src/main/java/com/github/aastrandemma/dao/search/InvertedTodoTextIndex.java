@@ -0,0 +1,115 @@
+package com.github.aastrandemma.dao.search;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Token -> (todo id -> weighted term frequency) postings. Ranking is tf-idf, a word in the title counts
+// as much as TITLE_WEIGHT occurrences in the description
+public class InvertedTodoTextIndex implements TodoTextIndex {
+    private static final int TITLE_WEIGHT = 3;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Map<Integer, Integer>> postings = new HashMap<>();
+    // Distinct tokens per todo, so put() and remove() know which postings to clean up
+    private final Map<Integer, String[]> tokensByTodo = new HashMap<>();
+
+    @Override
+    public void put(int todoId, String title, String description) {
+        Map<String, Integer> weights = new HashMap<>();
+        for (String token : Tokens.tokenize(title)) {
+            weights.merge(token, TITLE_WEIGHT, Integer::sum);
+        }
+        for (String token : Tokens.tokenize(description)) {
+            weights.merge(token, 1, Integer::sum);
+        }
+        lock.writeLock().lock();
+        try {
+            removeLocked(todoId);
+            for (Map.Entry<String, Integer> entry : weights.entrySet()) {
+                postings.computeIfAbsent(entry.getKey(), key -> new HashMap<>()).put(todoId, entry.getValue());
+            }
+            tokensByTodo.put(todoId, weights.keySet().toArray(new String[0]));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void remove(int todoId) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(todoId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            tokensByTodo.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return tokensByTodo.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Integer> search(String query) {
+        Map<Integer, Double> scores = new HashMap<>();
+        lock.readLock().lock();
+        try {
+            int documentCount = tokensByTodo.size();
+            for (String term : new HashSet<>(Tokens.tokenize(query))) {
+                Map<Integer, Integer> matches = postings.get(term);
+                if (matches == null) {
+                    continue;
+                }
+                // Rare terms weigh more, a term found in every todo still counts a little
+                double idf = Math.log(1.0 + (double) documentCount / matches.size());
+                for (Map.Entry<Integer, Integer> match : matches.entrySet()) {
+                    // Sublinear tf so repeating a word doesn't dominate the ranking
+                    scores.merge(match.getKey(), (1.0 + Math.log(match.getValue())) * idf, Double::sum);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        List<Map.Entry<Integer, Double>> ranked = new ArrayList<>(scores.entrySet());
+        ranked.sort(Map.Entry.<Integer, Double>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()));
+        List<Integer> todoIds = new ArrayList<>(ranked.size());
+        for (Map.Entry<Integer, Double> entry : ranked) {
+            todoIds.add(entry.getKey());
+        }
+        return todoIds;
+    }
+
+    private void removeLocked(int todoId) {
+        String[] tokens = tokensByTodo.remove(todoId);
+        if (tokens == null) {
+            return;
+        }
+        for (String token : tokens) {
+            Map<Integer, Integer> matches = postings.get(token);
+            if (matches != null && matches.remove(todoId) != null && matches.isEmpty()) {
+                postings.remove(token);
+            }
+        }
+    }
+}
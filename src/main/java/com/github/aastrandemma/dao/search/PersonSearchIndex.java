@@ -0,0 +1,290 @@
+package com.github.aastrandemma.dao.search;
+
+import com.github.aastrandemma.model.Person;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// In-memory index over first and last names. Prefix matches come from a sorted token map, typo tolerant
+// matches from a trigram index over the distinct tokens, checked with a bounded edit distance
+public class PersonSearchIndex {
+    private static final int EXACT_SCORE = 100;
+    private static final int PREFIX_SCORE = 50;
+    private static final int FUZZY_SCORE = 30;
+    // Caps the work for unselective terms such as a single letter or a very common first name
+    private static final int MAX_CANDIDATES_PER_TERM = 2_000;
+    private static final int MIN_FUZZY_TERM_LENGTH = 3;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Integer, Person> people = new HashMap<>();
+    private final NavigableMap<String, IdList> idsByToken = new TreeMap<>();
+    private final Map<String, Set<String>> tokensByTrigram = new HashMap<>();
+
+    public void addAll(Collection<Person> persons) {
+        lock.writeLock().lock();
+        try {
+            for (Person person : persons) {
+                addLocked(person);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void put(Person person) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(person.getId());
+            addLocked(person);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(int personId) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(personId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return people.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int distinctTokenCount() {
+        lock.readLock().lock();
+        try {
+            return idsByToken.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Every query term has to match a first or last name, by exact match, prefix or within the edit budget.
+    // The longest term drives candidate generation, the other terms are checked against each candidate's names
+    public List<Person> search(String query, int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Search limit must be at least 1.");
+        }
+        List<String> terms = Tokens.tokenize(query);
+        if (terms.isEmpty()) {
+            return new ArrayList<>();
+        }
+        String drivingTerm = terms.get(0);
+        for (String term : terms) {
+            if (term.length() > drivingTerm.length()) {
+                drivingTerm = term;
+            }
+        }
+        lock.readLock().lock();
+        try {
+            Map<Integer, Integer> scores = scoreTerm(drivingTerm, limit);
+            if (terms.size() > 1) {
+                scores = scoreRemainingTerms(scores, terms, drivingTerm);
+            }
+
+            // Bounded min-heap keeps the best limit entries without sorting every candidate
+            Comparator<Map.Entry<Integer, Integer>> ranking = Map.Entry.<Integer, Integer>comparingByValue()
+                    .reversed().thenComparing(Map.Entry.comparingByKey());
+            PriorityQueue<Map.Entry<Integer, Integer>> best = new PriorityQueue<>(limit + 1, ranking.reversed());
+            for (Map.Entry<Integer, Integer> entry : scores.entrySet()) {
+                best.offer(entry);
+                if (best.size() > limit) {
+                    best.poll();
+                }
+            }
+            List<Map.Entry<Integer, Integer>> ranked = new ArrayList<>(best);
+            ranked.sort(ranking);
+            List<Person> result = new ArrayList<>(ranked.size());
+            for (Map.Entry<Integer, Integer> entry : ranked) {
+                Person person = people.get(entry.getKey());
+                Person copy = new Person(person.getId(), person.getFirstName(), person.getLastName());
+                copy.clearDirtyFields();
+                result.add(copy);
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Map<Integer, Integer> scoreTerm(String term, int limit) {
+        Map<Integer, Integer> scores = new HashMap<>();
+        // The exact token sorts first, so exact matches are always collected before the cap kicks in
+        for (Map.Entry<String, IdList> entry : idsByToken.tailMap(term, true).entrySet()) {
+            String token = entry.getKey();
+            if (!token.startsWith(term) || scores.size() >= MAX_CANDIDATES_PER_TERM) {
+                break;
+            }
+            addScores(scores, entry.getValue(), scoreToken(term, token));
+        }
+
+        // Fuzzy matches always rank below prefix matches, so they are only looked up when prefixes fall short
+        if (scores.size() < limit && term.length() >= MIN_FUZZY_TERM_LENGTH) {
+            int maxEdits = maxEdits(term);
+            for (String token : fuzzyCandidates(term, maxEdits)) {
+                int score = scoreToken(term, token);
+                if (score > 0 && !token.startsWith(term)) {
+                    addScores(scores, idsByToken.get(token), score);
+                }
+                if (scores.size() >= MAX_CANDIDATES_PER_TERM) {
+                    break;
+                }
+            }
+        }
+        return scores;
+    }
+
+    private Map<Integer, Integer> scoreRemainingTerms(Map<Integer, Integer> scores, List<String> terms, String drivingTerm) {
+        Map<Integer, Integer> combined = new HashMap<>();
+        for (Map.Entry<Integer, Integer> entry : scores.entrySet()) {
+            Person person = people.get(entry.getKey());
+            List<String> tokens = Tokens.tokenize(person.getFirstName());
+            tokens.addAll(Tokens.tokenize(person.getLastName()));
+            int total = entry.getValue();
+            boolean skippedDrivingTerm = false;
+            for (String term : terms) {
+                if (!skippedDrivingTerm && term.equals(drivingTerm)) {
+                    skippedDrivingTerm = true;
+                    continue;
+                }
+                int bestScore = 0;
+                for (String token : tokens) {
+                    bestScore = Math.max(bestScore, scoreToken(term, token));
+                }
+                if (bestScore == 0) {
+                    total = 0;
+                    break;
+                }
+                total += bestScore;
+            }
+            if (total > 0) {
+                combined.put(entry.getKey(), total);
+            }
+        }
+        return combined;
+    }
+
+    // 0 when the token doesn't match the term
+    private static int scoreToken(String term, String token) {
+        if (token.equals(term)) {
+            return EXACT_SCORE;
+        }
+        if (token.startsWith(term)) {
+            // Closer prefixes (shorter remaining suffix) rank higher
+            return PREFIX_SCORE - Math.min(20, token.length() - term.length());
+        }
+        if (term.length() >= MIN_FUZZY_TERM_LENGTH) {
+            int maxEdits = maxEdits(term);
+            int distance = EditDistance.bounded(term, token, maxEdits);
+            if (distance <= maxEdits) {
+                return FUZZY_SCORE - 10 * distance;
+            }
+        }
+        return 0;
+    }
+
+    private static int maxEdits(String term) {
+        return term.length() <= 5 ? 1 : 2;
+    }
+
+    private Set<String> fuzzyCandidates(String term, int maxEdits) {
+        List<String> trigrams = trigrams(term);
+        // q-gram lemma, an edit destroys at most three trigrams and an adjacent transposition at most four
+        int required = Math.max(1, trigrams.size() - 4 * maxEdits);
+        Map<String, Integer> shared = new HashMap<>();
+        Set<String> candidates = new HashSet<>();
+        for (String trigram : trigrams) {
+            Set<String> tokens = tokensByTrigram.get(trigram);
+            if (tokens == null) {
+                continue;
+            }
+            for (String token : tokens) {
+                if (Math.abs(token.length() - term.length()) > maxEdits) {
+                    continue;
+                }
+                int count = shared.merge(token, 1, Integer::sum);
+                if (count >= required) {
+                    candidates.add(token);
+                }
+            }
+        }
+        return candidates;
+    }
+
+    private static void addScores(Map<Integer, Integer> scores, IdList ids, int score) {
+        for (int i = 0; i < ids.size() && scores.size() < MAX_CANDIDATES_PER_TERM; i++) {
+            scores.merge(ids.get(i), score, Math::max);
+        }
+    }
+
+    private void addLocked(Person person) {
+        Person copy = new Person(person.getId(), person.getFirstName(), person.getLastName());
+        people.put(copy.getId(), copy);
+        for (String token : nameTokens(copy)) {
+            IdList ids = idsByToken.get(token);
+            if (ids == null) {
+                ids = new IdList();
+                idsByToken.put(token, ids);
+                for (String trigram : trigrams(token)) {
+                    tokensByTrigram.computeIfAbsent(trigram, key -> new HashSet<>()).add(token);
+                }
+            }
+            ids.add(copy.getId());
+        }
+    }
+
+    private void removeLocked(int personId) {
+        Person previous = people.remove(personId);
+        if (previous == null) {
+            return;
+        }
+        for (String token : nameTokens(previous)) {
+            IdList ids = idsByToken.get(token);
+            if (ids != null && ids.remove(personId) && ids.isEmpty()) {
+                idsByToken.remove(token);
+                for (String trigram : trigrams(token)) {
+                    Set<String> tokens = tokensByTrigram.get(trigram);
+                    if (tokens != null && tokens.remove(token) && tokens.isEmpty()) {
+                        tokensByTrigram.remove(trigram);
+                    }
+                }
+            }
+        }
+    }
+
+    private static Set<String> nameTokens(Person person) {
+        Set<String> tokens = new HashSet<>(Tokens.tokenize(person.getFirstName()));
+        tokens.addAll(Tokens.tokenize(person.getLastName()));
+        return tokens;
+    }
+
+    // Padded so the first and last characters take part in as many trigrams as the middle ones
+    private static List<String> trigrams(String token) {
+        String padded = "  " + token + " ";
+        List<String> trigrams = new ArrayList<>(padded.length() - 2);
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            trigrams.add(padded.substring(i, i + 3));
+        }
+        return trigrams;
+    }
+}
@@ -0,0 +1,15 @@
+package com.github.aastrandemma.dao.search;
+
+import java.util.List;
+
+// In-process full-text index over todo titles and descriptions, used by TodoItemsDao.search() when the
+// database has no FULLTEXT index. Implementations must be safe for concurrent use
+public interface TodoTextIndex {
+    void put(int todoId, String title, String description);
+    void remove(int todoId);
+    void clear();
+    int size();
+
+    // Ids of todos matching any query term, best match first
+    List<Integer> search(String query);
+}
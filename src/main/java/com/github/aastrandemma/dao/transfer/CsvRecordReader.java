@@ -0,0 +1,130 @@
+package com.github.aastrandemma.dao.transfer;
+
+import com.github.aastrandemma.exception.DataTransferException;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+// Reads the header row to find the expected columns, extra columns are ignored. Quoted fields may span lines
+final class CsvRecordReader implements RecordReader {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Reader reader;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private final StringBuilder field = new StringBuilder();
+    private final List<String> row = new ArrayList<>();
+    private final int columnCount;
+    // Position in the file of each expected column, null for an empty file
+    private final int[] sourcePositions;
+    private int position;
+    private int limit;
+    private long recordNumber;
+
+    CsvRecordReader(Reader reader, String[] columns) throws IOException {
+        this.reader = reader;
+        this.columnCount = columns.length;
+        this.sourcePositions = readRow() ? findColumns(columns) : null;
+    }
+
+    @Override
+    public String[] next() throws IOException {
+        if (sourcePositions == null) {
+            return null;
+        }
+        while (readRow()) {
+            if (row.size() == 1 && row.get(0) == null) {
+                continue;
+            }
+            recordNumber++;
+            String[] values = new String[columnCount];
+            for (int i = 0; i < columnCount; i++) {
+                int sourcePosition = sourcePositions[i];
+                values[i] = sourcePosition < row.size() ? row.get(sourcePosition) : null;
+            }
+            return values;
+        }
+        return null;
+    }
+
+    private int[] findColumns(String[] columns) {
+        int[] positions = new int[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            positions[i] = row.indexOf(columns[i]);
+            if (positions[i] < 0) {
+                throw new DataTransferException("CSV header is missing column: " + columns[i] + ", header: " + row);
+            }
+        }
+        return positions;
+    }
+
+    // Fills row with the next record, unquoted empty fields become null. False at end of input
+    private boolean readRow() throws IOException {
+        row.clear();
+        int c = read();
+        if (c == -1) {
+            return false;
+        }
+        while (true) {
+            field.setLength(0);
+            boolean quoted = c == '"';
+            if (quoted) {
+                while (true) {
+                    c = read();
+                    if (c == -1) {
+                        throw new DataTransferException("Unterminated quoted field in CSV record " + (recordNumber + 1) + ".");
+                    }
+                    if (c == '"') {
+                        c = read();
+                        if (c != '"') {
+                            break;
+                        }
+                    }
+                    field.append((char) c);
+                }
+                if (c != ',' && c != '\n' && c != '\r' && c != -1) {
+                    throw new DataTransferException("Unexpected character after quoted field in CSV record " + (recordNumber + 1) + ".");
+                }
+            } else {
+                while (c != ',' && c != '\n' && c != '\r' && c != -1) {
+                    field.append((char) c);
+                    c = read();
+                }
+            }
+            row.add(quoted || field.length() > 0 ? field.toString() : null);
+            if (c != ',') {
+                break;
+            }
+            c = read();
+        }
+        if (c == '\r' && peek() == '\n') {
+            read();
+        }
+        return true;
+    }
+
+    private int read() throws IOException {
+        if (position == limit && !fill()) {
+            return -1;
+        }
+        return buffer[position++];
+    }
+
+    private int peek() throws IOException {
+        if (position == limit && !fill()) {
+            return -1;
+        }
+        return buffer[position];
+    }
+
+    private boolean fill() throws IOException {
+        int read = reader.read(buffer, 0, buffer.length);
+        if (read <= 0) {
+            return false;
+        }
+        position = 0;
+        limit = read;
+        return true;
+    }
+}
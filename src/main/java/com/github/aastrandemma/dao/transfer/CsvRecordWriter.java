@@ -0,0 +1,57 @@
+package com.github.aastrandemma.dao.transfer;
+
+import java.io.IOException;
+import java.io.Writer;
+
+// RFC 4180 style, with a header row. Null is written as an empty field and the empty string as "" so the two
+// survive a round trip
+final class CsvRecordWriter implements RecordWriter {
+    private final Writer writer;
+
+    CsvRecordWriter(Writer writer, String[] columns) throws IOException {
+        this.writer = writer;
+        write(columns);
+    }
+
+    @Override
+    public void write(Object[] values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            if (values[i] != null) {
+                writeField(values[i].toString());
+            }
+        }
+        writer.write('\n');
+    }
+
+    private void writeField(String value) throws IOException {
+        if (!needsQuotes(value)) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                writer.write('"');
+            }
+            writer.write(c);
+        }
+        writer.write('"');
+    }
+
+    private static boolean needsQuotes(String value) {
+        if (value.isEmpty()) {
+            return true;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                return true;
+            }
+        }
+        return false;
+    }
+}
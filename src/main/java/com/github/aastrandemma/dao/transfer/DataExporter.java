@@ -0,0 +1,84 @@
+package com.github.aastrandemma.dao.transfer;
+
+import com.github.aastrandemma.dao.PeopleDao;
+import com.github.aastrandemma.dao.TodoItemsDao;
+import com.github.aastrandemma.exception.DataTransferException;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+// Writes every row straight from a streaming cursor, memory use doesn't depend on the table size. The format
+// follows the file extension. Output goes to a .part file that is renamed when complete, so a failed export never
+// leaves a truncated file under the target name
+public class DataExporter {
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+
+    private final PeopleDao peopleDao;
+    private final TodoItemsDao todoItemsDao;
+
+    public DataExporter(PeopleDao peopleDao, TodoItemsDao todoItemsDao) {
+        Objects.requireNonNull(peopleDao, "PeopleDao can't be null.");
+        Objects.requireNonNull(todoItemsDao, "TodoItemsDao can't be null.");
+        this.peopleDao = peopleDao;
+        this.todoItemsDao = todoItemsDao;
+    }
+
+    public TransferReport exportPeople(Path target) {
+        return export(target, "people", PersonRecordMapping.INSTANCE, peopleDao::streamAll);
+    }
+
+    public TransferReport exportTodoItems(Path target) {
+        // Buffered done status changes would otherwise be missing from the file
+        todoItemsDao.flush();
+        return export(target, "todo_item", TodoRecordMapping.INSTANCE, todoItemsDao::streamAll);
+    }
+
+    private <T> TransferReport export(Path target, String name, RecordMapping<T> mapping, Supplier<Stream<T>> source) {
+        TransferFormat format = TransferFormat.forPath(target);
+        Path temporary = target.resolveSibling(target.getFileName() + ".part");
+        long start = System.nanoTime();
+        long records = 0;
+        long writeNanos = 0;
+        try {
+            try (
+                    Stream<T> items = source.get();
+                    BufferedWriter bufferedWriter = new BufferedWriter(Files.newBufferedWriter(temporary, StandardCharsets.UTF_8), WRITE_BUFFER_SIZE)
+            ) {
+                RecordWriter writer = format.openWriter(bufferedWriter, mapping.columns());
+                Iterator<T> iterator = items.iterator();
+                while (iterator.hasNext()) {
+                    T item = iterator.next();
+                    long writeStart = System.nanoTime();
+                    writer.write(mapping.toValues(item));
+                    writeNanos += System.nanoTime() - writeStart;
+                    records++;
+                }
+            }
+            Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | RuntimeException e) {
+            deleteQuietly(temporary, e);
+            if (e instanceof RuntimeException) {
+                throw (RuntimeException) e;
+            }
+            throw new DataTransferException("Failed to export " + name + " to " + target + ", ", e);
+        }
+        long elapsedNanos = System.nanoTime() - start;
+        return new TransferReport(records, 0, 0, elapsedNanos - writeNanos, writeNanos, elapsedNanos);
+    }
+
+    private static void deleteQuietly(Path path, Exception failure) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            failure.addSuppressed(e);
+        }
+    }
+}
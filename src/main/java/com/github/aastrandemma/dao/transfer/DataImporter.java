@@ -0,0 +1,126 @@
+package com.github.aastrandemma.dao.transfer;
+
+import com.github.aastrandemma.dao.PeopleDao;
+import com.github.aastrandemma.dao.TodoItemsDao;
+import com.github.aastrandemma.exception.DataTransferException;
+import com.github.aastrandemma.model.Person;
+import com.github.aastrandemma.model.Todo;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Objects;
+
+// Imports files written by DataExporter, the format follows the file extension. Each chunk is inserted with
+// createAll in its own transaction while the next chunks are parsed. Import people before their todo items, the
+// generated person ids are remembered so exported assignee ids can be translated. Pass a checkpoint file to make
+// an import restartable, running it again with the same checkpoint continues after the last committed chunk
+public class DataImporter {
+    public static final int DEFAULT_CHUNK_SIZE = 10_000;
+    public static final int DEFAULT_QUEUE_CHUNKS = 4;
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+    private final PeopleDao peopleDao;
+    private final TodoItemsDao todoItemsDao;
+    private final int chunkSize;
+    private final int queueChunks;
+    // Exported person id to id in this database, 0 for a person that couldn't be found
+    private final PersonIdMap personIds = new PersonIdMap();
+    // Once people were imported, assignees missing from the mapping are unresolved instead of looked up by id
+    private boolean personIdsImported;
+
+    public DataImporter(PeopleDao peopleDao, TodoItemsDao todoItemsDao) {
+        this(peopleDao, todoItemsDao, DEFAULT_CHUNK_SIZE, DEFAULT_QUEUE_CHUNKS);
+    }
+
+    public DataImporter(PeopleDao peopleDao, TodoItemsDao todoItemsDao, int chunkSize, int queueChunks) {
+        Objects.requireNonNull(peopleDao, "PeopleDao can't be null.");
+        Objects.requireNonNull(todoItemsDao, "TodoItemsDao can't be null.");
+        if (chunkSize < 1 || queueChunks < 1) {
+            throw new IllegalArgumentException("Chunk size and queue chunks must be at least 1.");
+        }
+        this.peopleDao = peopleDao;
+        this.todoItemsDao = todoItemsDao;
+        this.chunkSize = chunkSize;
+        this.queueChunks = queueChunks;
+    }
+
+    // Rerunning a completed import with its checkpoint only reloads the id mapping, which is how a later run
+    // gets ready for importTodoItems. checkpointFile may be null
+    public synchronized TransferReport importPeople(Path source, Path checkpointFile) {
+        return importFile(source, checkpointFile, "people", PersonRecordMapping.INSTANCE, checkpoint -> {
+            checkpoint.loadIds(personIds);
+            personIdsImported = true;
+            return (people, exportedIds) -> {
+                peopleDao.createAll(people);
+                int[] newIds = new int[people.size()];
+                for (int i = 0; i < newIds.length; i++) {
+                    newIds[i] = people.get(i).getId();
+                    personIds.put(exportedIds[i], newIds[i]);
+                }
+                checkpoint.appendIds(exportedIds, newIds, newIds.length);
+                return 0;
+            };
+        });
+    }
+
+    // Without an earlier importPeople, exported assignee ids are taken to be ids in this database and checked
+    // to exist. Todos whose assignee can't be resolved are imported unassigned. checkpointFile may be null
+    public synchronized TransferReport importTodoItems(Path source, Path checkpointFile) {
+        return importFile(source, checkpointFile, "todo_item", TodoRecordMapping.INSTANCE, checkpoint -> (todoItems, assigneeIds) -> {
+            int unresolved = 0;
+            for (int i = 0; i < todoItems.size(); i++) {
+                if (assigneeIds[i] == 0) {
+                    continue;
+                }
+                int assigneeId = resolveAssignee(assigneeIds[i]);
+                if (assigneeId == 0) {
+                    unresolved++;
+                } else {
+                    // Only the id is bound on insert
+                    todoItems.get(i).setAssignee(new Person(assigneeId, "", ""));
+                }
+            }
+            todoItemsDao.createAll(todoItems);
+            return unresolved;
+        });
+    }
+
+    private interface ChunkWriterFactory<T> {
+        ImportPipeline.ChunkWriter<T> create(ImportCheckpoint checkpoint) throws IOException;
+    }
+
+    private <T> TransferReport importFile(Path source, Path checkpointFile, String name, RecordMapping<T> mapping,
+                                          ChunkWriterFactory<T> writerFactory) {
+        TransferFormat format = TransferFormat.forPath(source);
+        try (
+                ImportCheckpoint checkpoint = ImportCheckpoint.open(checkpointFile, source);
+                BufferedReader bufferedReader = new BufferedReader(Files.newBufferedReader(source, StandardCharsets.UTF_8), READ_BUFFER_SIZE)
+        ) {
+            ImportPipeline.ChunkWriter<T> writer = writerFactory.create(checkpoint);
+            if (checkpoint.isComplete()) {
+                return new TransferReport(0, checkpoint.getCommittedRecords(), 0, 0, 0, 0);
+            }
+            RecordReader reader = format.openReader(bufferedReader, mapping.columns());
+            return new ImportPipeline<>(mapping, chunkSize, queueChunks).run(name, reader, checkpoint, writer);
+        } catch (IOException e) {
+            throw new DataTransferException("Failed to import " + name + " from " + source + ", ", e);
+        }
+    }
+
+    private int resolveAssignee(int exportedId) {
+        int id = personIds.get(exportedId);
+        if (id != PersonIdMap.ABSENT) {
+            return id;
+        }
+        if (personIdsImported) {
+            return 0;
+        }
+        id = peopleDao.findById(exportedId) == null ? 0 : exportedId;
+        personIds.put(exportedId, id);
+        return id;
+    }
+}
@@ -0,0 +1,137 @@
+package com.github.aastrandemma.dao.transfer;
+
+import com.github.aastrandemma.exception.DataTransferException;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Properties;
+
+// How far an import got, saved after every committed chunk. A chunk whose transaction committed right before a
+// crash, but before its checkpoint was written, is imported again on restart, so at most one chunk is duplicated.
+// People imports also keep their exported to generated id pairs in a side file, appended before each checkpoint
+final class ImportCheckpoint implements AutoCloseable {
+    private static final String SOURCE_KEY = "source";
+    private static final String SOURCE_SIZE_KEY = "sourceSize";
+    private static final String RECORDS_KEY = "committedRecords";
+    private static final String COMPLETE_KEY = "complete";
+
+    // All null when the import isn't restartable
+    private final Path path;
+    private final Path idsPath;
+    private final String source;
+    private final long sourceSize;
+    private long committedRecords;
+    private boolean complete;
+    private FileChannel idsChannel;
+
+    private ImportCheckpoint(Path path, String source, long sourceSize) {
+        this.path = path;
+        this.idsPath = path == null ? null : path.resolveSibling(path.getFileName() + ".ids");
+        this.source = source;
+        this.sourceSize = sourceSize;
+    }
+
+    // A null path gives a checkpoint that remembers nothing
+    static ImportCheckpoint open(Path path, Path sourceFile) throws IOException {
+        ImportCheckpoint checkpoint = new ImportCheckpoint(path, sourceFile.getFileName().toString(), Files.size(sourceFile));
+        if (path == null || !Files.exists(path)) {
+            return checkpoint;
+        }
+        Properties properties = new Properties();
+        try (InputStream input = Files.newInputStream(path)) {
+            properties.load(input);
+        }
+        if (!checkpoint.source.equals(properties.getProperty(SOURCE_KEY))
+                || checkpoint.sourceSize != Long.parseLong(properties.getProperty(SOURCE_SIZE_KEY, "-1"))) {
+            throw new DataTransferException("Checkpoint " + path + " belongs to another source file: "
+                    + properties.getProperty(SOURCE_KEY) + ", delete it to start over.");
+        }
+        checkpoint.committedRecords = Long.parseLong(properties.getProperty(RECORDS_KEY, "0"));
+        checkpoint.complete = Boolean.parseBoolean(properties.getProperty(COMPLETE_KEY));
+        return checkpoint;
+    }
+
+    long getCommittedRecords() {
+        return committedRecords;
+    }
+
+    boolean isComplete() {
+        return complete;
+    }
+
+    // Pairs past the last checkpoint belong to a chunk that will be imported again, its new ids simply win
+    void loadIds(PersonIdMap personIds) throws IOException {
+        if (idsPath == null || !Files.exists(idsPath)) {
+            return;
+        }
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(idsPath)))) {
+            while (true) {
+                int exportedId;
+                int newId;
+                try {
+                    exportedId = input.readInt();
+                    newId = input.readInt();
+                } catch (EOFException e) {
+                    // A torn pair from a crash mid-write is dropped
+                    return;
+                }
+                personIds.put(exportedId, newId);
+            }
+        }
+    }
+
+    void appendIds(int[] exportedIds, int[] newIds, int count) throws IOException {
+        if (idsPath == null) {
+            return;
+        }
+        if (idsChannel == null) {
+            idsChannel = FileChannel.open(idsPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(count * 2 * Integer.BYTES);
+        for (int i = 0; i < count; i++) {
+            buffer.putInt(exportedIds[i]).putInt(newIds[i]);
+        }
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            idsChannel.write(buffer);
+        }
+        idsChannel.force(false);
+    }
+
+    // Written to a temporary file and renamed, so a crash leaves either the old or the new checkpoint
+    void commit(long committedRecords, boolean complete) throws IOException {
+        this.committedRecords = committedRecords;
+        this.complete = complete;
+        if (path == null) {
+            return;
+        }
+        Properties properties = new Properties();
+        properties.setProperty(SOURCE_KEY, source);
+        properties.setProperty(SOURCE_SIZE_KEY, Long.toString(sourceSize));
+        properties.setProperty(RECORDS_KEY, Long.toString(committedRecords));
+        properties.setProperty(COMPLETE_KEY, Boolean.toString(complete));
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileOutputStream output = new FileOutputStream(temporary.toFile())) {
+            properties.store(output, null);
+            output.getFD().sync();
+        }
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (idsChannel != null) {
+            idsChannel.close();
+        }
+    }
+}
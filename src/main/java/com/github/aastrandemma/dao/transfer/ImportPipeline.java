@@ -0,0 +1,172 @@
+package com.github.aastrandemma.dao.transfer;
+
+import com.github.aastrandemma.exception.DataTransferException;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+// A parser thread turns records into chunks while the calling thread writes the previous ones. The queue holds at
+// most queueChunks parsed chunks, so memory stays bounded however large the file is and a slow database makes the
+// parser wait instead of reading ahead
+final class ImportPipeline<T> {
+    private static final long OFFER_TIMEOUT_MILLIS = 100;
+
+    // Writes one chunk in its own transaction and returns how many references it couldn't resolve
+    interface ChunkWriter<T> {
+        int write(List<T> items, int[] referencedPersonIds) throws IOException;
+    }
+
+    private static final class Chunk<T> {
+        private final List<T> items;
+        private final int[] referencedPersonIds;
+        // Number of the chunk's last record in the file, counting from 1
+        private long lastRecordNumber;
+
+        private Chunk(int capacity) {
+            this.items = new ArrayList<>(capacity);
+            this.referencedPersonIds = new int[capacity];
+        }
+    }
+
+    private final RecordMapping<T> mapping;
+    private final int chunkSize;
+    private final int queueChunks;
+    private final Chunk<T> endOfInput = new Chunk<>(0);
+
+    ImportPipeline(RecordMapping<T> mapping, int chunkSize, int queueChunks) {
+        this.mapping = mapping;
+        this.chunkSize = chunkSize;
+        this.queueChunks = queueChunks;
+    }
+
+    TransferReport run(String name, RecordReader reader, ImportCheckpoint checkpoint, ChunkWriter<T> writer) throws IOException {
+        long start = System.nanoTime();
+        long skippedRecords = checkpoint.getCommittedRecords();
+        BlockingQueue<Chunk<T>> queue = new ArrayBlockingQueue<>(queueChunks);
+        Parser parser = new Parser(reader, queue, skippedRecords);
+        Thread parserThread = new Thread(parser, name + "-import-parser");
+        parserThread.setDaemon(true);
+        parserThread.start();
+
+        long records = 0;
+        long unresolvedReferences = 0;
+        long writeNanos = 0;
+        try {
+            Chunk<T> chunk;
+            while ((chunk = queue.take()) != endOfInput) {
+                long writeStart = System.nanoTime();
+                unresolvedReferences += writer.write(chunk.items, chunk.referencedPersonIds);
+                checkpoint.commit(chunk.lastRecordNumber, false);
+                writeNanos += System.nanoTime() - writeStart;
+                records += chunk.items.size();
+            }
+            parser.rethrowFailure();
+            checkpoint.commit(skippedRecords + records, true);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DataTransferException("Interrupted while importing " + name + ", " + records + " records committed.", e);
+        } finally {
+            parser.stopped = true;
+            joinUninterruptibly(parserThread);
+        }
+        return new TransferReport(records, skippedRecords, unresolvedReferences, parser.parseNanos, writeNanos, System.nanoTime() - start);
+    }
+
+    private static void joinUninterruptibly(Thread thread) {
+        boolean interrupted = false;
+        while (thread.isAlive()) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private final class Parser implements Runnable {
+        private final RecordReader reader;
+        private final BlockingQueue<Chunk<T>> queue;
+        private final long skipRecords;
+        // Set by the writing side when it gives up, the parser then stops at its next hand-off
+        private volatile boolean stopped;
+        private volatile Throwable failure;
+        private volatile long parseNanos;
+
+        private Parser(RecordReader reader, BlockingQueue<Chunk<T>> queue, long skipRecords) {
+            this.reader = reader;
+            this.queue = queue;
+            this.skipRecords = skipRecords;
+        }
+
+        @Override
+        public void run() {
+            long busyNanos = 0;
+            long busyStart = System.nanoTime();
+            try {
+                long recordNumber = 0;
+                Chunk<T> chunk = new Chunk<>(chunkSize);
+                String[] values;
+                while ((values = reader.next()) != null) {
+                    recordNumber++;
+                    if (recordNumber <= skipRecords) {
+                        continue;
+                    }
+                    chunk.referencedPersonIds[chunk.items.size()] = mapping.referencedPersonId(values, recordNumber);
+                    chunk.items.add(mapping.fromValues(values, recordNumber));
+                    if (chunk.items.size() == chunkSize) {
+                        chunk.lastRecordNumber = recordNumber;
+                        busyNanos += System.nanoTime() - busyStart;
+                        if (!handOff(chunk)) {
+                            return;
+                        }
+                        busyStart = System.nanoTime();
+                        chunk = new Chunk<>(chunkSize);
+                    }
+                }
+                busyNanos += System.nanoTime() - busyStart;
+                if (!chunk.items.isEmpty()) {
+                    chunk.lastRecordNumber = recordNumber;
+                    if (!handOff(chunk)) {
+                        return;
+                    }
+                }
+            } catch (IOException | RuntimeException e) {
+                busyNanos += System.nanoTime() - busyStart;
+                failure = e;
+            } finally {
+                parseNanos = busyNanos;
+            }
+            handOff(endOfInput);
+        }
+
+        private boolean handOff(Chunk<T> chunk) {
+            try {
+                while (!stopped) {
+                    if (queue.offer(chunk, OFFER_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                        return true;
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return false;
+        }
+
+        private void rethrowFailure() throws IOException {
+            Throwable parseFailure = failure;
+            if (parseFailure instanceof IOException) {
+                throw (IOException) parseFailure;
+            }
+            if (parseFailure instanceof RuntimeException) {
+                throw (RuntimeException) parseFailure;
+            }
+        }
+    }
+}
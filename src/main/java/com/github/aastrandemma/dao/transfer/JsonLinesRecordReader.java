@@ -0,0 +1,173 @@
+package com.github.aastrandemma.dao.transfer;
+
+import com.github.aastrandemma.exception.DataTransferException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+// Only flat objects are accepted, which is all the exporter writes. Unknown keys are ignored, blank lines skipped
+final class JsonLinesRecordReader implements RecordReader {
+    private final BufferedReader reader;
+    private final int columnCount;
+    private final Map<String, Integer> columnIndexes = new HashMap<>();
+    private final StringBuilder text = new StringBuilder();
+    private String line;
+    private int position;
+    private long lineNumber;
+
+    JsonLinesRecordReader(BufferedReader reader, String[] columns) {
+        this.reader = reader;
+        this.columnCount = columns.length;
+        for (int i = 0; i < columns.length; i++) {
+            columnIndexes.put(columns[i], i);
+        }
+    }
+
+    @Override
+    public String[] next() throws IOException {
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            position = 0;
+            skipWhitespace();
+            if (position < line.length()) {
+                return parseObject();
+            }
+        }
+        return null;
+    }
+
+    private String[] parseObject() {
+        String[] values = new String[columnCount];
+        expect('{');
+        skipWhitespace();
+        if (peek() == '}') {
+            position++;
+        } else {
+            while (true) {
+                skipWhitespace();
+                String key = parseString();
+                skipWhitespace();
+                expect(':');
+                skipWhitespace();
+                String value = parseValue();
+                Integer index = columnIndexes.get(key);
+                if (index != null) {
+                    values[index] = value;
+                }
+                skipWhitespace();
+                char c = take();
+                if (c == '}') {
+                    break;
+                }
+                if (c != ',') {
+                    throw malformed("expected , or }");
+                }
+            }
+        }
+        skipWhitespace();
+        if (position < line.length()) {
+            throw malformed("unexpected content after object");
+        }
+        return values;
+    }
+
+    private String parseValue() {
+        char c = peek();
+        if (c == '"') {
+            return parseString();
+        }
+        if (c == '{' || c == '[') {
+            throw malformed("nested values are not supported");
+        }
+        int start = position;
+        while (position < line.length() && isLiteralChar(line.charAt(position))) {
+            position++;
+        }
+        String literal = line.substring(start, position);
+        if (literal.isEmpty()) {
+            throw malformed("expected a value");
+        }
+        return "null".equals(literal) ? null : literal;
+    }
+
+    private String parseString() {
+        expect('"');
+        text.setLength(0);
+        while (true) {
+            char c = take();
+            if (c == '"') {
+                return text.toString();
+            }
+            if (c != '\\') {
+                text.append(c);
+                continue;
+            }
+            char escaped = take();
+            switch (escaped) {
+                case 'n':
+                    text.append('\n');
+                    break;
+                case 'r':
+                    text.append('\r');
+                    break;
+                case 't':
+                    text.append('\t');
+                    break;
+                case 'b':
+                    text.append('\b');
+                    break;
+                case 'f':
+                    text.append('\f');
+                    break;
+                case 'u':
+                    if (position + 4 > line.length()) {
+                        throw malformed("truncated unicode escape");
+                    }
+                    try {
+                        text.append((char) Integer.parseInt(line.substring(position, position + 4), 16));
+                    } catch (NumberFormatException e) {
+                        throw malformed("invalid unicode escape");
+                    }
+                    position += 4;
+                    break;
+                default:
+                    text.append(escaped);
+            }
+        }
+    }
+
+    private static boolean isLiteralChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '-' || c == '+' || c == '.';
+    }
+
+    private void skipWhitespace() {
+        while (position < line.length() && Character.isWhitespace(line.charAt(position))) {
+            position++;
+        }
+    }
+
+    private void expect(char expected) {
+        if (take() != expected) {
+            throw malformed("expected " + expected);
+        }
+    }
+
+    private char peek() {
+        if (position >= line.length()) {
+            throw malformed("unexpected end of line");
+        }
+        return line.charAt(position);
+    }
+
+    private char take() {
+        char c = peek();
+        position++;
+        return c;
+    }
+
+    private DataTransferException malformed(String reason) {
+        return new DataTransferException("Malformed JSON on line " + lineNumber + " at column " + (position + 1) + ", " + reason + ".");
+    }
+}
@@ -0,0 +1,72 @@
+package com.github.aastrandemma.dao.transfer;
+
+import java.io.IOException;
+import java.io.Writer;
+
+// One flat JSON object per line. Numbers and booleans are written bare, everything else as a string
+final class JsonLinesRecordWriter implements RecordWriter {
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private final Writer writer;
+    // Column names already quoted and followed by a colon
+    private final String[] keys;
+
+    JsonLinesRecordWriter(Writer writer, String[] columns) {
+        this.writer = writer;
+        this.keys = new String[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            keys[i] = "\"" + columns[i] + "\":";
+        }
+    }
+
+    @Override
+    public void write(Object[] values) throws IOException {
+        writer.write('{');
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writer.write(keys[i]);
+            Object value = values[i];
+            if (value == null || value instanceof Number || value instanceof Boolean) {
+                writer.write(String.valueOf(value));
+            } else {
+                writeString(value.toString());
+            }
+        }
+        writer.write("}\n");
+    }
+
+    private void writeString(String value) throws IOException {
+        writer.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    writer.write("\\\"");
+                    break;
+                case '\\':
+                    writer.write("\\\\");
+                    break;
+                case '\n':
+                    writer.write("\\n");
+                    break;
+                case '\r':
+                    writer.write("\\r");
+                    break;
+                case '\t':
+                    writer.write("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        writer.write("\\u00");
+                        writer.write(HEX_DIGITS[c >> 4]);
+                        writer.write(HEX_DIGITS[c & 0xF]);
+                    } else {
+                        writer.write(c);
+                    }
+            }
+        }
+        writer.write('"');
+    }
+}
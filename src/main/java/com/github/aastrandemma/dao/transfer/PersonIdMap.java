@@ -0,0 +1,82 @@
+package com.github.aastrandemma.dao.transfer;
+
+import java.util.Arrays;
+
+// Open addressing int to int map from exported person id to the id in the target database. Boxed map entries
+// would cost several times as much per person on a large import
+final class PersonIdMap {
+    static final int ABSENT = -1;
+    private static final int EMPTY_KEY = Integer.MIN_VALUE;
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private int[] keys;
+    private int[] values;
+    private int size;
+
+    PersonIdMap() {
+        allocate(INITIAL_CAPACITY);
+    }
+
+    int get(int key) {
+        int mask = keys.length - 1;
+        for (int slot = slot(key, mask); ; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) {
+                return values[slot];
+            }
+            if (keys[slot] == EMPTY_KEY) {
+                return ABSENT;
+            }
+        }
+    }
+
+    void put(int key, int value) {
+        if (key == EMPTY_KEY) {
+            throw new IllegalArgumentException("Invalid person id: " + key);
+        }
+        // Kept at most half full so probe sequences stay short
+        if ((size + 1) * 2 > keys.length) {
+            grow();
+        }
+        int mask = keys.length - 1;
+        int slot = slot(key, mask);
+        while (keys[slot] != EMPTY_KEY && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        if (keys[slot] == EMPTY_KEY) {
+            keys[slot] = key;
+            size++;
+        }
+        values[slot] = value;
+    }
+
+    int size() {
+        return size;
+    }
+
+    void clear() {
+        allocate(INITIAL_CAPACITY);
+    }
+
+    private void grow() {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(oldKeys.length * 2);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY_KEY) {
+                put(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new int[capacity];
+        Arrays.fill(keys, EMPTY_KEY);
+        size = 0;
+    }
+
+    private static int slot(int key, int mask) {
+        int hash = key * 0x9E3779B9;
+        return (hash ^ hash >>> 16) & mask;
+    }
+}
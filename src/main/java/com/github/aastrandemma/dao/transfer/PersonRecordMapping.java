@@ -0,0 +1,41 @@
+package com.github.aastrandemma.dao.transfer;
+
+import com.github.aastrandemma.exception.DataTransferException;
+import com.github.aastrandemma.model.Person;
+
+final class PersonRecordMapping implements RecordMapping<Person> {
+    static final PersonRecordMapping INSTANCE = new PersonRecordMapping();
+    private static final String[] COLUMNS = {"id", "first_name", "last_name"};
+
+    private PersonRecordMapping() {
+    }
+
+    @Override
+    public String[] columns() {
+        return COLUMNS;
+    }
+
+    @Override
+    public Object[] toValues(Person person) {
+        return new Object[]{person.getId(), person.getFirstName(), person.getLastName()};
+    }
+
+    // The id is the one from the exported database, the importer maps it to the newly generated one
+    @Override
+    public Person fromValues(String[] values, long recordNumber) {
+        Integer id = RecordMapping.parseInteger(values[0], COLUMNS[0], recordNumber);
+        if (id == null) {
+            throw new DataTransferException("Missing id in person record " + recordNumber + ".");
+        }
+        try {
+            return new Person(id, values[1], values[2]);
+        } catch (RuntimeException e) {
+            throw new DataTransferException("Invalid person record " + recordNumber + ", " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public int referencedPersonId(String[] values, long recordNumber) {
+        return RecordMapping.parseInteger(values[0], COLUMNS[0], recordNumber);
+    }
+}
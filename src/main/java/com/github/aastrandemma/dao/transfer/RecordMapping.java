@@ -0,0 +1,26 @@
+package com.github.aastrandemma.dao.transfer;
+
+import com.github.aastrandemma.exception.DataTransferException;
+
+// Converts between a model and the flat values of one exported record
+interface RecordMapping<T> {
+    String[] columns();
+
+    Object[] toValues(T item);
+
+    T fromValues(String[] values, long recordNumber);
+
+    // The exported person id the importer has to translate, the person's own id or the todo's assignee id, 0 for none
+    int referencedPersonId(String[] values, long recordNumber);
+
+    static Integer parseInteger(String value, String column, long recordNumber) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Integer.valueOf(value.trim());
+        } catch (NumberFormatException e) {
+            throw new DataTransferException("Invalid " + column + " in record " + recordNumber + ": " + value, e);
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package com.github.aastrandemma.dao.transfer;
+
+import java.io.IOException;
+
+// Returns the raw text of each record in the column order the reader was opened with, null at end of input.
+// Missing and null values are null, numbers and booleans come back as their literal text
+interface RecordReader {
+    String[] next() throws IOException;
+}
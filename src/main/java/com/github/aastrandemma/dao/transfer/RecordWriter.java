@@ -0,0 +1,8 @@
+package com.github.aastrandemma.dao.transfer;
+
+import java.io.IOException;
+
+// Writes one record per call, values in the column order the writer was opened with
+interface RecordWriter {
+    void write(Object[] values) throws IOException;
+}
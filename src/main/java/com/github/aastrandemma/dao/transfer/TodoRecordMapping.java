@@ -0,0 +1,75 @@
+package com.github.aastrandemma.dao.transfer;
+
+import com.github.aastrandemma.exception.DataTransferException;
+import com.github.aastrandemma.model.Person;
+import com.github.aastrandemma.model.Todo;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+
+// Only the assignee id is exported. Imported todos come back unassigned, the importer sets the assignee once it
+// has translated referencedPersonId() into an id in the target database
+final class TodoRecordMapping implements RecordMapping<Todo> {
+    static final TodoRecordMapping INSTANCE = new TodoRecordMapping();
+    private static final String[] COLUMNS = {"id", "title", "description", "deadline", "done", "assignee_id"};
+
+    private TodoRecordMapping() {
+    }
+
+    @Override
+    public String[] columns() {
+        return COLUMNS;
+    }
+
+    @Override
+    public Object[] toValues(Todo todo) {
+        Person assignee = todo.getAssignee();
+        return new Object[]{todo.getId(), todo.getTitle(), todo.getDescription(), todo.getDeadline(), todo.isDone(),
+                assignee == null ? null : assignee.getId()};
+    }
+
+    @Override
+    public Todo fromValues(String[] values, long recordNumber) {
+        Integer id = RecordMapping.parseInteger(values[0], COLUMNS[0], recordNumber);
+        LocalDate deadline = parseDeadline(values[3], recordNumber);
+        boolean done = parseDone(values[4], recordNumber);
+        try {
+            return new Todo(id == null ? 0 : id, values[1], values[2], deadline, done);
+        } catch (RuntimeException e) {
+            throw new DataTransferException("Invalid todo record " + recordNumber + ", " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public int referencedPersonId(String[] values, long recordNumber) {
+        Integer assigneeId = RecordMapping.parseInteger(values[5], COLUMNS[5], recordNumber);
+        return assigneeId == null ? 0 : assigneeId;
+    }
+
+    private static LocalDate parseDeadline(String value, long recordNumber) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(value.trim());
+        } catch (DateTimeParseException e) {
+            throw new DataTransferException("Invalid deadline in todo record " + recordNumber + ": " + value, e);
+        }
+    }
+
+    private static boolean parseDone(String value, long recordNumber) {
+        if (value == null) {
+            return false;
+        }
+        switch (value.trim()) {
+            case "true":
+            case "1":
+                return true;
+            case "false":
+            case "0":
+                return false;
+            default:
+                throw new DataTransferException("Invalid done status in todo record " + recordNumber + ": " + value);
+        }
+    }
+}
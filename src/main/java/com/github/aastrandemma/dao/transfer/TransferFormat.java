@@ -0,0 +1,32 @@
+package com.github.aastrandemma.dao.transfer;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Locale;
+
+public enum TransferFormat {
+    CSV,
+    JSON_LINES;
+
+    // .csv, or .jsonl / .ndjson for JSON Lines
+    public static TransferFormat forPath(Path path) {
+        String fileName = path.getFileName().toString().toLowerCase(Locale.ROOT);
+        if (fileName.endsWith(".csv")) {
+            return CSV;
+        }
+        if (fileName.endsWith(".jsonl") || fileName.endsWith(".ndjson")) {
+            return JSON_LINES;
+        }
+        throw new IllegalArgumentException("Unknown transfer format for file: " + path);
+    }
+
+    RecordWriter openWriter(BufferedWriter writer, String[] columns) throws IOException {
+        return this == CSV ? new CsvRecordWriter(writer, columns) : new JsonLinesRecordWriter(writer, columns);
+    }
+
+    RecordReader openReader(BufferedReader reader, String[] columns) throws IOException {
+        return this == CSV ? new CsvRecordReader(reader, columns) : new JsonLinesRecordReader(reader, columns);
+    }
+}
@@ -0,0 +1,71 @@
+package com.github.aastrandemma.dao.transfer;
+
+import java.util.concurrent.TimeUnit;
+
+// Counts and per stage timings of one import or export. The read stage is parsing the file on import and the
+// database cursor on export, the write stage is the inserts on import and the file on export. On import the two
+// stages overlap, so elapsed time is less than their sum
+public class TransferReport {
+    private final long records;
+    private final long skippedRecords;
+    private final long unresolvedReferences;
+    private final long readNanos;
+    private final long writeNanos;
+    private final long elapsedNanos;
+
+    public TransferReport(long records, long skippedRecords, long unresolvedReferences, long readNanos, long writeNanos, long elapsedNanos) {
+        this.records = records;
+        this.skippedRecords = skippedRecords;
+        this.unresolvedReferences = unresolvedReferences;
+        this.readNanos = readNanos;
+        this.writeNanos = writeNanos;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    // Records transferred by this run
+    public long getRecords() {
+        return records;
+    }
+
+    // Records an earlier, interrupted import already committed
+    public long getSkippedRecords() {
+        return skippedRecords;
+    }
+
+    // Imported todos whose assignee couldn't be found, they were imported unassigned
+    public long getUnresolvedReferences() {
+        return unresolvedReferences;
+    }
+
+    public long getElapsedMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+    }
+
+    // Skipped records are read too, so they count towards the read rate
+    public double getReadRecordsPerSecond() {
+        return perSecond(records + skippedRecords, readNanos);
+    }
+
+    public double getWriteRecordsPerSecond() {
+        return perSecond(records, writeNanos);
+    }
+
+    public double getRecordsPerSecond() {
+        return perSecond(records, elapsedNanos);
+    }
+
+    private static double perSecond(long count, long nanos) {
+        return nanos <= 0 ? 0 : count * 1_000_000_000.0 / nanos;
+    }
+
+    @Override
+    public String toString() {
+        return "TransferReport {records: " + records +
+                ", skippedRecords: " + skippedRecords +
+                ", unresolvedReferences: " + unresolvedReferences +
+                ", elapsedMillis: " + getElapsedMillis() +
+                ", readRecordsPerSecond: " + Math.round(getReadRecordsPerSecond()) +
+                ", writeRecordsPerSecond: " + Math.round(getWriteRecordsPerSecond()) +
+                ", recordsPerSecond: " + Math.round(getRecordsPerSecond()) + "}";
+    }
+}
@@ -0,0 +1,7 @@
+package com.github.aastrandemma.exception;
+
+public class AdmissionRejectedException extends DBConnectionException {
+    public AdmissionRejectedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,26 @@
+package com.github.aastrandemma.exception;
+
+public class BatchInsertException extends MySQLException {
+    private final int chunkIndex;
+    private final int firstItemIndex;
+    private final int chunkSize;
+
+    public BatchInsertException(String message, int chunkIndex, int firstItemIndex, int chunkSize, Throwable cause) {
+        super(message, cause);
+        this.chunkIndex = chunkIndex;
+        this.firstItemIndex = firstItemIndex;
+        this.chunkSize = chunkSize;
+    }
+
+    public int getChunkIndex() {
+        return chunkIndex;
+    }
+
+    public int getFirstItemIndex() {
+        return firstItemIndex;
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+}
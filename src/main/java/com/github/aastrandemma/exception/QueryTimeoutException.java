@@ -0,0 +1,7 @@
+package com.github.aastrandemma.exception;
+
+public class QueryTimeoutException extends MySQLException {
+    public QueryTimeoutException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,34 @@
+package com.github.aastrandemma.model;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+public class Page<T> {
+    private final List<T> items;
+    private final Integer nextAfterId;
+
+    public Page(List<T> items, Integer nextAfterId) {
+        Objects.requireNonNull(items, "Items can't be null.");
+        this.items = Collections.unmodifiableList(items);
+        this.nextAfterId = nextAfterId;
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    // Continuation token, pass it as afterId to fetch the next page, null on the last page
+    public Integer getNextAfterId() {
+        return nextAfterId;
+    }
+
+    public boolean hasNext() {
+        return nextAfterId != null;
+    }
+
+    @Override
+    public String toString() {
+        return "Page {size: " + items.size() + ", nextAfterId: " + getNextAfterId() + "}";
+    }
+}
@@ -5,9 +5,16 @@ import java.util.Objects;
 import static java.util.Objects.hash;
 
 public class Person {
+    // Bit flags for getDirtyFields(), one per updatable column
+    public static final int FIELD_FIRST_NAME = 1;
+    public static final int FIELD_LAST_NAME = 1 << 1;
+    public static final int ALL_FIELDS = FIELD_FIRST_NAME | FIELD_LAST_NAME;
+
     private int id;
     private String firstName;
     private String lastName;
+    // Everything counts as changed until the DAO has loaded or saved this instance
+    private int dirtyFields = ALL_FIELDS;
 
     public Person(String firstName, String lastName) {
         setFirstName(firstName);
@@ -21,11 +28,17 @@ public class Person {
 
     public void setFirstName(String firstName) {
         Objects.requireNonNull(firstName, "First name can't be null.");
+        if (!firstName.equals(this.firstName)) {
+            dirtyFields |= FIELD_FIRST_NAME;
+        }
         this.firstName = firstName;
     }
 
     public void setLastName(String lastName) {
         Objects.requireNonNull(lastName, "Last name can't be null.");
+        if (!lastName.equals(this.lastName)) {
+            dirtyFields |= FIELD_LAST_NAME;
+        }
         this.lastName = lastName;
     }
 
@@ -33,6 +46,24 @@ public class Person {
         this.id = id;
     }
 
+    public int getDirtyFields() {
+        return dirtyFields;
+    }
+
+    public boolean isDirty() {
+        return dirtyFields != 0;
+    }
+
+    // Called by the DAO once the instance matches its row
+    public void clearDirtyFields() {
+        dirtyFields = 0;
+    }
+
+    // Called by the DAO when a write that cleared these fields was rolled back
+    public void markDirtyFields(int fields) {
+        dirtyFields |= fields & ALL_FIELDS;
+    }
+
     public int getId() {
         return id;
     }
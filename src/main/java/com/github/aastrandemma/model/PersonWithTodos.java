@@ -0,0 +1,31 @@
+package com.github.aastrandemma.model;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+// A person with every todo item assigned to them, the todo items reference this same Person instance
+public class PersonWithTodos {
+    private final Person person;
+    private final List<Todo> todoItems;
+
+    public PersonWithTodos(Person person, List<Todo> todoItems) {
+        Objects.requireNonNull(person, "Person can't be null.");
+        Objects.requireNonNull(todoItems, "Todo items can't be null.");
+        this.person = person;
+        this.todoItems = Collections.unmodifiableList(todoItems);
+    }
+
+    public Person getPerson() {
+        return person;
+    }
+
+    public List<Todo> getTodoItems() {
+        return todoItems;
+    }
+
+    @Override
+    public String toString() {
+        return "PersonWithTodos {person: " + getPerson() + ", todoItems: " + todoItems.size() + "}";
+    }
+}
@@ -0,0 +1,37 @@
+package com.github.aastrandemma.model;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+// Outcome of a save, the items carry their ids afterwards whether they were inserted or updated
+public class SaveResult<T> {
+    private final List<T> items;
+    private final int insertedCount;
+    private final int updatedCount;
+
+    public SaveResult(List<T> items, int insertedCount, int updatedCount) {
+        Objects.requireNonNull(items, "Items can't be null.");
+        this.items = Collections.unmodifiableList(items);
+        this.insertedCount = insertedCount;
+        this.updatedCount = updatedCount;
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    public int getInsertedCount() {
+        return insertedCount;
+    }
+
+    // Existing rows that were written, also when the saved values equal the stored ones
+    public int getUpdatedCount() {
+        return updatedCount;
+    }
+
+    @Override
+    public String toString() {
+        return "SaveResult {items: " + items.size() + ", inserted: " + getInsertedCount() + ", updated: " + getUpdatedCount() + "}";
+    }
+}
@@ -6,12 +6,22 @@ import java.util.Objects;
 import static java.util.Objects.hash;
 
 public class Todo {
+    // Bit flags for getDirtyFields(), one per updatable column
+    public static final int FIELD_TITLE = 1;
+    public static final int FIELD_DESCRIPTION = 1 << 1;
+    public static final int FIELD_DEADLINE = 1 << 2;
+    public static final int FIELD_DONE = 1 << 3;
+    public static final int FIELD_ASSIGNEE = 1 << 4;
+    public static final int ALL_FIELDS = FIELD_TITLE | FIELD_DESCRIPTION | FIELD_DEADLINE | FIELD_DONE | FIELD_ASSIGNEE;
+
     private int id;
     private String title;
     private String description;
     private LocalDate deadline;
     private boolean done;
     private Person assignee;
+    // Everything counts as changed until the DAO has loaded or saved this instance
+    private int dirtyFields = ALL_FIELDS;
 
     public Todo(String title) {
         setTitle(title);
@@ -49,25 +59,63 @@ public class Todo {
         if (title == null || title.trim().isEmpty()) {
             throw new IllegalArgumentException("Title can't be NULL or empty.");
         }
+        if (!title.equals(this.title)) {
+            dirtyFields |= FIELD_TITLE;
+        }
         this.title = title;
     }
 
     public void setDescription(String description) {
+        if (!Objects.equals(description, this.description)) {
+            dirtyFields |= FIELD_DESCRIPTION;
+        }
         this.description = description;
     }
 
     public void setDeadline(LocalDate deadline) {
+        if (!Objects.equals(deadline, this.deadline)) {
+            dirtyFields |= FIELD_DEADLINE;
+        }
         this.deadline = deadline;
     }
 
     public void setDone(boolean done) {
+        if (done != this.done) {
+            dirtyFields |= FIELD_DONE;
+        }
         this.done = done;
     }
 
     public void setAssignee(Person assignee) {
+        if (!Objects.equals(assigneeIdOf(assignee), assigneeIdOf(this.assignee))) {
+            dirtyFields |= FIELD_ASSIGNEE;
+        }
         this.assignee = assignee;
     }
 
+    public int getDirtyFields() {
+        return dirtyFields;
+    }
+
+    public boolean isDirty() {
+        return dirtyFields != 0;
+    }
+
+    // Called by the DAO once the instance matches its row
+    public void clearDirtyFields() {
+        dirtyFields = 0;
+    }
+
+    // Called by the DAO when a write that cleared these fields was rolled back
+    public void markDirtyFields(int fields) {
+        dirtyFields |= fields & ALL_FIELDS;
+    }
+
+    // Only the assignee id is persisted, so that is what decides whether the assignee changed
+    private static Integer assigneeIdOf(Person assignee) {
+        return assignee == null ? null : assignee.getId();
+    }
+
     public int getId() {
         return id;
     }
@@ -0,0 +1,76 @@
+package com.github.aastrandemma.model;
+
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.Map;
+
+public class TodoStatistics {
+    private final LocalDate asOf;
+    private final long doneCount;
+    private final long undoneCount;
+    private final long unassignedCount;
+    private final long overdueCount;
+    private final int dueWithinDays;
+    private final long dueWithinDaysCount;
+    private final Map<Integer, Long> openCountByAssignee;
+
+    public TodoStatistics(LocalDate asOf, long doneCount, long undoneCount, long unassignedCount, long overdueCount,
+                          int dueWithinDays, long dueWithinDaysCount, Map<Integer, Long> openCountByAssignee) {
+        this.asOf = asOf;
+        this.doneCount = doneCount;
+        this.undoneCount = undoneCount;
+        this.unassignedCount = unassignedCount;
+        this.overdueCount = overdueCount;
+        this.dueWithinDays = dueWithinDays;
+        this.dueWithinDaysCount = dueWithinDaysCount;
+        this.openCountByAssignee = Collections.unmodifiableMap(openCountByAssignee);
+    }
+
+    // The date overdue and due-within counts were computed against
+    public LocalDate getAsOf() {
+        return asOf;
+    }
+
+    public long getDoneCount() {
+        return doneCount;
+    }
+
+    public long getUndoneCount() {
+        return undoneCount;
+    }
+
+    public long getTotalCount() {
+        return doneCount + undoneCount;
+    }
+
+    public long getUnassignedCount() {
+        return unassignedCount;
+    }
+
+    // Open todo items with a deadline before asOf
+    public long getOverdueCount() {
+        return overdueCount;
+    }
+
+    public int getDueWithinDays() {
+        return dueWithinDays;
+    }
+
+    // Open todo items with a deadline from asOf up to and including asOf + dueWithinDays
+    public long getDueWithinDaysCount() {
+        return dueWithinDaysCount;
+    }
+
+    // Open todo items per assignee id, people without open items are left out
+    public Map<Integer, Long> getOpenCountByAssignee() {
+        return openCountByAssignee;
+    }
+
+    @Override
+    public String toString() {
+        return "TodoStatistics {asOf: " + getAsOf() + ", done: " + getDoneCount() + ", undone: " + getUndoneCount()
+                + ", unassigned: " + getUnassignedCount() + ", overdue: " + getOverdueCount() + ", dueWithin"
+                + getDueWithinDays() + "Days: " + getDueWithinDaysCount() + ", assigneesWithOpenItems: "
+                + getOpenCountByAssignee().size() + "}";
+    }
+}
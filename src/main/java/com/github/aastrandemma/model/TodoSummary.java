@@ -0,0 +1,63 @@
+package com.github.aastrandemma.model;
+
+import java.time.LocalDate;
+import java.util.Objects;
+
+import static java.util.Objects.hash;
+
+// Read-only list view of a todo item, leaves out the description
+public class TodoSummary {
+    private final int id;
+    private final String title;
+    private final LocalDate deadline;
+    private final boolean done;
+    private final Integer assigneeId;
+
+    public TodoSummary(int id, String title, LocalDate deadline, boolean done, Integer assigneeId) {
+        this.id = id;
+        this.title = title;
+        this.deadline = deadline;
+        this.done = done;
+        this.assigneeId = assigneeId;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public LocalDate getDeadline() {
+        return deadline;
+    }
+
+    public boolean isDone() {
+        return done;
+    }
+
+    // null when the todo item is unassigned
+    public Integer getAssigneeId() {
+        return assigneeId;
+    }
+
+    @Override
+    public int hashCode() {
+        return hash(id, title, deadline, done, assigneeId);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (!(obj instanceof TodoSummary)) return false;
+        TodoSummary other = (TodoSummary) obj;
+        return id == other.getId() && Objects.equals(title, other.getTitle()) && Objects.equals(deadline, other.getDeadline())
+                && done == other.isDone() && Objects.equals(assigneeId, other.getAssigneeId());
+    }
+
+    @Override
+    public String toString() {
+        return "TodoSummary {id: " + getId() + ", title: " + getTitle() + ", deadline: " + getDeadline()
+                + ", done: " + isDone() + ", assigneeId: " + getAssigneeId() + "}";
+    }
+}
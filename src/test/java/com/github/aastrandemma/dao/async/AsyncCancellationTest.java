@@ -0,0 +1,124 @@
+package com.github.aastrandemma.dao.async;
+
+import com.github.aastrandemma.dao.db.CancellableDataSource;
+import com.github.aastrandemma.dao.db.ConnectionPool;
+import com.github.aastrandemma.dao.db.ConnectionPoolConfig;
+import com.github.aastrandemma.exception.MySQLException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+// Cancelling an async call stops the query it is running and gives its connection back to the pool
+class AsyncCancellationTest {
+    private static final String JDBC_URL = "jdbc:h2:mem:async_cancellation;DB_CLOSE_DELAY=-1";
+    // Scans ten billion rows, far longer than any test waits
+    private static final String ENDLESS_QUERY = "SELECT COUNT(*) FROM SYSTEM_RANGE(1, 10000000000) WHERE MOD(X, 7) = 3";
+
+    private ConnectionPool pool;
+    private CancellableDataSource dataSource;
+    private AsyncDaoExecutor executor;
+
+    @BeforeEach
+    void setUp() {
+        ConnectionPoolConfig config = new ConnectionPoolConfig(JDBC_URL, "sa", "");
+        config.setMinIdle(0);
+        config.setMaxSize(2);
+        pool = new ConnectionPool(config);
+        dataSource = new CancellableDataSource(pool);
+        executor = new AsyncDaoExecutor(2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.close();
+        pool.close();
+    }
+
+    @Test
+    void cancellingARunningCallCancelsItsStatementAndReturnsTheConnection() throws Exception {
+        CompletableFuture<Long> call = executor.submit(this::endlessQuery);
+        awaitEndlessQueryExecuting();
+        assertEquals(1, pool.getStats().getActive());
+
+        assertTrue(call.cancel(true));
+
+        assertThrows(CancellationException.class, call::join);
+        awaitNoActiveConnections();
+    }
+
+    @Test
+    void failingCallOfBothCancelsItsSibling() throws Exception {
+        CompletableFuture<Long> slow = executor.submit(this::endlessQuery);
+        awaitEndlessQueryExecuting();
+        CompletableFuture<Long> failing = executor.submit(() -> {
+            throw new MySQLException("Lookup failed.");
+        });
+
+        CompletableFuture<Long> combined = FanOut.both(slow, failing, Long::sum);
+
+        CompletionException thrown = assertThrows(CompletionException.class, combined::join);
+        assertTrue(thrown.getCause() instanceof MySQLException);
+        assertTrue(slow.isCancelled());
+        awaitNoActiveConnections();
+    }
+
+    private Long endlessQuery() {
+        try (
+                Connection connection = dataSource.getConnection();
+                Statement statement = connection.createStatement();
+                ResultSet resultSet = statement.executeQuery(ENDLESS_QUERY)
+        ) {
+            resultSet.next();
+            return resultSet.getLong(1);
+        } catch (SQLException e) {
+            throw new MySQLException("Query failed, ", e);
+        }
+    }
+
+    // Statement.cancel() only stops a statement the database is already executing, so wait until H2 lists it
+    private static void awaitEndlessQueryExecuting() throws SQLException, InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        try (
+                Connection connection = DriverManager.getConnection(JDBC_URL, "sa", "");
+                PreparedStatement preparedStatement = connection.prepareStatement(
+                        "SELECT COUNT(*) FROM INFORMATION_SCHEMA.SESSIONS WHERE EXECUTING_STATEMENT = ?")
+        ) {
+            preparedStatement.setString(1, ENDLESS_QUERY);
+            while (System.nanoTime() < deadline) {
+                try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                    resultSet.next();
+                    if (resultSet.getInt(1) > 0) {
+                        return;
+                    }
+                }
+                Thread.sleep(10);
+            }
+        }
+        fail("The query didn't start executing.");
+    }
+
+    // The worker releases the connection once the cancelled statement returns, shortly after cancel()
+    private void awaitNoActiveConnections() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (pool.getStats().getActive() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, pool.getStats().getActive());
+    }
+}
@@ -0,0 +1,168 @@
+package com.github.aastrandemma.dao.columnar;
+
+import com.github.aastrandemma.model.TodoSummary;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Large enough for the parallel scan, every filter is checked against a plain predicate over the same todos
+class TodoColumnStoreTest {
+    private static final int ROW_COUNT = 200_000;
+    private static final int PEOPLE_COUNT = 20;
+    private static final LocalDate TODAY = LocalDate.of(2026, 6, 15);
+
+    private final Map<Integer, Row> rows = new TreeMap<>();
+    private final Random random = new Random(42);
+    private TodoColumnStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = new TodoColumnStore();
+        for (int id = 1; id <= ROW_COUNT; id++) {
+            Row row = randomRow(id);
+            rows.put(id, row);
+            store.load(id, row.title, row.deadline, row.done, row.assigneeId);
+        }
+        store.finishLoad();
+    }
+
+    @Test
+    void filtersMatchPlainPredicates() {
+        assertFiltersMatch();
+    }
+
+    @Test
+    void filtersMatchAfterWritesAndCompaction() {
+        // A third of the rows, enough to trigger compaction
+        for (int id = 3; id <= ROW_COUNT; id += 3) {
+            store.remove(id);
+            rows.remove(id);
+        }
+        for (int id = 1; id <= ROW_COUNT; id += 7) {
+            Row row = rows.get(id);
+            if (row != null) {
+                row.done = !row.done;
+                store.setDone(id, row.done);
+            }
+        }
+        store.reassign(4, 9);
+        store.reassign(5, null);
+        for (Row row : rows.values()) {
+            if (row.assigneeId != null && row.assigneeId == 4) {
+                row.assigneeId = 9;
+            } else if (row.assigneeId != null && row.assigneeId == 5) {
+                row.assigneeId = null;
+            }
+        }
+        for (int id = ROW_COUNT + 1; id <= ROW_COUNT + 1000; id++) {
+            Row row = randomRow(id);
+            rows.put(id, row);
+            store.put(id, row.title, row.deadline, row.done, row.assigneeId);
+        }
+        Row replaced = randomRow(1);
+        rows.put(1, replaced);
+        store.put(1, replaced.title, replaced.deadline, replaced.done, replaced.assigneeId);
+
+        assertFiltersMatch();
+    }
+
+    @Test
+    void limitReturnsTheLowestMatchingIds() {
+        TodoFilter filter = TodoFilter.all().done(false).assignedTo(3);
+        List<Integer> expected = expectedIds(row -> !row.done && Objects.equals(row.assigneeId, 3));
+
+        List<Integer> found = new ArrayList<>();
+        for (TodoSummary summary : store.find(filter, 10)) {
+            found.add(summary.getId());
+        }
+
+        assertEquals(expected.subList(0, 10), found);
+    }
+
+    private void assertFiltersMatch() {
+        int[] manyPeople = {1, 2, 3, 6, 7, 8, 10, 11, 12, 15, 17};
+        Set<Integer> manyPeopleSet = new HashSet<>();
+        for (int personId : manyPeople) {
+            manyPeopleSet.add(personId);
+        }
+        Map<TodoFilter, Predicate<Row>> cases = new LinkedHashMap<>();
+        cases.put(TodoFilter.all(), row -> true);
+        cases.put(TodoFilter.all().done(true), row -> row.done);
+        cases.put(TodoFilter.all().done(false), row -> !row.done);
+        cases.put(TodoFilter.all().assignedTo(9), row -> Objects.equals(row.assigneeId, 9));
+        cases.put(TodoFilter.all().assignedTo(manyPeople), row -> manyPeopleSet.contains(row.assigneeId));
+        cases.put(TodoFilter.all().unassigned(), row -> row.assigneeId == null);
+        cases.put(TodoFilter.all().assignedTo(2, 13).unassigned(),
+                row -> row.assigneeId == null || row.assigneeId == 2 || row.assigneeId == 13);
+        cases.put(TodoFilter.all().withoutDeadline(), row -> row.deadline == null);
+        cases.put(TodoFilter.all().deadlineBetween(TODAY.minusDays(10), TODAY.plusDays(10)),
+                row -> row.deadline != null && !row.deadline.isBefore(TODAY.minusDays(10)) && !row.deadline.isAfter(TODAY.plusDays(10)));
+        cases.put(TodoFilter.all().deadlineBefore(TODAY), row -> row.deadline != null && row.deadline.isBefore(TODAY));
+        cases.put(TodoFilter.all().deadlineAfter(TODAY), row -> row.deadline != null && row.deadline.isAfter(TODAY));
+        cases.put(TodoFilter.all().overdue(TODAY), row -> !row.done && row.deadline != null && row.deadline.isBefore(TODAY));
+        cases.put(TodoFilter.all().done(false).assignedTo(manyPeople).deadlineBetween(TODAY, TODAY.plusDays(30)),
+                row -> !row.done && manyPeopleSet.contains(row.assigneeId) && row.deadline != null
+                        && !row.deadline.isBefore(TODAY) && !row.deadline.isAfter(TODAY.plusDays(30)));
+        for (Map.Entry<TodoFilter, Predicate<Row>> entry : cases.entrySet()) {
+            TodoFilter filter = entry.getKey();
+            List<Integer> expected = expectedIds(entry.getValue());
+            assertEquals(expected.size(), store.count(filter), filter.toString());
+            assertEquals(expected, sortedIds(store.findIds(filter)), filter.toString());
+        }
+        assertEquals(rows.size(), store.size());
+    }
+
+    private List<Integer> expectedIds(Predicate<Row> predicate) {
+        List<Integer> ids = new ArrayList<>();
+        for (Map.Entry<Integer, Row> entry : rows.entrySet()) {
+            if (predicate.test(entry.getValue())) {
+                ids.add(entry.getKey());
+            }
+        }
+        return ids;
+    }
+
+    private static List<Integer> sortedIds(int[] ids) {
+        int[] sorted = ids.clone();
+        Arrays.sort(sorted);
+        List<Integer> list = new ArrayList<>(sorted.length);
+        for (int id : sorted) {
+            list.add(id);
+        }
+        return list;
+    }
+
+    private Row randomRow(int id) {
+        LocalDate deadline = random.nextInt(6) == 0 ? null : TODAY.plusDays(random.nextInt(121) - 60);
+        Integer assigneeId = random.nextInt(5) == 0 ? null : 1 + random.nextInt(PEOPLE_COUNT);
+        return new Row("Todo " + id, deadline, random.nextBoolean(), assigneeId);
+    }
+
+    private static final class Row {
+        private final String title;
+        private final LocalDate deadline;
+        private boolean done;
+        private Integer assigneeId;
+
+        private Row(String title, LocalDate deadline, boolean done, Integer assigneeId) {
+            this.title = title;
+            this.deadline = deadline;
+            this.done = done;
+            this.assigneeId = assigneeId;
+        }
+    }
+}
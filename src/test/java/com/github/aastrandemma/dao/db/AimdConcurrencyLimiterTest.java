@@ -0,0 +1,88 @@
+package com.github.aastrandemma.dao.db;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AimdConcurrencyLimiterTest {
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long SLOW = TimeUnit.HOURS.toNanos(2);
+
+    @Test
+    void tryAcquireRejectsAtTheLimit() {
+        AimdConcurrencyLimiter limiter = new AimdConcurrencyLimiter(2, 1, 10, 1, TimeUnit.SECONDS);
+
+        assertTrue(limiter.tryAcquire());
+        assertTrue(limiter.tryAcquire());
+        assertFalse(limiter.tryAcquire());
+        assertEquals(2, limiter.getInFlight());
+        assertEquals(1, limiter.getRejectedCount());
+
+        limiter.release(FAST, false);
+        assertTrue(limiter.tryAcquire());
+    }
+
+    @Test
+    void overlappingSlowCallsShrinkTheLimitOncePerLatencyTarget() {
+        AimdConcurrencyLimiter limiter = new AimdConcurrencyLimiter(10, 1, 20, 1, TimeUnit.HOURS);
+        for (int i = 0; i < 5; i++) {
+            assertTrue(limiter.tryAcquire());
+        }
+
+        for (int i = 0; i < 5; i++) {
+            limiter.release(SLOW, false);
+        }
+
+        assertEquals(9, limiter.getLimit());
+    }
+
+    @Test
+    void slowCallsAfterTheLatencyTargetShrinkTheLimitAgain() throws InterruptedException {
+        AimdConcurrencyLimiter limiter = new AimdConcurrencyLimiter(10, 1, 20, 20, TimeUnit.MILLISECONDS);
+
+        limiter.tryAcquire();
+        limiter.release(SLOW, false);
+        Thread.sleep(30);
+        limiter.tryAcquire();
+        limiter.release(0, true);
+
+        // 10 * 0.9 * 0.9
+        assertEquals(8, limiter.getLimit());
+    }
+
+    @Test
+    void limitNeverShrinksBelowTheMinimum() {
+        AimdConcurrencyLimiter limiter = new AimdConcurrencyLimiter(5, 2, 10, 1, TimeUnit.NANOSECONDS);
+        for (int i = 0; i < 10; i++) {
+            limiter.tryAcquire();
+            limiter.release(SLOW, false);
+        }
+
+        assertEquals(2, limiter.getLimit());
+    }
+
+    @Test
+    void fastCallsOnlyGrowTheLimitWhileHalfOfItIsInUse() {
+        AimdConcurrencyLimiter limiter = new AimdConcurrencyLimiter(4, 1, 10, 1, TimeUnit.SECONDS);
+        for (int i = 0; i < 100; i++) {
+            limiter.tryAcquire();
+            limiter.release(FAST, false);
+        }
+        assertEquals(4, limiter.getLimit());
+
+        // Each full round grows the limit by 1/limit for the two releases with at least half of it in flight
+        for (int round = 0; round < 3; round++) {
+            while (limiter.tryAcquire()) {
+                // fill up to the limit
+            }
+            while (limiter.getInFlight() > 0) {
+                limiter.release(FAST, false);
+            }
+        }
+        assertEquals(5, limiter.getLimit());
+    }
+}
@@ -0,0 +1,164 @@
+package com.github.aastrandemma.dao.db;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConnectionPoolStressTest {
+    private static final String JDBC_URL = "jdbc:h2:mem:pool_stress;DB_CLOSE_DELAY=-1";
+    private static final int MAX_SIZE = 8;
+    private static final int THREADS = 32;
+    private static final int BORROWS_PER_THREAD = 200;
+
+    // Holds the in-memory database open and counts the physical sessions the pool has open
+    private Connection monitor;
+    private ConnectionPool pool;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        monitor = DriverManager.getConnection(JDBC_URL, "sa", "");
+        try (Statement statement = monitor.createStatement()) {
+            statement.execute("CREATE TABLE IF NOT EXISTS counter (id INT PRIMARY KEY, hits INT NOT NULL)");
+            statement.execute("MERGE INTO counter KEY (id) VALUES (1, 0)");
+        }
+        ConnectionPoolConfig config = new ConnectionPoolConfig(JDBC_URL, "sa", "");
+        config.setMinIdle(4);
+        config.setMaxSize(MAX_SIZE);
+        config.setBorrowTimeoutMillis(50);
+        // Housekeeping refills idle connections while the threads borrow, which is where the pool used to overshoot
+        config.setHousekeepingIntervalMillis(1);
+        pool = new ConnectionPool(config);
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        pool.close();
+        try (Statement statement = monitor.createStatement()) {
+            statement.execute("DROP TABLE counter");
+        }
+        monitor.close();
+    }
+
+    @Test
+    void concurrentBorrowersStayWithinBoundsAndReturnEveryConnection() throws Exception {
+        AtomicInteger maxBorrowed = new AtomicInteger();
+        AtomicInteger maxSessions = new AtomicInteger();
+        AtomicInteger completed = new AtomicInteger();
+        AtomicInteger timeouts = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int borrow = 0; borrow < BORROWS_PER_THREAD; borrow++) {
+                    try (Connection connection = pool.getConnection()) {
+                        maxBorrowed.accumulateAndGet(pool.getStats().getActive(), Math::max);
+                        useConnection(connection);
+                        completed.incrementAndGet();
+                    } catch (SQLTransientConnectionException e) {
+                        timeouts.incrementAndGet();
+                    }
+                    if (borrow % 20 == 0) {
+                        maxSessions.accumulateAndGet(countSessions(), Math::max);
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(1, TimeUnit.MINUTES);
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(THREADS * BORROWS_PER_THREAD, completed.get() + timeouts.get());
+        assertTrue(completed.get() > 0, "No borrow succeeded, timeouts: " + timeouts.get());
+        assertTrue(maxBorrowed.get() <= MAX_SIZE, "Borrowed " + maxBorrowed.get() + " connections at once");
+        // The monitor session is not the pool's
+        assertTrue(maxSessions.get() - 1 <= MAX_SIZE, "Pool held " + (maxSessions.get() - 1) + " physical connections");
+
+        PoolStats stats = pool.getStats();
+        assertEquals(0, stats.getActive(), "Connections still borrowed after all threads finished");
+        assertTrue(stats.getIdle() <= MAX_SIZE);
+        assertEquals(timeouts.get(), stats.getBorrowTimeouts());
+        assertEquals(completed.get(), counterHits());
+
+        pool.close();
+        assertEquals(1, countSessions(), "Physical connections left open after the pool was closed");
+    }
+
+    @Test
+    void returnedConnectionIsResetForTheNextBorrower() throws SQLException {
+        Statement leftOpen;
+        try (Connection connection = pool.getConnection()) {
+            connection.setAutoCommit(false);
+            connection.setReadOnly(true);
+            connection.setTransactionIsolation(Connection.TRANSACTION_SERIALIZABLE);
+            leftOpen = connection.createStatement();
+        }
+        assertTrue(leftOpen.isClosed(), "Statement left open by the borrower wasn't closed on release");
+        for (int i = 0; i < MAX_SIZE; i++) {
+            try (Connection connection = pool.getConnection()) {
+                assertTrue(connection.getAutoCommit());
+                assertFalse(connection.isReadOnly());
+                assertEquals(Connection.TRANSACTION_READ_COMMITTED, connection.getTransactionIsolation());
+            }
+        }
+    }
+
+    private static void useConnection(Connection connection) throws SQLException, InterruptedException {
+        connection.setAutoCommit(false);
+        try (PreparedStatement preparedStatement = connection.prepareStatement("UPDATE counter SET hits = hits + 1 WHERE id = 1")) {
+            preparedStatement.executeUpdate();
+        }
+        connection.commit();
+        // Every other borrow leaves a statement open, the pool has to close it on release
+        if (ThreadLocalRandom.current().nextBoolean()) {
+            connection.createStatement().executeQuery("SELECT 1");
+        }
+        TimeUnit.MICROSECONDS.sleep(ThreadLocalRandom.current().nextInt(500));
+    }
+
+    private int countSessions() throws SQLException {
+        synchronized (monitor) {
+            try (Statement statement = monitor.createStatement();
+                 ResultSet resultSet = statement.executeQuery("SELECT COUNT(*) FROM INFORMATION_SCHEMA.SESSIONS")
+            ) {
+                resultSet.next();
+                return resultSet.getInt(1);
+            }
+        }
+    }
+
+    private int counterHits() throws SQLException {
+        try (Statement statement = monitor.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT hits FROM counter WHERE id = 1")
+        ) {
+            resultSet.next();
+            return resultSet.getInt(1);
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.github.aastrandemma.dao.db;
+
+import com.github.aastrandemma.exception.MySQLException;
+import com.github.aastrandemma.exception.QueryTimeoutException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// QueryDeadline and QueryTimeouts against statements created through a CancellableDataSource
+class QueryDeadlineTest {
+    // Scans ten billion rows, far longer than any deadline here
+    private static final String ENDLESS_QUERY = "SELECT COUNT(*) FROM SYSTEM_RANGE(1, 10000000000) WHERE MOD(X, 7) = 3";
+
+    private ConnectionPool pool;
+    private CancellableDataSource dataSource;
+
+    @BeforeEach
+    void setUp() {
+        ConnectionPoolConfig config = new ConnectionPoolConfig("jdbc:h2:mem:query_deadline;DB_CLOSE_DELAY=-1", "sa", "");
+        config.setMinIdle(0);
+        pool = new ConnectionPool(config);
+        dataSource = new CancellableDataSource(pool);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.close();
+    }
+
+    @Test
+    void remainingTimeBecomesTheQueryTimeoutRoundedUpToSeconds() {
+        assertEquals(3, (int) QueryDeadline.call(2500, TimeUnit.MILLISECONDS, this::queryTimeout));
+        assertEquals(1, (int) QueryDeadline.call(10, TimeUnit.MILLISECONDS, this::queryTimeout));
+    }
+
+    @Test
+    void nestedDeadlineOnlyShortensTheOuterOne() {
+        assertEquals(2, (int) QueryDeadline.call(2, TimeUnit.SECONDS,
+                () -> QueryDeadline.call(1, TimeUnit.MINUTES, this::queryTimeout)));
+        assertEquals(1, (int) QueryDeadline.call(1, TimeUnit.MINUTES,
+                () -> QueryDeadline.call(1, TimeUnit.SECONDS, this::queryTimeout)));
+    }
+
+    @Test
+    void expiredDeadlineCancelsTheRunningQuery() {
+        long start = System.nanoTime();
+
+        QueryTimeoutException thrown = assertThrows(QueryTimeoutException.class,
+                () -> QueryDeadline.call(200, TimeUnit.MILLISECONDS, this::endlessQuery));
+
+        assertTrue(thrown.getCause() instanceof MySQLException);
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+        assertEquals(0, pool.getStats().getActive());
+        assertFalse(QueryDeadline.isCurrentExpired());
+    }
+
+    @Test
+    void wrappedDaoRunsEachMethodUnderItsOwnTimeout() {
+        TimeoutProbe probe = new QueryTimeouts(5, TimeUnit.SECONDS)
+                .set("slowReport", 30, TimeUnit.SECONDS)
+                .wrap(TimeoutProbe.class, new TimeoutProbe() {
+                    @Override
+                    public int find() {
+                        return queryTimeout();
+                    }
+
+                    @Override
+                    public int slowReport() {
+                        return queryTimeout();
+                    }
+                });
+
+        assertEquals(5, probe.find());
+        assertEquals(30, probe.slowReport());
+    }
+
+    interface TimeoutProbe {
+        int find();
+
+        int slowReport();
+    }
+
+    private Integer queryTimeout() {
+        try (
+                Connection connection = dataSource.getConnection();
+                Statement statement = connection.createStatement()
+        ) {
+            return statement.getQueryTimeout();
+        } catch (SQLException e) {
+            throw new MySQLException("Failed to create statement, ", e);
+        }
+    }
+
+    private Long endlessQuery() {
+        try (
+                Connection connection = dataSource.getConnection();
+                Statement statement = connection.createStatement();
+                ResultSet resultSet = statement.executeQuery(ENDLESS_QUERY)
+        ) {
+            resultSet.next();
+            return resultSet.getLong(1);
+        } catch (SQLException e) {
+            throw new MySQLException("Query failed, ", e);
+        }
+    }
+}
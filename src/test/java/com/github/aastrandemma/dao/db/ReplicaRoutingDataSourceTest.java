@@ -0,0 +1,114 @@
+package com.github.aastrandemma.dao.db;
+
+import com.github.aastrandemma.dao.async.AsyncDaoExecutor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ReplicaRoutingDataSourceTest {
+    private ConnectionPool replica;
+    private ReplicaRoutingDataSource routing;
+
+    @BeforeEach
+    void setUp() {
+        ConnectionPoolConfig replicaConfig = new ConnectionPoolConfig("jdbc:h2:mem:routing_replica;DB_CLOSE_DELAY=-1", "sa", "");
+        replicaConfig.setMinIdle(0);
+        replicaConfig.setMaxSize(1);
+        replicaConfig.setBorrowTimeoutMillis(5000);
+        replica = new ConnectionPool(replicaConfig);
+        ConnectionPool primary = new ConnectionPool(new ConnectionPoolConfig("jdbc:h2:mem:routing_primary;DB_CLOSE_DELAY=-1", "sa", ""));
+        routing = new ReplicaRoutingDataSource(primary, Collections.singletonList(replica), ReplicaSelectionStrategy.ROUND_ROBIN,
+                1, TimeUnit.MINUTES);
+    }
+
+    @AfterEach
+    void tearDown() {
+        routing.close();
+    }
+
+    @Test
+    void readOnAnotherThreadStaysOnPrimaryUnderTheWritersToken() throws Exception {
+        ConsistencyToken token = new ConsistencyToken();
+        token.run(this::write);
+
+        ExecutorService other = Executors.newSingleThreadExecutor();
+        try {
+            other.submit(() -> token.run(this::read)).get();
+            assertEquals(1, routing.getPrimaryReadCount());
+            assertEquals(0, routing.getReplicaReadCount());
+
+            other.submit(this::read).get();
+            assertEquals(1, routing.getReplicaReadCount());
+        } finally {
+            other.shutdown();
+        }
+    }
+
+    @Test
+    void asyncCallsCarryTheSubmittersToken() throws Exception {
+        ConsistencyToken token = new ConsistencyToken();
+        try (AsyncDaoExecutor executor = new AsyncDaoExecutor(2)) {
+            CompletableFuture<Void> write = token.run(() -> executor.run(this::write));
+            write.get(5, TimeUnit.SECONDS);
+            token.run(() -> executor.run(this::read)).get(5, TimeUnit.SECONDS);
+        }
+
+        assertEquals(1, routing.getPrimaryReadCount());
+        assertEquals(0, routing.getReplicaReadCount());
+    }
+
+    @Test
+    void saturatedReplicaFallsBackToPrimaryWithoutWaiting() throws SQLException {
+        try (Connection held = replica.getConnection()) {
+            assertFalse(held.isClosed());
+            long start = System.nanoTime();
+            read();
+            long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+            assertTrue(elapsedMillis < 1000, "Read waited " + elapsedMillis + " ms for the saturated replica");
+            assertEquals(1, routing.getPrimaryReadCount());
+            assertEquals(0, routing.getReplicaReadCount());
+        }
+    }
+
+    @Test
+    void decoratorsKeepReadsOnTheReplica() throws SQLException {
+        DataSource decorated = new SlowQueryLoggingDataSource(new CancellableDataSource(routing), 1, TimeUnit.SECONDS);
+
+        try (Connection connection = ConnectionHolder.getReadConnection(decorated)) {
+            connection.createStatement().close();
+        }
+
+        assertEquals(1, routing.getReplicaReadCount());
+        assertEquals(0, routing.getPrimaryReadCount());
+    }
+
+    private void write() {
+        try (Connection connection = routing.getConnection()) {
+            connection.createStatement().close();
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void read() {
+        try (Connection connection = ConnectionHolder.getReadConnection(routing)) {
+            connection.createStatement().close();
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.github.aastrandemma.dao.db;
+
+import com.github.aastrandemma.exception.MySQLException;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TransactionTemplateTest {
+    private static final String JDBC_URL = "jdbc:h2:mem:transaction_template";
+
+    @Test
+    void failingAutoCommitRestoreIsSuppressedIntoTheRollbackCause() {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(new RestoreFailingDataSource());
+        IllegalStateException failure = new IllegalStateException("Callback failed");
+
+        IllegalStateException thrown = assertThrows(IllegalStateException.class,
+                () -> transactionTemplate.executeWithoutResult(connection -> {
+                    throw failure;
+                }));
+
+        assertSame(failure, thrown);
+        assertEquals(1, thrown.getSuppressed().length);
+        assertEquals("Restore failed", thrown.getSuppressed()[0].getMessage());
+    }
+
+    @Test
+    void failingAutoCommitRestoreAfterSqlFailureIsSuppressed() {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(new RestoreFailingDataSource());
+
+        MySQLException thrown = assertThrows(MySQLException.class,
+                () -> transactionTemplate.executeWithoutResult(connection -> {
+                    throw new SQLException("Statement failed");
+                }));
+
+        assertEquals("Statement failed", thrown.getCause().getMessage());
+        assertEquals("Restore failed", thrown.getSuppressed()[0].getMessage());
+    }
+
+    @Test
+    void failingAutoCommitRestoreAfterCommitStillReportsSuccessAndRunsAfterCommitActions() {
+        RestoreFailingDataSource dataSource = new RestoreFailingDataSource();
+        List<String> ran = new ArrayList<>();
+
+        String result = new TransactionTemplate(dataSource).execute(connection -> {
+            ConnectionHolder.runAfterCommit(dataSource, () -> ran.add("after commit"));
+            return "committed";
+        });
+
+        assertEquals("committed", result);
+        assertEquals(1, ran.size());
+    }
+
+    @Test
+    void failingAfterCommitActionDoesNotStopTheOthersOrReachTheCaller() {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        List<String> ran = new ArrayList<>();
+
+        String result = new TransactionTemplate(dataSource).execute(connection -> {
+            ConnectionHolder.runAfterCommit(dataSource, () -> {
+                throw new IllegalStateException("Bus closed");
+            });
+            ConnectionHolder.runAfterCommit(dataSource, () -> ran.add("second"));
+            return "committed";
+        });
+
+        assertEquals("committed", result);
+        assertEquals(1, ran.size());
+    }
+
+    private static final class JdbcDataSource extends AbstractDataSource {
+        @Override
+        public Connection getConnection() throws SQLException {
+            return DriverManager.getConnection(JDBC_URL, "sa", "");
+        }
+    }
+
+    // Hands out connections whose autoCommit can be switched off but not back on
+    private static final class RestoreFailingDataSource extends AbstractDataSource {
+        @Override
+        public Connection getConnection() throws SQLException {
+            Connection connection = DriverManager.getConnection(JDBC_URL, "sa", "");
+            return (Connection) Proxy.newProxyInstance(
+                    Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class},
+                    (proxy, method, args) -> {
+                        if (method.getName().equals("setAutoCommit") && (Boolean) args[0]) {
+                            throw new SQLException("Restore failed");
+                        }
+                        try {
+                            return method.invoke(connection, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        }
+                    });
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.github.aastrandemma.dao.impl;
+
+import com.github.aastrandemma.dao.db.TransactionTemplate;
+import com.github.aastrandemma.model.SaveResult;
+import com.github.aastrandemma.model.Todo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLTransactionRollbackException;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+// saveAll() runs again when its upsert was picked as a deadlock victim, unless a caller's transaction has to
+class BatchUpserterDeadlockTest {
+    private final AtomicInteger deadlocksLeft = new AtomicInteger();
+    private DataSource dataSource;
+    private TodoItemsDaoImpl todoItemsDao;
+    private Todo existing;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        TestDatabase.clear();
+        dataSource = deadlocksUpserts(TestDatabase.getDataSource());
+        todoItemsDao = new TodoItemsDaoImpl(dataSource);
+        existing = todoItemsDao.create(new Todo("Water plants"));
+    }
+
+    @Test
+    void deadlockedSaveAllIsRetried() {
+        deadlocksLeft.set(1);
+        existing.setTitle("Water all plants");
+        Todo withNewId = new Todo(existing.getId() + 10, "Feed cat", null, null, false);
+
+        SaveResult<Todo> result = todoItemsDao.saveAll(Arrays.asList(existing, withNewId));
+
+        assertEquals(0, deadlocksLeft.get());
+        assertEquals(1, result.getInsertedCount());
+        assertEquals(1, result.getUpdatedCount());
+        assertEquals("Water all plants", todoItemsDao.findById(existing.getId()).getTitle());
+        assertEquals("Feed cat", todoItemsDao.findById(withNewId.getId()).getTitle());
+    }
+
+    @Test
+    void repeatedDeadlocksAreReportedAfterTheLastAttempt() {
+        deadlocksLeft.set(3);
+        existing.setTitle("Water all plants");
+
+        RuntimeException thrown = assertThrows(RuntimeException.class, () -> todoItemsDao.save(existing));
+
+        assertEquals(0, deadlocksLeft.get());
+        assertEquals("40001", rootSqlException(thrown).getSQLState());
+        assertEquals("Water plants", todoItemsDao.findById(existing.getId()).getTitle());
+    }
+
+    @Test
+    void deadlockInsideCallersTransactionIsNotRetried() {
+        deadlocksLeft.set(2);
+        existing.setTitle("Water all plants");
+
+        assertThrows(RuntimeException.class, () -> new TransactionTemplate(dataSource).executeWithoutResult(
+                connection -> todoItemsDao.save(existing)));
+
+        assertEquals(1, deadlocksLeft.get());
+        assertEquals("Water plants", todoItemsDao.findById(existing.getId()).getTitle());
+    }
+
+    private static SQLException rootSqlException(Throwable thrown) {
+        SQLException found = null;
+        for (Throwable cause = thrown; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException) {
+                found = (SQLException) cause;
+            }
+        }
+        return found;
+    }
+
+    // Fails upsert batches the way InnoDB rolls back a deadlock victim, while deadlocksLeft is above zero
+    private DataSource deadlocksUpserts(DataSource target) {
+        return (DataSource) Proxy.newProxyInstance(
+                DataSource.class.getClassLoader(),
+                new Class<?>[]{DataSource.class},
+                (proxy, method, args) -> {
+                    Object result = invoke(target, method, args);
+                    if (!(result instanceof Connection)) {
+                        return result;
+                    }
+                    Connection connection = (Connection) result;
+                    return Proxy.newProxyInstance(
+                            Connection.class.getClassLoader(),
+                            new Class<?>[]{Connection.class},
+                            (connectionProxy, connectionMethod, connectionArgs) -> {
+                                Object created = invoke(connection, connectionMethod, connectionArgs);
+                                if (connectionMethod.getName().equals("prepareStatement")
+                                        && ((String) connectionArgs[0]).startsWith("MERGE")) {
+                                    return deadlocksBatches((PreparedStatement) created);
+                                }
+                                return created;
+                            });
+                });
+    }
+
+    private PreparedStatement deadlocksBatches(PreparedStatement statement) {
+        return (PreparedStatement) Proxy.newProxyInstance(
+                PreparedStatement.class.getClassLoader(),
+                new Class<?>[]{PreparedStatement.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("executeBatch") && deadlocksLeft.getAndUpdate(left -> Math.max(0, left - 1)) > 0) {
+                        statement.clearBatch();
+                        throw new SQLTransactionRollbackException(
+                                "Deadlock found when trying to get lock; try restarting transaction", "40001", 1213);
+                    }
+                    return invoke(statement, method, args);
+                });
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
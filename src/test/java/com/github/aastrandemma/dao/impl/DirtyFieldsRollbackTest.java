@@ -0,0 +1,69 @@
+package com.github.aastrandemma.dao.impl;
+
+import com.github.aastrandemma.dao.db.TransactionTemplate;
+import com.github.aastrandemma.model.Person;
+import com.github.aastrandemma.model.Todo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+// A rolled-back update leaves the entity dirty, so saving it again writes the change
+class DirtyFieldsRollbackTest {
+    private TodoItemsDaoImpl todoItemsDao;
+    private PeopleDaoImpl peopleDao;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        TestDatabase.clear();
+        todoItemsDao = new TodoItemsDaoImpl(TestDatabase.getDataSource());
+        peopleDao = new PeopleDaoImpl(TestDatabase.getDataSource(), todoItemsDao);
+    }
+
+    @Test
+    void todoUpdateRolledBackStaysDirty() {
+        Todo todo = todoItemsDao.create(new Todo("Draft"));
+        todo.setTitle("Final");
+
+        assertThrows(IllegalStateException.class, () -> new TransactionTemplate(TestDatabase.getDataSource()).executeWithoutResult(connection -> {
+            todoItemsDao.update(todo);
+            throw new IllegalStateException("Roll back");
+        }));
+        assertEquals(Todo.FIELD_TITLE, todo.getDirtyFields());
+
+        todoItemsDao.update(todo);
+        assertEquals("Final", todoItemsDao.findById(todo.getId()).getTitle());
+        assertEquals(0, todo.getDirtyFields());
+    }
+
+    @Test
+    void todoSaveAllRolledBackStaysDirty() {
+        Todo todo = todoItemsDao.create(new Todo("Draft"));
+        todo.setDescription("Details");
+
+        assertThrows(IllegalStateException.class, () -> new TransactionTemplate(TestDatabase.getDataSource()).executeWithoutResult(connection -> {
+            todoItemsDao.save(todo);
+            throw new IllegalStateException("Roll back");
+        }));
+
+        assertEquals(Todo.FIELD_DESCRIPTION, todo.getDirtyFields());
+    }
+
+    @Test
+    void personUpdateRolledBackStaysDirty() {
+        Person person = peopleDao.create(new Person("Ada", "Byron"));
+        person.setLastName("Lovelace");
+
+        assertThrows(IllegalStateException.class, () -> new TransactionTemplate(TestDatabase.getDataSource()).executeWithoutResult(connection -> {
+            peopleDao.update(person);
+            throw new IllegalStateException("Roll back");
+        }));
+        assertEquals(Person.FIELD_LAST_NAME, person.getDirtyFields());
+
+        peopleDao.update(person);
+        assertEquals("Lovelace", peopleDao.findById(person.getId()).getLastName());
+    }
+}
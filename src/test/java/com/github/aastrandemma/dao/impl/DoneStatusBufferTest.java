@@ -0,0 +1,98 @@
+package com.github.aastrandemma.dao.impl;
+
+import com.github.aastrandemma.dao.db.TransactionTemplate;
+import com.github.aastrandemma.model.Todo;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DoneStatusBufferTest {
+    private TodoItemsDaoImpl todoItemsDao;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        TestDatabase.clear();
+        todoItemsDao = new TodoItemsDaoImpl(TestDatabase.getDataSource());
+        // Only explicit flushes write the buffer out
+        todoItemsDao.enableDoneStatusBuffer(1000, 1, TimeUnit.HOURS);
+    }
+
+    @AfterEach
+    void tearDown() {
+        todoItemsDao.disableDoneStatusBuffer();
+    }
+
+    @Test
+    void bufferedMarkSurvivesRolledBackUpdate() throws SQLException {
+        Todo todo = todoItemsDao.create(new Todo("Write report"));
+        todoItemsDao.markDone(todo.getId(), true);
+
+        assertThrows(IllegalStateException.class, () -> new TransactionTemplate(TestDatabase.getDataSource()).executeWithoutResult(connection -> {
+            markDoneDirty(todo, false);
+            todoItemsDao.update(todo);
+            throw new IllegalStateException("Roll back");
+        }));
+        todoItemsDao.flush();
+
+        assertTrue(isDoneInDatabase(todo.getId()));
+    }
+
+    @Test
+    void bufferedMarksSurviveRolledBackSaveAll() throws SQLException {
+        Todo first = todoItemsDao.create(new Todo("First"));
+        Todo second = todoItemsDao.create(new Todo("Second"));
+        todoItemsDao.markDone(first.getId(), true);
+        todoItemsDao.markDone(second.getId(), true);
+
+        assertThrows(IllegalStateException.class, () -> new TransactionTemplate(TestDatabase.getDataSource()).executeWithoutResult(connection -> {
+            todoItemsDao.saveAll(Arrays.asList(first, second));
+            throw new IllegalStateException("Roll back");
+        }));
+        todoItemsDao.flush();
+
+        assertTrue(isDoneInDatabase(first.getId()));
+        assertTrue(isDoneInDatabase(second.getId()));
+    }
+
+    @Test
+    void committedUpdateWinsOverOlderBufferedMark() throws SQLException {
+        Todo todo = todoItemsDao.create(new Todo("Water plants"));
+        todoItemsDao.markDone(todo.getId(), true);
+
+        markDoneDirty(todo, false);
+        todoItemsDao.update(todo);
+        todoItemsDao.flush();
+
+        assertFalse(isDoneInDatabase(todo.getId()));
+    }
+
+    // The instance already holds done, toggling makes the update write the column
+    private static void markDoneDirty(Todo todo, boolean done) {
+        todo.setDone(!done);
+        todo.setDone(done);
+    }
+
+    private static boolean isDoneInDatabase(int todoId) throws SQLException {
+        try (
+                Connection connection = TestDatabase.getDataSource().getConnection();
+                PreparedStatement preparedStatement = connection.prepareStatement("SELECT done FROM todo_item WHERE todo_id = ?")
+        ) {
+            preparedStatement.setInt(1, todoId);
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                assertTrue(resultSet.next());
+                return resultSet.getBoolean(1);
+            }
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package com.github.aastrandemma.dao.impl;
+
+import com.github.aastrandemma.model.Page;
+import com.github.aastrandemma.model.Person;
+import com.github.aastrandemma.model.Todo;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+// Walking the keyset pages while other threads insert returns every row that existed before the walk exactly once,
+// whichever page the new rows land on
+class KeysetPaginationTest {
+    private static final int TODO_COUNT = 1000;
+    private static final int PAGE_SIZE = 37;
+    // Few enough that the walk catches up with the writer
+    private static final int INSERTS = 600;
+
+    private TodoItemsDaoImpl todoItemsDao;
+    private PeopleDaoImpl peopleDao;
+    private Person assignee;
+    // A single writer, H2 can hand out the same AUTO_INCREMENT value to two sessions batch inserting at once
+    private ExecutorService writer;
+    private final AtomicBoolean walking = new AtomicBoolean(true);
+    private final Set<Integer> insertedIds = new ConcurrentSkipListSet<>();
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        TestDatabase.clear();
+        todoItemsDao = new TodoItemsDaoImpl(TestDatabase.getDataSource());
+        peopleDao = new PeopleDaoImpl(TestDatabase.getDataSource(), todoItemsDao);
+        assignee = peopleDao.create(new Person("Ada", "Lovelace"));
+        for (int i = 0; i < 50; i++) {
+            peopleDao.create(new Person("First" + i, "Last" + i));
+        }
+        todoItemsDao.createAll(newTodos(TODO_COUNT));
+        writer = Executors.newSingleThreadExecutor();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        walking.set(false);
+        writer.shutdown();
+        assertTrue(writer.awaitTermination(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void todoPagesHaveNoGapsOrDuplicatesDuringInserts() throws Exception {
+        assertWalkWhileInserting(afterId -> todoItemsDao.findPage(afterId, PAGE_SIZE),
+                todoIds(todoItemsDao.findAll()));
+    }
+
+    @Test
+    void doneStatusPagesHaveNoGapsOrDuplicatesDuringInserts() throws Exception {
+        assertWalkWhileInserting(afterId -> todoItemsDao.findPageByDoneStatus(true, afterId, PAGE_SIZE),
+                todoIds(todoItemsDao.findByDoneStatus(true)));
+    }
+
+    @Test
+    void assigneePagesHaveNoGapsOrDuplicatesDuringInserts() throws Exception {
+        assertWalkWhileInserting(afterId -> todoItemsDao.findPageByAssignee(assignee.getId(), afterId, PAGE_SIZE),
+                todoIds(todoItemsDao.findByAssignee(assignee.getId())));
+    }
+
+    @Test
+    void personPagesHaveNoGapsOrDuplicatesDuringInserts() throws Exception {
+        Set<Integer> before = new TreeSet<>();
+        for (Person person : peopleDao.findAll()) {
+            before.add(person.getId());
+        }
+        Future<?> inserting = writer.submit(() -> {
+            for (int i = 0; i < INSERTS && walking.get(); i++) {
+                insertedIds.add(peopleDao.create(new Person("New", "Person")).getId());
+            }
+        });
+
+        List<Integer> walked = walk(afterId -> peopleDao.findPage(afterId, 7), Person::getId);
+        walking.set(false);
+        inserting.get(10, TimeUnit.SECONDS);
+
+        assertWalkCovers(before, walked);
+    }
+
+    private void assertWalkWhileInserting(IntFunction<Page<Todo>> pages, Set<Integer> before) throws Exception {
+        Future<?> inserting = writer.submit(() -> {
+            for (int inserted = 0; inserted < INSERTS && walking.get(); inserted += 5) {
+                for (Todo todo : todoItemsDao.createAll(newTodos(5))) {
+                    insertedIds.add(todo.getId());
+                }
+            }
+        });
+
+        List<Integer> walked = walk(pages, Todo::getId);
+        walking.set(false);
+        inserting.get(10, TimeUnit.SECONDS);
+
+        assertTrue(insertedIds.size() > 0, "No rows were inserted during the walk");
+        assertWalkCovers(before, walked);
+    }
+
+    private static <T> List<Integer> walk(IntFunction<Page<T>> pages, Function<T, Integer> idOf) {
+        List<Integer> walked = new ArrayList<>();
+        int afterId = 0;
+        for (int pageCount = 0; pageCount < 10_000; pageCount++) {
+            Page<T> page = pages.apply(afterId);
+            for (T item : page.getItems()) {
+                walked.add(idOf.apply(item));
+            }
+            if (!page.hasNext()) {
+                return walked;
+            }
+            afterId = page.getNextAfterId();
+            // Gives the writer time to land rows on both sides of the cursor
+            Thread.yield();
+        }
+        return fail("The walk never reached the last page");
+    }
+
+    // Strictly ascending means no duplicates, and only rows inserted during the walk may be missing
+    private void assertWalkCovers(Set<Integer> before, List<Integer> walked) {
+        for (int i = 1; i < walked.size(); i++) {
+            assertTrue(walked.get(i - 1) < walked.get(i), "Ids out of order at " + i + ": " + walked);
+        }
+        Set<Integer> walkedSet = new TreeSet<>(walked);
+        Set<Integer> missing = new TreeSet<>(before);
+        missing.removeAll(walkedSet);
+        assertEquals(Collections.emptySet(), missing);
+        Set<Integer> unexpected = new TreeSet<>(walkedSet);
+        unexpected.removeAll(before);
+        unexpected.removeAll(insertedIds);
+        assertEquals(Collections.emptySet(), unexpected);
+    }
+
+    private List<Todo> newTodos(int count) {
+        List<Todo> todos = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Todo todo = new Todo("Todo " + i, LocalDate.of(2026, 1, 1).plusDays(i % 90), i % 3 == 0 ? assignee : null);
+            todo.setDone(i % 2 == 0);
+            todos.add(todo);
+        }
+        return todos;
+    }
+
+    private static Set<Integer> todoIds(Collection<Todo> todos) {
+        Set<Integer> ids = new TreeSet<>();
+        for (Todo todo : todos) {
+            ids.add(todo.getId());
+        }
+        return ids;
+    }
+}
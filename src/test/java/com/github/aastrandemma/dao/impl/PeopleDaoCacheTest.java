@@ -0,0 +1,66 @@
+package com.github.aastrandemma.dao.impl;
+
+import com.github.aastrandemma.dao.db.TransactionTemplate;
+import com.github.aastrandemma.model.Person;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class PeopleDaoCacheTest {
+    private PeopleDaoImpl peopleDao;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        TestDatabase.clear();
+        peopleDao = new PeopleDaoImpl(TestDatabase.getDataSource());
+        peopleDao.enablePersonCache(100, 1, TimeUnit.HOURS);
+    }
+
+    @AfterEach
+    void tearDown() {
+        peopleDao.disablePersonCache();
+    }
+
+    @Test
+    void readDuringTransactionDoesNotLeaveStaleEntryAfterCommit() {
+        Person person = peopleDao.create(new Person("Ada", "Lovelace"));
+        assertEquals("Lovelace", peopleDao.findById(person.getId()).getLastName());
+
+        new TransactionTemplate(TestDatabase.getDataSource()).executeWithoutResult(connection -> {
+            person.setLastName("Byron");
+            peopleDao.update(person);
+            // Another thread misses the cache while the update is uncommitted and caches the old committed row
+            String seenByOtherThread = CompletableFuture.supplyAsync(() -> peopleDao.findById(person.getId()).getLastName()).join();
+            assertEquals("Lovelace", seenByOtherThread);
+            return null;
+        });
+
+        assertEquals("Byron", peopleDao.findById(person.getId()).getLastName());
+    }
+
+    @Test
+    void rolledBackUpdateKeepsCachedRow() {
+        Person person = peopleDao.create(new Person("Grace", "Hopper"));
+        peopleDao.findById(person.getId());
+        long hitsBefore = peopleDao.getPersonCacheStats().getHits();
+
+        try {
+            new TransactionTemplate(TestDatabase.getDataSource()).executeWithoutResult(connection -> {
+                person.setLastName("Murray");
+                peopleDao.update(person);
+                throw new IllegalStateException("Roll back");
+            });
+        } catch (IllegalStateException expected) {
+            // Rolled back on purpose
+        }
+
+        assertEquals("Hopper", peopleDao.findById(person.getId()).getLastName());
+        assertEquals(hitsBefore + 1, peopleDao.getPersonCacheStats().getHits());
+    }
+}
@@ -0,0 +1,57 @@
+package com.github.aastrandemma.dao.impl;
+
+import com.github.aastrandemma.dao.ReassignPolicy;
+import com.github.aastrandemma.model.Person;
+import com.github.aastrandemma.model.Todo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PeopleDaoDeletePersonTest {
+    private PeopleDaoImpl peopleDao;
+    private TodoItemsDaoImpl todoItemsDao;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        TestDatabase.clear();
+        todoItemsDao = new TodoItemsDaoImpl(TestDatabase.getDataSource());
+        peopleDao = new PeopleDaoImpl(TestDatabase.getDataSource(), todoItemsDao);
+    }
+
+    @Test
+    void peopleDaoWritesTodosThroughItsOwnDataSource() {
+        assertSame(TestDatabase.getDataSource(), todoItemsDao.getDataSource());
+    }
+
+    @Test
+    void failedHandoffRollsBackTheTodoChanges() {
+        Person leaving = peopleDao.create(new Person("Ada", "Lovelace"));
+        Todo todo = todoItemsDao.create(new Todo("Notes", null, LocalDate.now(), leaving));
+
+        // Person 999 doesn't exist, so the reassignment breaks the foreign key and the whole delete rolls back
+        assertThrows(RuntimeException.class, () -> peopleDao.deletePerson(leaving.getId(), ReassignPolicy.reassignTo(999)));
+
+        assertNotNull(peopleDao.findById(leaving.getId()));
+        assertEquals(leaving.getId(), todoItemsDao.findById(todo.getId()).getAssignee().getId());
+    }
+
+    @Test
+    void deleteUnassignsTodosInTheSameTransaction() {
+        Person leaving = peopleDao.create(new Person("Grace", "Hopper"));
+        Todo todo = todoItemsDao.create(new Todo("Compiler", null, LocalDate.now(), leaving));
+
+        assertTrue(peopleDao.deletePerson(leaving.getId(), ReassignPolicy.unassign()));
+
+        assertNull(peopleDao.findById(leaving.getId()));
+        assertNull(todoItemsDao.findById(todo.getId()).getAssignee());
+    }
+}
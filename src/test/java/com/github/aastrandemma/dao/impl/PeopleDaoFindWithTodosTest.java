@@ -0,0 +1,63 @@
+package com.github.aastrandemma.dao.impl;
+
+import com.github.aastrandemma.dao.db.TransactionTemplate;
+import com.github.aastrandemma.model.Person;
+import com.github.aastrandemma.model.PersonWithTodos;
+import com.github.aastrandemma.model.Todo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class PeopleDaoFindWithTodosTest {
+    private PeopleDaoImpl peopleDao;
+    private TodoItemsDaoImpl todoItemsDao;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        TestDatabase.clear();
+        todoItemsDao = new TodoItemsDaoImpl(TestDatabase.getDataSource());
+        peopleDao = new PeopleDaoImpl(TestDatabase.getDataSource(), todoItemsDao);
+    }
+
+    @Test
+    void loadsPeopleAndTodosWithTwoStatements() {
+        Person ada = peopleDao.create(new Person("Ada", "Lovelace"));
+        Person grace = peopleDao.create(new Person("Grace", "Hopper"));
+        todoItemsDao.createAll(Arrays.asList(
+                new Todo("Notes", null, LocalDate.now(), ada),
+                new Todo("Engine", null, LocalDate.now(), ada),
+                new Todo("Compiler", null, LocalDate.now(), grace)));
+        TestDatabase.getDataSource().resetCount();
+
+        List<PersonWithTodos> team = peopleDao.findWithTodos(Arrays.asList(grace.getId(), ada.getId(), 999));
+
+        assertEquals(2, TestDatabase.getDataSource().getExecutedCount());
+        assertEquals(2, team.size());
+        assertEquals(grace.getId(), team.get(0).getPerson().getId());
+        assertEquals(2, team.get(1).getTodoItems().size());
+        for (Todo todo : team.get(1).getTodoItems()) {
+            assertSame(team.get(1).getPerson(), todo.getAssignee());
+        }
+    }
+
+    // Inside a transaction both lookups run on its connection and see its uncommitted rows
+    @Test
+    void seesUncommittedTodosOfTheSurroundingTransaction() {
+        Person ada = peopleDao.create(new Person("Ada", "Lovelace"));
+
+        int todoCount = new TransactionTemplate(TestDatabase.getDataSource()).execute(connection -> {
+            todoItemsDao.create(new Todo("Notes", null, LocalDate.now(), ada));
+            return peopleDao.findWithTodos(Collections.singletonList(ada.getId())).get(0).getTodoItems().size();
+        });
+
+        assertEquals(1, todoCount);
+    }
+}
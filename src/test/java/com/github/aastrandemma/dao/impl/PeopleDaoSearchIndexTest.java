@@ -0,0 +1,67 @@
+package com.github.aastrandemma.dao.impl;
+
+import com.github.aastrandemma.dao.db.TransactionTemplate;
+import com.github.aastrandemma.model.Person;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PeopleDaoSearchIndexTest {
+    private PeopleDaoImpl peopleDao;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        TestDatabase.clear();
+        peopleDao = new PeopleDaoImpl(TestDatabase.getDataSource());
+        peopleDao.enableSearchIndex();
+    }
+
+    @AfterEach
+    void tearDown() {
+        peopleDao.disableSearchIndex();
+    }
+
+    @Test
+    void updateOfMissingPersonIsNotIndexed() {
+        Person missing = new Person(999, "Phantom", "Entry");
+        missing.setLastName("Entries");
+
+        peopleDao.update(missing);
+
+        assertTrue(peopleDao.search("Phantom", 10).isEmpty());
+    }
+
+    @Test
+    void rolledBackWritesLeaveIndexUnchanged() {
+        Person person = peopleDao.create(new Person("Ada", "Lovelace"));
+
+        assertThrows(IllegalStateException.class, () -> new TransactionTemplate(TestDatabase.getDataSource()).executeWithoutResult(connection -> {
+            person.setFirstName("Augusta");
+            peopleDao.update(person);
+            peopleDao.create(new Person("Charles", "Babbage"));
+            throw new IllegalStateException("Roll back");
+        }));
+
+        assertTrue(peopleDao.search("Augusta", 10).isEmpty());
+        assertTrue(peopleDao.search("Charles", 10).isEmpty());
+        assertEquals(1, peopleDao.search("Ada", 10).size());
+    }
+
+    @Test
+    void committedWritesAreIndexed() {
+        Person person = peopleDao.create(new Person("Grace", "Hopper"));
+
+        new TransactionTemplate(TestDatabase.getDataSource()).executeWithoutResult(connection -> {
+            person.setFirstName("Amazing");
+            return peopleDao.update(person);
+        });
+
+        assertEquals(1, peopleDao.search("Amazing", 10).size());
+    }
+}
@@ -0,0 +1,111 @@
+package com.github.aastrandemma.dao.impl;
+
+import com.github.aastrandemma.dao.db.ConnectionPool;
+import com.github.aastrandemma.model.Person;
+import com.github.aastrandemma.model.Todo;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// A stream holds its connection until it is closed, however far it was read, and closing it gives the connection back
+class ResultSetStreamsTest {
+    private static final int TODO_COUNT = 2500;
+
+    // One connection, so a leaked one makes the next call time out
+    private ConnectionPool pool;
+    private TodoItemsDaoImpl todoItemsDao;
+    private PeopleDaoImpl peopleDao;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        TestDatabase.clear();
+        pool = TestDatabase.newPool(1);
+        todoItemsDao = new TodoItemsDaoImpl(pool);
+        peopleDao = new PeopleDaoImpl(pool, todoItemsDao);
+        Person person = peopleDao.create(new Person("Ada", "Lovelace"));
+        List<Todo> todos = new ArrayList<>();
+        for (int i = 0; i < TODO_COUNT; i++) {
+            Todo todo = new Todo("Todo " + i, LocalDate.of(2026, 1, 1), i % 2 == 0 ? person : null);
+            todo.setDone(i % 3 == 0);
+            todos.add(todo);
+        }
+        todoItemsDao.createAll(todos);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.close();
+    }
+
+    @Test
+    void partlyReadStreamHoldsItsConnectionUntilClosed() {
+        Stream<Todo> todos = todoItemsDao.streamAll();
+        Iterator<Todo> iterator = todos.iterator();
+        iterator.next();
+        iterator.next();
+        assertEquals(1, pool.getStats().getActive());
+
+        todos.close();
+
+        assertEquals(0, pool.getStats().getActive());
+        assertEquals(TODO_COUNT, todoItemsDao.findAll().size());
+    }
+
+    @Test
+    void shortCircuitedStreamsReleaseTheirConnection() {
+        // More rows than one fetch, the result set is still open when findFirst returns
+        for (int i = 0; i < 10; i++) {
+            try (Stream<Todo> todos = todoItemsDao.streamAll()) {
+                assertTrue(todos.findFirst().isPresent());
+            }
+            try (Stream<Todo> todos = todoItemsDao.streamByDoneStatus(true)) {
+                assertTrue(todos.limit(5).allMatch(Todo::isDone));
+            }
+            try (Stream<Todo> todos = todoItemsDao.streamByUnassignedTodoItems()) {
+                assertTrue(todos.anyMatch(todo -> todo.getAssignee() == null));
+            }
+            try (Stream<Person> people = peopleDao.streamAll()) {
+                assertEquals(1, people.count());
+            }
+        }
+
+        assertEquals(0, pool.getStats().getActive());
+    }
+
+    @Test
+    void streamFailingMidwayReleasesItsConnection() {
+        assertThrows(IllegalStateException.class, () -> {
+            try (Stream<Todo> todos = todoItemsDao.streamAll()) {
+                todos.forEach(todo -> {
+                    if (todo.getId() == 100) {
+                        throw new IllegalStateException("Consumer failed");
+                    }
+                });
+            }
+        });
+
+        assertEquals(0, pool.getStats().getActive());
+        assertEquals(TODO_COUNT, todoItemsDao.findAll().size());
+    }
+
+    @Test
+    void closingTwiceIsHarmless() {
+        Stream<Todo> todos = todoItemsDao.streamAll();
+        todos.close();
+        todos.close();
+
+        assertEquals(0, pool.getStats().getActive());
+        assertEquals(1, pool.getStats().getIdle());
+    }
+}
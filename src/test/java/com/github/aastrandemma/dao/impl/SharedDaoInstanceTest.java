@@ -0,0 +1,45 @@
+package com.github.aastrandemma.dao.impl;
+
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+// getInstance() hands out one shared DAO per class, asking for it over another DataSource must fail loudly
+class SharedDaoInstanceTest {
+    private final DataSource other = new StatementCountingDataSource(TestDatabase.getDataSource());
+
+    @Test
+    void sharedTodoItemsDaoRejectsAnotherDataSource() {
+        TodoItemsDaoImpl shared = TodoItemsDaoImpl.getInstance(TestDatabase.getDataSource());
+
+        assertSame(shared, TodoItemsDaoImpl.getInstance(TestDatabase.getDataSource()));
+        assertThrows(IllegalStateException.class, () -> TodoItemsDaoImpl.getInstance(other));
+    }
+
+    @Test
+    void sharedPeopleDaoRejectsAnotherDataSourceOrTodoDao() {
+        PeopleDaoImpl shared = PeopleDaoImpl.getInstance(TestDatabase.getDataSource());
+
+        assertSame(shared, PeopleDaoImpl.getInstance(TestDatabase.getDataSource()));
+        assertThrows(IllegalStateException.class, () -> PeopleDaoImpl.getInstance(other));
+        assertThrows(IllegalStateException.class, () -> PeopleDaoImpl.getInstance(TestDatabase.getDataSource(),
+                new TodoItemsDaoImpl(TestDatabase.getDataSource())));
+    }
+
+    @Test
+    void sharedStatisticsDaoRejectsAnotherDataSource() {
+        TodoStatisticsDaoImpl shared = TodoStatisticsDaoImpl.getInstance(TestDatabase.getDataSource());
+
+        assertSame(shared, TodoStatisticsDaoImpl.getInstance(TestDatabase.getDataSource()));
+        assertThrows(IllegalStateException.class, () -> TodoStatisticsDaoImpl.getInstance(other));
+    }
+
+    @Test
+    void constructedDaosUseTheirOwnDataSource() {
+        assertSame(other, new TodoItemsDaoImpl(other).getDataSource());
+        assertThrows(IllegalStateException.class, () -> new PeopleDaoImpl(other, new TodoItemsDaoImpl(TestDatabase.getDataSource())));
+    }
+}
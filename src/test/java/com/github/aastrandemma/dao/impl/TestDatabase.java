@@ -0,0 +1,70 @@
+package com.github.aastrandemma.dao.impl;
+
+import com.github.aastrandemma.dao.db.ConnectionPool;
+import com.github.aastrandemma.dao.db.ConnectionPoolConfig;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+// One in-memory H2 database in MySQL mode for every DAO test, each test builds its DAOs over it and clears the
+// tables first
+final class TestDatabase {
+    private static final String JDBC_URL = "jdbc:h2:mem:todo_it_test;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+    // The tables of scripts/todo_it_db.sql, secondary indexes don't change what the tests check
+    private static final String[] SCHEMA = {
+            "CREATE TABLE IF NOT EXISTS person ("
+                    + "person_id INT NOT NULL AUTO_INCREMENT, "
+                    + "first_name VARCHAR(255) NULL, "
+                    + "last_name VARCHAR(255) NULL, "
+                    + "PRIMARY KEY (person_id))",
+            "CREATE TABLE IF NOT EXISTS todo_item ("
+                    + "todo_id INT NOT NULL AUTO_INCREMENT, "
+                    + "title VARCHAR(50) NULL, "
+                    + "description VARCHAR(1000) NULL, "
+                    + "deadline DATE NULL, "
+                    + "done TINYINT NULL DEFAULT 0, "
+                    + "assignee_id INT NULL, "
+                    + "PRIMARY KEY (todo_id), "
+                    + "CONSTRAINT fk_todo_item_person FOREIGN KEY (assignee_id) REFERENCES person (person_id))"
+    };
+    private static StatementCountingDataSource dataSource;
+
+    private TestDatabase() {
+    }
+
+    static synchronized StatementCountingDataSource getDataSource() {
+        if (dataSource == null) {
+            ConnectionPoolConfig config = new ConnectionPoolConfig(JDBC_URL, "sa", "");
+            config.setMinIdle(0);
+            dataSource = new StatementCountingDataSource(new ConnectionPool(config));
+        }
+        return dataSource;
+    }
+
+    // A separate pool over the same database, for tests that watch connections being borrowed and returned
+    static ConnectionPool newPool(int maxSize) {
+        ConnectionPoolConfig config = new ConnectionPoolConfig(JDBC_URL, "sa", "");
+        config.setMinIdle(0);
+        config.setMaxSize(maxSize);
+        config.setBorrowTimeoutMillis(1000);
+        return new ConnectionPool(config);
+    }
+
+    // Empties both tables and restarts their ids at 1
+    static void clear() throws SQLException {
+        try (
+                Connection connection = getDataSource().getConnection();
+                Statement statement = connection.createStatement()
+        ) {
+            for (String ddl : SCHEMA) {
+                statement.execute(ddl);
+            }
+            statement.execute("DELETE FROM todo_item");
+            statement.execute("DELETE FROM person");
+            statement.execute("ALTER TABLE todo_item ALTER COLUMN todo_id RESTART WITH 1");
+            statement.execute("ALTER TABLE person ALTER COLUMN person_id RESTART WITH 1");
+        }
+        getDataSource().resetCount();
+    }
+}
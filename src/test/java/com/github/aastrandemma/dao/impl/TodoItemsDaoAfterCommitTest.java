@@ -0,0 +1,101 @@
+package com.github.aastrandemma.dao.impl;
+
+import com.github.aastrandemma.dao.db.TransactionTemplate;
+import com.github.aastrandemma.dao.deadline.TodoDeadlineListener;
+import com.github.aastrandemma.dao.search.InvertedTodoTextIndex;
+import com.github.aastrandemma.model.Todo;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// The text index and deadline listeners follow committed rows only
+class TodoItemsDaoAfterCommitTest {
+    private TodoItemsDaoImpl todoItemsDao;
+    private final List<String> heard = new CopyOnWriteArrayList<>();
+    private final TodoDeadlineListener listener = new TodoDeadlineListener() {
+        @Override
+        public void todoSaved(Todo todo) {
+            heard.add("saved " + todo.getId());
+        }
+
+        @Override
+        public void todoDeleted(int todoId) {
+            heard.add("deleted " + todoId);
+        }
+
+        @Override
+        public void doneStatusChanged(int todoId, boolean done) {
+            heard.add("done " + todoId);
+        }
+    };
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        TestDatabase.clear();
+        todoItemsDao = new TodoItemsDaoImpl(TestDatabase.getDataSource());
+        todoItemsDao.enableTextIndex(new InvertedTodoTextIndex());
+        todoItemsDao.addDeadlineListener(listener);
+    }
+
+    @AfterEach
+    void tearDown() {
+        todoItemsDao.removeDeadlineListener(listener);
+        todoItemsDao.disableTextIndex();
+    }
+
+    @Test
+    void updateOfMissingTodoIsNeitherIndexedNorScheduled() {
+        Todo missing = new Todo(999, "Phantom", "Never stored", null, false);
+        missing.setTitle("Phantom task");
+        missing.setDone(true);
+
+        todoItemsDao.update(missing);
+
+        assertTrue(todoItemsDao.search("Phantom", 10).isEmpty());
+        assertTrue(heard.isEmpty());
+    }
+
+    @Test
+    void rolledBackWritesLeaveIndexAndListenersUntouched() {
+        Todo todo = todoItemsDao.create(new Todo("Buy milk"));
+        heard.clear();
+
+        assertThrows(IllegalStateException.class, () -> new TransactionTemplate(TestDatabase.getDataSource()).executeWithoutResult(connection -> {
+            todo.setTitle("Buy bread");
+            todo.setDone(true);
+            todoItemsDao.update(todo);
+            todoItemsDao.create(new Todo("Bake cake"));
+            todoItemsDao.deleteById(todo.getId());
+            throw new IllegalStateException("Roll back");
+        }));
+
+        assertTrue(todoItemsDao.search("bread", 10).isEmpty());
+        assertTrue(todoItemsDao.search("cake", 10).isEmpty());
+        assertEquals(1, todoItemsDao.search("milk", 10).size());
+        assertTrue(heard.isEmpty(), "Listeners heard " + heard);
+    }
+
+    @Test
+    void committedWritesReachIndexAndListenersOnce() {
+        Todo todo = todoItemsDao.create(new Todo("Buy milk"));
+
+        new TransactionTemplate(TestDatabase.getDataSource()).executeWithoutResult(connection -> {
+            todo.setTitle("Buy bread");
+            todoItemsDao.update(todo);
+            assertTrue(heard.size() == 1 && todoItemsDao.search("bread", 10).isEmpty(), "Applied before commit");
+            todo.setDone(true);
+            return todoItemsDao.update(todo);
+        });
+
+        assertEquals(1, todoItemsDao.search("bread", 10).size());
+        assertEquals(2, heard.size(), "Listeners heard " + heard);
+    }
+}
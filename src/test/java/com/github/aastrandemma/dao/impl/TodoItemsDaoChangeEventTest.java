@@ -0,0 +1,130 @@
+package com.github.aastrandemma.dao.impl;
+
+import com.github.aastrandemma.dao.events.ChangeEvent;
+import com.github.aastrandemma.dao.events.ChangeEventBus;
+import com.github.aastrandemma.dao.events.ChangeType;
+import com.github.aastrandemma.model.Todo;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TodoItemsDaoChangeEventTest {
+    private TodoItemsDaoImpl todoItemsDao;
+    private ChangeEventBus bus;
+    private final BlockingQueue<String> heard = new LinkedBlockingQueue<>();
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        TestDatabase.clear();
+        todoItemsDao = new TodoItemsDaoImpl(TestDatabase.getDataSource());
+        bus = new ChangeEventBus(64);
+        bus.subscribe("test", (event, endOfBatch) -> heard.add(describe(event)));
+        todoItemsDao.setChangeEventBus(bus);
+    }
+
+    @AfterEach
+    void tearDown() {
+        todoItemsDao.disableDoneStatusBuffer();
+        todoItemsDao.setChangeEventBus(null);
+        bus.close();
+    }
+
+    @Test
+    void markDonePublishesThePreviousRow() throws InterruptedException {
+        Todo todo = todoItemsDao.create(new Todo("Water plants"));
+        assertEquals("CREATED " + todo.getId(), heard.poll(5, TimeUnit.SECONDS));
+
+        todoItemsDao.markDone(todo.getId(), true);
+
+        assertEquals("UPDATED " + todo.getId() + " false -> true", heard.poll(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void bufferedMarkIsPublishedOnlyOnceFlushed() throws InterruptedException {
+        Todo todo = todoItemsDao.create(new Todo("Write report"));
+        assertNotNull(heard.poll(5, TimeUnit.SECONDS));
+        todoItemsDao.enableDoneStatusBuffer(1000, 1, TimeUnit.HOURS);
+        long published = bus.getPublishedCount();
+
+        todoItemsDao.markDone(todo.getId(), true);
+        assertEquals(published, bus.getPublishedCount());
+
+        todoItemsDao.flush();
+        assertEquals("UPDATED " + todo.getId() + " false -> true", heard.poll(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void bufferedMarkThatChangesNothingIsNotPublished() throws InterruptedException {
+        Todo todo = todoItemsDao.create(new Todo("Call mom"));
+        assertNotNull(heard.poll(5, TimeUnit.SECONDS));
+        todoItemsDao.enableDoneStatusBuffer(1000, 1, TimeUnit.HOURS);
+        long published = bus.getPublishedCount();
+
+        todoItemsDao.markDone(todo.getId(), true);
+        todoItemsDao.markDone(todo.getId(), false);
+        todoItemsDao.flush();
+
+        assertEquals(published, bus.getPublishedCount());
+        assertTrue(heard.isEmpty());
+        assertFalse(todoItemsDao.findById(todo.getId()).isDone());
+    }
+
+    @Test
+    void writesSucceedAfterTheBusIsClosed() {
+        bus.close();
+
+        Todo todo = todoItemsDao.create(new Todo("Pay rent"));
+        todoItemsDao.markDone(todo.getId(), true);
+
+        assertTrue(todoItemsDao.findById(todo.getId()).isDone());
+        assertEquals(2, bus.getDroppedCount());
+    }
+
+    @Test
+    void fullBusDropsEventsInsteadOfBlockingTheWriter() throws InterruptedException {
+        ChangeEventBus fullBus = new ChangeEventBus(2);
+        CountDownLatch release = new CountDownLatch(1);
+        fullBus.subscribe("stuck", (event, endOfBatch) -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        todoItemsDao.setChangeEventBus(fullBus);
+        try {
+            assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+                for (int i = 0; i < 10; i++) {
+                    todoItemsDao.create(new Todo("Todo " + i));
+                }
+            });
+            assertTrue(fullBus.getDroppedCount() > 0);
+            assertEquals(10, todoItemsDao.findAll().size());
+        } finally {
+            release.countDown();
+            fullBus.close();
+        }
+    }
+
+    private static String describe(ChangeEvent event) {
+        if (event.getChangeType() != ChangeType.UPDATED) {
+            return event.getChangeType() + " " + event.getEntityId();
+        }
+        Todo before = event.getBefore();
+        Todo after = event.getAfter();
+        return event.getChangeType() + " " + event.getEntityId() + " " + before.isDone() + " -> " + after.isDone();
+    }
+}
@@ -0,0 +1,73 @@
+package com.github.aastrandemma.dao.impl;
+
+import com.github.aastrandemma.model.Todo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// done is a nullable column, a NULL counts as open like it does in the statistics
+class TodoItemsDaoDeadlineTest {
+    private static final LocalDate TODAY = LocalDate.now();
+
+    private TodoItemsDaoImpl todoItemsDao;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        TestDatabase.clear();
+        todoItemsDao = new TodoItemsDaoImpl(TestDatabase.getDataSource());
+        insert("Overdue open", TODAY.minusDays(2), false);
+        insert("Overdue unknown", TODAY.minusDays(1), null);
+        insert("Overdue done", TODAY.minusDays(1), true);
+        insert("Due unknown", TODAY.plusDays(1), null);
+        insert("Due open", TODAY.plusDays(2), false);
+    }
+
+    @Test
+    void rangeIncludesRowsWithNullDone() {
+        assertEquals(Arrays.asList("Overdue open", "Overdue unknown", "Overdue done", "Due unknown", "Due open"),
+                titles(todoItemsDao.findByDeadlineBetween(TODAY.minusDays(5), TODAY.plusDays(5))));
+    }
+
+    @Test
+    void openFindersTreatNullDoneAsOpen() {
+        assertEquals(Arrays.asList("Overdue open", "Overdue unknown"), titles(todoItemsDao.findOverdue()));
+        assertEquals(Arrays.asList("Due unknown", "Due open"), titles(todoItemsDao.findDueWithin(3)));
+    }
+
+    private static void insert(String title, LocalDate deadline, Boolean done) throws SQLException {
+        try (
+                Connection connection = TestDatabase.getDataSource().getConnection();
+                PreparedStatement preparedStatement = connection.prepareStatement(
+                        "INSERT INTO todo_item (title, deadline, done) VALUES (?, ?, ?)")
+        ) {
+            preparedStatement.setString(1, title);
+            preparedStatement.setDate(2, Date.valueOf(deadline));
+            if (done == null) {
+                preparedStatement.setNull(3, Types.TINYINT);
+            } else {
+                preparedStatement.setBoolean(3, done);
+            }
+            preparedStatement.executeUpdate();
+        }
+    }
+
+    private static List<String> titles(Collection<Todo> todoItems) {
+        List<String> titles = new ArrayList<>();
+        for (Todo todo : todoItems) {
+            titles.add(todo.getTitle());
+        }
+        return titles;
+    }
+}
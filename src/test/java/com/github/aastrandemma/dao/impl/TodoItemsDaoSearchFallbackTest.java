@@ -0,0 +1,82 @@
+package com.github.aastrandemma.dao.impl;
+
+import com.github.aastrandemma.exception.MySQLException;
+import com.github.aastrandemma.model.Todo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLSyntaxErrorException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+// Only a missing FULLTEXT capability switches search() to the in-process index
+class TodoItemsDaoSearchFallbackTest {
+    private final AtomicBoolean denyMatch = new AtomicBoolean();
+    private TodoItemsDaoImpl todoItemsDao;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        TestDatabase.clear();
+        todoItemsDao = new TodoItemsDaoImpl(deniesMatch(TestDatabase.getDataSource()));
+        todoItemsDao.create(new Todo("Water plants"));
+    }
+
+    @Test
+    void missingMatchFunctionFallsBackToTheIndex() {
+        assertEquals(1, todoItemsDao.search("plants", 10).size());
+        assertNotNull(todoItemsDao.getTextIndex());
+    }
+
+    @Test
+    void otherSyntaxErrorsAreReportedAndNotSticky() {
+        denyMatch.set(true);
+        MySQLException thrown = assertThrows(MySQLException.class, () -> todoItemsDao.search("plants", 10));
+        assertEquals("42000", ((SQLException) thrown.getCause()).getSQLState());
+        assertNull(todoItemsDao.getTextIndex());
+
+        denyMatch.set(false);
+        assertEquals(1, todoItemsDao.search("plants", 10).size());
+    }
+
+    // Fails MATCH queries like a user without SELECT rights on MySQL would, while denyMatch is set
+    private DataSource deniesMatch(DataSource target) {
+        return (DataSource) Proxy.newProxyInstance(
+                DataSource.class.getClassLoader(),
+                new Class<?>[]{DataSource.class},
+                (proxy, method, args) -> {
+                    Object result = invoke(target, method, args);
+                    if (!(result instanceof Connection)) {
+                        return result;
+                    }
+                    Connection connection = (Connection) result;
+                    return Proxy.newProxyInstance(
+                            Connection.class.getClassLoader(),
+                            new Class<?>[]{Connection.class},
+                            (connectionProxy, connectionMethod, connectionArgs) -> {
+                                if (denyMatch.get() && connectionMethod.getName().equals("prepareStatement")
+                                        && ((String) connectionArgs[0]).contains("MATCH")) {
+                                    throw new SQLSyntaxErrorException("SELECT command denied to user", "42000", 1142);
+                                }
+                                return invoke(connection, connectionMethod, connectionArgs);
+                            });
+                });
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
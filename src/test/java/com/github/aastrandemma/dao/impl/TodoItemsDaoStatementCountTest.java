@@ -0,0 +1,97 @@
+package com.github.aastrandemma.dao.impl;
+
+import com.github.aastrandemma.model.Person;
+import com.github.aastrandemma.model.Todo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+// Every multi-row finder loads the assignees in the same query, so the statement count doesn't grow with the rows
+class TodoItemsDaoStatementCountTest {
+    private StatementCountingDataSource dataSource;
+    private TodoItemsDaoImpl todoItemsDao;
+    private PeopleDaoImpl peopleDao;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        TestDatabase.clear();
+        dataSource = TestDatabase.getDataSource();
+        todoItemsDao = new TodoItemsDaoImpl(dataSource);
+        peopleDao = new PeopleDaoImpl(dataSource, todoItemsDao);
+    }
+
+    @Test
+    void findersIssueOneStatementRegardlessOfRowCount() throws SQLException {
+        for (int todoCount : new int[]{1, 10, 250}) {
+            TestDatabase.clear();
+            List<Person> people = seed(todoCount);
+            Person assignee = people.get(1);
+
+            assertEquals(1, countStatements(() -> assertRows(todoCount, todoItemsDao.findAll())));
+            assertEquals(1, countStatements(() -> todoItemsDao.findByDoneStatus(false)));
+            assertEquals(1, countStatements(() -> todoItemsDao.findByAssignee(assignee.getId())));
+            assertEquals(1, countStatements(() -> todoItemsDao.findByAssignee(assignee)));
+        }
+    }
+
+    @Test
+    void assigneesAreJoinedAndSharedPerIdWithinAResult() {
+        seed(100);
+        Collection<Todo> todoItems = todoItemsDao.findAll();
+
+        Map<Person, Boolean> distinctInstances = new IdentityHashMap<>();
+        for (Todo todo : todoItems) {
+            if (todo.getId() % 3 == 0) {
+                continue;
+            }
+            assertNotNull(todo.getAssignee(), "Assignee missing for todo " + todo.getId());
+            distinctInstances.put(todo.getAssignee(), true);
+        }
+        assertEquals(5, distinctInstances.size());
+
+        Todo first = null;
+        for (Todo todo : todoItemsDao.findByAssignee(1)) {
+            if (first == null) {
+                first = todo;
+            }
+            assertSame(first.getAssignee(), todo.getAssignee());
+        }
+    }
+
+    // Five people, every third todo unassigned
+    private List<Person> seed(int todoCount) {
+        List<Person> people = new ArrayList<>();
+        for (int i = 1; i <= 5; i++) {
+            people.add(new Person("First" + i, "Last" + i));
+        }
+        peopleDao.createAll(people);
+        List<Todo> todoItems = new ArrayList<>(todoCount);
+        for (int i = 1; i <= todoCount; i++) {
+            Person assignee = i % 3 == 0 ? null : people.get(i % people.size());
+            todoItems.add(new Todo("Todo " + i, "Description " + i, LocalDate.now().plusDays(i), assignee));
+        }
+        todoItemsDao.createAll(todoItems);
+        return people;
+    }
+
+    private int countStatements(Runnable finder) {
+        dataSource.resetCount();
+        finder.run();
+        return dataSource.getExecutedCount();
+    }
+
+    private static void assertRows(int expected, Collection<Todo> todoItems) {
+        assertEquals(expected, todoItems.size());
+    }
+}
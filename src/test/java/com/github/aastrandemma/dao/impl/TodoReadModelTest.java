@@ -0,0 +1,162 @@
+package com.github.aastrandemma.dao.impl;
+
+import com.github.aastrandemma.dao.columnar.TodoColumnStore;
+import com.github.aastrandemma.dao.columnar.TodoFilter;
+import com.github.aastrandemma.dao.db.TransactionTemplate;
+import com.github.aastrandemma.model.Person;
+import com.github.aastrandemma.model.Todo;
+import com.github.aastrandemma.model.TodoSummary;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+// The columnar read model answers filters with the same todos as the SQL finders, also after writes
+class TodoReadModelTest {
+    private static final LocalDate TODAY = LocalDate.now();
+    private static final int TODO_COUNT = 120;
+
+    private TodoItemsDaoImpl todoItemsDao;
+    private TodoColumnStore readModel;
+    private final List<Integer> personIds = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        TestDatabase.clear();
+        todoItemsDao = new TodoItemsDaoImpl(TestDatabase.getDataSource());
+        PeopleDaoImpl peopleDao = new PeopleDaoImpl(TestDatabase.getDataSource(), todoItemsDao);
+        List<Person> people = new ArrayList<>();
+        for (int i = 1; i <= 4; i++) {
+            Person person = peopleDao.create(new Person("First" + i, "Last" + i));
+            people.add(person);
+            personIds.add(person.getId());
+        }
+        List<Todo> todos = new ArrayList<>();
+        for (int i = 0; i < TODO_COUNT; i++) {
+            // Every fifth todo has no deadline and every fourth no assignee
+            LocalDate deadline = i % 5 == 0 ? null : TODAY.plusDays(i % 41 - 20);
+            Person assignee = i % 4 == 0 ? null : people.get(i % people.size());
+            Todo todo = new Todo("Todo " + i, deadline, assignee);
+            todo.setDone(i % 3 == 0);
+            todos.add(todo);
+        }
+        todoItemsDao.createAll(todos);
+        readModel = todoItemsDao.enableReadModel();
+    }
+
+    @Test
+    void filtersMatchTheSqlFinders() {
+        assertMatchesFinders();
+    }
+
+    @Test
+    void filtersMatchTheSqlFindersAfterWrites() {
+        todoItemsDao.create(new Todo("Late", TODAY.minusDays(3), null));
+        todoItemsDao.markDone(2, true);
+        todoItemsDao.markDone(3, false);
+        todoItemsDao.flush();
+        todoItemsDao.reassignAll(personIds.get(1), personIds.get(2));
+        todoItemsDao.deleteByIds(Arrays.asList(5, 6, 7, 40, 41));
+        Todo updated = todoItemsDao.findById(10);
+        updated.setDeadline(TODAY.minusDays(30));
+        updated.setAssignee(null);
+        todoItemsDao.update(updated);
+
+        assertMatchesFinders();
+    }
+
+    @Test
+    void rolledBackReassignmentDoesNotReachTheReadModel() {
+        assertThrows(IllegalStateException.class, () -> new TransactionTemplate(TestDatabase.getDataSource())
+                .executeWithoutResult(connection -> {
+                    todoItemsDao.reassignAll(personIds.get(0), personIds.get(3));
+                    throw new IllegalStateException("Abort");
+                }));
+
+        assertMatchesFinders();
+    }
+
+    @Test
+    void combinedFilterMatchesTheSummaries() {
+        TodoFilter filter = TodoFilter.all().done(false).assignedTo(personIds.get(0), personIds.get(2)).unassigned()
+                .deadlineBetween(TODAY.minusDays(10), TODAY.plusDays(10));
+        List<Integer> expected = new ArrayList<>();
+        for (TodoSummary summary : todoItemsDao.findAllSummaries()) {
+            LocalDate deadline = summary.getDeadline();
+            boolean assigneeMatches = summary.getAssigneeId() == null || summary.getAssigneeId().equals(personIds.get(0))
+                    || summary.getAssigneeId().equals(personIds.get(2));
+            if (!summary.isDone() && assigneeMatches && deadline != null
+                    && !deadline.isBefore(TODAY.minusDays(10)) && !deadline.isAfter(TODAY.plusDays(10))) {
+                expected.add(summary.getId());
+            }
+        }
+        expected.sort(null);
+
+        assertEquals(expected, summaryIds(readModel.find(filter)));
+        assertEquals(expected.size(), readModel.count(filter));
+    }
+
+    @Test
+    void withoutDeadlineMatchesTodosWithoutOne() {
+        List<Integer> expected = new ArrayList<>();
+        for (TodoSummary summary : todoItemsDao.findAllSummaries()) {
+            if (summary.getDeadline() == null) {
+                expected.add(summary.getId());
+            }
+        }
+        expected.sort(null);
+
+        assertEquals(expected, ids(readModel.findIds(TodoFilter.all().withoutDeadline())));
+    }
+
+    private void assertMatchesFinders() {
+        assertEquals(todoIds(todoItemsDao.findAll()), ids(readModel.findIds(TodoFilter.all())));
+        assertEquals(todoIds(todoItemsDao.findByDoneStatus(true)), ids(readModel.findIds(TodoFilter.all().done(true))));
+        assertEquals(todoIds(todoItemsDao.findByDoneStatus(false)), ids(readModel.findIds(TodoFilter.all().done(false))));
+        for (int personId : personIds) {
+            assertEquals(todoIds(todoItemsDao.findByAssignee(personId)),
+                    ids(readModel.findIds(TodoFilter.all().assignedTo(personId))));
+        }
+        assertEquals(todoIds(todoItemsDao.findByUnassignedTodoItems()), ids(readModel.findIds(TodoFilter.all().unassigned())));
+        assertEquals(todoIds(todoItemsDao.findOverdue()), ids(readModel.findIds(TodoFilter.all().overdue(TODAY))));
+        assertEquals(todoIds(todoItemsDao.findByDeadlineBetween(TODAY.minusDays(7), TODAY.plusDays(7))),
+                ids(readModel.findIds(TodoFilter.all().deadlineBetween(TODAY.minusDays(7), TODAY.plusDays(7)))));
+        assertEquals(todoItemsDao.findAll().size(), readModel.size());
+    }
+
+    // Compared in id order, the SQL finders order some results by deadline
+    private static List<Integer> todoIds(Collection<Todo> todos) {
+        List<Integer> ids = new ArrayList<>(todos.size());
+        for (Todo todo : todos) {
+            ids.add(todo.getId());
+        }
+        ids.sort(null);
+        return ids;
+    }
+
+    private static List<Integer> summaryIds(List<TodoSummary> summaries) {
+        List<Integer> ids = new ArrayList<>(summaries.size());
+        for (TodoSummary summary : summaries) {
+            ids.add(summary.getId());
+        }
+        ids.sort(null);
+        return ids;
+    }
+
+    private static List<Integer> ids(int[] ids) {
+        List<Integer> list = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            list.add(id);
+        }
+        list.sort(null);
+        return list;
+    }
+}
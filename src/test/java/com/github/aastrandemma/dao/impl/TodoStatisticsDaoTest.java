@@ -0,0 +1,140 @@
+package com.github.aastrandemma.dao.impl;
+
+import com.github.aastrandemma.model.Person;
+import com.github.aastrandemma.model.Todo;
+import com.github.aastrandemma.model.TodoStatistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+// Every statistic equals a plain COUNT(*) over todo_item, also after writes through the DAOs
+class TodoStatisticsDaoTest {
+    private static final LocalDate TODAY = LocalDate.now();
+    private static final int DUE_WITHIN_DAYS = 7;
+    private static final String OPEN = "(done IS NULL OR done <> 1)";
+
+    private TodoItemsDaoImpl todoItemsDao;
+    private TodoStatisticsDaoImpl statisticsDao;
+    private final List<Person> people = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        TestDatabase.clear();
+        todoItemsDao = new TodoItemsDaoImpl(TestDatabase.getDataSource());
+        statisticsDao = new TodoStatisticsDaoImpl(TestDatabase.getDataSource());
+        PeopleDaoImpl peopleDao = new PeopleDaoImpl(TestDatabase.getDataSource(), todoItemsDao);
+        for (int i = 1; i <= 3; i++) {
+            people.add(peopleDao.create(new Person("First" + i, "Last" + i)));
+        }
+        List<Todo> todos = new ArrayList<>();
+        for (int i = 0; i < 90; i++) {
+            LocalDate deadline = i % 6 == 0 ? null : TODAY.plusDays(i % 25 - 12);
+            Todo todo = new Todo("Todo " + i, deadline, i % 4 == 0 ? null : people.get(i % people.size()));
+            todo.setDone(i % 3 == 0);
+            todos.add(todo);
+        }
+        todoItemsDao.createAll(todos);
+        // done is nullable, a NULL counts as open
+        try (
+                Connection connection = TestDatabase.getDataSource().getConnection();
+                PreparedStatement preparedStatement = connection.prepareStatement(
+                        "UPDATE todo_item SET done = NULL WHERE MOD(todo_id, 10) = 1")
+        ) {
+            preparedStatement.executeUpdate();
+        }
+    }
+
+    @Test
+    void statisticsMatchCountQueries() throws SQLException {
+        assertMatchesCounts(statisticsDao.getStatistics(DUE_WITHIN_DAYS));
+    }
+
+    @Test
+    void statisticsMatchCountQueriesAfterWrites() throws SQLException {
+        todoItemsDao.create(new Todo("Late", TODAY.minusDays(1), people.get(0)));
+        todoItemsDao.create(new Todo("Soon", TODAY.plusDays(DUE_WITHIN_DAYS), null));
+        todoItemsDao.markDone(2, true);
+        todoItemsDao.markDone(3, false);
+        todoItemsDao.flush();
+        todoItemsDao.reassignAll(people.get(1).getId(), people.get(2).getId());
+        todoItemsDao.deleteByIds(Arrays.asList(4, 5, 6));
+        Todo updated = todoItemsDao.findById(8);
+        updated.setDone(false);
+        updated.setDeadline(TODAY);
+        updated.setAssignee(null);
+        todoItemsDao.update(updated);
+
+        assertMatchesCounts(statisticsDao.getStatistics(DUE_WITHIN_DAYS));
+        assertMatchesCounts(statisticsDao.getStatistics(0));
+    }
+
+    @Test
+    void cachedSnapshotIsServedUntilItExpires() throws Exception {
+        statisticsDao.enableSnapshotCache(200, TimeUnit.MILLISECONDS);
+        TodoStatistics cached = statisticsDao.getStatistics(DUE_WITHIN_DAYS);
+        todoItemsDao.create(new Todo("Late", TODAY.minusDays(1), null));
+
+        assertSame(cached, statisticsDao.getStatistics(DUE_WITHIN_DAYS));
+        Thread.sleep(250);
+        assertMatchesCounts(statisticsDao.getStatistics(DUE_WITHIN_DAYS));
+    }
+
+    private void assertMatchesCounts(TodoStatistics statistics) throws SQLException {
+        LocalDate today = statistics.getAsOf();
+        LocalDate dueBy = today.plusDays(statistics.getDueWithinDays());
+        assertEquals(count("done = 1"), statistics.getDoneCount());
+        assertEquals(count(OPEN), statistics.getUndoneCount());
+        assertEquals(count("1 = 1"), statistics.getTotalCount());
+        assertEquals(count("assignee_id IS NULL"), statistics.getUnassignedCount());
+        assertEquals(count(OPEN + " AND deadline < ?", today), statistics.getOverdueCount());
+        assertEquals(count(OPEN + " AND deadline BETWEEN ? AND ?", today, dueBy), statistics.getDueWithinDaysCount());
+        assertEquals(openCountByAssignee(), statistics.getOpenCountByAssignee());
+    }
+
+    private static long count(String condition, LocalDate... dates) throws SQLException {
+        try (
+                Connection connection = TestDatabase.getDataSource().getConnection();
+                PreparedStatement preparedStatement = connection.prepareStatement(
+                        "SELECT COUNT(*) FROM todo_item WHERE " + condition)
+        ) {
+            for (int i = 0; i < dates.length; i++) {
+                preparedStatement.setDate(i + 1, Date.valueOf(dates[i]));
+            }
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                resultSet.next();
+                return resultSet.getLong(1);
+            }
+        }
+    }
+
+    private static Map<Integer, Long> openCountByAssignee() throws SQLException {
+        Map<Integer, Long> counts = new HashMap<>();
+        try (
+                Connection connection = TestDatabase.getDataSource().getConnection();
+                PreparedStatement preparedStatement = connection.prepareStatement(
+                        "SELECT assignee_id, COUNT(*) FROM todo_item WHERE assignee_id IS NOT NULL AND " + OPEN
+                                + " GROUP BY assignee_id");
+                ResultSet resultSet = preparedStatement.executeQuery()
+        ) {
+            while (resultSet.next()) {
+                counts.put(resultSet.getInt(1), resultSet.getLong(2));
+            }
+        }
+        return counts;
+    }
+}
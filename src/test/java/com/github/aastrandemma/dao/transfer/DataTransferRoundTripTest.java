@@ -0,0 +1,209 @@
+package com.github.aastrandemma.dao.transfer;
+
+import com.github.aastrandemma.dao.PeopleDao;
+import com.github.aastrandemma.dao.TodoItemsDao;
+import com.github.aastrandemma.dao.db.ConnectionPool;
+import com.github.aastrandemma.dao.db.ConnectionPoolConfig;
+import com.github.aastrandemma.dao.impl.PeopleDaoImpl;
+import com.github.aastrandemma.dao.impl.TodoItemsDaoImpl;
+import com.github.aastrandemma.model.Person;
+import com.github.aastrandemma.model.Todo;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+// Exporting from one database and importing into another gives back the same people and todos, assignees included
+class DataTransferRoundTripTest {
+    private static final String JDBC_URL_FORMAT = "jdbc:h2:mem:%s;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+    private static final String[] SCHEMA = {
+            "DROP ALL OBJECTS",
+            "CREATE TABLE person ("
+                    + "person_id INT NOT NULL AUTO_INCREMENT, "
+                    + "first_name VARCHAR(255) NULL, "
+                    + "last_name VARCHAR(255) NULL, "
+                    + "PRIMARY KEY (person_id))",
+            "CREATE TABLE todo_item ("
+                    + "todo_id INT NOT NULL AUTO_INCREMENT, "
+                    + "title VARCHAR(50) NULL, "
+                    + "description VARCHAR(1000) NULL, "
+                    + "deadline DATE NULL, "
+                    + "done TINYINT NULL DEFAULT 0, "
+                    + "assignee_id INT NULL, "
+                    + "PRIMARY KEY (todo_id), "
+                    + "CONSTRAINT fk_todo_item_person FOREIGN KEY (assignee_id) REFERENCES person (person_id))"
+    };
+    private static final int TODO_COUNT = 250;
+
+    @TempDir
+    Path directory;
+
+    private ConnectionPool sourcePool;
+    private ConnectionPool targetPool;
+    private PeopleDao sourcePeople;
+    private TodoItemsDao sourceTodos;
+    private PeopleDao targetPeople;
+    private TodoItemsDao targetTodos;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        sourcePool = createDatabase("transfer_source");
+        targetPool = createDatabase("transfer_target");
+        sourceTodos = new TodoItemsDaoImpl(sourcePool);
+        sourcePeople = new PeopleDaoImpl(sourcePool, sourceTodos);
+        targetTodos = new TodoItemsDaoImpl(targetPool);
+        targetPeople = new PeopleDaoImpl(targetPool, targetTodos);
+
+        List<Person> people = new ArrayList<>();
+        people.add(sourcePeople.create(new Person("Ada", "Lovelace")));
+        people.add(sourcePeople.create(new Person("Zoë", "O'Brien, Jr.")));
+        people.add(sourcePeople.create(new Person("Quote \"Q\"", "Multi\nLine")));
+        List<Todo> todos = new ArrayList<>();
+        todos.add(new Todo("Buy \"milk\", eggs", "Line one\nLine two\r\nLine three", LocalDate.of(2026, 2, 28), people.get(0)));
+        todos.add(new Todo("Empty description", "", null, people.get(1)));
+        todos.add(new Todo("No description", null, LocalDate.of(2030, 12, 31), null));
+        todos.add(new Todo("Café ☕ \\ backslash", "{\"json\": [1, 2]}\ttab", LocalDate.of(2026, 1, 1), people.get(2)));
+        for (int i = 0; i < TODO_COUNT - 4; i++) {
+            todos.add(new Todo("Todo " + i, "Description " + i, LocalDate.of(2026, 1, 1).plusDays(i),
+                    i % 4 == 0 ? null : people.get(i % people.size())));
+        }
+        for (int i = 0; i < todos.size(); i += 3) {
+            todos.get(i).setDone(true);
+        }
+        sourceTodos.createAll(todos);
+
+        // Generated ids in the target differ from the exported ones
+        targetPeople.create(new Person("Already", "There"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        sourcePool.close();
+        targetPool.close();
+    }
+
+    @Test
+    void csvRoundTrip() {
+        assertRoundTrip("csv");
+    }
+
+    @Test
+    void jsonLinesRoundTrip() {
+        assertRoundTrip("jsonl");
+    }
+
+    @Test
+    void interruptedImportResumesFromItsCheckpoint() {
+        Path peopleFile = directory.resolve("people.csv");
+        Path todosFile = directory.resolve("todos.csv");
+        DataExporter exporter = new DataExporter(sourcePeople, sourceTodos);
+        exporter.exportPeople(peopleFile);
+        exporter.exportTodoItems(todosFile);
+        Path peopleCheckpoint = directory.resolve("people.checkpoint");
+        Path todosCheckpoint = directory.resolve("todos.checkpoint");
+
+        DataImporter interrupted = new DataImporter(targetPeople, failsOnCreateAllCall(targetTodos, 2), 100, 2);
+        interrupted.importPeople(peopleFile, peopleCheckpoint);
+        assertThrows(IllegalStateException.class, () -> interrupted.importTodoItems(todosFile, todosCheckpoint));
+        assertEquals(100, targetTodos.findAll().size());
+
+        // A new run, like after a restart: the id mapping comes back from the people checkpoint
+        DataImporter resumed = new DataImporter(targetPeople, targetTodos, 100, 2);
+        resumed.importPeople(peopleFile, peopleCheckpoint);
+        TransferReport report = resumed.importTodoItems(todosFile, todosCheckpoint);
+
+        assertEquals(TODO_COUNT - 100, report.getRecords());
+        assertEquals(100, report.getSkippedRecords());
+        assertEquals(TODO_COUNT, targetTodos.findAll().size());
+        assertEquals(todoLines(sourceTodos.findAll()), todoLines(targetTodos.findAll()));
+    }
+
+    private void assertRoundTrip(String extension) {
+        Path peopleFile = directory.resolve("people." + extension);
+        Path todosFile = directory.resolve("todos." + extension);
+        DataExporter exporter = new DataExporter(sourcePeople, sourceTodos);
+        assertEquals(3, exporter.exportPeople(peopleFile).getRecords());
+        assertEquals(TODO_COUNT, exporter.exportTodoItems(todosFile).getRecords());
+
+        DataImporter importer = new DataImporter(targetPeople, targetTodos, 64, 2);
+        assertEquals(3, importer.importPeople(peopleFile, null).getRecords());
+        TransferReport report = importer.importTodoItems(todosFile, null);
+
+        assertEquals(TODO_COUNT, report.getRecords());
+        assertEquals(0, report.getUnresolvedReferences());
+        List<String> expectedPeople = personLines(sourcePeople.findAll());
+        expectedPeople.add("Already|There");
+        expectedPeople.sort(null);
+        assertEquals(expectedPeople, personLines(targetPeople.findAll()));
+        assertEquals(todoLines(sourceTodos.findAll()), todoLines(targetTodos.findAll()));
+    }
+
+    private static ConnectionPool createDatabase(String name) throws SQLException {
+        ConnectionPoolConfig config = new ConnectionPoolConfig(String.format(JDBC_URL_FORMAT, name), "sa", "");
+        config.setMinIdle(0);
+        ConnectionPool pool = new ConnectionPool(config);
+        try (
+                Connection connection = pool.getConnection();
+                Statement statement = connection.createStatement()
+        ) {
+            for (String ddl : SCHEMA) {
+                statement.execute(ddl);
+            }
+        }
+        return pool;
+    }
+
+    // Fails the given createAll call, as if the process died while importing that chunk
+    private static TodoItemsDao failsOnCreateAllCall(TodoItemsDao target, int failingCall) {
+        AtomicInteger calls = new AtomicInteger();
+        return (TodoItemsDao) Proxy.newProxyInstance(
+                TodoItemsDao.class.getClassLoader(),
+                new Class<?>[]{TodoItemsDao.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("createAll") && calls.incrementAndGet() == failingCall) {
+                        throw new IllegalStateException("Import interrupted");
+                    }
+                    try {
+                        return method.invoke(target, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+
+    private static List<String> personLines(Collection<Person> people) {
+        List<String> lines = new ArrayList<>();
+        for (Person person : people) {
+            lines.add(person.getFirstName() + "|" + person.getLastName());
+        }
+        lines.sort(null);
+        return lines;
+    }
+
+    // Ids differ between the databases, the assignee is compared by name
+    private static List<String> todoLines(Collection<Todo> todos) {
+        List<String> lines = new ArrayList<>();
+        for (Todo todo : todos) {
+            Person assignee = todo.getAssignee();
+            lines.add(todo.getTitle() + "|" + todo.getDescription() + "|" + todo.getDeadline() + "|" + todo.isDone()
+                    + "|" + (assignee == null ? null : assignee.getFirstName() + " " + assignee.getLastName()));
+        }
+        lines.sort(null);
+        return lines;
+    }
+}
@@ -0,0 +1,31 @@
+package com.github.aastrandemma.model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TodoTest {
+
+    @Test
+    void sameAssigneeIdOutsideIntegerCacheIsNotDirty() {
+        Todo todo = new Todo(1, "Title", "Description", null, false, new Person(1000, "Ada", "Lovelace"));
+        todo.clearDirtyFields();
+
+        todo.setAssignee(new Person(1000, "Ada", "Lovelace"));
+
+        assertEquals(0, todo.getDirtyFields());
+    }
+
+    @Test
+    void changedOrRemovedAssigneeIsDirty() {
+        Todo todo = new Todo(1, "Title", "Description", null, false, new Person(1000, "Ada", "Lovelace"));
+        todo.clearDirtyFields();
+
+        todo.setAssignee(new Person(1001, "Grace", "Hopper"));
+        assertEquals(Todo.FIELD_ASSIGNEE, todo.getDirtyFields());
+
+        todo.clearDirtyFields();
+        todo.setAssignee(null);
+        assertEquals(Todo.FIELD_ASSIGNEE, todo.getDirtyFields());
+    }
+}